@@ -0,0 +1,121 @@
+package jbse.algo;
+
+import static jbse.algo.Algo_INVOKEMETA_Metacircular.allConstant;
+import static jbse.algo.Algo_INVOKEMETA_Metacircular.invokeMetacircularly;
+import static jbse.algo.Algo_INVOKEMETA_Metacircular.isReflectable;
+import static jbse.algo.Util.continueWith;
+import static jbse.algo.Util.continueWithBaseLevelImpl;
+import static jbse.algo.Util.exitFromAlgorithm;
+import static jbse.algo.Util.failExecution;
+import static jbse.algo.Util.throwNew;
+import static jbse.bc.Signatures.OUT_OF_MEMORY_ERROR;
+import static jbse.common.Type.INT;
+import static jbse.common.Type.isPrimitive;
+import static jbse.common.Type.isPrimitiveOpStack;
+import static jbse.common.Type.parametersNumber;
+import static jbse.common.Type.splitReturnValueDescriptor;
+
+import java.util.function.Supplier;
+
+import jbse.algo.exc.CannotInvokeNativeException;
+import jbse.common.exc.ClasspathException;
+import jbse.common.exc.InvalidInputException;
+import jbse.mem.State;
+import jbse.mem.exc.HeapMemoryExhaustedException;
+import jbse.tree.DecisionAlternative_NONE;
+import jbse.val.Primitive;
+import jbse.val.Value;
+
+/**
+ * {@link Algo_INVOKEMETA} implementing the effect of
+ * a method call to a method that is known to have no side
+ * effects on the symbolic state (e.g., a method of
+ * {@code java.lang.String} or {@code java.lang.Math}),
+ * by offloading it to the meta-level JVM whenever possible.
+ * More precisely:
+ * <ul>
+ * <li>If the method's parameters are all constant (i.e., either {@link jbse.val.Simplex}
+ *     or constant {@link String}s) and its return type is either void, primitive, or
+ *     {@link String}, then reflection is used to metacircularly invoke the method
+ *     on the reified parameters, and the corresponding return value (if any) is
+ *     reflected back and pushed on the operand stack, in a single step;</li>
+ * <li>Otherwise, or if the metacircular invocation fails for any reason (including
+ *     the method raising an exception), it continues with the execution of the
+ *     method's bytecode.
+ * </ul>
+ * Only primitive values and {@link String}s are reified: Invocations
+ * with parameters that refer arrays, or objects that are not
+ * {@link String}s, are never offloaded, even if the heap reachable
+ * from them is concrete. A constant {@link String} is determined by
+ * its characters, so no further check on the heap is needed.
+ * Differently from {@link Algo_INVOKEMETA_Metacircular}, the offloading is
+ * also done during the pre-initial phase, and no uninterpreted function
+ * is ever introduced.
+ *
+ * @author Pietro Braione
+ */
+public final class Algo_INVOKEMETA_ConcreteOffload extends Algo_INVOKEMETA_Nonbranching {
+    private final Algo_INVOKEMETA_Metacircular algo_INVOKEMETA_Metacircular = new Algo_INVOKEMETA_Metacircular();
+    private Value valToPush; //set by cookMore
+
+    @Override
+    protected final Supplier<Integer> numOperands() {
+        return () -> {
+            return parametersNumber(this.data.signature().getDescriptor(), this.isStatic);
+        };
+    }
+
+    @Override
+    protected void cleanup() {
+        this.valToPush = null;
+        super.cleanup();
+    }
+
+    @Override
+    protected void cookMore(State state) throws InterruptException, InvalidInputException {
+    	//if this algorithm is overriding a native method, the only
+    	//possible alternative is trying to execute it metacircularly
+    	if (this.isOverriddenMethodNative) {
+    		this.algo_INVOKEMETA_Metacircular.setFeatures(this.isInterface, this.isSpecial, this.isStatic, this.isOverriddenMethodNative, this.methodSignatureImplementation);
+    		continueWith(this.algo_INVOKEMETA_Metacircular);
+    	}
+
+    	//if the invocation cannot be reflected, executes
+    	//the method's bytecode
+    	final Value[] args = this.data.operands();
+    	final String returnType = splitReturnValueDescriptor(this.methodSignatureImplementation.getDescriptor());
+    	if (!allConstant(state, args) || !isReflectable(returnType)) {
+    		continueWithBaseLevelImpl(state, this.isInterface, this.isSpecial, this.isStatic);
+    	}
+
+    	//offloads the invocation to the meta-level
+    	try {
+    		this.valToPush = invokeMetacircularly(state, this.ctx.getCalculator(), this.methodSignatureImplementation, this.isStatic, args);
+    	} catch (HeapMemoryExhaustedException e) {
+    		try {
+    			throwNew(state, this.ctx.getCalculator(), OUT_OF_MEMORY_ERROR);
+    		} catch (ClasspathException exc) {
+    			//this should never happen
+    			failExecution(exc);
+    		}
+    		exitFromAlgorithm();
+    	} catch (CannotInvokeNativeException e) {
+    		//the method is not accessible, or raised an
+    		//exception: executes the method's bytecode
+    		continueWithBaseLevelImpl(state, this.isInterface, this.isSpecial, this.isStatic);
+    	}
+    }
+
+	@Override
+	protected StrategyUpdate<DecisionAlternative_NONE> updater() {
+        return (state, alt) -> {
+            if (this.valToPush == null) {
+                //void method, nothing to push
+            } else if (isPrimitive(this.valToPush.getType()) && !isPrimitiveOpStack(this.valToPush.getType())) {
+                state.pushOperand(this.ctx.getCalculator().push((Primitive) this.valToPush).widen(INT).pop());
+            } else {
+                state.pushOperand(this.valToPush);
+            }
+        };
+	}
+}
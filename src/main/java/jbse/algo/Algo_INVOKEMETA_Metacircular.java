@@ -34,6 +34,7 @@ import jbse.algo.exc.CannotAccessImplementationReflectively;
 import jbse.algo.exc.CannotInvokeNativeException;
 import jbse.algo.exc.SymbolicValueNotAllowedException;
 import jbse.bc.ClassFile;
+import jbse.bc.Signature;
 import jbse.bc.exc.BadClassFileVersionException;
 import jbse.bc.exc.ClassFileIllFormedException;
 import jbse.bc.exc.ClassFileNotAccessibleException;
@@ -127,28 +128,16 @@ StrategyUpdate<DecisionAlternative_XLOAD_GETX>> {
         	
             //checks whether the parameters are all constant
         	final Value[] args = this.data.operands();
-            boolean allConstant = true;
-            for (int i = 0; i < args.length; ++i) {
-                if ((args[i] instanceof Primitive) && !(args[i] instanceof Simplex)) {
-                    allConstant = false;
-                    break;
-                }
-                if (args[i] instanceof Reference) {
-                    if (valueString(state, (Reference) args[i]) == null) {
-                        allConstant = false;
-                        break;
-                    }
-                }
-            }
+            final boolean allConstant = allConstant(state, args);
 
             //determines the return value or whether it must perform
             //a metacircular method invocation
             final String returnType = splitReturnValueDescriptor(this.methodSignatureImplementation.getDescriptor());
             this.isVoid = isVoid(returnType);
-            if (allConstant && (this.isVoid || isPrimitive(returnType) || JAVA_STRING.equals(className(returnType)))) {
+            if (allConstant && isReflectable(returnType)) {
                 //delegates to metacircular invocation
                 try {
-                    this.valToLoad = invokeMetacircularly(state, this.data.operands());
+                    this.valToLoad = invokeMetacircularly(state, this.ctx.getCalculator(), this.methodSignatureImplementation, this.isStatic, this.data.operands());
                 } catch (HeapMemoryExhaustedException e) {
                     throwNew(state, this.ctx.getCalculator(), OUT_OF_MEMORY_ERROR);
                     exitFromAlgorithm();
@@ -171,13 +160,68 @@ StrategyUpdate<DecisionAlternative_XLOAD_GETX>> {
         };
     }
 
-    private Value invokeMetacircularly(State state, Value[] args) 
+    /**
+     * Checks whether a sequence of arguments can be reflected
+     * for a metacircular invocation.
+     * 
+     * @param state a {@link State}.
+     * @param args a {@link Value}{@code []}.
+     * @return {@code true} iff all the values in {@code args} are
+     *         either {@link Simplex} or references to concrete
+     *         {@link String}s.
+     * @throws FrozenStateException if {@code state} is frozen.
+     */
+    static boolean allConstant(State state, Value[] args) throws FrozenStateException {
+        for (int i = 0; i < args.length; ++i) {
+            if ((args[i] instanceof Primitive) && !(args[i] instanceof Simplex)) {
+                return false;
+            }
+            if (args[i] instanceof Reference) {
+                if (valueString(state, (Reference) args[i]) == null) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Checks whether a value returned by a metacircular 
+     * invocation can be reified.
+     * 
+     * @param returnType a {@link String}, the return type 
+     *        of a method.
+     * @return {@code true} iff {@code returnType} is void, 
+     *         primitive or {@link String}.
+     */
+    static boolean isReflectable(String returnType) {
+        return (isVoid(returnType) || isPrimitive(returnType) || JAVA_STRING.equals(className(returnType)));
+    }
+
+    /**
+     * Invokes a method metacircularly.
+     * 
+     * @param state a {@link State}.
+     * @param calc a {@link Calculator}.
+     * @param methodSignature the {@link Signature} of the method to invoke.
+     * @param isStatic {@code true} iff the method is static.
+     * @param args a {@link Value}{@code []}, the arguments of the invocation.
+     *        It must be {@link #allConstant(State, Value[]) allConstant}{@code (state, args)}.
+     * @return the {@link Value} returned by the method, or {@code null} if
+     *         it is void.
+     * @throws CannotInvokeNativeException if the method cannot be invoked 
+     *         reflectively, or it raises an exception.
+     * @throws HeapMemoryExhaustedException if the heap is exhausted while 
+     *         reifying the return value.
+     * @throws InvalidInputException if {@code state} is frozen.
+     */
+    static Value invokeMetacircularly(State state, Calculator calc, Signature methodSignature, boolean isStatic, Value[] args) 
     throws CannotInvokeNativeException, HeapMemoryExhaustedException, InvalidInputException {
         try {
             //reflects the arguments
-            final String[] argsType = splitParametersDescriptors(this.methodSignatureImplementation.getDescriptor());
+            final String[] argsType = splitParametersDescriptors(methodSignature.getDescriptor());
             final Object[] argsRefl = new Object[args.length];
-            final Class<?> methodClass = Class.forName(binaryClassName(this.methodSignatureImplementation.getClassName()));
+            final Class<?> methodClass = Class.forName(binaryClassName(methodSignature.getClassName()));
             final Class<?>[] argsClass = new Class[args.length];
             for (int i = 0; i < args.length; ++i) {
                 if (args[i] instanceof Simplex) {
@@ -189,37 +233,41 @@ StrategyUpdate<DecisionAlternative_XLOAD_GETX>> {
                         failExecution("Unexpected argument in metacircular invocation: " + args[i] + ".");
                     }
                 }
-                if (!this.isStatic && i == 0) {
+                if (!isStatic && i == 0) {
                 	argsClass[i] = methodClass;
                 } else {
-                	argsClass[i] = getJavaClass(argsType[i]);
+                	argsClass[i] = getJavaClass(argsType[isStatic ? i : i - 1]);
                 }
             }
             
             //prepares the method and the args for the metacircular method invocation
-            final Method m = methodClass.getDeclaredMethod(this.methodSignatureImplementation.getName(), argsClass);
-            m.setAccessible(true);
+            final Class<?>[] argsClassOther;
             final Object argThis;
             final Object[] argsOther;
-            if (this.isStatic) {
+            if (isStatic) {
+                argsClassOther = argsClass;
                 argThis = null;
                 argsOther = argsRefl;
             } else {
                 //this block works only if the "this" argument is a constant string
+                argsClassOther = new Class<?>[argsClass.length - 1];
+                arraycopy(argsClass, 1, argsClassOther, 0, argsClassOther.length);
                 argThis = argsRefl[0]; 
                 argsOther = new Object[argsRefl.length - 1];
                 arraycopy(argsRefl, 1, argsOther, 0, argsOther.length);
             }
+            final Method m = methodClass.getDeclaredMethod(methodSignature.getName(), argsClassOther);
+            m.setAccessible(true);
 
             //invokes the method
             final Object retValRefl = m.invoke(argThis, argsOther);
 
             //reifies the return value
-            final String returnType = splitReturnValueDescriptor(this.methodSignatureImplementation.getDescriptor());
-            if (this.isVoid) {
+            final String returnType = splitReturnValueDescriptor(methodSignature.getDescriptor());
+            if (isVoid(returnType)) {
                 return null;
             } else {
-                return toValue(state, retValRefl, returnType);
+                return toValue(state, calc, retValRefl, returnType);
             }
         } catch (ClassNotFoundException | SecurityException | 
                  NoSuchMethodException | IllegalArgumentException | 
@@ -250,9 +298,8 @@ StrategyUpdate<DecisionAlternative_XLOAD_GETX>> {
         }
     }
 
-    private Value toValue(State state, Object retValRefl, String type) 
+    private static Value toValue(State state, Calculator calc, Object retValRefl, String type) 
     throws HeapMemoryExhaustedException, InvalidInputException {
-    	final Calculator calc = this.ctx.getCalculator();
         if (isPrimitive(type)) {
             return calc.val_(retValRefl);
         } else if (JAVA_STRING.equals(className(type))) {
@@ -205,6 +205,18 @@ class DispatcherMeta extends Dispatcher<Signature, Algo_INVOKEMETA<?, ?, ?, ?>>
         loadMetaDelegate(methodSignatureResolved, metaDelegate);
     }
 
+    /**
+     * Loads an {@link Algorithm} to manage the invocation of a method 
+     * that must be offloaded to the meta-level whenever its arguments
+     * are concrete.
+     * 
+     * @param methodSignatureResolved the {@link Signature} of a <em>resolved</em> method.
+     */
+    void loadAlgoConcreteOffload(Signature methodSignatureResolved) {
+        final Algo_INVOKEMETA_ConcreteOffload metaDelegate = new Algo_INVOKEMETA_ConcreteOffload();
+        loadMetaDelegate(methodSignatureResolved, metaDelegate);
+    }
+
     private void loadMetaDelegate(Signature methodSignatureResolved, final Algo_INVOKEMETA<?, ?, ?, ?> metaDelegate) {
         setCase(methodSignatureResolved, () -> metaDelegate);
     }
@@ -1163,6 +1163,17 @@ public final class ExecutionContext {
         this.dispatcherMeta.loadAlgoUninterpreted(methodSignature);
     }
 
+    /**
+     * Allows to customize the behavior of the invocations of a method 
+     * without side effects on the symbolic state, by executing them
+     * metacircularly whenever their arguments are constant.
+     * 
+     * @param methodSignature the {@link Signature} of a method. 
+     */
+    public void addConcreteOffload(Signature methodSignature) { 
+        this.dispatcherMeta.loadAlgoConcreteOffload(methodSignature);
+    }
+
     /**
      * Allows to customize the behavior of the invocations of a 
      * set of methods by treating all their invocations as returning 
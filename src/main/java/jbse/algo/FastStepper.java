@@ -0,0 +1,215 @@
+package jbse.algo;
+
+import static jbse.bc.Offsets.BIPUSH_OFFSET;
+import static jbse.bc.Offsets.IINC_OFFSET;
+import static jbse.bc.Offsets.NOP_OFFSET;
+import static jbse.bc.Offsets.SIPUSH_OFFSET;
+import static jbse.bc.Offsets.XCONST_OFFSET;
+import static jbse.bc.Offsets.XLOADSTORE_IMMEDIATE_OFFSET;
+import static jbse.bc.Offsets.XLOADSTORE_IMPLICIT_OFFSET;
+import static jbse.bc.Opcodes.OP_ACONST_NULL;
+import static jbse.bc.Opcodes.OP_ALOAD;
+import static jbse.bc.Opcodes.OP_ALOAD_3;
+import static jbse.bc.Opcodes.OP_ASTORE;
+import static jbse.bc.Opcodes.OP_ASTORE_3;
+import static jbse.bc.Opcodes.OP_BIPUSH;
+import static jbse.bc.Opcodes.OP_DCONST_0;
+import static jbse.bc.Opcodes.OP_DCONST_1;
+import static jbse.bc.Opcodes.OP_FCONST_0;
+import static jbse.bc.Opcodes.OP_FCONST_2;
+import static jbse.bc.Opcodes.OP_GOTO;
+import static jbse.bc.Opcodes.OP_GOTO_W;
+import static jbse.bc.Opcodes.OP_ICONST_5;
+import static jbse.bc.Opcodes.OP_ICONST_M1;
+import static jbse.bc.Opcodes.OP_IINC;
+import static jbse.bc.Opcodes.OP_ILOAD;
+import static jbse.bc.Opcodes.OP_ILOAD_0;
+import static jbse.bc.Opcodes.OP_ISTORE;
+import static jbse.bc.Opcodes.OP_ISTORE_0;
+import static jbse.bc.Opcodes.OP_LCONST_0;
+import static jbse.bc.Opcodes.OP_LCONST_1;
+import static jbse.bc.Opcodes.OP_NOP;
+import static jbse.bc.Opcodes.OP_SIPUSH;
+import static jbse.common.Type.INT;
+import static jbse.common.Type.isPrimitiveOpStack;
+
+import jbse.mem.State;
+import jbse.mem.exc.FrozenStateException;
+import jbse.mem.exc.InvalidNumberOfOperandsException;
+import jbse.mem.exc.InvalidProgramCounterException;
+import jbse.mem.exc.InvalidSlotException;
+import jbse.mem.exc.ThreadStackEmptyException;
+import jbse.val.Calculator;
+import jbse.val.Null;
+import jbse.val.Primitive;
+import jbse.val.ReferenceConcrete;
+import jbse.val.Value;
+import jbse.val.exc.InvalidOperandException;
+import jbse.val.exc.InvalidTypeException;
+
+/**
+ * Executes, on a {@link State}, the simplest bytecodes (local
+ * variable loads and stores, constant pushes, iinc, nop and
+ * forward goto) whenever they cannot branch nor throw, without
+ * going through the {@link Algorithm} machinery. It is used by
+ * the engine to execute straight-line sequences of such bytecodes
+ * in a tight loop, without the overhead of the decision procedure,
+ * of the state tree and of the observers. Whenever a bytecode cannot
+ * be executed this way (it is not one of the supported bytecodes,
+ * it is prefixed by wide, or it operates on a symbolic reference,
+ * on an ill-typed value or on an invalid slot) the {@link FastStepper}
+ * leaves the {@link State} unchanged, so the bytecode can be executed
+ * by its {@link Algorithm}.
+ *
+ * @author Pietro Braione
+ */
+public final class FastStepper {
+    /** The {@link Calculator}. */
+    private final Calculator calc;
+
+    /**
+     * Constructor.
+     *
+     * @param calc a {@link Calculator}.
+     */
+    public FastStepper(Calculator calc) {
+        this.calc = calc;
+    }
+
+    /**
+     * Possibly executes the current bytecode of a {@link State}.
+     *
+     * @param state a {@link State}. It must not be stuck and its
+     *        thread stack must not be empty.
+     * @return {@code true} iff the current bytecode was executed,
+     *         in which case the program counter of {@code state}
+     *         points to the next bytecode; {@code false} iff
+     *         the current bytecode must be executed by its
+     *         {@link Algorithm}, in which case {@code state} is
+     *         left unchanged.
+     * @throws ThreadStackEmptyException if the thread stack is empty.
+     */
+    public boolean step(State state) throws ThreadStackEmptyException {
+        try {
+            if (state.nextWide()) {
+                return false;
+            }
+            final byte opcode = state.getInstruction();
+            if (opcode == OP_NOP) {
+                return advance(state, NOP_OFFSET);
+            } else if (opcode == OP_ACONST_NULL) {
+                return push(state, Null.getInstance(), XCONST_OFFSET);
+            } else if (opcode >= OP_ICONST_M1 && opcode <= OP_ICONST_5) {
+                return push(state, this.calc.valInt(opcode - OP_ICONST_M1 - 1), XCONST_OFFSET);
+            } else if (opcode == OP_LCONST_0 || opcode == OP_LCONST_1) {
+                return push(state, this.calc.valLong((long) (opcode - OP_LCONST_0)), XCONST_OFFSET);
+            } else if (opcode >= OP_FCONST_0 && opcode <= OP_FCONST_2) {
+                return push(state, this.calc.valFloat((float) (opcode - OP_FCONST_0)), XCONST_OFFSET);
+            } else if (opcode == OP_DCONST_0 || opcode == OP_DCONST_1) {
+                return push(state, this.calc.valDouble((double) (opcode - OP_DCONST_0)), XCONST_OFFSET);
+            } else if (opcode == OP_BIPUSH) {
+                return push(state, this.calc.valInt(state.getInstruction(1)), BIPUSH_OFFSET);
+            } else if (opcode == OP_SIPUSH) {
+                return push(state, this.calc.valInt(immediateSignedWord(state)), SIPUSH_OFFSET);
+            } else if (opcode >= OP_ILOAD && opcode <= OP_ALOAD) {
+                return load(state, immediateUnsignedByte(state), XLOADSTORE_IMMEDIATE_OFFSET);
+            } else if (opcode >= OP_ILOAD_0 && opcode <= OP_ALOAD_3) {
+                return load(state, (opcode - OP_ILOAD_0) % 4, XLOADSTORE_IMPLICIT_OFFSET);
+            } else if (opcode >= OP_ISTORE && opcode <= OP_ASTORE) {
+                return store(state, immediateUnsignedByte(state), XLOADSTORE_IMMEDIATE_OFFSET);
+            } else if (opcode >= OP_ISTORE_0 && opcode <= OP_ASTORE_3) {
+                return store(state, (opcode - OP_ISTORE_0) % 4, XLOADSTORE_IMPLICIT_OFFSET);
+            } else if (opcode == OP_IINC) {
+                return iinc(state);
+            } else if (opcode == OP_GOTO) {
+                return gotoForward(state, immediateSignedWord(state));
+            } else if (opcode == OP_GOTO_W) {
+                return gotoForward(state, immediateSignedDword(state));
+            } else {
+                return false;
+            }
+        } catch (InvalidProgramCounterException | InvalidSlotException |
+                 InvalidNumberOfOperandsException | InvalidOperandException |
+                 InvalidTypeException | FrozenStateException e) {
+            //the algorithm will manage the situation
+            return false;
+        }
+    }
+
+    private static int immediateUnsignedByte(State state)
+    throws InvalidProgramCounterException, ThreadStackEmptyException, FrozenStateException {
+        return Byte.toUnsignedInt(state.getInstruction(1));
+    }
+
+    private static int immediateSignedWord(State state)
+    throws InvalidProgramCounterException, ThreadStackEmptyException, FrozenStateException {
+        return (short) ((state.getInstruction(1) << 8) | Byte.toUnsignedInt(state.getInstruction(2)));
+    }
+
+    private static int immediateSignedDword(State state)
+    throws InvalidProgramCounterException, ThreadStackEmptyException, FrozenStateException {
+        return (state.getInstruction(1) << 24) | (Byte.toUnsignedInt(state.getInstruction(2)) << 16) |
+               (Byte.toUnsignedInt(state.getInstruction(3)) << 8) | Byte.toUnsignedInt(state.getInstruction(4));
+    }
+
+    private static boolean advance(State state, int offset)
+    throws InvalidProgramCounterException, ThreadStackEmptyException, FrozenStateException {
+        state.incProgramCounter(offset);
+        return true;
+    }
+
+    private static boolean push(State state, Value val, int offset)
+    throws InvalidProgramCounterException, ThreadStackEmptyException, FrozenStateException {
+        state.getInstruction(offset); //checks that the next program counter is valid before changing the state
+        state.pushOperand(val);
+        return advance(state, offset);
+    }
+
+    private static boolean load(State state, int slot, int offset)
+    throws InvalidProgramCounterException, InvalidSlotException, ThreadStackEmptyException, FrozenStateException {
+        final Value val = state.getLocalVariableValue(slot);
+        if (val instanceof Primitive && isPrimitiveOpStack(val.getType())) {
+            return push(state, val, offset);
+        } else if (val instanceof ReferenceConcrete || val instanceof Null) {
+            //symbolic references are not managed here because they need resolution
+            return push(state, val, offset);
+        } else {
+            return false;
+        }
+    }
+
+    private static boolean store(State state, int slot, int offset)
+    throws InvalidProgramCounterException, InvalidSlotException, InvalidNumberOfOperandsException,
+    ThreadStackEmptyException, FrozenStateException {
+        state.getInstruction(offset); //checks that the next program counter is valid before changing the state
+        final Value val = state.topOperand();
+        state.setLocalVariable(slot, val); //may fail, thus must precede pop
+        state.popOperand();
+        return advance(state, offset);
+    }
+
+    private boolean iinc(State state)
+    throws InvalidProgramCounterException, InvalidSlotException, InvalidOperandException,
+    InvalidTypeException, ThreadStackEmptyException, FrozenStateException {
+        final int slot = immediateUnsignedByte(state);
+        final int constant = state.getInstruction(2);
+        final Value val = state.getLocalVariableValue(slot);
+        if (!(val instanceof Primitive) || val.getType() != INT) {
+            return false;
+        }
+        state.getInstruction(IINC_OFFSET); //checks that the next program counter is valid before changing the state
+        final Primitive result = this.calc.push((Primitive) val).add(this.calc.valInt(constant)).pop();
+        state.setLocalVariable(slot, result);
+        return advance(state, IINC_OFFSET);
+    }
+
+    private static boolean gotoForward(State state, int jump)
+    throws InvalidProgramCounterException, ThreadStackEmptyException, FrozenStateException {
+        //backward jumps are not managed here, so every fast
+        //sequence of bytecodes is finite
+        if (jump <= 0) {
+            return false;
+        }
+        return advance(state, jump);
+    }
+}
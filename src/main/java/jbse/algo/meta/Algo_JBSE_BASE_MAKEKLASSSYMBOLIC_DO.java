@@ -12,7 +12,6 @@ import static jbse.bc.Signatures.JAVA_THREAD;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.Map;
 import java.util.function.Supplier;
 
 import jbse.algo.Algo_INVOKEMETA_Nonbranching;
@@ -34,7 +33,6 @@ import jbse.mem.Instance;
 import jbse.mem.Klass;
 import jbse.mem.Objekt;
 import jbse.mem.State;
-import jbse.mem.Variable;
 import jbse.mem.exc.FrozenStateException;
 import jbse.tree.DecisionAlternative_NONE;
 import jbse.val.Any;
@@ -185,13 +183,11 @@ public final class Algo_JBSE_BASE_MAKEKLASSSYMBOLIC_DO extends Algo_INVOKEMETA_N
         visited.add(currentObjekt);
 
         if (currentObjekt instanceof Instance || currentObjekt instanceof Klass) {
-            for (Map.Entry<Signature, Variable> entry : currentObjekt.fields().entrySet()) {
-                final Signature sig = entry.getKey();
-                final Variable var = entry.getValue();
+            for (Signature sig : currentObjekt.getStoredFieldSignatures()) {
                 final String fieldClass = sig.getClassName();
-                final String fieldName = var.getName();
-                final String fieldType = var.getType();
-                final Value fieldValue = var.getValue();
+                final String fieldName = sig.getName();
+                final String fieldType = sig.getDescriptor();
+                final Value fieldValue = currentObjekt.getFieldValue(sig);
                 if (fieldValue instanceof ReferenceConcrete) {
                     final ReferenceConcrete ref = (ReferenceConcrete) fieldValue;
                     if (state.isNull(ref)) {
@@ -199,7 +195,7 @@ public final class Algo_JBSE_BASE_MAKEKLASSSYMBOLIC_DO extends Algo_INVOKEMETA_N
                         final ReferenceSymbolic newFieldValue = (ReferenceSymbolic) state.createSymbolMemberField(fieldType, fieldType, currentObjekt.getOrigin(), fieldName, fieldClass);
 
                         //sets the field
-                        var.setValue(newFieldValue);
+                        currentObjekt.setFieldValue(sig, newFieldValue);
 
                         //records the resolution
                         this.assumeNull.add(newFieldValue);
@@ -216,7 +212,7 @@ public final class Algo_JBSE_BASE_MAKEKLASSSYMBOLIC_DO extends Algo_INVOKEMETA_N
                             final ReferenceSymbolic newFieldValue = (ReferenceSymbolic) state.createSymbolMemberField(fieldType, fieldType, currentObjekt.getOrigin(), fieldName, fieldClass);
 
                             //sets the field
-                            var.setValue(newFieldValue);
+                            currentObjekt.setFieldValue(sig, newFieldValue);
 
                             if (o.isSymbolic()) {
                                 //records the resolution by alias
@@ -251,7 +247,7 @@ public final class Algo_JBSE_BASE_MAKEKLASSSYMBOLIC_DO extends Algo_INVOKEMETA_N
                     final ReferenceSymbolic newFieldValue = (ReferenceSymbolic) state.createSymbolMemberField(fieldType, fieldType, currentObjekt.getOrigin(), fieldName, fieldClass);
 
                     //sets the field
-                    var.setValue(newFieldValue);
+                    currentObjekt.setFieldValue(sig, newFieldValue);
 
                     //calculates the assumption
                     final ReferenceSymbolic ref = (ReferenceSymbolic) fieldValue;
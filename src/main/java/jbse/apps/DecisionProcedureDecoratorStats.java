@@ -162,6 +162,15 @@ public final class DecisionProcedureDecoratorStats extends DecisionProcedureDeco
         return result;
     }
     
+    @Override
+    public Map<PrimitiveSymbolic, Simplex> getModel(Collection<? extends PrimitiveSymbolic> symbols) throws DecisionException {
+        startTimer();
+        final Map<PrimitiveSymbolic, Simplex> result = super.getModel(symbols);
+        final long elapsed = elapsed();
+        System.err.println("GETMODEL\t" + symbols + "\t" + result + "\t" + elapsed);
+        return result;
+    }
+    
     @Override
     public Primitive simplify(Primitive c) throws DecisionException {
         startTimer();
@@ -155,6 +155,14 @@ public class DecisionProcedureDecoratorTimer extends DecisionProcedureDecorator
         return result;
     }
     
+    @Override
+    public Map<PrimitiveSymbolic, Simplex> getModel(Collection<? extends PrimitiveSymbolic> symbols) throws DecisionException {
+        startTimer();
+        final Map<PrimitiveSymbolic, Simplex> result = super.getModel(symbols);
+        stopTimer();
+        return result;
+    }
+    
     @Override
     public Primitive simplify(Primitive c) throws DecisionException {
         startTimer();
@@ -14,65 +14,225 @@ import org.jetbrains.research.kex.reanimator.callstack.CallStack;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static jbse.common.Type.*;
 
 public class StateFormatterDescriptor implements Formatter {
+    private static final String NO_CALL_STACK = "null";
+    
+    /** The capacity of the queue of the reanimator workers, per worker. */
+    private static final int REANIMATIONS_QUEUED_PER_THREAD = 4;
+    
     private static ReanimatorRunner runner = null;
     private final Set<Symbolic> topLevelSymbols = new HashSet<>();
     private final Map<Symbolic, Desc> descriptors = new HashMap<>();
     private final HashMap<String, String> symbolsToVariables = new HashMap<>();
-    private final Supplier<Map<PrimitiveSymbolic, Simplex>> modelSupplier;
+    private final Function<Collection<PrimitiveSymbolic>, Map<PrimitiveSymbolic, Simplex>> modelProvider;
     private final Supplier<State> initialStateSupplier;
+    
+    /** 
+     * The pool of the reanimator workers, or {@code null} if 
+     * reanimation is performed by {@link #emit()}. 
+     */
+    private final ThreadPoolExecutor reanimators;
+    
+    /** The {@link Reanimator}s of the reanimator workers, one per worker. */
+    private final ThreadLocal<Reanimator> workerReanimators;
+    
+    /** The pending reanimations, in the order the states were formatted. */
+    private final ArrayDeque<Future<String>> pending = new ArrayDeque<>();
+    
+    /** The reanimated call stacks to be emitted. */
+    private final StringBuilder output = new StringBuilder();
+    
+    /** Caches the invocation of the method under test. */
+    private RootInvocation rootInvocation = null;
 
     private static void initReanimator(Path kexConf, Path sourcePaths, org.jetbrains.research.kfg.Package pkg) {
         runner = new ReanimatorRunner(kexConf.toAbsolutePath(), sourcePaths, pkg);
     }
 
     public StateFormatterDescriptor(Path kexCong, Path sourcePaths, org.jetbrains.research.kfg.Package pkg,
-                                    Supplier<State> initialStateSupplier, Supplier<Map<PrimitiveSymbolic, Simplex>> modelSupplier) {
+                                    Supplier<State> initialStateSupplier, Function<Collection<PrimitiveSymbolic>, Map<PrimitiveSymbolic, Simplex>> modelProvider) {
+        this(kexCong, sourcePaths, pkg, initialStateSupplier, modelProvider, 0);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param kexCong the {@link Path} of the kex configuration file.
+     * @param sourcePaths the {@link Path} of the classes under test.
+     * @param pkg the {@link org.jetbrains.research.kfg.Package} of the classes under test.
+     * @param initialStateSupplier a {@link Supplier} for the initial state of the symbolic execution.
+     * @param modelProvider a {@link Function} returning the model of the path condition of the formatted states,
+     *        restricted to the symbols it receives.
+     * @param reanimatorThreads an {@code int}, the number of reanimator workers. If it is 
+     *        positive, the descriptors of the formatted states are queued to a pool of 
+     *        {@code reanimatorThreads} workers, each with its own {@link ReanimatorRunner}, 
+     *        and {@link #emit()} returns the call stacks reanimated so far, in the order their
+     *        states were formatted; {@link #formatEpilogue()} waits for all of them. When 
+     *        the queue is full {@link #formatState(State)} blocks until a worker 
+     *        takes a reanimation from it. If {@code reanimatorThreads <= 0} each 
+     *        state is reanimated by {@link #emit()}.
+     */
+    public StateFormatterDescriptor(Path kexCong, Path sourcePaths, org.jetbrains.research.kfg.Package pkg,
+                                    Supplier<State> initialStateSupplier, Function<Collection<PrimitiveSymbolic>, Map<PrimitiveSymbolic, Simplex>> modelProvider,
+                                    int reanimatorThreads) {
         this.initialStateSupplier = initialStateSupplier;
-        this.modelSupplier = modelSupplier;
-        if (runner == null)
-            initReanimator(kexCong, sourcePaths, pkg);
+        this.modelProvider = modelProvider;
+        if (reanimatorThreads <= 0) {
+            this.reanimators = null;
+            this.workerReanimators = null;
+            if (runner == null)
+                initReanimator(kexCong, sourcePaths, pkg);
+        } else {
+            final Path kexConfAbsolute = kexCong.toAbsolutePath();
+            this.workerReanimators = ThreadLocal.withInitial(() -> {
+                final ReanimatorRunner workerRunner = new ReanimatorRunner(kexConfAbsolute, sourcePaths, pkg);
+                return (topLevelDescs, variables, root) -> reanimate(workerRunner, topLevelDescs, variables, root);
+            });
+            this.reanimators = makeReanimators(reanimatorThreads);
+        }
+    }
+
+    /**
+     * Constructor for parallel reanimation with custom {@link Reanimator}s.
+     * 
+     * @param initialStateSupplier a {@link Supplier} for the initial state of the symbolic execution.
+     * @param modelProvider a {@link Function} returning the model of the path condition of the formatted states,
+     *        restricted to the symbols it receives.
+     * @param reanimatorFactory a {@link Supplier} invoked by each worker to create its own {@link Reanimator}.
+     * @param reanimatorThreads a positive {@code int}, the number of reanimator workers.
+     */
+    StateFormatterDescriptor(Supplier<State> initialStateSupplier, Function<Collection<PrimitiveSymbolic>, Map<PrimitiveSymbolic, Simplex>> modelProvider,
+                             Supplier<Reanimator> reanimatorFactory, int reanimatorThreads) {
+        this.initialStateSupplier = initialStateSupplier;
+        this.modelProvider = modelProvider;
+        this.workerReanimators = ThreadLocal.withInitial(reanimatorFactory);
+        this.reanimators = makeReanimators(reanimatorThreads);
+    }
+
+    private static ThreadPoolExecutor makeReanimators(int reanimatorThreads) {
+        return new ThreadPoolExecutor(reanimatorThreads, reanimatorThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(REANIMATIONS_QUEUED_PER_THREAD * reanimatorThreads),
+                r -> {
+                    final Thread t = new Thread(r, "Reanimator");
+                    t.setDaemon(true);
+                    return t;
+                },
+                (r, executor) -> {
+                    //back-pressure: waits for room in the queue
+                    try {
+                        executor.getQueue().put(r);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException(e);
+                    }
+                });
     }
 
     @Override
     public void formatState(State s) {
         try {
-            initDescriptors(s, modelSupplier.get());
+            initDescriptors(s, this.modelProvider.apply(primitiveSymbolsIn(s.getPathCondition())));
         } catch (FrozenStateException e) {
             e.printStackTrace();
         } catch (NullPointerException e) {
             System.out.println(e.getMessage());
         }
+        if (this.reanimators != null) {
+            //the reanimation takes ownership of the descriptors, 
+            //that are rebuilt from scratch for the next state
+            final Set<Desc> topLevelDescs = topLevelSymbols.stream().map(descriptors::get).collect(Collectors.toSet());
+            final Set<String> variables = new HashSet<>(symbolsToVariables.values());
+            final RootInvocation root = getRootInvocation();
+            final ThreadLocal<Reanimator> workers = this.workerReanimators;
+            this.pending.add(this.reanimators.submit(() -> workers.get().reanimate(topLevelDescs, variables, root)));
+        }
+    }
+
+    @Override
+    public void formatEpilogue() {
+        if (this.reanimators != null) {
+            while (!this.pending.isEmpty()) {
+                this.output.append(result(this.pending.poll()));
+            }
+            this.reanimators.shutdown();
+        }
     }
 
     @Override
     public String emit() {
+        if (this.reanimators == null) {
+            RootInvocation root = null;
+            try {
+                root = makeRootInvocation(initialStateSupplier.get());
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            return reanimate(runner, topLevelSymbols.stream().map(descriptors::get).collect(Collectors.toSet()), 
+                             new HashSet<>(symbolsToVariables.values()), root);
+        }
+        while (!this.pending.isEmpty() && this.pending.peek().isDone()) {
+            this.output.append(result(this.pending.poll()));
+        }
+        return this.output.toString();
+    }
+
+    @Override
+    public void cleanup() {
+        topLevelSymbols.clear();
+        descriptors.clear();
+        symbolsToVariables.clear();
+        output.setLength(0);
+    }
+    
+    private RootInvocation getRootInvocation() {
+        if (this.rootInvocation == null) {
+            try {
+                this.rootInvocation = makeRootInvocation(initialStateSupplier.get());
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        return this.rootInvocation;
+    }
+    
+    private static String result(Future<String> reanimation) {
+        try {
+            return reanimation.get();
+        } catch (ExecutionException e) {
+            e.getCause().printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return NO_CALL_STACK + "\n\n";
+    }
+
+    private static String reanimate(ReanimatorRunner runner, Set<Desc> topLevelDescs, Set<String> variables, RootInvocation root) {
         CallStack stack = null;
         try {
-            Map<Desc, CallStack> stacks = runner.convert(topLevelSymbols.stream().map(descriptors::get).collect(Collectors.toSet()));
+            Map<Desc, CallStack> stacks = runner.convert(topLevelDescs);
             Map<String, CallStack> namedStacks = stacks.entrySet().stream().collect(Collectors.toMap(
                     descCallStackEntry -> descCallStackEntry.getKey().getName(),
                     Map.Entry::getValue
             ));
-            stack = getInvocationOfMethodUnderTest(initialStateSupplier.get(), namedStacks);
+            stack = getInvocationOfMethodUnderTest(runner, root, variables, namedStacks);
         } catch (NoConcreteInstanceException e) {
             System.err.println("No concrete instantce of klass " + e.getKlass());
         } catch (Exception e) {
             e.printStackTrace();
         }
-        return (stack != null ? runner.printCallStack(stack) : "null") + "\n\n";
-    }
-
-    @Override
-    public void cleanup() {
-        topLevelSymbols.clear();
-        descriptors.clear();
-        symbolsToVariables.clear();
+        return (stack != null ? runner.printCallStack(stack) : NO_CALL_STACK) + "\n\n";
     }
 
     private void initDescriptors(State state, Map<PrimitiveSymbolic, Simplex> model) throws FrozenStateException {
@@ -121,7 +281,7 @@ public class StateFormatterDescriptor implements Formatter {
         }
     }
 
-    private String parseType(String desc) {
+    private static String parseType(String desc) {
         char first = desc.charAt(0);
         switch (first) {
             case 'V':
@@ -236,6 +396,16 @@ public class StateFormatterDescriptor implements Formatter {
         return o.getType().getClassName();
     }
 
+    private Set<PrimitiveSymbolic> primitiveSymbolsIn(Collection<Clause> pathCondition) {
+        final HashSet<PrimitiveSymbolic> symbols = new HashSet<>();
+        for (Clause clause : pathCondition) {
+            if (clause instanceof ClauseAssume) {
+                symbols.addAll(primitiveSymbolsIn(((ClauseAssume) clause).getCondition()));
+            }
+        }
+        return symbols;
+    }
+
     private Set<PrimitiveSymbolic> primitiveSymbolsIn(Primitive e) {
         final HashSet<PrimitiveSymbolic> symbols = new HashSet<>();
         PrimitiveVisitor v = new PrimitiveVisitor() {
@@ -297,22 +467,51 @@ public class StateFormatterDescriptor implements Formatter {
     }
 
 
-    private CallStack getInvocationOfMethodUnderTest(State initialState, Map<String, CallStack> stacks)
-            throws ThreadStackEmptyException, FrozenStateException, NoConcreteInstanceException {
-        if (initialState == null) return null;
+    /**
+     * Converts the descriptors of a state to the text
+     * of the call stacks that rebuild it.
+     */
+    @FunctionalInterface
+    interface Reanimator {
+        /**
+         * Reanimates a state.
+         * 
+         * @param topLevelDescs the {@link Set} of the descriptors of the top-level symbols of the state.
+         * @param variables the {@link Set} of the names of the variables of the symbols in the state.
+         * @param root the {@link RootInvocation} of the method under test, or {@code null}.
+         * @return the {@link String} to be emitted for the state.
+         */
+        String reanimate(Set<Desc> topLevelDescs, Set<String> variables, RootInvocation root);
+    }
 
-        CallStack thisStack = runner.convert(new NullDesc("__ROOT_this"));
-        final String methodName = initialState.getRootMethodSignature().getName();
-        if ("this".equals(initialState.getRootFrame().getLocalVariableDeclaredName(0))) {
-            CallStack cs = stacks.get("__ROOT_this");
-            if (cs != null) thisStack = cs;
+    /**
+     * The data in the initial state necessary to build
+     * the invocation of the method under test. It is
+     * extracted from the initial state once, so reanimator 
+     * workers do not access it.
+     */
+    static final class RootInvocation {
+        final Signature methodSignature;
+        final boolean hasThis;
+        final List<String> parameterNames = new ArrayList<>();
+        final List<String> parameterTypes = new ArrayList<>();
+        
+        RootInvocation(Signature methodSignature, boolean hasThis) {
+            this.methodSignature = methodSignature;
+            this.hasThis = hasThis;
         }
+    }
 
+    private static RootInvocation makeRootInvocation(State initialState) 
+            throws ThreadStackEmptyException, FrozenStateException {
+        if (initialState == null) return null;
+
+        final RootInvocation retVal = new RootInvocation(initialState.getRootMethodSignature(), 
+                "this".equals(initialState.getRootFrame().getLocalVariableDeclaredName(0)));
         final Map<Integer, Variable> lva = initialState.getRootFrame().localVariables();
         final TreeSet<Integer> slots = new TreeSet<>(lva.keySet());
         final int numParamsExcludedThis = splitParametersDescriptors(initialState.getRootMethodSignature().getDescriptor()).length;
         int currentParam = 1;
-        List<CallStack> args = new ArrayList<>();
         for (int slot : slots) {
             final Variable lv = lva.get(slot);
             if ("this".equals(lv.getName())) {
@@ -321,25 +520,44 @@ public class StateFormatterDescriptor implements Formatter {
             if (currentParam > numParamsExcludedThis) {
                 break;
             }
-            final String variable = "__ROOT_" + lv.getName();
-            if (this.symbolsToVariables.containsValue(variable)) {
+            retVal.parameterNames.add(lv.getName());
+            retVal.parameterTypes.add(lv.getType());
+            ++currentParam;
+        }
+        return retVal;
+    }
+
+    private static CallStack getInvocationOfMethodUnderTest(ReanimatorRunner runner, RootInvocation root, Set<String> variables, Map<String, CallStack> stacks)
+            throws NoConcreteInstanceException {
+        if (root == null) return null;
+
+        CallStack thisStack = runner.convert(new NullDesc("__ROOT_this"));
+        if (root.hasThis) {
+            CallStack cs = stacks.get("__ROOT_this");
+            if (cs != null) thisStack = cs;
+        }
+
+        List<CallStack> args = new ArrayList<>();
+        for (int i = 0; i < root.parameterNames.size(); ++i) {
+            final String type = root.parameterTypes.get(i);
+            final String variable = "__ROOT_" + root.parameterNames.get(i);
+            if (variables.contains(variable)) {
                 CallStack arg = stacks.get(variable);
                 if (arg == null) {
                     args.add(runner.convert(new NullDesc(variable)));
                 } else {
                     args.add(arg);
                 }
-            } else if (isPrimitiveIntegral(lv.getType().charAt(0))) {
-                args.add(runner.convert(new ConstantDesc("0", parseType(lv.getType()))));
-            } else if (isPrimitiveFloating(lv.getType().charAt(0))) {
-                args.add(runner.convert(new ConstantDesc("0.0", parseType(lv.getType()))));
+            } else if (isPrimitiveIntegral(type.charAt(0))) {
+                args.add(runner.convert(new ConstantDesc("0", parseType(type))));
+            } else if (isPrimitiveFloating(type.charAt(0))) {
+                args.add(runner.convert(new ConstantDesc("0.0", parseType(type))));
             } else {
                 args.add(runner.convert(new NullDesc(variable)));
             }
-            ++currentParam;
         }
 
-        Signature methodSign = initialState.getRootMethodSignature();
-        return runner.getMethodInvocation(thisStack, args, methodSign.getClassName(), methodName, methodSign.getDescriptor());
+        Signature methodSign = root.methodSignature;
+        return runner.getMethodInvocation(thisStack, args, methodSign.getClassName(), methodSign.getName(), methodSign.getDescriptor());
     }
 }
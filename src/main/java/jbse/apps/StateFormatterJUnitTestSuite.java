@@ -10,6 +10,11 @@ import static jbse.common.Type.isPrimitiveIntegral;
 import static jbse.common.Type.splitParametersDescriptors;
 import static jbse.common.Type.splitReturnValueDescriptor;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -17,6 +22,7 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import jbse.common.Type;
@@ -55,34 +61,134 @@ import jbse.val.WideningConversion;
  * @author Pietro Braione
  */
 public final class StateFormatterJUnitTestSuite implements Formatter {
+    /** The name of the emitted test class (or the prefix of their names, in streaming mode). */
+    private static final String TEST_CLASS_NAME = "TestSuite";
+    
     private final Supplier<State> initialStateSupplier;
-    private final Supplier<Map<PrimitiveSymbolic, Simplex>> modelSupplier;
+    private final Function<Collection<PrimitiveSymbolic>, Map<PrimitiveSymbolic, Simplex>> modelProvider;
+    
+    /** 
+     * The directory where the test classes are written in 
+     * streaming mode, or {@code null} if not in streaming mode.
+     */
+    private final Path outputDirectory;
+    
+    /** The maximum number of test methods in a test class in streaming mode. */
+    private final int testsPerClass;
     private StringBuilder output = new StringBuilder();
     private int testCounter = 0;
+    
+    /** The {@link Writer} of the current test class in streaming mode, or {@code null}. */
+    private Writer classWriter = null;
+    
+    /** The number of test classes opened in streaming mode. */
+    private int classCounter = 0;
+    
+    /** The number of test methods in the current test class in streaming mode. */
+    private int testsInClass = 0;
+
+    /**
+     * Constructor. The formatter accumulates the test suite
+     * in memory, as a single test class, and returns it with 
+     * {@link #emit()}.
+     * 
+     * @param initialStateSupplier a {@link Supplier}{@code <}{@link State}{@code >}
+     *        for the initial state of the symbolic execution.
+     * @param modelProvider a {@link Function} returning the model of the
+     *        path condition of the formatted states, restricted to the 
+     *        symbols it receives.
+     */
+    public StateFormatterJUnitTestSuite(Supplier<State> initialStateSupplier, 
+                                        Function<Collection<PrimitiveSymbolic>, Map<PrimitiveSymbolic, Simplex>> modelProvider) {
+        this.initialStateSupplier = initialStateSupplier;
+        this.modelProvider = modelProvider;
+        this.outputDirectory = null;
+        this.testsPerClass = Integer.MAX_VALUE;
+    }
 
+    /**
+     * Constructor for streaming mode. The formatter writes each 
+     * test method to file as soon as its state is formatted, and 
+     * flushes it, so only one test method at a time is kept in 
+     * memory and the tests generated so far survive an abrupt 
+     * termination. The test methods are split in test classes 
+     * {@code TestSuite0}, {@code TestSuite1}..., each with at most
+     * {@code testsPerClass} test methods, so they stay small
+     * enough to be compiled. In streaming mode {@link #emit()} 
+     * always returns the empty string.
+     * 
+     * @param initialStateSupplier a {@link Supplier}{@code <}{@link State}{@code >}
+     *        for the initial state of the symbolic execution.
+     * @param modelProvider a {@link Function} returning the model of the
+     *        path condition of the formatted states, restricted to the 
+     *        symbols it receives.
+     * @param outputDirectory the {@link Path} of the directory where 
+     *        the test classes are written; it is created if it 
+     *        does not exist.
+     * @param testsPerClass an {@code int}, the maximum number of
+     *        test methods in a test class. If {@code testsPerClass <= 0}
+     *        there is no maximum.
+     * @throws NullPointerException if {@code outputDirectory == null}.
+     */
     public StateFormatterJUnitTestSuite(Supplier<State> initialStateSupplier, 
-                                        Supplier<Map<PrimitiveSymbolic, Simplex>> modelSupplier) {
+                                        Function<Collection<PrimitiveSymbolic>, Map<PrimitiveSymbolic, Simplex>> modelProvider,
+                                        Path outputDirectory, int testsPerClass) {
+        if (outputDirectory == null) {
+            throw new NullPointerException();
+        }
         this.initialStateSupplier = initialStateSupplier;
-        this.modelSupplier = modelSupplier;
+        this.modelProvider = modelProvider;
+        this.outputDirectory = outputDirectory;
+        this.testsPerClass = (testsPerClass <= 0 ? Integer.MAX_VALUE : testsPerClass);
+    }
+    
+    private boolean isStreaming() {
+        return this.outputDirectory != null;
     }
 
     @Override
     public void formatPrologue() {
-        this.output.append(PROLOGUE);
+        if (isStreaming()) {
+            if (this.classWriter == null) {
+                openTestClass();
+            }
+        } else {
+            this.output.append(PROLOGUE);
+            this.output.append(classDeclaration(TEST_CLASS_NAME));
+        }
     }
 
     @Override
     public void formatState(State state) {
+        final StringBuilder testCase = new StringBuilder();
         try {
-			new JUnitTestCase(this.output, this.initialStateSupplier.get(), state, this.modelSupplier.get(), this.testCounter++);
-		} catch (FrozenStateException e) {
-			this.output.delete(0, this.output.length());
-		}
+            new JUnitTestCase(testCase, this.initialStateSupplier.get(), state, this.modelProvider, this.testCounter++);
+        } catch (FrozenStateException e) {
+            return; //no test case
+        }
+        if (isStreaming()) {
+            if (this.classWriter == null) {
+                openTestClass();
+            }
+            write(testCase);
+            ++this.testsInClass;
+            if (this.testsInClass >= this.testsPerClass) {
+                closeTestClass();
+            }
+        } else {
+            this.output.append(testCase);
+        }
     }
 
     @Override
     public void formatEpilogue() {
-        this.output.append("}\n");
+        if (isStreaming()) {
+            if (this.classWriter != null) {
+                closeTestClass();
+            }
+        } else {
+            this.output.append("}\n");
+        }
     }
 
     @Override
@@ -94,6 +200,39 @@ public final class StateFormatterJUnitTestSuite implements Formatter {
     public void cleanup() {
         this.output = new StringBuilder();
     }
+    
+    private void openTestClass() {
+        final String className = TEST_CLASS_NAME + this.classCounter++;
+        try {
+            Files.createDirectories(this.outputDirectory);
+            this.classWriter = Files.newBufferedWriter(this.outputDirectory.resolve(className + ".java"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.testsInClass = 0;
+        write(PROLOGUE);
+        write(classDeclaration(className));
+    }
+    
+    private void closeTestClass() {
+        write("}\n");
+        try {
+            this.classWriter.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            this.classWriter = null;
+        }
+    }
+    
+    private void write(CharSequence s) {
+        try {
+            this.classWriter.append(s);
+            this.classWriter.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
     private static final String PROLOGUE =
         "import static java.lang.System.identityHashCode;\n" +
@@ -105,8 +244,13 @@ public final class StateFormatterJUnitTestSuite implements Formatter {
         "import sun.misc.Unsafe;\n" +
         "\n" +
         "import org.junit.Test;\n" +
-        "\n" +
-        "public class TestSuite {\n" +
+        "\n";
+    
+    private static String classDeclaration(String className) {
+        return "public class " + className + " {\n" + CLASS_MEMBERS;
+    }
+
+    private static final String CLASS_MEMBERS =
         "    private static class AccessibleObject {\n" +
         "        private final Object target;\n" +
         "        AccessibleObject(Object o) {\n" +
@@ -231,10 +375,12 @@ public final class StateFormatterJUnitTestSuite implements Formatter {
         private boolean panic = false;
         private ClauseAssume clauseLength = null;
 
-        JUnitTestCase(StringBuilder s, State initialState, State finalState, Map<PrimitiveSymbolic, Simplex> model, int testCounter) 
+        JUnitTestCase(StringBuilder s, State initialState, State finalState, 
+                      Function<Collection<PrimitiveSymbolic>, Map<PrimitiveSymbolic, Simplex>> modelProvider, int testCounter) 
         throws FrozenStateException {
             this.s = s;
             appendMethodDeclaration(finalState, testCounter);
+            final Map<PrimitiveSymbolic, Simplex> model = modelProvider.apply(primitiveSymbolsIn(finalState.getPathCondition()));
             appendInputsInitialization(finalState, model, testCounter);
             appendInvocationOfMethodUnderTest(initialState, finalState);
             appendAssert(initialState, finalState);
@@ -684,6 +830,16 @@ public final class StateFormatterJUnitTestSuite implements Formatter {
             }
         }
         
+        private Set<PrimitiveSymbolic> primitiveSymbolsIn(Collection<Clause> pathCondition) {
+            final HashSet<PrimitiveSymbolic> symbols = new HashSet<>();
+            for (Clause clause : pathCondition) {
+                if (clause instanceof ClauseAssume) {
+                    symbols.addAll(primitiveSymbolsIn(((ClauseAssume) clause).getCondition()));
+                }
+            }
+            return symbols;
+        }
+        
         private Set<PrimitiveSymbolic> primitiveSymbolsIn(Primitive e) {
             final HashSet<PrimitiveSymbolic> symbols = new HashSet<>();
             PrimitiveVisitor v = new PrimitiveVisitor() {
@@ -495,9 +495,9 @@ public final class StateFormatterText implements Formatter {
         	        			  if (ho.getType().equals(e.getKey())) {
         	        				  return true;
         	        			  }
-        	        			  for (Variable var : ho.fields().values()) {
+        	        			  for (Value fieldValue : ho.getStoredFieldValues()) {
         	        				  final ValueClassMentionDetector v = new ValueClassMentionDetector(e);
-        	        				  var.getValue().accept(v);
+        	        				  fieldValue.accept(v);
         	        				  if (v.mentionsClass()) {
         	        					  return true;
         	        				  }
@@ -630,13 +630,14 @@ public final class StateFormatterText implements Formatter {
         sb.append("Class: ");
         sb.append(i.getType());
         int z = 0;
-        for (Map.Entry<Signature, Variable> e : i.fields().entrySet()) {
+        final List<Value> fieldValues = i.getStoredFieldValues();
+        for (Signature fieldSignature : i.getStoredFieldSignatures()) {
             sb.append(lineSep);
             sb.append(indentCurrent);
             sb.append("Field[");
             sb.append(z);
             sb.append("]: ");
-            formatVariable(s, sb, e.getValue());
+            formatVariable(s, sb, fieldSignature.getName(), fieldSignature.getDescriptor(), fieldValues.get(z));
             ++z;
         }
     }
@@ -645,7 +646,8 @@ public final class StateFormatterText implements Formatter {
         final String lineSep = (breakLines ? LINE_SEP : "");
         sb.append(lineSep);
         int z = 0;
-        for (Map.Entry<Signature, Variable> e : k.fields().entrySet()) {
+        final List<Value> fieldValues = k.getStoredFieldValues();
+        for (Signature fieldSignature : k.getStoredFieldSignatures()) {
             if (z > 0) {
                 sb.append(lineSep);
             }
@@ -653,14 +655,17 @@ public final class StateFormatterText implements Formatter {
             sb.append("Field[");
             sb.append(z);
             sb.append("]: ");
-            formatVariable(s, sb, e.getValue());
+            formatVariable(s, sb, fieldSignature.getName(), fieldSignature.getDescriptor(), fieldValues.get(z));
             ++z;
         }
     }
 
     private static void formatVariable(State s, StringBuilder sb, Variable v) {
-        sb.append("Name: "); sb.append(v.getName()); sb.append(", Type: "); sb.append(v.getType()); sb.append(", Value: ");
-        final Value val = v.getValue(); 
+        formatVariable(s, sb, v.getName(), v.getType(), v.getValue());
+    }
+
+    private static void formatVariable(State s, StringBuilder sb, String name, String type, Value val) {
+        sb.append("Name: "); sb.append(name); sb.append(", Type: "); sb.append(type); sb.append(", Value: ");
         if (val == null) {
             sb.append("ERROR: no value has been assigned to this variable.");
         } else {
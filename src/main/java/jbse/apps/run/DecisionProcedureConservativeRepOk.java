@@ -47,6 +47,15 @@ public final class DecisionProcedureConservativeRepOk extends DecisionProcedureC
         this.checker.setCurrentStateSupplier(currentStateSupplier);
     }
 
+    public void setParallel(int numThreads, Supplier<DecisionProcedureAlgorithms> decisionProcedureFactory) {
+        this.checker.setParallel(numThreads, decisionProcedureFactory);
+    }
+    
+    @Override
+    protected void closeLocal() throws DecisionException {
+        this.checker.close();
+    }
+
     @Override
     protected boolean isSatExpandsLocal(ReferenceSymbolic r, ClassFile classFile)
     throws DecisionException {
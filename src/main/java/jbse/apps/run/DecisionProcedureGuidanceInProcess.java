@@ -0,0 +1,758 @@
+package jbse.apps.run;
+
+import static jbse.common.Type.binaryClassName;
+import static jbse.common.Type.internalClassName;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import jbse.bc.Signature;
+import jbse.common.exc.InvalidInputException;
+import jbse.dec.DecisionProcedure;
+import jbse.jvm.Runner;
+import jbse.jvm.RunnerParameters;
+import jbse.mem.State;
+import jbse.mem.exc.ThreadStackEmptyException;
+import jbse.val.Calculator;
+import jbse.val.KlassPseudoReference;
+import jbse.val.PrimitiveSymbolicHashCode;
+import jbse.val.PrimitiveSymbolicMemberArrayLength;
+import jbse.val.ReferenceSymbolic;
+import jbse.val.Simplex;
+import jbse.val.Symbolic;
+import jbse.val.SymbolicLocalVariable;
+import jbse.val.SymbolicMemberArray;
+import jbse.val.SymbolicMemberField;
+
+/**
+ * {@link DecisionProcedureGuidance} that performs the concrete execution
+ * within the current JVM. The guiding concrete execution runs in a
+ * dedicated thread, on classes loaded by an isolated classloader.
+ * The method where the execution must stop is instrumented with ASM
+ * so that, at its entry (for constructors, right after the invocation
+ * of the superclass constructor), it passes its receiver and parameters
+ * to a hook that parks the thread at the nonrecursive hit where it must
+ * stop, and at its exit it notifies another hook, so recursive invocations
+ * are not counted. Queries are then answered by reflection on the live 
+ * objects, without any interprocess communication. Upon close the
+ * parked thread is unwound and joined. Uninterpreted functions are not 
+ * supported.
+ *
+ * @author Pietro Braione
+ */
+public final class DecisionProcedureGuidanceInProcess extends DecisionProcedureGuidance {
+    /**
+     * Builds the {@link DecisionProcedureGuidanceInProcess}.
+     *
+     * @param component the component {@link DecisionProcedure} it decorates.
+     * @param calc a {@link Calculator}.
+     * @param runnerParameters the {@link RunnerParameters} of the symbolic execution.
+     *        The constructor modifies this object by adding the {@link Runner.Actions}s
+     *        necessary to the execution.
+     * @param stopSignature the {@link Signature} of a method. The guiding concrete execution
+     *        will stop at the entry of the first invocation of the method whose
+     *        signature is {@code stopSignature}, and the reached state will be used
+     *        to answer queries.
+     * @throws GuidanceException if something fails during creation (and the caller
+     *         is to blame).
+     * @throws InvalidInputException if {@code component == null}.
+     */
+    public DecisionProcedureGuidanceInProcess(DecisionProcedure component, Calculator calc, RunnerParameters runnerParameters, Signature stopSignature)
+    throws GuidanceException, InvalidInputException {
+        this(component, calc, runnerParameters, stopSignature, 1);
+    }
+
+    /**
+     * Builds the {@link DecisionProcedureGuidanceInProcess}.
+     *
+     * @param component the component {@link DecisionProcedure} it decorates.
+     * @param calc a {@link Calculator}.
+     * @param runnerParameters the {@link RunnerParameters} of the symbolic execution.
+     *        The constructor modifies this object by adding the {@link Runner.Actions}s
+     *        necessary to the execution.
+     * @param stopSignature the {@link Signature} of a method. The guiding concrete execution
+     *        will stop at the entry of the {@code numberOfHits}-th nonrecursive invocation of 
+     *        the method whose signature is {@code stopSignature}, and the reached state will 
+     *        be used to answer queries.
+     * @param numberOfHits an {@code int} greater or equal to one.
+     * @throws GuidanceException if something fails during creation (and the caller
+     *         is to blame).
+     * @throws InvalidInputException if {@code component == null}.
+     */
+    public DecisionProcedureGuidanceInProcess(DecisionProcedure component, Calculator calc, RunnerParameters runnerParameters, Signature stopSignature, int numberOfHits)
+    throws GuidanceException, InvalidInputException {
+        super(component, new JVMInProcess(calc, runnerParameters, stopSignature, numberOfHits));
+    }
+
+    /**
+     * The classloader of the guiding concrete execution. It loads
+     * all the classes in the classpath in isolation from the current
+     * ones, instrumenting the class of the stop method, and shares
+     * with the current classes only {@link GuidanceInProcessHook}.
+     *
+     * @author Pietro Braione
+     */
+    private static final class GuidanceClassLoader extends URLClassLoader {
+        private final Signature stopSignature;
+        private final ArrayList<String> stopMethodLocalNames = new ArrayList<>();
+
+        GuidanceClassLoader(URL[] classPath, Signature stopSignature) {
+            super(classPath, ClassLoader.getSystemClassLoader().getParent());
+            this.stopSignature = stopSignature;
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (GuidanceInProcessHook.class.getName().equals(name)) {
+                return GuidanceInProcessHook.class;
+            }
+            return super.loadClass(name, resolve);
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            if (!binaryClassName(this.stopSignature.getClassName()).equals(name)) {
+                return super.findClass(name);
+            }
+            final byte[] instrumented;
+            try (final InputStream in = getResourceAsStream(this.stopSignature.getClassName() + ".class")) {
+                if (in == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+                final byte[] chunk = new byte[4096];
+                int n;
+                while ((n = in.read(chunk)) >= 0) {
+                    buf.write(chunk, 0, n);
+                }
+                instrumented = instrument(buf.toByteArray());
+            } catch (IOException e) {
+                throw new ClassNotFoundException(name, e);
+            }
+            return defineClass(name, instrumented, 0, instrumented.length);
+        }
+
+        Class<?> findLoaded(String name) {
+            return findLoadedClass(name);
+        }
+
+        /**
+         * Returns the names of the local variables passed to
+         * {@link GuidanceInProcessHook#atEntry(Object[])}.
+         *
+         * @return an {@link ArrayList}{@code <}{@link String}{@code >},
+         *         with {@code null} for the variables with unknown name.
+         */
+        ArrayList<String> getStopMethodLocalNames() {
+            return this.stopMethodLocalNames;
+        }
+
+        private byte[] instrument(byte[] classBytes) {
+            final ClassReader reader = new ClassReader(classBytes);
+            final ClassWriter writer = new ClassWriter(reader, ClassWriter.COMPUTE_MAXS);
+            reader.accept(new ClassVisitor(Opcodes.ASM7, writer) {
+                private boolean hasFrames;
+
+                @Override
+                public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+                    this.hasFrames = ((version & 0xFFFF) >= Opcodes.V1_6);
+                    super.visit(version, access, name, signature, superName, interfaces);
+                }
+
+                @Override
+                public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                    final MethodVisitor mv = super.visitMethod(access, name, descriptor, signature, exceptions);
+                    if (GuidanceClassLoader.this.stopSignature.getName().equals(name) &&
+                        GuidanceClassLoader.this.stopSignature.getDescriptor().equals(descriptor)) {
+                        return new EntryHookInserter(mv, (access & Opcodes.ACC_STATIC) != 0, "<init>".equals(name), descriptor, this.hasFrames);
+                    }
+                    return mv;
+                }
+            }, 0);
+            return writer.toByteArray();
+        }
+
+        /**
+         * Inserts at the entry of a method the invocation of
+         * {@link GuidanceInProcessHook#atEntry(Object[])}, and
+         * collects the names of the passed local variables.
+         * In a constructor {@code this} is uninitialized, and thus
+         * cannot be passed, until the invocation of the superclass
+         * (or of another) constructor on it: The hook is inserted
+         * right after that invocation, which is the first
+         * {@code invokespecial <init>} not matching a preceding
+         * {@code new}. The code after the hook is wrapped in a 
+         * {@code try ... finally} that invokes 
+         * {@link GuidanceInProcessHook#atExit()}.
+         *
+         * @author Pietro Braione
+         */
+        private final class EntryHookInserter extends MethodVisitor {
+            private final boolean isStatic;
+            private final boolean hasFrames;
+            private final Type[] argumentTypes;
+            private final int[] slots;
+            private final Label start = new Label();
+            private final Label end = new Label();
+            private final Label handler = new Label();
+            private boolean hookPending;
+            private boolean hookInserted = false;
+            private int pendingNews = 0;
+
+            EntryHookInserter(MethodVisitor mv, boolean isStatic, boolean isConstructor, String descriptor, boolean hasFrames) {
+                super(Opcodes.ASM7, mv);
+                this.isStatic = isStatic;
+                this.hasFrames = hasFrames;
+                this.hookPending = isConstructor;
+                this.argumentTypes = Type.getArgumentTypes(descriptor);
+                final int numValues = this.argumentTypes.length + (isStatic ? 0 : 1);
+                this.slots = new int[numValues];
+                int slot = 0;
+                int i = 0;
+                if (!isStatic) {
+                    this.slots[i++] = slot++;
+                }
+                for (Type t : this.argumentTypes) {
+                    this.slots[i++] = slot;
+                    slot += t.getSize();
+                }
+                for (int k = 0; k < numValues; ++k) {
+                    GuidanceClassLoader.this.stopMethodLocalNames.add(k == 0 && !isStatic ? "this" : null);
+                }
+            }
+
+            @Override
+            public void visitCode() {
+                super.visitCode();
+                if (!this.hookPending) {
+                    insertHook();
+                }
+            }
+
+            @Override
+            public void visitTypeInsn(int opcode, String type) {
+                super.visitTypeInsn(opcode, type);
+                if (this.hookPending && opcode == Opcodes.NEW) {
+                    ++this.pendingNews;
+                }
+            }
+
+            @Override
+            public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+                super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
+                if (this.hookPending && opcode == Opcodes.INVOKESPECIAL && "<init>".equals(name)) {
+                    if (this.pendingNews > 0) {
+                        --this.pendingNews; //initializes an object created by a preceding new
+                    } else {
+                        this.hookPending = false;
+                        insertHook();
+                    }
+                }
+            }
+
+            private void insertHook() {
+                pushInt(this.slots.length);
+                super.visitTypeInsn(Opcodes.ANEWARRAY, "java/lang/Object");
+                int i = 0;
+                if (!this.isStatic) {
+                    super.visitInsn(Opcodes.DUP);
+                    pushInt(i++);
+                    super.visitVarInsn(Opcodes.ALOAD, 0);
+                    super.visitInsn(Opcodes.AASTORE);
+                }
+                for (Type t : this.argumentTypes) {
+                    super.visitInsn(Opcodes.DUP);
+                    pushInt(i);
+                    super.visitVarInsn(t.getOpcode(Opcodes.ILOAD), this.slots[i]);
+                    box(t);
+                    super.visitInsn(Opcodes.AASTORE);
+                    ++i;
+                }
+                super.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(GuidanceInProcessHook.class), "atEntry", "([Ljava/lang/Object;)V", false);
+                super.visitLabel(this.start);
+                this.hookInserted = true;
+            }
+
+            private void insertExitHook() {
+                super.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(GuidanceInProcessHook.class), "atExit", "()V", false);
+            }
+
+            @Override
+            public void visitInsn(int opcode) {
+                if (this.hookInserted && opcode >= Opcodes.IRETURN && opcode <= Opcodes.RETURN) {
+                    insertExitHook();
+                }
+                super.visitInsn(opcode);
+            }
+
+            @Override
+            public void visitMaxs(int maxStack, int maxLocals) {
+                if (this.hookInserted) {
+                    //the finally handler, that is registered last so it
+                    //does not shadow the exception handlers of the method
+                    super.visitLabel(this.end);
+                    super.visitLabel(this.handler);
+                    if (this.hasFrames) {
+                        final Object[] locals = new Object[this.slots.length];
+                        int i = 0;
+                        if (!this.isStatic) {
+                            locals[i++] = GuidanceClassLoader.this.stopSignature.getClassName();
+                        }
+                        for (Type t : this.argumentTypes) {
+                            locals[i++] = frameType(t);
+                        }
+                        super.visitFrame(Opcodes.F_FULL, locals.length, locals, 1, new Object[] { "java/lang/Throwable" });
+                    }
+                    insertExitHook();
+                    super.visitInsn(Opcodes.ATHROW);
+                    super.visitTryCatchBlock(this.start, this.end, this.handler, null);
+                }
+                super.visitMaxs(maxStack, maxLocals);
+            }
+
+            private Object frameType(Type t) {
+                switch (t.getSort()) {
+                case Type.BOOLEAN:
+                case Type.BYTE:
+                case Type.CHAR:
+                case Type.SHORT:
+                case Type.INT:
+                    return Opcodes.INTEGER;
+                case Type.LONG:
+                    return Opcodes.LONG;
+                case Type.FLOAT:
+                    return Opcodes.FLOAT;
+                case Type.DOUBLE:
+                    return Opcodes.DOUBLE;
+                case Type.ARRAY:
+                    return t.getDescriptor();
+                default: //object
+                    return t.getInternalName();
+                }
+            }
+
+            @Override
+            public void visitLocalVariable(String name, String descriptor, String signature, Label start, Label end, int index) {
+                for (int i = 0; i < this.slots.length; ++i) {
+                    if (this.slots[i] == index && GuidanceClassLoader.this.stopMethodLocalNames.get(i) == null) {
+                        GuidanceClassLoader.this.stopMethodLocalNames.set(i, name);
+                    }
+                }
+                super.visitLocalVariable(name, descriptor, signature, start, end, index);
+            }
+
+            private void pushInt(int value) {
+                if (value <= 5) {
+                    super.visitInsn(Opcodes.ICONST_0 + value);
+                } else if (value <= Byte.MAX_VALUE) {
+                    super.visitIntInsn(Opcodes.BIPUSH, value);
+                } else {
+                    super.visitIntInsn(Opcodes.SIPUSH, value);
+                }
+            }
+
+            private void box(Type t) {
+                final String boxClass;
+                switch (t.getSort()) {
+                case Type.BOOLEAN:
+                    boxClass = "java/lang/Boolean";
+                    break;
+                case Type.BYTE:
+                    boxClass = "java/lang/Byte";
+                    break;
+                case Type.CHAR:
+                    boxClass = "java/lang/Character";
+                    break;
+                case Type.SHORT:
+                    boxClass = "java/lang/Short";
+                    break;
+                case Type.INT:
+                    boxClass = "java/lang/Integer";
+                    break;
+                case Type.LONG:
+                    boxClass = "java/lang/Long";
+                    break;
+                case Type.FLOAT:
+                    boxClass = "java/lang/Float";
+                    break;
+                case Type.DOUBLE:
+                    boxClass = "java/lang/Double";
+                    break;
+                default: //reference
+                    return;
+                }
+                super.visitMethodInsn(Opcodes.INVOKESTATIC, boxClass, "valueOf", "(" + t.getDescriptor() + ")L" + boxClass + ";", false);
+            }
+        }
+    }
+
+    /**
+     * A container of static fields (the counterpart of
+     * a {@link KlassPseudoReference}).
+     *
+     * @author Pietro Braione
+     */
+    private static final class Statics {
+        final Class<?> clazz;
+
+        Statics(Class<?> clazz) {
+            this.clazz = clazz;
+        }
+    }
+
+    static final class JVMInProcess extends JVM implements GuidanceInProcessHook.Listener {
+        private static final String ERROR_BAD_PATH = "Failed accessing through a memory access path: ";
+        private static final String ERROR_NOT_REACHED = "The guiding concrete execution terminated without reaching ";
+        private static final String ERROR_TIMEOUT = "The guiding concrete execution did not reach ";
+
+        /** The time the guiding concrete execution is given to reach the stop method, in milliseconds. */
+        private static final long REACH_TIMEOUT_MILLIS = 60_000L;
+
+        /** The time the guiding concrete execution is given to unwind upon close, in milliseconds. */
+        private static final long CLOSE_TIMEOUT_MILLIS = 1_000L;
+        private static final String ERROR_UNSUPPORTED = "In-process guidance does not support the symbol ";
+
+        private final Signature stopSignature;
+        private final int numberOfHits;
+        private final GuidanceClassLoader loader;
+        private final Thread target;
+        private final CountDownLatch stopped = new CountDownLatch(1);
+        private final HashMap<String, Object> locals = new HashMap<>();
+        private final HashMap<String, Field> fields = new HashMap<>();
+        private final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
+        private int hitCounter = 0;
+        private boolean reached = false;
+        private boolean abandoned = false;
+        private volatile boolean closing = false;
+        private Throwable targetFailure = null;
+
+        public JVMInProcess(Calculator calc, RunnerParameters runnerParameters, Signature stopSignature, int numberOfHits)
+        throws GuidanceException {
+            super(calc, runnerParameters, stopSignature, numberOfHits);
+            this.stopSignature = stopSignature;
+            this.numberOfHits = numberOfHits;
+            try {
+                final ArrayList<URL> urls = new ArrayList<>();
+                for (Path p : runnerParameters.getClasspath().classPath()) {
+                    urls.add(p.toUri().toURL());
+                }
+                this.loader = new GuidanceClassLoader(urls.toArray(new URL[0]), stopSignature);
+            } catch (IOException e) {
+                throw new GuidanceException(e);
+            }
+
+            //runs the driver method up to the stop method
+            final Signature driverSignature = runnerParameters.getMethodSignature();
+            this.target = new Thread(() -> runDriver(driverSignature), "In-process guidance");
+            this.target.setDaemon(true);
+            this.target.setContextClassLoader(this.loader);
+            this.target.start();
+            final boolean terminated;
+            try {
+                terminated = this.stopped.await(REACH_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                abandon();
+                close();
+                throw new GuidanceException(e);
+            }
+            if (!terminated && abandon()) {
+                close();
+                throw new GuidanceException(ERROR_TIMEOUT + stopSignature + " within " + REACH_TIMEOUT_MILLIS + " ms.");
+            }
+            if (!this.reached) {
+                close();
+                throw new GuidanceException(ERROR_NOT_REACHED + stopSignature + (this.targetFailure == null ? "." : ", failure: " + this.targetFailure));
+            }
+        }
+
+        /**
+         * Abandons the guiding concrete execution if it
+         * did not reach the stop method yet: It is interrupted,
+         * and parked if it reaches the stop method later.
+         *
+         * @return {@code true} iff the execution was abandoned,
+         *         {@code false} iff it already reached the stop
+         *         method.
+         */
+        private boolean abandon() {
+            synchronized (this) {
+                if (this.reached) {
+                    return false;
+                }
+                this.abandoned = true;
+            }
+            this.target.interrupt();
+            return true;
+        }
+
+        private void runDriver(Signature driverSignature) {
+            GuidanceInProcessHook.LISTENER.set(this);
+            try {
+                final Class<?> clazz = Class.forName(binaryClassName(driverSignature.getClassName()), true, this.loader);
+                final Method method = clazz.getDeclaredMethod(driverSignature.getName());
+                method.setAccessible(true);
+                final Object o = clazz.newInstance();
+                method.invoke(o);
+            } catch (InvocationTargetException e) {
+                this.targetFailure = e.getCause();
+            } catch (Exception | LinkageError e) {
+                this.targetFailure = e;
+            } finally {
+                this.stopped.countDown();
+            }
+        }
+
+        @Override
+        public void atEntry(Object[] values) {
+            if (this.closing) {
+                throw new GuidanceInProcessHook.Abort();
+            }
+            final int[] depth = this.depth.get();
+            if (depth[0]++ > 0) {
+                return; //recursive invocation, not a hit
+            }
+            synchronized (this) {
+                if (!this.abandoned) {
+                    ++this.hitCounter;
+                    if (this.reached || this.hitCounter < this.numberOfHits) {
+                        return;
+                    }
+                    final ArrayList<String> names = this.loader.getStopMethodLocalNames();
+                    for (int i = 0; i < values.length; ++i) {
+                        if (names.get(i) != null) {
+                            this.locals.put(names.get(i), values[i]);
+                        }
+                    }
+                    this.reached = true;
+                    this.stopped.countDown();
+                }
+            }
+
+            //parks the thread: the reached state must be preserved
+            //while queries are answered, then the thread is unwound
+            while (!this.closing) {
+                LockSupport.park(this);
+            }
+            throw new GuidanceInProcessHook.Abort();
+        }
+
+        @Override
+        public void atExit() {
+            --this.depth.get()[0];
+        }
+
+        @Override
+        public String typeOfObject(ReferenceSymbolic origin) throws GuidanceException {
+            final Object object;
+            try {
+                object = getConcrete(origin);
+            } catch (IndexOutOfBoundsException e) {
+                return null; // Origin depends on out-of-bound array access: Fresh expansion is neither possible, nor needed
+            }
+            if (object == null) {
+                return null;
+            }
+            final String name = object.getClass().getName();
+            return (object.getClass().isArray() ? name.replace('.', '/') : internalClassName(name));
+        }
+
+        @Override
+        public boolean isNull(ReferenceSymbolic origin) throws GuidanceException {
+            return (getConcrete(origin) == null);
+        }
+
+        @Override
+        public boolean areAlias(ReferenceSymbolic first, ReferenceSymbolic second) throws GuidanceException {
+            return (getConcrete(first) == getConcrete(second));
+        }
+
+        @Override
+        public Object getValue(Symbolic origin) throws GuidanceException {
+            final Object val = getConcrete(origin);
+            if (val instanceof Integer) {
+                return this.calc.valInt(((Integer) val).intValue());
+            } else if (val instanceof Boolean) {
+                return this.calc.valBoolean(((Boolean) val).booleanValue());
+            } else if (val instanceof Character) {
+                return this.calc.valChar(((Character) val).charValue());
+            } else if (val instanceof Byte) {
+                return this.calc.valByte(((Byte) val).byteValue());
+            } else if (val instanceof Double) {
+                return this.calc.valDouble(((Double) val).doubleValue());
+            } else if (val instanceof Float) {
+                return this.calc.valFloat(((Float) val).floatValue());
+            } else if (val instanceof Long) {
+                return this.calc.valLong(((Long) val).longValue());
+            } else if (val instanceof Short) {
+                return this.calc.valShort(((Short) val).shortValue());
+            } else {
+                //note that boxed values in the heap of the concrete execution
+                //are never returned here, since they are reached by reference
+                //only through fields of reference type
+                return val;
+            }
+        }
+
+        /**
+         * Returns the object in the concrete state standing
+         * for a {@link Symbolic}.
+         *
+         * @param origin a {@link Symbolic}.
+         * @return an {@link Object}: either an object of the concrete
+         *         execution, or a boxed primitive value, or a {@link Statics}.
+         * @throws GuidanceException if {@code origin} cannot be
+         *         resolved in the concrete state.
+         */
+        private Object getConcrete(Symbolic origin) throws GuidanceException {
+            if (origin instanceof SymbolicLocalVariable) {
+                final String name = ((SymbolicLocalVariable) origin).getVariableName();
+                if (!this.locals.containsKey(name)) {
+                    throw new GuidanceException(ERROR_BAD_PATH + origin.asOriginString() + ".");
+                }
+                return this.locals.get(name);
+            } else if (origin instanceof KlassPseudoReference) {
+                final String className = binaryClassName(((KlassPseudoReference) origin).getClassFile().getClassName());
+                Class<?> clazz = this.loader.findLoaded(className);
+                if (clazz == null) {
+                    try {
+                        clazz = Class.forName(className, false, this.loader.getParent());
+                    } catch (ClassNotFoundException e) {
+                        throw new GuidanceException(ERROR_BAD_PATH + origin.asOriginString() + " (class not loaded).");
+                    }
+                }
+                return new Statics(clazz);
+            } else if (origin instanceof SymbolicMemberField) {
+                final SymbolicMemberField originField = (SymbolicMemberField) origin;
+                final Object o = getConcrete(originField.getContainer());
+                if (o == null) {
+                    throw new GuidanceException(ERROR_BAD_PATH + origin.asOriginString() + " : Fails because containing object is null.");
+                }
+                final Class<?> clazz = (o instanceof Statics ? ((Statics) o).clazz : o.getClass());
+                final Field fld = findField(clazz, binaryClassName(originField.getFieldClass()), originField.getFieldName());
+                if (fld == null) {
+                    throw new GuidanceException(ERROR_BAD_PATH + origin.asOriginString() + " (missing field " + originField.getFieldName() + ").");
+                }
+                try {
+                    return fld.get(o instanceof Statics ? null : o);
+                } catch (IllegalAccessException e) {
+                    throw new GuidanceException(e);
+                } catch (ExceptionInInitializerError e) {
+                    throw new GuidanceException(ERROR_BAD_PATH + origin.asOriginString() + " (failed initialization: " + e.getCause() + ").");
+                }
+            } else if (origin instanceof PrimitiveSymbolicMemberArrayLength) {
+                final Object o = getConcrete(((PrimitiveSymbolicMemberArrayLength) origin).getContainer());
+                if (o == null || !o.getClass().isArray()) {
+                    throw new GuidanceException(ERROR_BAD_PATH + origin.asOriginString() + " : Fails because containing object is " + o);
+                }
+                return Array.getLength(o);
+            } else if (origin instanceof SymbolicMemberArray) {
+                final Object o = getConcrete(((SymbolicMemberArray) origin).getContainer());
+                if (o == null || !o.getClass().isArray()) {
+                    throw new GuidanceException(ERROR_BAD_PATH + origin.asOriginString() + " : Fails because containing object is " + o);
+                }
+                try {
+                    final Simplex index = (Simplex) eval(((SymbolicMemberArray) origin).getIndex());
+                    return Array.get(o, ((Integer) index.getActualValue()).intValue());
+                } catch (ClassCastException e) {
+                    throw new GuidanceException(e);
+                } catch (IndexOutOfBoundsException e) {
+                    throw new IndexOutOfBoundsException(origin.asOriginString());
+                }
+            } else if (origin instanceof PrimitiveSymbolicHashCode) {
+                final Object o = getConcrete(((PrimitiveSymbolicHashCode) origin).getContainer());
+                if (o == null || o instanceof Statics) {
+                    throw new GuidanceException(ERROR_BAD_PATH + origin.asOriginString() + " : Fails because containing object is " + o);
+                }
+                return o.hashCode();
+            } else {
+                throw new GuidanceException(ERROR_UNSUPPORTED + origin.asOriginString() + ".");
+            }
+        }
+
+        private Field findField(Class<?> clazz, String declaringClassName, String fieldName) {
+            final String key = declaringClassName + ":" + fieldName;
+            if (this.fields.containsKey(key)) {
+                return this.fields.get(key);
+            }
+            Field retVal = null;
+            for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+                if (c.getName().equals(declaringClassName)) {
+                    try {
+                        retVal = c.getDeclaredField(fieldName);
+                        retVal.setAccessible(true);
+                    } catch (NoSuchFieldException e) {
+                        retVal = null;
+                    }
+                    break;
+                }
+            }
+            if (retVal != null) {
+                this.fields.put(key, retVal);
+            }
+            return retVal;
+        }
+
+        @Override
+        public void step(State jbseState) throws GuidanceException {
+            //Nothing to do: This JVM remains stuck at the initial state of the method under analysis
+        }
+
+        @Override
+        public Signature getCurrentMethodSignature() throws ThreadStackEmptyException {
+            return this.stopSignature;
+        }
+
+        @Override
+        public int getCurrentProgramCounter() throws ThreadStackEmptyException {
+            return 0;
+        }
+
+        /**
+         * Unwinds the thread of the guiding concrete execution
+         * by throwing a {@link GuidanceInProcessHook.Abort} from 
+         * the stop method, joins it and closes its classloader.
+         * The target code might catch the {@link GuidanceInProcessHook.Abort}
+         * and go on, in which case it is thrown again at each 
+         * subsequent entry in the stop method; if the thread does not 
+         * terminate within {@link #CLOSE_TIMEOUT_MILLIS} it is left 
+         * running: It is a daemon thread, so it does not prevent the 
+         * current JVM from exiting.
+         */
+        @Override
+        protected void close() {
+            this.closing = true;
+            LockSupport.unpark(this.target);
+            try {
+                this.target.join(CLOSE_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            try {
+                this.loader.close();
+            } catch (IOException e) {
+                //nothing to do
+            }
+        }
+    }
+}
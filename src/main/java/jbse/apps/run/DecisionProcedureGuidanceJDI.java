@@ -49,6 +49,7 @@ import com.sun.jdi.ObjectReference;
 import com.sun.jdi.ReferenceType;
 import com.sun.jdi.ShortValue;
 import com.sun.jdi.StackFrame;
+import com.sun.jdi.StringReference;
 import com.sun.jdi.ThreadReference;
 import com.sun.jdi.VMDisconnectedException;
 import com.sun.jdi.Value;
@@ -140,7 +141,37 @@ public final class DecisionProcedureGuidanceJDI extends DecisionProcedureGuidanc
 	 */
 	public DecisionProcedureGuidanceJDI(DecisionProcedure component, Calculator calc, RunnerParameters runnerParameters, Signature stopSignature, int numberOfHits) 
 	throws GuidanceException, InvalidInputException {
-		super(component, new JVMJDI(calc, runnerParameters, stopSignature, numberOfHits));
+		this(component, calc, runnerParameters, stopSignature, numberOfHits, false, 0);
+	}
+
+	/**
+	 * Builds the {@link DecisionProcedureGuidanceJDI}.
+	 *
+	 * @param component the component {@link DecisionProcedure} it decorates.
+	 * @param calc a {@link Calculator}.
+	 * @param runnerParameters the {@link RunnerParameters} of the symbolic execution.
+	 *        The constructor modifies this object by adding the {@link Runner.Actions}s
+	 *        necessary to the execution.
+	 * @param stopSignature the {@link Signature} of a method. The guiding concrete execution 
+	 *        will stop at the entry of the {@code numberOfHits}-th nonrecursive invocation of 
+	 *        the method whose signature is {@code stopSignature}, and the reached state will 
+	 *        be used to answer queries.
+	 * @param numberOfHits an {@code int} greater or equal to one.
+	 * @param resident a {@code boolean}; if {@code true} the guiding concrete executions
+	 *        are performed by the resident JVMs of the shared {@link GuidanceJVMPool}, 
+	 *        otherwise every concrete execution launches its own JVM.
+	 * @param snapshotDepth an {@code int}; when the guiding concrete execution 
+	 *        stops, the objects reachable from the root frame with at most 
+	 *        {@code snapshotDepth} field or array accesses are fetched
+	 *        in batch. If {@code snapshotDepth <= 0} the objects are 
+	 *        fetched on demand.
+	 * @throws GuidanceException if something fails during creation (and the caller
+	 *         is to blame).
+	 * @throws InvalidInputException if {@code component == null}.
+	 */
+	public DecisionProcedureGuidanceJDI(DecisionProcedure component, Calculator calc, RunnerParameters runnerParameters, Signature stopSignature, int numberOfHits, boolean resident, int snapshotDepth) 
+	throws GuidanceException, InvalidInputException {
+		super(component, new JVMJDI(calc, runnerParameters, stopSignature, numberOfHits, (resident ? GuidanceJVMPool.shared() : null), snapshotDepth));
 	}
 
 	/**
@@ -160,8 +191,10 @@ public final class DecisionProcedureGuidanceJDI extends DecisionProcedureGuidanc
                 return jdiCompleteExecution.hitCounter;
         }
         
-	private static class JVMJDI extends JVM {
+	static class JVMJDI extends JVM {
 		private static final String ERROR_BAD_PATH = "Failed accessing through a memory access path: ";
+		private static final String RUN_CLASS_LOADER = DecisionProcedureGuidanceJDILauncher.RunClassLoader.class.getName();
+		private static final int MAX_ARRAY_SNAPSHOT = 4096;
 
 		StreamRedirectThread outThread = null; 
 		StreamRedirectThread errThread = null; 
@@ -178,6 +211,18 @@ public final class DecisionProcedureGuidanceJDI extends DecisionProcedureGuidanc
 		private final Signature stopSignature;
 		private final int stopSignatureNumberOfHits;
 		
+		// Handling of resident JVMs
+		private final GuidanceJVMPool pool;
+		private GuidanceJVMPool.ResidentJVM residentJvm;
+		private ObjectReference runClassLoader;
+		
+		// Snapshot of the concrete state at the current execution point
+		private final int snapshotDepth;
+		private final HashMap<Symbolic, Object> originCache = new HashMap<>();
+		private final HashMap<String, Value> localsSnapshot = new HashMap<>();
+		private final HashMap<ObjectReference, Map<Field, Value>> fieldsSnapshot = new HashMap<>();
+		private final HashMap<ArrayReference, List<Value>> arraysSnapshot = new HashMap<>();
+		
 		// Handling of uninterpreted functions
 		private Map<SymbolicApply, SymbolicApplyJVMJDI> symbolicApplyCache = new HashMap<>();
 		private Map<String, List<String>> symbolicApplyOperatorOccurrences = new HashMap<>();
@@ -189,6 +234,8 @@ public final class DecisionProcedureGuidanceJDI extends DecisionProcedureGuidanc
 			this.runnerParameters = runnerParameters;
 			this.stopSignature = stopSignature;
 			this.stopSignatureNumberOfHits = Integer.MAX_VALUE;
+			this.pool = null; //runs up to termination, thus cannot be resident
+			this.snapshotDepth = 0;
 			this.vm = createVM();
 			try {
 				goToBreakpoint(stopSignature, 0, Integer.MAX_VALUE);			
@@ -201,24 +248,30 @@ public final class DecisionProcedureGuidanceJDI extends DecisionProcedureGuidanc
 			throw new GuidanceException("This constructor continues the execution up to termination, thus JDI will throw an exception eventually upon disconnecting.");
 		}
 		
-		public JVMJDI(Calculator calc, RunnerParameters runnerParameters, Signature stopSignature, int numberOfHits) 
+		public JVMJDI(Calculator calc, RunnerParameters runnerParameters, Signature stopSignature, int numberOfHits, GuidanceJVMPool pool, int snapshotDepth) 
 		throws GuidanceException {
 			super(calc, runnerParameters, stopSignature, numberOfHits);
 			this.runnerParameters = runnerParameters;
 			this.stopSignature = stopSignature;
 			this.stopSignatureNumberOfHits = numberOfHits;
+			this.pool = pool;
+			this.snapshotDepth = snapshotDepth;
 			this.vm = createVM();
 			goToBreakpoint(stopSignature, 0, numberOfHits);
 			try 	{
 				this.numOfFramesAtMethodEntry = getCurrentThread().frameCount();
+				prefetch();
 			} catch (IncompatibleThreadStateException e) {
 				throw new UnexpectedInternalException(e); 
 			}
-			this.outThread = redirect("Subproc stdout", this.vm.process().getInputStream(), System.out);
-			this.errThread = redirect("Subproc stderr", this.vm.process().getErrorStream(), System.err);
+			if (this.residentJvm == null) {
+				//resident JVMs are redirected by the pool
+				this.outThread = redirect("Subproc stdout", this.vm.process().getInputStream(), System.out);
+				this.errThread = redirect("Subproc stderr", this.vm.process().getErrorStream(), System.err);
+			}
 		}
 		
-		private StreamRedirectThread redirect(String name, InputStream in, OutputStream out) {
+		static StreamRedirectThread redirect(String name, InputStream in, OutputStream out) {
 			StreamRedirectThread t = new StreamRedirectThread(name, in, out);
 			t.setDaemon(true);
 			t.start();
@@ -231,7 +284,7 @@ public final class DecisionProcedureGuidanceJDI extends DecisionProcedureGuidanc
 		 *
 		 * @author Robert Field
 		 */
-		private static class StreamRedirectThread extends Thread {
+		static class StreamRedirectThread extends Thread {
 
 			private final Reader in;
 			private final Writer out;
@@ -288,6 +341,11 @@ public final class DecisionProcedureGuidanceJDI extends DecisionProcedureGuidanc
 				final String mainClass = DecisionProcedureGuidanceJDILauncher.class.getName();
 				final String targetClass = binaryClassName(this.runnerParameters.getMethodSignature().getClassName());
 				final String startMethodName = this.runnerParameters.getMethodSignature().getName();
+				if (this.pool != null) {
+					this.residentJvm = this.pool.acquire(stringClassPath);
+					this.residentJvm.setTarget(targetClass, startMethodName);
+					return this.residentJvm.vm;
+				}
 				return launchTarget("-classpath \"" + stringClassPath + "\" " + mainClass + " " + targetClass + " " + startMethodName);
 			} catch (IOException e) {
 				throw new GuidanceException(e);
@@ -304,7 +362,7 @@ public final class DecisionProcedureGuidanceJDI extends DecisionProcedureGuidanc
 			}
 		}
 
-		private Map<String, Connector.Argument> connectorArguments(LaunchingConnector connector, String mainArgs) {
+		static Map<String, Connector.Argument> connectorArguments(LaunchingConnector connector, String mainArgs) {
 			final Map<String, Connector.Argument> arguments = connector.defaultArguments();
 			final Connector.Argument mainArg = arguments.get("main");
 			if (mainArg == null) {
@@ -315,6 +373,8 @@ public final class DecisionProcedureGuidanceJDI extends DecisionProcedureGuidanc
 		}
 
 		protected void goToBreakpoint(Signature sig, int offset, int numberOfHits) throws GuidanceException {
+			clearSnapshot();
+
 			//System.out.println("*** moveJdiToCurrentExecutionPointOfJbse: " + jbseLocationAhead.sig + "::" + jbseLocationAhead.pc + " (occurrence " + numberOfHits + ")");
 
 			//sets event requests
@@ -324,6 +384,9 @@ public final class DecisionProcedureGuidanceJDI extends DecisionProcedureGuidanc
 			cprr.enable();
 
 			for (ReferenceType classType: this.vm.allClasses()) {
+				if (isStale(classType)) {
+					continue;
+				}
 			    this.alreadyLoadedClasses.put(classType.name().replace('.', '/'), classType);
 				//System.out.println("ClassLOADED: " + classType.name());
 			}
@@ -437,7 +500,31 @@ public final class DecisionProcedureGuidanceJDI extends DecisionProcedureGuidanc
 			return false;
 		}
 
-		private LaunchingConnector findLaunchingConnector() {
+		/**
+		 * Checks whether a class was loaded by a previous run 
+		 * of a resident JVM.
+		 * 
+		 * @param classType a {@link ReferenceType}.
+		 * @return {@code true} iff {@code classType} was loaded
+		 *         by a {@link DecisionProcedureGuidanceJDILauncher.RunClassLoader}
+		 *         different from the one of the current run.
+		 */
+		private boolean isStale(ReferenceType classType) {
+			if (this.residentJvm == null) {
+				return false;
+			}
+			final ObjectReference classLoader = classType.classLoader();
+			if (classLoader == null || !RUN_CLASS_LOADER.equals(classLoader.referenceType().name())) {
+				return false;
+			}
+			if (this.runClassLoader == null) {
+				final Value currentLoader = this.residentJvm.launcher.getValue(this.residentJvm.launcher.fieldByName("currentLoader"));
+				this.runClassLoader = (ObjectReference) currentLoader; //null if the run did not start yet
+			}
+			return !classLoader.equals(this.runClassLoader);
+		}
+
+		static LaunchingConnector findLaunchingConnector() {
 			final List<Connector> connectors = Bootstrap.virtualMachineManager().allConnectors();
 			for (Connector connector : connectors) {
 				if (connector.name().equals("com.sun.jdi.CommandLineLaunch")) {
@@ -537,6 +624,21 @@ public final class DecisionProcedureGuidanceJDI extends DecisionProcedureGuidanc
 		 * @throws GuidanceException
 		 */
 		protected Object getJDIValue(Symbolic origin) throws GuidanceException {
+			if (this.originCache.containsKey(origin)) {
+				return this.originCache.get(origin);
+			}
+			final boolean valueDependedOnSymbolicApply = this.valueDependsOnSymbolicApply;
+			this.valueDependsOnSymbolicApply = false;
+			final Object retVal = getJDIValueUncached(origin);
+			if (!this.valueDependsOnSymbolicApply && !(origin instanceof SymbolicApply)) {
+				//values depending on uninterpreted functions are cached by symbolicApplyCache
+				this.originCache.put(origin, retVal);
+			}
+			this.valueDependsOnSymbolicApply |= valueDependedOnSymbolicApply;
+			return retVal;
+		}
+		
+		private Object getJDIValueUncached(Symbolic origin) throws GuidanceException {
 			try {
 				if (origin instanceof SymbolicLocalVariable) {
 					return getJDIValueLocalVariable(((SymbolicLocalVariable) origin).getVariableName());
@@ -561,7 +663,7 @@ public final class DecisionProcedureGuidanceJDI extends DecisionProcedureGuidanc
 					}
 					try {
 						final Simplex index = (Simplex) eval(((SymbolicMemberArray) origin).getIndex());
-						return ((ArrayReference) o).getValue(((Integer) index.getActualValue()).intValue());
+						return arrayElement((ArrayReference) o, ((Integer) index.getActualValue()).intValue());
 					} catch (ClassCastException e) {
 						throw new GuidanceException(e);
 					} catch (IndexOutOfBoundsException e) {
@@ -633,7 +735,7 @@ public final class DecisionProcedureGuidanceJDI extends DecisionProcedureGuidanc
 				final String op = this.currentHashMapModelMethod; //the operator is containsKey, but we need to move into the jbse.base.JAVA_MAP method where containskey is being evaluated to obtain the proper value of the key
 				final List<String> hits = this.symbolicApplyOperatorOccurrences.get(op);
 				SymbolicMemberField initialMap = (SymbolicMemberField) symbolicApply.getArgs()[0];
-				final InitialMapSymbolicApplyJVMJDI symbolicApplyVm = new InitialMapSymbolicApplyJVMJDI(this.calc, this.runnerParameters, this.stopSignature, this.stopSignatureNumberOfHits, op, hits, initialMap);
+				final InitialMapSymbolicApplyJVMJDI symbolicApplyVm = new InitialMapSymbolicApplyJVMJDI(this.calc, this.runnerParameters, this.stopSignature, this.stopSignatureNumberOfHits, this.pool, op, hits, initialMap);
 				symbolicApplyVm.eval_INVOKEX();
 				if (symbolicApplyVm.getValueAtKey() == null) {
 					// the return value of containsKey is a boolean and there is no Object associated with this key,
@@ -660,7 +762,7 @@ public final class DecisionProcedureGuidanceJDI extends DecisionProcedureGuidanc
 				this.symbolicApplyOperatorOccurrences.put(op, Arrays.asList(op));
 				numberOfHits = 1;
 			}
-			final SymbolicApplyJVMJDI symbolicApplyVm = new SymbolicApplyJVMJDI(this.calc, this.runnerParameters, this.stopSignature, this.stopSignatureNumberOfHits, op, numberOfHits);
+			final SymbolicApplyJVMJDI symbolicApplyVm = new SymbolicApplyJVMJDI(this.calc, this.runnerParameters, this.stopSignature, this.stopSignatureNumberOfHits, this.pool, op, numberOfHits);
 			symbolicApplyVm.eval_INVOKEX();
 			
 			//If the return value is a primitive, we do not need this vm any further
@@ -673,6 +775,9 @@ public final class DecisionProcedureGuidanceJDI extends DecisionProcedureGuidanc
 
 		private com.sun.jdi.Value getJDIValueLocalVariable(String var) 
 		throws GuidanceException, IncompatibleThreadStateException, AbsentInformationException {
+			if (this.localsSnapshot.containsKey(var)) {
+				return this.localsSnapshot.get(var);
+			}
 			final com.sun.jdi.Value val;
 			if ("this".equals(var)) {
 				val = rootFrameConcrete().thisObject();
@@ -688,7 +793,8 @@ public final class DecisionProcedureGuidanceJDI extends DecisionProcedureGuidanc
 
 		private com.sun.jdi.ReferenceType getJDIObjectStatic(String className) 
 		throws GuidanceException, IncompatibleThreadStateException, AbsentInformationException {
-			final List<ReferenceType> classes = this.vm.classesByName(className);
+			final List<ReferenceType> classes = new ArrayList<>(this.vm.classesByName(className));
+			classes.removeIf(this::isStale);
 			if (classes.size() == 1) {
 				return classes.get(0);
 			} else {
@@ -730,13 +836,121 @@ public final class DecisionProcedureGuidanceJDI extends DecisionProcedureGuidanc
 					throw new GuidanceException(ERROR_BAD_PATH + origin.asOriginString() + " (missing field " + fieldName + ").");
 				}
 				try {
-					return oReference.getValue(fld);
+					return fieldValues(oReference).get(fld);
 				} catch (IllegalArgumentException e) {
 					throw new GuidanceException(e);
 				}
 			}
 		}
 		
+		/**
+		 * Fetches in batch the local variables of the root frame, 
+		 * and the objects reachable from them with at most 
+		 * {@link #snapshotDepth} field or array accesses.
+		 * 
+		 * @throws GuidanceException if the root frame cannot be accessed.
+		 * @throws IncompatibleThreadStateException if the current thread
+		 *         is not suspended.
+		 */
+		private void prefetch() throws GuidanceException, IncompatibleThreadStateException {
+			if (this.snapshotDepth <= 0) {
+				return;
+			}
+			final StackFrame rootFrame = rootFrameConcrete();
+			ArrayList<Value> frontier = new ArrayList<>();
+			final ObjectReference thisObject = rootFrame.thisObject();
+			if (thisObject != null) {
+				this.localsSnapshot.put("this", thisObject);
+				frontier.add(thisObject);
+			}
+			try {
+				final Map<LocalVariable, Value> locals = rootFrame.getValues(rootFrame.visibleVariables());
+				for (Map.Entry<LocalVariable, Value> local : locals.entrySet()) {
+					this.localsSnapshot.put(local.getKey().name(), local.getValue());
+					frontier.add(local.getValue());
+				}
+			} catch (AbsentInformationException e) {
+				//no debug information: local variables will be fetched on demand
+			}
+			for (int depth = 0; depth < this.snapshotDepth && !frontier.isEmpty(); ++depth) {
+				final ArrayList<Value> nextFrontier = new ArrayList<>();
+				for (Value v : frontier) {
+					if (v instanceof ArrayReference) {
+						final ArrayReference a = (ArrayReference) v;
+						if (!this.arraysSnapshot.containsKey(a) && a.length() <= MAX_ARRAY_SNAPSHOT) {
+							nextFrontier.addAll(arrayElements(a));
+						}
+					} else if (v instanceof ObjectReference && !(v instanceof StringReference)) {
+						final ObjectReference o = (ObjectReference) v;
+						if (!this.fieldsSnapshot.containsKey(o)) {
+							nextFrontier.addAll(fieldValues(o).values());
+						}
+					}
+				}
+				frontier = nextFrontier;
+			}
+		}
+		
+		/**
+		 * Returns the values of all the fields of an object,
+		 * fetching them in batch the first time.
+		 * 
+		 * @param o an {@link ObjectReference}.
+		 * @return a {@link Map}{@code <}{@link Field}{@code , }{@link Value}{@code >}.
+		 */
+		private Map<Field, Value> fieldValues(ObjectReference o) {
+			Map<Field, Value> retVal = this.fieldsSnapshot.get(o);
+			if (retVal == null) {
+				retVal = o.getValues(o.referenceType().allFields());
+				this.fieldsSnapshot.put(o, retVal);
+			}
+			return retVal;
+		}
+		
+		/**
+		 * Returns the elements of an array, fetching them 
+		 * in batch the first time.
+		 * 
+		 * @param a an {@link ArrayReference}.
+		 * @return a {@link List}{@code <}{@link Value}{@code >}.
+		 */
+		private List<Value> arrayElements(ArrayReference a) {
+			List<Value> retVal = this.arraysSnapshot.get(a);
+			if (retVal == null) {
+				retVal = a.getValues();
+				this.arraysSnapshot.put(a, retVal);
+			}
+			return retVal;
+		}
+		
+		/**
+		 * Returns an element of an array.
+		 * 
+		 * @param a an {@link ArrayReference}.
+		 * @param index an {@code int}.
+		 * @return the {@link Value} of {@code a[index]}.
+		 * @throws IndexOutOfBoundsException if {@code index} is 
+		 *         out of the bounds of {@code a}.
+		 */
+		private Value arrayElement(ArrayReference a, int index) {
+			final List<Value> elements = this.arraysSnapshot.get(a);
+			if (elements == null && a.length() > MAX_ARRAY_SNAPSHOT) {
+				return a.getValue(index);
+			}
+			return arrayElements(a).get(index);
+		}
+		
+		/**
+		 * Invalidates the snapshot of the concrete state. It 
+		 * must be invoked before the concrete execution moves on.
+		 */
+		protected void clearSnapshot() {
+			this.originCache.clear();
+			this.localsSnapshot.clear();
+			this.fieldsSnapshot.clear();
+			this.arraysSnapshot.clear();
+		}
+		
 		private static Value cloneInitialMap(ThreadReference currentThread, Object o) {
 			ObjectReference initialMapRef = (com.sun.jdi.ObjectReference) o;
 			try {
@@ -816,7 +1030,11 @@ public final class DecisionProcedureGuidanceJDI extends DecisionProcedureGuidanc
 
 		@Override
 		protected void close() {
-			if (this.vm != null) {
+			if (this.residentJvm != null) {
+				this.pool.release(this.residentJvm);
+				this.residentJvm = null;
+				this.vm = null;
+			} else if (this.vm != null) {
 				this.vm.exit(0);
 
 				//obviates to inferior process leak
@@ -835,9 +1053,9 @@ public final class DecisionProcedureGuidanceJDI extends DecisionProcedureGuidanc
 		private final int symbolicApplyNumberOfHits;
 		private final BreakpointRequest targetMethodExitedBreakpoint;
 
-		public SymbolicApplyJVMJDI(Calculator calc, RunnerParameters runnerParameters, Signature stopSignature, int numberOfHits, String symbolicApplyOperator, int symbolicApplyNumberOfHits) 
+		public SymbolicApplyJVMJDI(Calculator calc, RunnerParameters runnerParameters, Signature stopSignature, int numberOfHits, GuidanceJVMPool pool, String symbolicApplyOperator, int symbolicApplyNumberOfHits) 
 		throws GuidanceException {
-			super(calc, runnerParameters, stopSignature, numberOfHits);
+			super(calc, runnerParameters, stopSignature, numberOfHits, pool, 0); //moves on, snapshots would not pay off
 			this.symbolicApplyOperator = symbolicApplyOperator;
 			this.symbolicApplyNumberOfHits = symbolicApplyNumberOfHits;
 			/* We set up a control breakpoint to check if, at any next step, JDI erroneously returns from the method under analysis */
@@ -888,6 +1106,7 @@ public final class DecisionProcedureGuidanceJDI extends DecisionProcedureGuidanc
 		}
 
 		private Value stepUpToMethodExit() throws GuidanceException {
+			clearSnapshot();
 			final int currFrames;
 			try {
 				currFrames = getCurrentThread().frameCount();
@@ -943,9 +1162,9 @@ public final class DecisionProcedureGuidanceJDI extends DecisionProcedureGuidanc
 		private final List<String> hits;
 		private Value valueAtKey;
 
-		public InitialMapSymbolicApplyJVMJDI(Calculator calc, RunnerParameters runnerParameters, Signature stopSignature, int numberOfHits, String symbolicApplyOperator, List<String> hits, SymbolicMemberField initialMapOrigin) 
+		public InitialMapSymbolicApplyJVMJDI(Calculator calc, RunnerParameters runnerParameters, Signature stopSignature, int numberOfHits, GuidanceJVMPool pool, String symbolicApplyOperator, List<String> hits, SymbolicMemberField initialMapOrigin) 
 		throws GuidanceException {
-			super(calc, runnerParameters, stopSignature, numberOfHits, symbolicApplyOperator, hits.size());
+			super(calc, runnerParameters, stopSignature, numberOfHits, pool, symbolicApplyOperator, hits.size());
 			initialMapRef = (ObjectReference) getJDIValue(initialMapOrigin);
 			this.hits = hits;
 		}
@@ -1,13 +1,104 @@
 package jbse.apps.run;
 
+import java.io.File;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
 
 public class DecisionProcedureGuidanceJDILauncher {
+    /** The option that makes the JVM resident. */
+    static final String OPTION_RESIDENT = "-resident";
+    
+    /** 
+     * In resident mode, the name of the target class of the next
+     * run, set by the debugger while the JVM is at {@link #awaitTarget()}, 
+     * or {@code null} to terminate.
+     */
+    static String targetClass = null;
+    
+    /** 
+     * In resident mode, the name of the target method of the next
+     * run, set by the debugger while the JVM is at {@link #awaitTarget()}.
+     */
+    static String targetMethod = null;
+    
+    /** 
+     * In resident mode, the {@link RunClassLoader} of the current 
+     * run, or {@code null} if no run is in progress. 
+     */
+    static RunClassLoader currentLoader = null;
+    
+    /**
+     * The {@link ClassLoader} of a run in resident mode. Every
+     * run loads the target classes with a fresh one, so every 
+     * run starts from a fresh static state. 
+     * 
+     * @author Pietro Braione
+     */
+    static final class RunClassLoader extends URLClassLoader {
+        RunClassLoader(URL[] urls) {
+            super(urls, ClassLoader.getSystemClassLoader().getParent());
+        }
+    }
+    
     /**
      * This is the main method for the JVM created by {@link DecisionProcedureGuidanceJDI}. 
-     * This main method loads the true target class and runs its
-     * target method.
+     * In resident mode ({@code args[0]} is {@code -resident}) the 
+     * JVM runs, one after another, all the target methods the 
+     * debugger sets at {@link #awaitTarget()}.
+     * 
+     * @param args a {@link String}{@code []}, see {@link #runTarget(String[])}.
+     * @throws Exception whatever {@link #runTarget(String[])} throws.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && OPTION_RESIDENT.equals(args[0])) {
+            runResident();
+        } else {
+            runTarget(args);
+        }
+    }
+    
+    private static void runResident() throws MalformedURLException {
+        final ArrayList<URL> urls = new ArrayList<>();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            urls.add(new File(entry).toURI().toURL());
+        }
+        final URL[] classPath = urls.toArray(new URL[0]);
+        while (true) {
+            awaitTarget();
+            if (targetClass == null) {
+                return;
+            }
+            currentLoader = new RunClassLoader(classPath);
+            Thread.currentThread().setContextClassLoader(currentLoader);
+            try {
+                final Class<?> clazz = Class.forName(targetClass, true, currentLoader);
+                final Method method = clazz.getDeclaredMethod(targetMethod);
+                method.setAccessible(true);
+                final Object o = clazz.newInstance();
+                method.invoke(o);
+            } catch (Throwable e) {
+                e.printStackTrace();
+            }
+            targetClass = null;
+            targetMethod = null;
+            currentLoader = null;
+        }
+    }
+    
+    /**
+     * In resident mode, the JVM stops here, by means of a 
+     * debugger breakpoint, between a run and the next one.
+     */
+    static void awaitTarget() {
+        //nothing to do
+    }
+    
+    /**
+     * Loads the true target class and runs its target method.
      * 
      * @param args a {@link String}{@code []}, {@code args[0]} is the
      *        name of a class and {@code args[1]} is the name of a 
@@ -25,7 +116,7 @@ public class DecisionProcedureGuidanceJDILauncher {
      * @throws InvocationTargetException if method {@code args[1]} throws an
      *         exception.
      */
-    public static void main(String[] args) throws ClassNotFoundException, NoSuchMethodException, 
+    private static void runTarget(String[] args) throws ClassNotFoundException, NoSuchMethodException, 
     SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, 
     InvocationTargetException {
         final Class<?> clazz = Class.forName(args[0]);
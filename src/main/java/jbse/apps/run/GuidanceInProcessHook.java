@@ -0,0 +1,79 @@
+package jbse.apps.run;
+
+/**
+ * The hook invoked by the code instrumented by
+ * {@link DecisionProcedureGuidanceInProcess} at the entry
+ * and at the exit of the method where the guiding concrete 
+ * execution must stop. It must be public because it is 
+ * invoked by classes loaded by a different classloader.
+ *
+ * @author Pietro Braione
+ */
+public final class GuidanceInProcessHook {
+    /**
+     * A listener of the hits of the instrumented method.
+     *
+     * @author Pietro Braione
+     */
+    interface Listener {
+        /**
+         * Invoked at the entry of the instrumented method.
+         *
+         * @param values an {@link Object}{@code []} with the values
+         *        of the local variables of the instrumented method
+         *        at entry, i.e., {@code this} (if the method is not
+         *        static) and the parameters, primitive values boxed.
+         */
+        void atEntry(Object[] values);
+
+        /**
+         * Invoked at the exit of the instrumented method, 
+         * either by return or by a thrown exception.
+         */
+        void atExit();
+    }
+
+    /**
+     * Thrown to the thread of the guiding concrete execution 
+     * to unwind it when the execution is closed.
+     *
+     * @author Pietro Braione
+     */
+    @SuppressWarnings("serial")
+    static final class Abort extends Error {
+        Abort() {
+            super(null, null, false, false); //no stack trace, no suppression
+        }
+    }
+
+    /** The {@link Listener} of the current guiding concrete execution. */
+    static final InheritableThreadLocal<Listener> LISTENER = new InheritableThreadLocal<>();
+
+    /**
+     * Invoked at the entry of the instrumented method.
+     *
+     * @param values an {@link Object}{@code []}, see
+     *        {@link Listener#atEntry(Object[])}.
+     */
+    public static void atEntry(Object[] values) {
+        final Listener listener = LISTENER.get();
+        if (listener != null) {
+            listener.atEntry(values);
+        }
+    }
+
+    /**
+     * Invoked at the exit of the instrumented method.
+     */
+    public static void atExit() {
+        final Listener listener = LISTENER.get();
+        if (listener != null) {
+            listener.atExit();
+        }
+    }
+
+    private GuidanceInProcessHook() {
+        //do not instantiate!
+        throw new AssertionError();
+    }
+}
@@ -0,0 +1,375 @@
+package jbse.apps.run;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.jdi.ClassNotLoadedException;
+import com.sun.jdi.ClassType;
+import com.sun.jdi.Field;
+import com.sun.jdi.InvalidTypeException;
+import com.sun.jdi.Location;
+import com.sun.jdi.ReferenceType;
+import com.sun.jdi.StringReference;
+import com.sun.jdi.VMDisconnectedException;
+import com.sun.jdi.VirtualMachine;
+import com.sun.jdi.connect.Connector;
+import com.sun.jdi.connect.IllegalConnectorArgumentsException;
+import com.sun.jdi.connect.LaunchingConnector;
+import com.sun.jdi.connect.VMStartException;
+import com.sun.jdi.event.BreakpointEvent;
+import com.sun.jdi.event.ClassPrepareEvent;
+import com.sun.jdi.event.Event;
+import com.sun.jdi.event.EventSet;
+import com.sun.jdi.request.BreakpointRequest;
+import com.sun.jdi.request.ClassPrepareRequest;
+import com.sun.jdi.request.EventRequest;
+import com.sun.jdi.request.EventRequestManager;
+
+import jbse.apps.run.DecisionProcedureGuidanceJDI.JVMJDI;
+
+/**
+ * A pool of resident guidance JVMs, i.e., JVMs running
+ * {@link DecisionProcedureGuidanceJDILauncher} in resident mode.
+ * Launching a JVM and setting it up for debugging is slow, so
+ * guided analyses (and their evaluations of uninterpreted functions)
+ * acquire the JVMs from this pool, and release them to the pool
+ * when done. A released JVM is reset in background by running
+ * its target method up to completion, after which it waits for
+ * the next target method, that will be loaded by a fresh
+ * {@link ClassLoader}. The JVMs are pooled by classpath.
+ *
+ * @author Pietro Braione
+ */
+final class GuidanceJVMPool {
+    /** The time a released JVM is given to complete its run, in milliseconds. */
+    private static final long RESET_TIMEOUT_MILLIS = 10_000L;
+
+    /** The time a launched JVM is given to reach its wait point, in milliseconds. */
+    private static final long LAUNCH_TIMEOUT_MILLIS = 60_000L;
+
+    /** The name of the launcher class. */
+    private static final String LAUNCHER_CLASS = DecisionProcedureGuidanceJDILauncher.class.getName();
+
+    /** The name of the method where resident JVMs wait. */
+    private static final String AWAIT_TARGET_METHOD = "awaitTarget";
+
+    /** The shared pool. */
+    private static GuidanceJVMPool sharedPool = null;
+
+    /**
+     * Returns the shared pool.
+     *
+     * @return the {@link GuidanceJVMPool} shared by all the
+     *         guided analyses.
+     */
+    static synchronized GuidanceJVMPool shared() {
+        if (sharedPool == null) {
+            sharedPool = new GuidanceJVMPool();
+            Runtime.getRuntime().addShutdownHook(new Thread(sharedPool::dispose));
+        }
+        return sharedPool;
+    }
+
+    /**
+     * A resident JVM, parked at the wait point of the launcher.
+     *
+     * @author Pietro Braione
+     */
+    static final class ResidentJVM {
+        /** The classpath of the JVM, as passed on the command line. */
+        final String classPath;
+
+        /** The {@link VirtualMachine}. */
+        final VirtualMachine vm;
+
+        /** The launcher {@link ClassType}. */
+        final ClassType launcher;
+
+        /** The {@link Location} of the wait point. */
+        final Location awaitTarget;
+
+        /** The {@link BreakpointRequest} at the wait point. */
+        BreakpointRequest parkBreakpoint;
+
+        ResidentJVM(String classPath, VirtualMachine vm, ClassType launcher, Location awaitTarget) {
+            this.classPath = classPath;
+            this.vm = vm;
+            this.launcher = launcher;
+            this.awaitTarget = awaitTarget;
+            park();
+        }
+
+        private void park() {
+            final EventRequestManager mgr = this.vm.eventRequestManager();
+            this.parkBreakpoint = mgr.createBreakpointRequest(this.awaitTarget);
+            this.parkBreakpoint.setSuspendPolicy(EventRequest.SUSPEND_EVENT_THREAD);
+            this.parkBreakpoint.enable();
+        }
+
+        /**
+         * Sets the target of the next run. The JVM must be
+         * parked.
+         *
+         * @param targetClass a {@link String}, the binary name
+         *        of the target class.
+         * @param targetMethod a {@link String}, the name of the
+         *        target method.
+         * @throws GuidanceException if setting the target fails.
+         */
+        void setTarget(String targetClass, String targetMethod) throws GuidanceException {
+            setStatic("targetClass", targetClass);
+            setStatic("targetMethod", targetMethod);
+        }
+
+        private void setStatic(String fieldName, String value) throws GuidanceException {
+            final Field fld = this.launcher.fieldByName(fieldName);
+            final StringReference valueMirror = (value == null ? null : this.vm.mirrorOf(value));
+            try {
+                this.launcher.setValue(fld, valueMirror);
+            } catch (InvalidTypeException | ClassNotLoadedException e) {
+                throw new GuidanceException(e);
+            }
+        }
+
+        /**
+         * Lets the current run complete, and parks
+         * the JVM at the wait point.
+         *
+         * @return {@code true} iff the JVM was parked;
+         *         {@code false} if the JVM did not reach
+         *         the wait point timely, or disconnected.
+         */
+        boolean reset() {
+            try {
+                //deletes all the requests of the run
+                final EventRequestManager mgr = this.vm.eventRequestManager();
+                mgr.deleteAllBreakpoints();
+                mgr.deleteEventRequests(mgr.classPrepareRequests());
+                mgr.deleteEventRequests(mgr.methodEntryRequests());
+                mgr.deleteEventRequests(mgr.methodExitRequests());
+                mgr.deleteEventRequests(mgr.stepRequests());
+                park();
+
+                //runs up to the wait point
+                this.vm.resume();
+                final long deadline = System.currentTimeMillis() + RESET_TIMEOUT_MILLIS;
+                while (true) {
+                    final long timeout = deadline - System.currentTimeMillis();
+                    if (timeout <= 0) {
+                        return false;
+                    }
+                    final EventSet eventSet = this.vm.eventQueue().remove(timeout);
+                    if (eventSet == null) {
+                        return false;
+                    }
+                    for (Event event : eventSet) {
+                        if (event instanceof BreakpointEvent && this.parkBreakpoint.equals(event.request())) {
+                            return true;
+                        }
+                    }
+                    eventSet.resume();
+                }
+            } catch (VMDisconnectedException | InterruptedException e) {
+                return false;
+            }
+        }
+
+        void exit() {
+            try {
+                this.vm.exit(0);
+            } catch (VMDisconnectedException e) {
+                //nothing to do
+            }
+
+            //obviates to inferior process leak
+            this.vm.process().destroyForcibly();
+        }
+    }
+
+    /** The parked {@link ResidentJVM}s, by classpath. */
+    private final Map<String, ArrayDeque<ResidentJVM>> idle = new HashMap<>();
+
+    /** The maximum number of parked {@link ResidentJVM}s for each classpath. */
+    private int maxIdle = 1;
+
+    /** Resets the released {@link ResidentJVM}s. */
+    private final ExecutorService resetter = Executors.newSingleThreadExecutor(r -> {
+        final Thread t = new Thread(r, "Guidance JVM resetter");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Set to {@code true} upon disposal. */
+    private boolean disposed = false;
+
+    /**
+     * Constructor. Guided analyses must use the {@link #shared()} pool.
+     */
+    GuidanceJVMPool() {
+        //nothing to do
+    }
+
+    /**
+     * Sets the maximum number of JVMs the pool keeps
+     * for each classpath.
+     *
+     * @param maxIdle a positive {@code int}.
+     */
+    synchronized void setMaxIdle(int maxIdle) {
+        this.maxIdle = Math.max(1, maxIdle);
+    }
+
+    /**
+     * Returns the number of parked JVMs for a classpath.
+     *
+     * @param classPath a {@link String}, the classpath
+     *        of the JVMs.
+     * @return an {@code int}.
+     */
+    synchronized int idleCount(String classPath) {
+        final ArrayDeque<ResidentJVM> idleForClassPath = this.idle.get(classPath);
+        return (idleForClassPath == null ? 0 : idleForClassPath.size());
+    }
+
+    /**
+     * Acquires a parked resident JVM, launching it if
+     * no one is available.
+     *
+     * @param classPath a {@link String}, the classpath
+     *        of the JVM.
+     * @return a {@link ResidentJVM}.
+     * @throws GuidanceException if the JVM cannot be launched.
+     */
+    ResidentJVM acquire(String classPath) throws GuidanceException {
+        synchronized (this) {
+            final ArrayDeque<ResidentJVM> idleForClassPath = this.idle.get(classPath);
+            if (idleForClassPath != null && !idleForClassPath.isEmpty()) {
+                return idleForClassPath.pop();
+            }
+        }
+        return launch(classPath);
+    }
+
+    /**
+     * Releases a resident JVM to this pool.
+     *
+     * @param jvm the {@link ResidentJVM} to be released.
+     *        It must have been returned by {@link #acquire(String)}.
+     */
+    void release(ResidentJVM jvm) {
+        this.resetter.execute(() -> {
+            if (jvm.reset()) {
+                synchronized (this) {
+                    final ArrayDeque<ResidentJVM> idleForClassPath = this.idle.computeIfAbsent(jvm.classPath, k -> new ArrayDeque<>());
+                    if (!this.disposed && idleForClassPath.size() < this.maxIdle) {
+                        idleForClassPath.push(jvm);
+                        return;
+                    }
+                }
+            }
+            jvm.exit();
+        });
+    }
+
+    /**
+     * Exits all the parked JVMs. The JVMs released 
+     * afterwards exit rather than being parked.
+     */
+    synchronized void dispose() {
+        this.disposed = true;
+        for (ArrayDeque<ResidentJVM> idleForClassPath : this.idle.values()) {
+            for (ResidentJVM jvm : idleForClassPath) {
+                jvm.exit();
+            }
+        }
+        this.idle.clear();
+    }
+
+    private static ResidentJVM launch(String classPath) throws GuidanceException {
+        final LaunchingConnector connector = JVMJDI.findLaunchingConnector();
+        final Map<String, Connector.Argument> arguments = JVMJDI.connectorArguments(connector, "-classpath \"" + classPath + "\" " + LAUNCHER_CLASS + " " + DecisionProcedureGuidanceJDILauncher.OPTION_RESIDENT);
+        final VirtualMachine vm;
+        try {
+            vm = connector.launch(arguments);
+        } catch (IOException | IllegalConnectorArgumentsException | VMStartException e) {
+            throw new GuidanceException(e);
+        }
+        JVMJDI.redirect("Resident subproc stdout", vm.process().getInputStream(), System.out);
+        JVMJDI.redirect("Resident subproc stderr", vm.process().getErrorStream(), System.err);
+
+        final long deadline = System.currentTimeMillis() + LAUNCH_TIMEOUT_MILLIS;
+        try {
+            //runs up to the preparation of the launcher class
+            final EventRequestManager mgr = vm.eventRequestManager();
+            final ClassPrepareRequest cprr = mgr.createClassPrepareRequest();
+            cprr.addClassFilter(LAUNCHER_CLASS);
+            cprr.setSuspendPolicy(EventRequest.SUSPEND_EVENT_THREAD);
+            cprr.enable();
+            ClassType launcher = null;
+            for (ReferenceType type : vm.classesByName(LAUNCHER_CLASS)) {
+                launcher = (ClassType) type;
+            }
+            vm.resume();
+            while (launcher == null) {
+                final EventSet eventSet = nextEventSet(vm, deadline);
+                for (Event event : eventSet) {
+                    if (event instanceof ClassPrepareEvent) {
+                        launcher = (ClassType) ((ClassPrepareEvent) event).referenceType();
+                    }
+                }
+                if (launcher == null) {
+                    eventSet.resume();
+                }
+            }
+            mgr.deleteEventRequest(cprr);
+
+            //runs up to the wait point
+            final List<com.sun.jdi.Method> methods = launcher.methodsByName(AWAIT_TARGET_METHOD);
+            final ResidentJVM retVal = new ResidentJVM(classPath, vm, launcher, methods.get(0).location());
+            vm.resume();
+            while (true) {
+                final EventSet eventSet = nextEventSet(vm, deadline);
+                for (Event event : eventSet) {
+                    if (event instanceof BreakpointEvent && retVal.parkBreakpoint.equals(event.request())) {
+                        return retVal;
+                    }
+                }
+                eventSet.resume();
+            }
+        } catch (GuidanceException e) {
+            vm.process().destroyForcibly();
+            throw e;
+        } catch (InterruptedException | VMDisconnectedException e) {
+            vm.process().destroyForcibly();
+            throw new GuidanceException(e);
+        }
+    }
+
+    /**
+     * Waits for the next {@link EventSet} of a JVM that
+     * is being launched.
+     * 
+     * @param vm a {@link VirtualMachine}.
+     * @param deadline a {@code long}, the time (as returned 
+     *        by {@link System#currentTimeMillis()}) by which 
+     *        the launch must complete.
+     * @return the next {@link EventSet} of {@code vm}.
+     * @throws GuidanceException if {@code deadline} passes 
+     *         before an {@link EventSet} is available.
+     * @throws InterruptedException if the current thread
+     *         is interrupted while waiting.
+     */
+    private static EventSet nextEventSet(VirtualMachine vm, long deadline) throws GuidanceException, InterruptedException {
+        final long timeout = deadline - System.currentTimeMillis();
+        final EventSet retVal = (timeout <= 0 ? null : vm.eventQueue().remove(timeout));
+        if (retVal == null) {
+            throw new GuidanceException("The resident guidance JVM did not reach its wait point within " + LAUNCH_TIMEOUT_MILLIS + " ms.");
+        }
+        return retVal;
+    }
+}
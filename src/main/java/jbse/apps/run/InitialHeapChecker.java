@@ -9,9 +9,26 @@ import static jbse.common.Type.internalClassName;
 
 import java.lang.annotation.Annotation;
 import java.lang.annotation.Target;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
 
 import jbse.algo.exc.CannotManageStateException;
@@ -24,6 +41,7 @@ import jbse.bc.exc.NullMethodReceiverException;
 import jbse.common.exc.ClasspathException;
 import jbse.common.exc.InvalidInputException;
 import jbse.common.exc.UnexpectedInternalException;
+import jbse.dec.DecisionProcedureAlgorithms;
 import jbse.dec.exc.DecisionException;
 import jbse.jvm.Engine;
 import jbse.jvm.Runner;
@@ -35,6 +53,10 @@ import jbse.jvm.exc.EngineStuckException;
 import jbse.jvm.exc.FailureException;
 import jbse.jvm.exc.InitializationException;
 import jbse.jvm.exc.NonexistingObservedVariablesException;
+import jbse.mem.Array;
+import jbse.mem.Clause;
+import jbse.mem.ClauseAssume;
+import jbse.mem.Klass;
 import jbse.mem.Objekt;
 import jbse.mem.State;
 import jbse.mem.exc.CannotRefineException;
@@ -43,17 +65,73 @@ import jbse.mem.exc.FrozenStateException;
 import jbse.mem.exc.InvalidProgramCounterException;
 import jbse.mem.exc.InvalidSlotException;
 import jbse.mem.exc.ThreadStackEmptyException;
+import jbse.val.Any;
+import jbse.val.Expression;
+import jbse.val.NarrowingConversion;
+import jbse.val.Primitive;
+import jbse.val.PrimitiveSymbolic;
+import jbse.val.PrimitiveSymbolicApply;
+import jbse.val.PrimitiveSymbolicAtomic;
+import jbse.val.PrimitiveVisitor;
 import jbse.val.Reference;
 import jbse.val.ReferenceConcrete;
+import jbse.val.ReferenceSymbolic;
 import jbse.val.Simplex;
+import jbse.val.Term;
 import jbse.val.Value;
+import jbse.val.WideningConversion;
 import jbse.val.exc.InvalidTypeException;
 
 public final class InitialHeapChecker {
+    /** The maximum number of verdicts remembered by {@link #verdicts}. */
+    private static final int MAX_VERDICTS = 10_000;
+    
     private final RunnerParameters runnerParameters;
     private final CheckMethodTable checkMethodTable;
+    
+    /**
+     * Caches the successful verdicts of the check methods. The keys 
+     * are the shapes of the checked objects (see {@link VerdictKey}),
+     * so a check method is not run again on an object 
+     * whose reachable part of the heap was not changed by
+     * the assumptions made after the last check. A check method 
+     * also sees the rest of the heap (e.g., through aliasing, or 
+     * by exhausting the heap scope), that the key does not cover,
+     * so only successful verdicts are remembered: Reusing one 
+     * wrongly at worst keeps a state that a run would have pruned,
+     * while reusing a failed one might prune a feasible state.
+     * Least recently used verdicts are evicted first.
+     */
+    @SuppressWarnings("serial")
+    private final LinkedHashMap<VerdictKey, Boolean> verdicts = new LinkedHashMap<VerdictKey, Boolean>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<VerdictKey, Boolean> eldest) {
+            return size() > MAX_VERDICTS;
+        }
+    };
     private Supplier<State> initialStateSupplier = null;
     private Supplier<State> currentStateSupplier = null;
+    
+    /** The number of threads that run the check methods. */
+    private int numThreads = 1;
+    
+    /** 
+     * Creates the decision procedures for the threads that
+     * run the check methods, when {@code numThreads > 1}.
+     */
+    private Supplier<DecisionProcedureAlgorithms> decisionProcedureFactory = null;
+    
+    /** The pool of the threads that run the check methods, lazily created. */
+    private ExecutorService pool = null;
+    
+    /** 
+     * The {@link RunnerParameters} of each thread of {@link #pool}, 
+     * each with its own decision procedure.
+     */
+    private ThreadLocal<RunnerParameters> poolRunnerParameters = null;
+    
+    /** The decision procedures created for the threads in {@link #pool}. */
+    private final List<DecisionProcedureAlgorithms> poolDecisionProcedures = new ArrayList<>();
 
     public InitialHeapChecker(RunnerParameters runnerParameters, 
                               Class<? extends Annotation> methodAnnotationClass,
@@ -69,6 +147,48 @@ public final class InitialHeapChecker {
     public void setCurrentStateSupplier(Supplier<State> currentStateSupplier) {
         this.currentStateSupplier = currentStateSupplier;
     }   
+    
+    /**
+     * Makes this checker run the check methods on the
+     * objects of a heap in parallel. 
+     * 
+     * @param numThreads an {@code int}, the number of threads 
+     *        that run the check methods. If it is {@code <= 1}
+     *        the check methods are run sequentially.
+     * @param decisionProcedureFactory a {@link Supplier}{@code <}{@link DecisionProcedureAlgorithms}{@code >}
+     *        creating a decision procedure for each thread, since 
+     *        decision procedures cannot be shared by threads. The 
+     *        created decision procedures must be equivalent to 
+     *        the one in the {@link RunnerParameters} passed
+     *        upon construction, and each of them must have its 
+     *        own {@link jbse.val.Calculator}, that is also used by
+     *        the thread to run the check methods. 
+     */
+    public void setParallel(int numThreads, Supplier<DecisionProcedureAlgorithms> decisionProcedureFactory) {
+        this.numThreads = numThreads;
+        this.decisionProcedureFactory = decisionProcedureFactory;
+    }
+    
+    /**
+     * Quits the threads that run the check methods
+     * and their decision procedures.
+     * 
+     * @throws DecisionException if some decision procedure
+     *         fails to quit.
+     */
+    public void close() throws DecisionException {
+        if (this.pool != null) {
+            this.pool.shutdownNow();
+            this.pool = null;
+            this.poolRunnerParameters = null;
+        }
+        synchronized (this.poolDecisionProcedures) {
+            for (DecisionProcedureAlgorithms dec : this.poolDecisionProcedures) {
+                dec.close();
+            }
+            this.poolDecisionProcedures.clear();
+        }
+    }
 
     public boolean checkHeap(boolean scopeExhaustionMeansSuccess) {
         final State sIni = makeInitialState();
@@ -77,7 +197,22 @@ public final class InitialHeapChecker {
 
     public boolean checkHeap(State sIni, boolean scopeExhaustionMeansSuccess) {
         try {
-        	//runs the check methods on all the instances in the heap 
+            final Shape context = contextShape(sIni);
+            final Set<PrimitiveSymbolic> contextSymbols = primitiveSymbolsIn(context.items);
+            final ArrayList<ClauseAssume> assumptions = new ArrayList<>();
+            final ArrayList<Set<PrimitiveSymbolic>> assumptionsSymbols = new ArrayList<>();
+            for (Clause c : sIni.getPathCondition()) {
+                if (c instanceof ClauseAssume) {
+                    final ClauseAssume a = (ClauseAssume) c;
+                    assumptions.add(a);
+                    assumptionsSymbols.add(primitiveSymbolsIn(a.getCondition()));
+                }
+            }
+            
+            //determines the check methods to run on the instances 
+            //in the heap, reusing the previous verdicts if the objects
+            //did not change
+            final ArrayList<Check> checks = new ArrayList<>();
         	for (long heapPos : sIni.getHeap().keySet()) {
         		final Reference objectRef = new ReferenceConcrete(heapPos);
         		final Objekt obj = sIni.getObject(objectRef);
@@ -86,28 +221,562 @@ public final class InitialHeapChecker {
         			if (methodSignature == null) {
         				//nothing to check
         			} else {
-        				final State sRun = sIni.clone();
-        				final boolean repOk = 
-        						runCheckMethod(sRun, objectRef, obj.getType(), methodSignature, this.runnerParameters, scopeExhaustionMeansSuccess);
-        				if (!repOk) {
-        					return false; 
-        				}
+        			    final VerdictKey key = new VerdictKey(methodSignature, scopeExhaustionMeansSuccess, context, objectShape(sIni, heapPos, contextSymbols, assumptions, assumptionsSymbols));
+        			    if (cachedVerdict(key) == null) {
+        			        checks.add(new Check(objectRef, obj.getType(), methodSignature, key));
+        			    }
         			}
         		}
         	}
-        } catch (DecisionException | FrozenStateException |
-                InitializationException | InvalidClassFileFactoryClassException | 
-                NonexistingObservedVariablesException |  
-                CannotBacktrackException | EngineStuckException | CannotManageStateException | 
-                ClasspathException | ContradictionException | FailureException | 
-                UnexpectedInternalException | CannotBuildEngineException | 
-                ThreadStackEmptyException | InvalidProgramCounterException | 
-                NullMethodReceiverException | InvalidSlotException exc) {
+        	
+        	//runs them; the initial state is never 
+        	//modified, so it can be lazily cloned
+        	return runChecks(checks, (check, parameters, stop) -> {
+        	    final State sRun = sIni.lazyClone();
+        	    return () -> runCheckMethod(sRun, check.objectRef, check.classFile, check.methodSignature, parameters.get(), scopeExhaustionMeansSuccess, stop);
+        	});
+        } catch (FrozenStateException exc) {
            //TODO check and filter exceptions and blame caller when necessary
            throw new UnexpectedInternalException(exc);
        }
+    }
+    
+    /**
+     * Returns a cached verdict.
+     * 
+     * @param key a {@link VerdictKey}.
+     * @return {@link Boolean#TRUE} if the check method succeeded
+     *         on an object with key {@code key} and the verdict
+     *         was not evicted, otherwise {@code null}.
+     */
+    Boolean cachedVerdict(VerdictKey key) {
+        return this.verdicts.get(key);
+    }
+
+    /**
+     * Caches a verdict. Only successful verdicts are cached.
+     * 
+     * @param key a {@link VerdictKey}.
+     * @param repOk a {@code boolean}, the verdict of the check
+     *        method on an object with key {@code key}.
+     */
+    void cacheVerdict(VerdictKey key, boolean repOk) {
+        if (repOk) {
+            this.verdicts.put(key, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * A check method to be run on an object.
+     * 
+     * @author Pietro Braione
+     */
+    static final class Check {
+        final Reference objectRef;
+        final ClassFile classFile;
+        final Signature methodSignature;
+        final VerdictKey key;
+        
+        Check(Reference objectRef, ClassFile classFile, Signature methodSignature, VerdictKey key) {
+            this.objectRef = objectRef;
+            this.classFile = classFile;
+            this.methodSignature = methodSignature;
+            this.key = key;
+        }
+    }
+    
+    /**
+     * Prepares the runs of the check methods.
+     * 
+     * @author Pietro Braione
+     */
+    @FunctionalInterface
+    interface CheckRunner {
+        /**
+         * Prepares the run of a check method. It is invoked
+         * by the thread that checks the heap.
+         * 
+         * @param check the {@link Check} to run.
+         * @param parameters a {@link Supplier}{@code <}{@link RunnerParameters}{@code >}
+         *        of the parameters for the run, to be invoked by the thread
+         *        that runs the check method.
+         * @param stop an {@link AtomicBoolean}, or {@code null}. If it is 
+         *        not {@code null} the run must stop as soon as it is set, 
+         *        and its verdict is meaningless.
+         * @return a {@link Callable}{@code <}{@link Boolean}{@code >} that 
+         *         runs the check method and returns its verdict. 
+         */
+        Callable<Boolean> prepare(Check check, Supplier<RunnerParameters> parameters, AtomicBoolean stop);
+    }
+    
+    /**
+     * Runs check methods, sequentially or in parallel
+     * on {@link #pool}, stopping as soon as one of them 
+     * fails, and caches their verdicts.
+     * 
+     * @param checks a {@link List}{@code <}{@link Check}{@code >}, 
+     *        the check methods to run.
+     * @param runner a {@link CheckRunner}.
+     * @return {@code true} iff all the check methods succeed.
+     */
+    boolean runChecks(List<Check> checks, CheckRunner runner) {
+        if (this.numThreads > 1 && checks.size() > 1) {
+            return runChecksParallel(checks, runner);
+        }
+        for (Check check : checks) {
+            final boolean repOk;
+            try {
+                repOk = runner.prepare(check, () -> this.runnerParameters, null).call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                //TODO check and filter exceptions and blame caller when necessary
+                throw new UnexpectedInternalException(e);
+            }
+            cacheVerdict(check.key, repOk);
+            if (!repOk) {
+                return false; 
+            }
+        }
         return true;
     }
+    
+    /**
+     * Runs check methods in parallel on {@link #pool}, stopping 
+     * as soon as one of them fails.
+     * 
+     * @param checks a {@link List}{@code <}{@link Check}{@code >}, 
+     *        the check methods to run.
+     * @param runner a {@link CheckRunner}.
+     * @return {@code true} iff all the check methods succeed.
+     */
+    private boolean runChecksParallel(List<Check> checks, CheckRunner runner) {
+        if (this.pool == null) {
+            this.pool = Executors.newFixedThreadPool(this.numThreads, r -> {
+                final Thread t = new Thread(r, "jbse-heap-checker");
+                t.setDaemon(true);
+                return t;
+            });
+            this.poolRunnerParameters = ThreadLocal.withInitial(() -> {
+                final DecisionProcedureAlgorithms dec = this.decisionProcedureFactory.get();
+                synchronized (this.poolDecisionProcedures) {
+                    this.poolDecisionProcedures.add(dec);
+                }
+                final RunnerParameters p = this.runnerParameters.clone();
+                p.setCalculator(dec.getCalculator());
+                p.setDecisionProcedure(dec);
+                return p;
+            });
+        }
+        
+        //submits all the checks
+        final AtomicBoolean failed = new AtomicBoolean(false);
+        final CompletionService<Boolean> completion = new ExecutorCompletionService<>(this.pool);
+        final HashMap<Future<Boolean>, Check> submitted = new HashMap<>();
+        final ThreadLocal<RunnerParameters> poolRunnerParameters = this.poolRunnerParameters;
+        for (Check check : checks) {
+            final Future<Boolean> f = completion.submit(runner.prepare(check, poolRunnerParameters::get, failed));
+            submitted.put(f, check);
+        }
+        
+        //collects the verdicts
+        try {
+            for (int i = 0; i < checks.size(); ++i) {
+                final Future<Boolean> f = completion.take();
+                final boolean repOk = f.get();
+                cacheVerdict(submitted.get(f).key, repOk);
+                if (!repOk) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (ExecutionException e) {
+            throw new UnexpectedInternalException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UnexpectedInternalException(e);
+        } finally {
+            //cancels the checks still running
+            failed.set(true);
+            for (Future<Boolean> f : submitted.keySet()) {
+                f.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * The shape of a part of the heap, as a list of items
+     * (class names, origins, field signatures, values, and
+     * numbers for the references to the objects already in
+     * the shape) compared by their {@code equals} methods.
+     * The hash code is calculated once, when the shape is
+     * built.
+     *
+     * @author Pietro Braione
+     */
+    static final class Shape {
+        private final ArrayList<Object> items;
+        private final int hashCode;
+
+        Shape(ArrayList<Object> items) {
+            this.items = items;
+            this.hashCode = items.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            final Shape other = (Shape) obj;
+            return this.hashCode == other.hashCode && this.items.equals(other.items);
+        }
+    }
+
+    /** The markers that delimit the items of a {@link Shape}. */
+    private enum ShapeMarker { NULL, UNRESOLVED, END }
+
+    /**
+     * The key for caching the verdict of a check method on
+     * an object. It is made of the shape of the part of the
+     * heap that is reachable from the object with the numeric
+     * constraints in the path condition that concern it, and 
+     * of a context shape that is shared by all the objects in a
+     * state, i.e., the static fields with the part of the
+     * heap reachable from them. 
+     *
+     * @author Pietro Braione
+     */
+    static final class VerdictKey {
+        private final Signature methodSignature;
+        private final boolean scopeExhaustionMeansSuccess;
+        private final Shape context;
+        private final Shape object;
+        private final int hashCode;
+
+        VerdictKey(Signature methodSignature, boolean scopeExhaustionMeansSuccess, Shape context, Shape object) {
+            this.methodSignature = methodSignature;
+            this.scopeExhaustionMeansSuccess = scopeExhaustionMeansSuccess;
+            this.context = context;
+            this.object = object;
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + methodSignature.hashCode();
+            result = prime * result + (scopeExhaustionMeansSuccess ? 1231 : 1237);
+            result = prime * result + context.hashCode();
+            result = prime * result + object.hashCode();
+            this.hashCode = result;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            final VerdictKey other = (VerdictKey) obj;
+            return this.hashCode == other.hashCode &&
+                   this.scopeExhaustionMeansSuccess == other.scopeExhaustionMeansSuccess &&
+                   this.methodSignature.equals(other.methodSignature) &&
+                   this.object.equals(other.object) &&
+                   this.context.equals(other.context);
+        }
+    }
+
+    /**
+     * Builds the context shape of a state, that might affect
+     * the verdict of all the check methods: the static fields
+     * of the symbolic classes with the part of the heap that is
+     * reachable from them. The static fields of the concrete
+     * classes come from the pre-initial state, that is shared.
+     *
+     * @param s a {@link State}.
+     * @return a {@link Shape}.
+     * @throws FrozenStateException if {@code s} is frozen.
+     */
+    private static Shape contextShape(State s) throws FrozenStateException {
+        final ArrayList<Object> items = new ArrayList<>();
+        final ArrayList<ClassFile> symbolicClasses = new ArrayList<>();
+        for (Map.Entry<ClassFile, Klass> e : s.getStaticMethodArea().entrySet()) {
+            if (e.getValue().isSymbolic()) {
+                symbolicClasses.add(e.getKey());
+            }
+        }
+        symbolicClasses.sort(Comparator.comparing(ClassFile::getClassName).thenComparingInt(ClassFile::getDefiningClassLoader));
+        final ShapeBuilder builder = new ShapeBuilder(s, items);
+        for (ClassFile cf : symbolicClasses) {
+            items.add(cf.getClassName());
+            items.add(cf.getDefiningClassLoader());
+            builder.addFields(s.getKlass(cf));
+        }
+        builder.addReachable();
+        return new Shape(items);
+    }
+
+    /**
+     * Builds the shape of the part of the heap of a state that
+     * is reachable from an object, where each reachable object
+     * is identified by its class and its origin, and each
+     * unresolved symbolic reference by its origin, followed by 
+     * the numeric assumptions that concern the object (see
+     * {@link #relevantAssumptions(List, List, Set) relevantAssumptions}).
+     *
+     * @param s a {@link State}.
+     * @param heapPos a {@code long}, the heap position of the
+     *        object.
+     * @param contextSymbols a {@link Set}{@code <}{@link PrimitiveSymbolic}{@code >},
+     *        the symbols in the context shape of {@code s}.
+     * @param assumptions a {@link List}{@code <}{@link ClauseAssume}{@code >},
+     *        the numeric assumptions in the path condition of {@code s}.
+     * @param assumptionsSymbols a {@link List}{@code <}{@link Set}{@code <}{@link PrimitiveSymbolic}{@code >>},
+     *        the symbols in each of {@code assumptions}.
+     * @return a {@link Shape}.
+     * @throws FrozenStateException if {@code s} is frozen.
+     */
+    private static Shape objectShape(State s, long heapPos, Set<PrimitiveSymbolic> contextSymbols, 
+                                     List<ClauseAssume> assumptions, List<Set<PrimitiveSymbolic>> assumptionsSymbols) 
+    throws FrozenStateException {
+        final ArrayList<Object> items = new ArrayList<>();
+        final ShapeBuilder builder = new ShapeBuilder(s, items);
+        builder.number(heapPos);
+        builder.addReachable();
+        final Set<PrimitiveSymbolic> symbols = primitiveSymbolsIn(items);
+        symbols.addAll(contextSymbols);
+        items.addAll(relevantAssumptions(assumptions, assumptionsSymbols, symbols));
+        return new Shape(items);
+    }
+
+    /**
+     * Selects the numeric assumptions that constrain, directly
+     * or through other assumptions, a set of symbols. The other
+     * assumptions cannot affect the values of the symbols, and
+     * thus they can be left out of a {@link VerdictKey}, so that
+     * assuming something on an object does not invalidate the 
+     * verdicts on the unrelated objects.
+     * 
+     * @param assumptions a {@link List}{@code <}{@link ClauseAssume}{@code >}.
+     * @param assumptionsSymbols a {@link List}{@code <}{@link Set}{@code <}{@link PrimitiveSymbolic}{@code >>},
+     *        the symbols in each of {@code assumptions}.
+     * @param symbols a {@link Set}{@code <}{@link PrimitiveSymbolic}{@code >}.
+     *        It will be modified by adding the symbols in the
+     *        selected assumptions.
+     * @return a {@link List}{@code <}{@link ClauseAssume}{@code >}, the
+     *         selected assumptions in their order in {@code assumptions}.
+     */
+    static List<ClauseAssume> relevantAssumptions(List<ClauseAssume> assumptions, List<Set<PrimitiveSymbolic>> assumptionsSymbols, Set<PrimitiveSymbolic> symbols) {
+        final boolean[] selected = new boolean[assumptions.size()];
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 0; i < selected.length; ++i) {
+                if (!selected[i] && !Collections.disjoint(assumptionsSymbols.get(i), symbols)) {
+                    selected[i] = true;
+                    symbols.addAll(assumptionsSymbols.get(i));
+                    changed = true;
+                }
+            }
+        }
+        final ArrayList<ClauseAssume> retVal = new ArrayList<>();
+        for (int i = 0; i < selected.length; ++i) {
+            if (selected[i]) {
+                retVal.add(assumptions.get(i));
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * Returns the primitive symbols in the items of a {@link Shape}.
+     * 
+     * @param items a {@link List}{@code <}{@link Object}{@code >}.
+     * @return a {@link Set}{@code <}{@link PrimitiveSymbolic}{@code >}.
+     */
+    private static Set<PrimitiveSymbolic> primitiveSymbolsIn(List<Object> items) {
+        final HashSet<PrimitiveSymbolic> symbols = new HashSet<>();
+        for (Object item : items) {
+            if (item instanceof Primitive) {
+                symbols.addAll(primitiveSymbolsIn((Primitive) item));
+            }
+        }
+        return symbols;
+    }
+
+    /**
+     * Returns the primitive symbols in a {@link Primitive}.
+     * 
+     * @param p a {@link Primitive}.
+     * @return a {@link Set}{@code <}{@link PrimitiveSymbolic}{@code >}.
+     */
+    static Set<PrimitiveSymbolic> primitiveSymbolsIn(Primitive p) {
+        final HashSet<PrimitiveSymbolic> symbols = new HashSet<>();
+        final PrimitiveVisitor v = new PrimitiveVisitor() {
+            @Override
+            public void visitAny(Any x) { }
+
+            @Override
+            public void visitExpression(Expression e) throws Exception {
+                if (e.isUnary()) {
+                    e.getOperand().accept(this);
+                } else {
+                    e.getFirstOperand().accept(this);
+                    e.getSecondOperand().accept(this);
+                }
+            }
+
+            @Override
+            public void visitPrimitiveSymbolicApply(PrimitiveSymbolicApply x) throws Exception {
+                for (Value arg : x.getArgs()) {
+                    if (arg instanceof Primitive) {
+                        ((Primitive) arg).accept(this);
+                    }
+                }
+            }
+
+            @Override
+            public void visitPrimitiveSymbolicAtomic(PrimitiveSymbolicAtomic s) {
+                symbols.add(s);
+            }
+
+            @Override
+            public void visitSimplex(Simplex x) { }
+
+            @Override
+            public void visitTerm(Term x) { }
+
+            @Override
+            public void visitNarrowingConversion(NarrowingConversion x) throws Exception {
+                x.getArg().accept(this);
+            }
+
+            @Override
+            public void visitWideningConversion(WideningConversion x) throws Exception {
+                x.getArg().accept(this);
+            }
+        };
+        try {
+            p.accept(v);
+        } catch (Exception e) {
+            //this should never happen
+            throw new UnexpectedInternalException(e);
+        }
+        return symbols;
+    }
+
+    /**
+     * Visits the heap of a state breadth-first and appends
+     * the shapes of the visited objects to a list of items.
+     *
+     * @author Pietro Braione
+     */
+    private static final class ShapeBuilder {
+        private final State s;
+        private final ArrayList<Object> items;
+        private final HashMap<Long, Integer> numbering = new HashMap<>();
+        private final ArrayDeque<Long> toVisit = new ArrayDeque<>();
+
+        ShapeBuilder(State s, ArrayList<Object> items) {
+            this.s = s;
+            this.items = items;
+        }
+
+        /**
+         * Appends the shapes of the objects numbered and
+         * not yet visited, and of the objects reachable
+         * from them.
+         *
+         * @throws FrozenStateException if the state is frozen.
+         */
+        void addReachable() throws FrozenStateException {
+            while (!this.toVisit.isEmpty()) {
+                final long pos = this.toVisit.remove();
+                final Objekt o = this.s.getObject(new ReferenceConcrete(pos));
+                if (o == null) {
+                    this.items.add(ShapeMarker.NULL);
+                    continue;
+                }
+                this.items.add(o.getType() == null ? null : o.getType().getClassName());
+                if (o.isSymbolic()) {
+                    this.items.add(o.getOrigin());
+                } else {
+                    this.items.add(pos); //concrete objects come from the pre-initial heap, that is shared
+                }
+                addFields(o);
+                if (o instanceof Array) {
+                    for (Array.AccessOutcomeIn entry : ((Array) o).values()) {
+                        final Value v;
+                        if (entry instanceof Array.AccessOutcomeInInitialArray) {
+                            v = ((Array.AccessOutcomeInInitialArray) entry).getInitialArray();
+                        } else { //(entry instanceof Array.AccessOutcomeInValue)
+                            v = ((Array.AccessOutcomeInValue) entry).getValue();
+                        }
+                        this.items.add(entry.getAccessCondition());
+                        addValue(v);
+                    }
+                }
+                this.items.add(ShapeMarker.END);
+            }
+        }
+
+        void addFields(Objekt o) {
+            final Iterator<Value> values = o.getStoredFieldValues().iterator();
+            for (Signature fieldSignature : o.getStoredFieldSignatures()) {
+                this.items.add(fieldSignature);
+                addValue(values.next());
+            }
+            this.items.add(ShapeMarker.END);
+        }
+
+        private void addValue(Value v) {
+            if (v instanceof Reference) {
+                final Reference ref = (Reference) v;
+                if (this.s.isNull(ref)) {
+                    this.items.add(ShapeMarker.NULL);
+                } else if (ref instanceof ReferenceConcrete) {
+                    this.items.add(number(((ReferenceConcrete) ref).getHeapPosition()));
+                } else if (this.s.resolved((ReferenceSymbolic) ref)) {
+                    this.items.add(number(this.s.getResolution((ReferenceSymbolic) ref)));
+                } else {
+                    this.items.add(ShapeMarker.UNRESOLVED);
+                    this.items.add(ref);
+                }
+            } else {
+                this.items.add(v);
+            }
+        }
+
+        /**
+         * Returns the number of the object at a heap position,
+         * numbering it and scheduling its visit if it was not
+         * yet numbered.
+         *
+         * @param pos a {@code long}, a heap position.
+         * @return an {@link Integer}.
+         */
+        Integer number(long pos) {
+            Integer number = this.numbering.get(pos);
+            if (number == null) {
+                number = this.numbering.size();
+                this.numbering.put(pos, number);
+                this.toVisit.add(pos);
+            }
+            return number;
+        }
+    }
 
     public State makeInitialState() {
     	final State sIni;
@@ -235,6 +904,9 @@ public final class InitialHeapChecker {
      * @param scopeExhaustionMeansSuccess {@code true} iff a path that exhausts
      *        the execution scope must be interpreted as a successful 
      *        execution of the method that returns {@code true}. 
+     * @param stop an {@link AtomicBoolean}, or {@code null}. If it is 
+     *        not {@code null} the execution of the method stops as
+     *        soon as it is set, and the return value is meaningless.
      * @return {@code true} iff there is at least one successful execution
      *         of the method that returns {@code true}. 
      * @throws CannotBuildEngineException
@@ -256,7 +928,7 @@ public final class InitialHeapChecker {
      */
     //TODO handle and convert all these exceptions and raise the abstraction level of the operation
     private static boolean 
-    runCheckMethod(State s, Reference r, ClassFile classFile, Signature methodSignatureImpl, RunnerParameters p, boolean scopeExhaustionMeansSuccess) 
+    runCheckMethod(State s, Reference r, ClassFile classFile, Signature methodSignatureImpl, RunnerParameters p, boolean scopeExhaustionMeansSuccess, AtomicBoolean stop) 
     throws CannotBuildEngineException, InitializationException, 
     InvalidClassFileFactoryClassException, InvalidProgramCounterException, 
     NullMethodReceiverException, InvalidSlotException, NonexistingObservedVariablesException, 
@@ -269,7 +941,7 @@ public final class InitialHeapChecker {
             return true; //TODO ugly way to cope with nonexistent methods; possibly handle the situation in the constructor of CheckMethodTable
         }
         p.setStartingState(s);
-        final RepOkRunnerActions actions = new RepOkRunnerActions(scopeExhaustionMeansSuccess);
+        final RepOkRunnerActions actions = new RepOkRunnerActions(scopeExhaustionMeansSuccess, stop);
         p.setActions(actions);
 
         //runs
@@ -281,10 +953,17 @@ public final class InitialHeapChecker {
 
     private static class RepOkRunnerActions extends Runner.Actions {
         final boolean scopeExhaustionMeansSuccess;
+        final AtomicBoolean stop;
         boolean repOk = false;
 
-        public RepOkRunnerActions(boolean scopeExhaustionMeansSuccess) { 
+        public RepOkRunnerActions(boolean scopeExhaustionMeansSuccess, AtomicBoolean stop) { 
             this.scopeExhaustionMeansSuccess = scopeExhaustionMeansSuccess;
+            this.stop = stop;
+        }
+        
+        @Override
+        public boolean atStepPre() {
+            return (this.stop != null && this.stop.get());
         }
 
         //TODO log differently!
@@ -6,8 +6,11 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 import jbse.JBSE;
 import jbse.algo.exc.CannotInvokeNativeException;
@@ -33,9 +36,14 @@ import jbse.dec.DecisionProcedureAlgorithms;
 import jbse.dec.DecisionProcedureAlwSat;
 import jbse.dec.DecisionProcedureClassInit;
 import jbse.dec.DecisionProcedureEquality;
+import jbse.dec.DecisionProcedureIntervalAnalysis;
 import jbse.dec.DecisionProcedureLICS;
 import jbse.dec.DecisionProcedureSignAnalysis;
 import jbse.dec.DecisionProcedureSMTLIB2_AUFNIRA;
+import jbse.dec.DecisionProcedureSMTLIB2_BV;
+import jbse.dec.DecisionProcedureZ3Java;
+import jbse.dec.SMTLIB2SolverPolicy;
+import jbse.dec.SMTLIB2SolverPolicy.UnknownPolicy;
 import jbse.dec.exc.DecisionBacktrackException;
 import jbse.dec.exc.DecisionException;
 import jbse.jvm.Engine;
@@ -110,11 +118,25 @@ public final class Run {
     /** The {@link Timer} for the decision procedure. */
     private Timer timer = null;
 
+    /** 
+     * The {@link SMTLIB2SolverPolicy} of the external decision 
+     * procedures, also keeping their statistics, or {@code null} 
+     * if no external decision procedure is used. 
+     */
+    private SMTLIB2SolverPolicy solverPolicy = null;
+
     /** The {@link DecisionProcedureGuidance}, whenever this method is chosen for stepping the {@link Engine}. */
     private DecisionProcedureGuidance guidance = null;
 
     /** A purely numeric decision procedure for concretization checks. */
     private DecisionProcedureAlgorithms decisionProcedureConcretization = null;
+    
+    /** 
+     * Creates {@link DecisionProcedureAlgorithms} equivalent to 
+     * {@link #decisionProcedureConcretization}, for the parallel
+     * heap checkers.
+     */
+    private Supplier<DecisionProcedureAlgorithms> decisionProcedureConcretizationFactory = null;
 
     /** The concretization checker. */
     private InitialHeapChecker checker = null;
@@ -684,6 +706,16 @@ public final class Run {
             log(MSG_WELCOME_TXT);
         }
 
+        //state merging hides the merged paths to the guidance
+        //and to the formatters, and the merged states contain
+        //join symbols that are not inputs of the method
+        final StateFormatMode stateFormatMode = this.parameters.getStateFormatMode();
+        if (this.parameters.getStateMerging() && 
+            (this.parameters.isGuided() || stateFormatMode == StateFormatMode.JUNIT_TEST || stateFormatMode == StateFormatMode.DESCRIPTOR)) {
+            err(ERROR_STATE_MERGING_UNSUPPORTED);
+            return 1;
+        }
+
         //builds
         try {
             final RunnerParameters runnerParameters = this.parameters.getRunnerParameters();
@@ -800,15 +832,17 @@ public final class Run {
 
     /**
      * Returns the decision procedure's current 
-     * model or {@code null}. Convenience for
-     * formatter creation.
+     * model, restricted to some symbols, or {@code null}. 
+     * Convenience for formatter creation.
      * 
+     * @param symbols a {@link Collection}{@code <}{@link PrimitiveSymbolic}{@code >},
+     *        the symbols whose values are required.
      * @return a {@link Map}{@code <}{@link PrimitiveSymbolic}{@code ,}{@link Simplex}{@code >}
      *         or {@code null} 
      */
-    private Map<PrimitiveSymbolic, Simplex> getModel() {
+    private Map<PrimitiveSymbolic, Simplex> getModel(Collection<PrimitiveSymbolic> symbols) {
         try {
-            return this.decisionProcedure.getModel();
+            return this.decisionProcedure.getModel(symbols);
         } catch (DecisionException e) {
             return null;
         }
@@ -830,11 +864,16 @@ public final class Run {
         } else if (type == StateFormatMode.PATH) {
             this.formatter = new StateFormatterPath();
         } else if (type == StateFormatMode.JUNIT_TEST) {
-            this.formatter = new StateFormatterJUnitTestSuite(this::getInitialState, this::getModel);
+            if (this.parameters.getJUnitTestSuiteDirectory() == null) {
+                this.formatter = new StateFormatterJUnitTestSuite(this::getInitialState, this::getModel);
+            } else {
+                this.formatter = new StateFormatterJUnitTestSuite(this::getInitialState, this::getModel, 
+                                                                  this.parameters.getJUnitTestSuiteDirectory(), this.parameters.getJUnitTestsPerClass());
+            }
         } else if (type == StateFormatMode.DESCRIPTOR) {
             this.formatter = new StateFormatterDescriptor(this.parameters.getKexConfig(), this.parameters.getUserClasspath(),
                     this.parameters.getaPackage(),
-                    this::getInitialState, this::getModel);
+                    this::getInitialState, this::getModel, this.parameters.getReanimatorThreads());
         } else {
             throw new CannotBuildFormatterException(ERROR_UNDEF_STATE_FORMAT);
         }
@@ -866,6 +905,128 @@ public final class Run {
         return calc;
     }
 
+    /**
+     * Wraps a decision procedure with an external SMTLIB2 
+     * decision procedure.
+     * 
+     * @param next the {@link DecisionProcedure} to be wrapped.
+     * @param commandLine a {@link List}{@code <}{@link String}{@code >}, 
+     *        the command line of the solver.
+     * @param useBitVectorEncoding {@code true} iff the decision 
+     *        procedure must encode Java primitive types as bit-vectors 
+     *        and floating point numbers.
+     * @param policy the {@link SMTLIB2SolverPolicy} of the solver.
+     * @return the wrapping {@link DecisionProcedure}.
+     * @throws InvalidInputException if {@code next == null}.
+     * @throws DecisionException upon failure of the solver.
+     */
+    private static DecisionProcedure makeDecisionProcedureSMTLIB2(DecisionProcedure next, List<String> commandLine, boolean useBitVectorEncoding, SMTLIB2SolverPolicy policy) 
+    throws InvalidInputException, DecisionException {
+        if (useBitVectorEncoding) {
+            return new DecisionProcedureSMTLIB2_BV(next, commandLine, policy);
+        } else {
+            return new DecisionProcedureSMTLIB2_AUFNIRA(next, commandLine, policy);
+        }
+    }
+
+    /**
+     * Returns the per-query timeout of Z3.
+     * 
+     * @return a {@code long}, the timeout in milliseconds.
+     */
+    private long z3Timeout() {
+        final long timeout = this.parameters.getSolverTimeout();
+        return (timeout > 0 ? timeout : 10);
+    }
+
+    /**
+     * Builds the command line of Z3.
+     * 
+     * @param path the {@link Path} of the executable, or 
+     *        {@code null} for the system path.
+     * @return a {@link List}{@code <}{@link String}{@code >}.
+     */
+    private ArrayList<String> z3CommandLine(Path path) {
+        final String switchChar = System.getProperty("os.name").toLowerCase().contains("windows") ? "/" : "-";
+        final long resourceLimit = this.parameters.getSolverResourceLimit();
+        final ArrayList<String> z3CommandLine = new ArrayList<>();
+        z3CommandLine.add(path == null ? "z3" : path.toString());
+        z3CommandLine.add(switchChar + "smt2");
+        z3CommandLine.add(switchChar + "in");
+        z3CommandLine.add(switchChar + "t:" + z3Timeout());
+        if (resourceLimit > 0) {
+            z3CommandLine.add("rlimit=" + resourceLimit);
+        }
+        return z3CommandLine;
+    }
+
+    /**
+     * Builds the command line of CVC4.
+     * 
+     * @param path the {@link Path} of the executable, or 
+     *        {@code null} for the system path.
+     * @return a {@link List}{@code <}{@link String}{@code >}.
+     */
+    private ArrayList<String> cvc4CommandLine(Path path) {
+        final long timeout = this.parameters.getSolverTimeout();
+        final long resourceLimit = this.parameters.getSolverResourceLimit();
+        final ArrayList<String> cvc4CommandLine = new ArrayList<>();
+        cvc4CommandLine.add(path == null ? "cvc4" : path.toString());
+        cvc4CommandLine.add("--lang=smt2");
+        cvc4CommandLine.add("--output-lang=smt2");
+        cvc4CommandLine.add("--no-interactive");
+        cvc4CommandLine.add("--incremental");
+        cvc4CommandLine.add("--tlimit-per=" + (timeout > 0 ? timeout : 10000));
+        if (resourceLimit > 0) {
+            cvc4CommandLine.add("--rlimit-per=" + resourceLimit);
+        }
+        return cvc4CommandLine;
+    }
+
+    /**
+     * Creates a purely numeric decision procedure, i.e., 
+     * the external decision procedure (if any) wrapped with 
+     * the sign, interval and equality analyses (if required).
+     * 
+     * @param calc a {@link CalculatorRewriting}.
+     * @param externalCommandLine a {@link List}{@code <}{@link String}{@code >}, 
+     *        the command line of the external SMTLIB2 solver, or {@code null} 
+     *        if there is no external solver or Z3 is run in process.
+     * @param useNativeZ3 {@code true} iff Z3 must be run in process.
+     * @return a {@link DecisionProcedure}.
+     * @throws InvalidInputException if {@code calc == null}.
+     * @throws DecisionException upon failure of the external solver.
+     */
+    private DecisionProcedure createDecisionProcedureNumeric(CalculatorRewriting calc, List<String> externalCommandLine, boolean useNativeZ3) 
+    throws InvalidInputException, DecisionException {
+        final boolean useBitVectorEncoding = this.parameters.getUseBitVectorEncoding();
+        DecisionProcedure retVal = new DecisionProcedureAlwSat(calc);
+
+        //wraps with external numeric decision procedure
+        if (useNativeZ3) {
+            retVal = new DecisionProcedureZ3Java(retVal, z3Timeout(), this.parameters.getSolverResourceLimit(), this.solverPolicy);
+        } else if (externalCommandLine != null) {
+            retVal = makeDecisionProcedureSMTLIB2(retVal, externalCommandLine, useBitVectorEncoding, this.solverPolicy);
+        }
+
+        //further wraps with sign analysis, if required
+        if (this.parameters.getDoSignAnalysis()) {
+            retVal = new DecisionProcedureSignAnalysis(retVal);
+        }
+
+        //further wraps with interval analysis, if required
+        if (this.parameters.getDoIntervalAnalysis()) {
+            retVal = new DecisionProcedureIntervalAnalysis(retVal, useBitVectorEncoding);
+        }
+
+        //further wraps with equality analysis, if required
+        if (this.parameters.getDoEqualityAnalysis()) {
+            retVal = new DecisionProcedureEquality(retVal);
+        }
+
+        return retVal;
+    }
+
     /**
      * Creates the decision procedures in {@code this.decisionProcedure}
      * and {@code this.decisionProcedureConcretization}. 
@@ -891,61 +1052,56 @@ public final class Run {
     			}
     		}
 
-    		//initializes cores
+    		//determines the external numeric decision procedure
     		final boolean needHeapCheck = (this.parameters.getUseConservativeRepOks() || this.parameters.getDoConcretization());
-    		DecisionProcedure core = new DecisionProcedureAlwSat(calc);
-    		DecisionProcedure coreNumeric = (needHeapCheck ? new DecisionProcedureAlwSat(calc) : null);
-
-    		//wraps cores with external numeric decision procedure
     		final DecisionProcedureType type = this.parameters.getDecisionProcedureType();
-    		try {
-    			if (type == DecisionProcedureType.ALL_SAT) {
-    				//do nothing
-    			} else if (type == DecisionProcedureType.Z3) {
-    				final String switchChar = System.getProperty("os.name").toLowerCase().contains("windows") ? "/" : "-";
-    				final ArrayList<String> z3CommandLine = new ArrayList<>();
-    				z3CommandLine.add(path == null ? "z3" : path.toString());
-    				z3CommandLine.add(switchChar + "smt2");
-    				z3CommandLine.add(switchChar + "in");
-    				z3CommandLine.add(switchChar + "t:10");
-    				core = new DecisionProcedureSMTLIB2_AUFNIRA(core, z3CommandLine);
-    				coreNumeric = (needHeapCheck ? new DecisionProcedureSMTLIB2_AUFNIRA(coreNumeric, z3CommandLine) : null);
-    			} else if (type == DecisionProcedureType.CVC4) {
-    				final ArrayList<String> cvc4CommandLine = new ArrayList<>();
-    				cvc4CommandLine.add(path == null ? "cvc4" : path.toString());
-    				cvc4CommandLine.add("--lang=smt2");
-    				cvc4CommandLine.add("--output-lang=smt2");
-    				cvc4CommandLine.add("--no-interactive");
-    				cvc4CommandLine.add("--incremental");
-    				cvc4CommandLine.add("--tlimit-per=10000");
-    				core = new DecisionProcedureSMTLIB2_AUFNIRA(core, cvc4CommandLine);
-    				coreNumeric = (needHeapCheck ? new DecisionProcedureSMTLIB2_AUFNIRA(coreNumeric, cvc4CommandLine) : null);
-    			} else {
-    				core.close();
-    				if (coreNumeric != null) {
-    					coreNumeric.close();
+    		ArrayList<String> externalCommandLine = null;
+    		boolean useNativeZ3 = false;
+    		if (type == DecisionProcedureType.ALL_SAT) {
+    			//do nothing
+    		} else if (type == DecisionProcedureType.Z3 || type == DecisionProcedureType.CVC4) {
+    			//the fallback solver is the other one
+    			final Path fallbackPath = this.parameters.getExternalDecisionProcedureFallbackPath();
+    			externalCommandLine = (type == DecisionProcedureType.Z3 ? z3CommandLine(path) : cvc4CommandLine(path));
+    			final ArrayList<String> fallbackCommandLine = (type == DecisionProcedureType.Z3 ? cvc4CommandLine(fallbackPath) : z3CommandLine(fallbackPath));
+    			final UnknownPolicy unknownPolicy = this.parameters.getSolverUnknownPolicy();
+    			this.solverPolicy = new SMTLIB2SolverPolicy(this.parameters.getSolverWatchdogTimeout(), unknownPolicy, 
+    			                                            (unknownPolicy == UnknownPolicy.RETRY ? fallbackCommandLine : null),
+    			                                            this.parameters.getUseSolverConflictCache());
+    			if (type == DecisionProcedureType.Z3 && this.parameters.getUseNativeZ3()) {
+    				if (this.parameters.getUseBitVectorEncoding()) {
+    					log(MSG_NATIVE_Z3_NO_BV);
+    				} else if (DecisionProcedureZ3Java.isAvailable()) {
+    					useNativeZ3 = true;
+    				} else {
+    					log(MSG_NATIVE_Z3_UNAVAILABLE);
     				}
-    				throw new CannotBuildDecisionProcedureException(ERROR_UNDEF_DECISION_PROCEDURE);
     			}
-    		} catch (DecisionException e) {
-    			throw new CannotBuildDecisionProcedureException(e);
-    		}
-
-    		//further wraps cores with sign analysis, if required
-    		if (this.parameters.getDoSignAnalysis()) {
-    			core = new DecisionProcedureSignAnalysis(core);
-    			coreNumeric = (needHeapCheck ? new DecisionProcedureSignAnalysis(coreNumeric) : null);
-    		}
-
-    		//further wraps cores with equality analysis, if required
-    		if (this.parameters.getDoEqualityAnalysis()) {
-    			core = new DecisionProcedureEquality(core);
-    			coreNumeric = (needHeapCheck ? new DecisionProcedureEquality(coreNumeric) : null);
+    		} else {
+    			throw new CannotBuildDecisionProcedureException(ERROR_UNDEF_DECISION_PROCEDURE);
     		}
 
-    		//sets the decision procedure for checkers
-    		if (needHeapCheck) {
-    			this.decisionProcedureConcretization = new DecisionProcedureAlgorithms(coreNumeric);
+    		//initializes core, the decision procedure for checkers,
+    		//and the factory of the decision procedures for the 
+    		//parallel checkers, that gives each of them its own 
+    		//calculator because calculators cannot be shared by threads
+    		DecisionProcedure core;
+    		try {
+    			core = createDecisionProcedureNumeric(calc, externalCommandLine, useNativeZ3);
+    			if (needHeapCheck) {
+    				this.decisionProcedureConcretization = new DecisionProcedureAlgorithms(createDecisionProcedureNumeric(calc, externalCommandLine, useNativeZ3));
+    				final ArrayList<String> commandLine = externalCommandLine;
+    				final boolean nativeZ3 = useNativeZ3;
+    				this.decisionProcedureConcretizationFactory = () -> {
+    					try {
+    						return new DecisionProcedureAlgorithms(createDecisionProcedureNumeric(createCalculator(), commandLine, nativeZ3));
+    					} catch (CannotBuildEngineException | InvalidInputException | DecisionException e) {
+    						throw new UnexpectedInternalException(e);
+    					}
+    				};
+    			}
+    		} catch (DecisionException e) {
+    			throw new CannotBuildDecisionProcedureException(e);
     		}
 
     		//further wraps core with LICS decision procedure
@@ -965,6 +1121,9 @@ public final class Run {
     			new DecisionProcedureConservativeRepOk(core, checkerParameters, this.parameters.getConservativeRepOks());
     			dec.setInitialStateSupplier(this::getInitialState); 
     			dec.setCurrentStateSupplier(this::getCurrentState); 
+    			if (this.parameters.getHeapCheckThreads() > 1) {
+    				dec.setParallel(this.parameters.getHeapCheckThreads(), this.decisionProcedureConcretizationFactory);
+    			}
     			core = dec;
     		}
 
@@ -993,7 +1152,13 @@ public final class Run {
     				if (this.parameters.getGuidanceType() == GuidanceType.JBSE) {
     					this.guidance = new DecisionProcedureGuidanceJBSE(core, calc, guidanceDriverParameters, this.parameters.getMethodSignature(), this.parameters.getGuidedNumberOfHits());
     				} else if (this.parameters.getGuidanceType() == GuidanceType.JDI) {
-    					this.guidance = new DecisionProcedureGuidanceJDI(core, calc, guidanceDriverParameters, this.parameters.getMethodSignature(), this.parameters.getGuidedNumberOfHits());
+    					final boolean resident = (this.parameters.getGuidanceResidentJVMs() > 0);
+    					if (resident) {
+    						GuidanceJVMPool.shared().setMaxIdle(this.parameters.getGuidanceResidentJVMs());
+    					}
+    					this.guidance = new DecisionProcedureGuidanceJDI(core, calc, guidanceDriverParameters, this.parameters.getMethodSignature(), this.parameters.getGuidedNumberOfHits(), resident, this.parameters.getGuidanceSnapshotDepth());
+    				} else if (this.parameters.getGuidanceType() == GuidanceType.IN_PROCESS) {
+    					this.guidance = new DecisionProcedureGuidanceInProcess(core, calc, guidanceDriverParameters, this.parameters.getMethodSignature(), this.parameters.getGuidedNumberOfHits());
     				} else {
     					throw new UnexpectedInternalException(ERROR_DECISION_PROCEDURE_GUIDANCE_UNRECOGNIZED + this.parameters.getGuidanceType().toString());
     				}
@@ -1028,6 +1193,9 @@ public final class Run {
                 new InitialHeapChecker(checkerParameters, ConcretizationCheck.class, this.parameters.getConcretizationMethods());
             this.checker.setInitialStateSupplier(this::getInitialState); 
             this.checker.setCurrentStateSupplier(this::getCurrentState); 
+            if (this.parameters.getHeapCheckThreads() > 1) {
+                this.checker.setParallel(this.parameters.getHeapCheckThreads(), this.decisionProcedureConcretizationFactory);
+            }
         }
     }
 
@@ -1125,6 +1293,20 @@ public final class Run {
             (this.timer == null ? 
              "." :
              ", " + MSG_END_DECISION + Util.formatTime(elapsedTimeDecisionProcedure) + " (" + Util.formatTimePercent(elapsedTimeDecisionProcedure, elapsedTime) + " of total)."));
+        if (this.solverPolicy != null) {
+            log(MSG_END_SOLVER_UNKNOWNS + this.solverPolicy.getUnknowns() + ", " +
+                MSG_END_SOLVER_TIMEOUTS + this.solverPolicy.getTimeouts() + ", " +
+                MSG_END_SOLVER_RESTARTS + this.solverPolicy.getRestarts() + ", " +
+                MSG_END_SOLVER_RETRIES + this.solverPolicy.getRetries() + 
+                (Run.this.parameters.getUseSolverConflictCache() ?
+                 ", " + MSG_END_SOLVER_CONFLICTS + this.solverPolicy.getConflictsLearned() + ", " +
+                 MSG_END_SOLVER_CONFLICT_HITS + this.solverPolicy.getConflictHits() + "." :
+                 "."));
+        }
+        if (Run.this.parameters.getStateMerging()) {
+            log(MSG_END_MERGED_STATES + this.engine.getMergedStates() + ", " +
+                MSG_END_PARKED_STATES + this.engine.getParkedStates() + ".");
+        }
     }
 
     /**
@@ -1138,6 +1320,9 @@ public final class Run {
         // quits the numeric decision procedure for the checker
         if (this.decisionProcedureConcretization != null) {
             try {
+                if (this.checker != null) {
+                    this.checker.close();
+                }
                 this.decisionProcedureConcretization.close();
                 this.decisionProcedureConcretization = null;
                 this.checker = null;
@@ -1182,6 +1367,12 @@ public final class Run {
     /** Message: welcome. */
     private static final String MSG_WELCOME_TXT = "This is the " + JBSE.NAME + "'s Run Tool (" + JBSE.ACRONYM + " v." + JBSE.VERSION +").";
 
+    /** Message: the in-process Z3 does not support the bit-vector encoding. */
+    private static final String MSG_NATIVE_Z3_NO_BV = "The in-process Z3 does not support the bit-vector encoding, running Z3 as an external process.";
+
+    /** Message: the Z3 Java bindings are not available. */
+    private static final String MSG_NATIVE_Z3_UNAVAILABLE = "The Z3 Java bindings or the Z3 native library are not available, running Z3 as an external process.";
+
     /** Message: trying to connect to Z3. */
     private static final String MSG_TRY_Z3 = "Connecting to Z3 at ";
 
@@ -1224,6 +1415,30 @@ public final class Run {
     /** Message: elapsed time in the decision procedure. */
     private static final String MSG_END_DECISION = "Elapsed time in decision procedure: ";
 
+    /** Message: queries the decision procedure was unable to decide. */
+    private static final String MSG_END_SOLVER_UNKNOWNS = "Unknown answers from decision procedure: ";
+
+    /** Message: queries exceeding the limits of the decision procedure. */
+    private static final String MSG_END_SOLVER_TIMEOUTS = "of which timeouts: ";
+
+    /** Message: restarts of the decision procedure. */
+    private static final String MSG_END_SOLVER_RESTARTS = "Decision procedure restarts: ";
+
+    /** Message: queries retried with the fallback decision procedure. */
+    private static final String MSG_END_SOLVER_RETRIES = "Queries retried with fallback decision procedure: ";
+
+    /** Message: conflicts learned by the decision procedure. */
+    private static final String MSG_END_SOLVER_CONFLICTS = "Conflicts learned: ";
+
+    /** Message: queries decided by a learned conflict. */
+    private static final String MSG_END_SOLVER_CONFLICT_HITS = "Queries decided by learned conflicts: ";
+
+    /** Message: states merged at the control flow join points. */
+    private static final String MSG_END_MERGED_STATES = "Merged states: ";
+
+    /** Message: states parked at the control flow join points. */
+    private static final String MSG_END_PARKED_STATES = "Parked states: ";
+
     /** Message: average speed. */
     private static final String MSG_END_SPEED = "Average speed: ";
 
@@ -1345,6 +1560,9 @@ public final class Run {
     /** Error: unexpected internal error (stepping while engine stuck). */
     private static final String ERROR_ENGINE_STUCK = "Unexpected internal error: Attempted step while in a stuck state.";
 
+    /** Error: state merging with guidance or test generation. */
+    private static final String ERROR_STATE_MERGING_UNSUPPORTED = "State merging cannot be used with guided execution, or with the generation of tests.";
+
     /** Error: unexpected internal error. */
     private static final String ERROR_UNEXPECTED = "Unexpected internal error.";
 
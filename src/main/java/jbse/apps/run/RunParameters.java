@@ -25,6 +25,7 @@ import jbse.dec.DecisionProcedure;
 import jbse.dec.DecisionProcedureAlgorithms;
 import jbse.dec.DecisionProcedureAlwSat;
 import jbse.dec.DecisionProcedureClassInit;
+import jbse.dec.SMTLIB2SolverPolicy.UnknownPolicy;
 import jbse.jvm.EngineParameters;
 import jbse.jvm.ExecutionObserver;
 import jbse.jvm.RunnerParameters;
@@ -106,6 +107,31 @@ public final class RunParameters implements Cloneable {
         this.aPackage = new Package(aPackage);
     }
 
+    /**
+     * Sets the number of reanimator workers of the 
+     * {@link StateFormatMode#DESCRIPTOR} formatter. If it is 
+     * positive, the descriptors of the states are reanimated 
+     * by a pool of workers while the symbolic execution 
+     * proceeds, otherwise every state is reanimated before 
+     * the symbolic execution proceeds (default).
+     * 
+     * @param reanimatorThreads an {@code int}.
+     */
+    public void setReanimatorThreads(int reanimatorThreads) {
+        this.reanimatorThreads = Math.max(0, reanimatorThreads);
+    }
+
+    /**
+     * Returns the number of reanimator workers of the 
+     * {@link StateFormatMode#DESCRIPTOR} formatter.
+     * 
+     * @return an {@code int}, 0 if reanimation is not 
+     *         performed in parallel.
+     */
+    public int getReanimatorThreads() {
+        return this.reanimatorThreads;
+    }
+
 
     /**
      * Enumeration of the possible decision procedures.
@@ -134,7 +160,10 @@ public final class RunParameters implements Cloneable {
         JBSE,
         
         /** Use the platform JVM through JDI for the concrete execution. */
-        JDI
+        JDI,
+        
+        /** Use the current JVM, with instrumented classes, for the concrete execution. */
+        IN_PROCESS
     }
 
     /**
@@ -339,18 +368,89 @@ public final class RunParameters implements Cloneable {
      */
     private DecisionProcedureType decisionProcedureType = DecisionProcedureType.Z3;
 
+    /** 
+     * Whether the SMTLIB2 decision procedures encode Java 
+     * primitive types as bit-vectors and floating point 
+     * numbers rather than as integers and reals. 
+     */
+    private boolean useBitVectorEncoding = false;
+
+    /** 
+     * Whether the {@link DecisionProcedureType#Z3} decision 
+     * procedure runs in-process through the Z3 Java API. 
+     */
+    private boolean useNativeZ3 = false;
+
     /** The decision procedure for guidance. */
     private GuidanceType guidanceType = GuidanceType.JBSE;
     
+    /** 
+     * The maximum number of resident JVMs kept for 
+     * {@link GuidanceType#JDI} guidance, or 0 if 
+     * guidance JVMs are not resident. 
+     */
+    private int guidanceResidentJVMs = 0;
+    
+    /** 
+     * The depth of the object graph fetched in batch by 
+     * {@link GuidanceType#JDI} guidance when the guiding 
+     * execution stops, or 0 for fetching on demand. 
+     */
+    private int guidanceSnapshotDepth = 0;
+    
     /** The {@link Path} where the executable of the external decision procedure is. */
     private Path externalDecisionProcedurePath = null;
 
+    /** 
+     * The {@link Path} where the executable of the fallback external 
+     * decision procedure for {@link UnknownPolicy#RETRY} is. 
+     */
+    private Path externalDecisionProcedureFallbackPath = null;
+
+    /** 
+     * The time limit for each query to the external decision 
+     * procedure, in milliseconds, or 0 for the default. 
+     */
+    private long solverTimeout = 0;
+
+    /** 
+     * The resource limit for each query to the external decision 
+     * procedure, or 0 for no limit. 
+     */
+    private long solverResourceLimit = 0;
+
+    /** 
+     * The time the external decision procedure has for answering 
+     * a query before it is killed and restarted, in milliseconds, 
+     * or 0 for no limit. 
+     */
+    private long solverWatchdogTimeout = 0;
+
+    /** 
+     * What to do when the external decision procedure is 
+     * unable to decide a query. 
+     */
+    private UnknownPolicy solverUnknownPolicy = UnknownPolicy.ASSUME_UNSAT;
+
+    /** 
+     * Whether the external decision procedure should learn 
+     * conflicts from the unsat cores of the unsatisfiable 
+     * queries. 
+     */
+    private boolean useSolverConflictCache = false;
+
     /** 
      * Whether the engine should use its sign analysis 
      * decision support.
      */
     private boolean doSignAnalysis = false;
 
+    /** 
+     * Whether the engine should use its interval (difference
+     * bounds) analysis decision support.
+     */
+    private boolean doIntervalAnalysis = false;
+
     /** Whether the engine should do sign analysis before invoking the decision procedure. */
     private boolean doEqualityAnalysis = false;
 
@@ -378,6 +478,13 @@ public final class RunParameters implements Cloneable {
      *  conservative repOK methods. 
      */
     private HashMap<String, String> conservativeRepOks = new HashMap<>();
+    
+    /**
+     * The number of threads that run the conservative 
+     * repOk and concretization methods on the objects
+     * of a heap.
+     */
+    private int heapCheckThreads = 1;
 
     /** The heap scope for conservative repOK and concretization execution. */
     private HashMap<String, Function<State, Integer>> concretizationHeapScope = new HashMap<>();
@@ -415,6 +522,16 @@ public final class RunParameters implements Cloneable {
     /** The format mode. */
     private StateFormatMode stateFormatMode = StateFormatMode.FULLTEXT;
 
+    /** 
+     * The directory where the {@link StateFormatMode#JUNIT_TEST} 
+     * formatter streams the test classes, or {@code null} if the 
+     * test suite is emitted on the output. 
+     */
+    private Path junitTestSuiteDirectory = null;
+    
+    /** The maximum number of test methods in a streamed test class. */
+    private int junitTestsPerClass = 1000;
+
     /** 
      * Maximum stack depth to which we show code;
      * if 0 we show at any depth (default).
@@ -468,6 +585,12 @@ public final class RunParameters implements Cloneable {
 
     private Package aPackage;
     
+    /** 
+     * The number of reanimator workers of the {@link StateFormatMode#DESCRIPTOR}
+     * formatter, or 0 if reanimation is not performed in parallel. 
+     */
+    private int reanimatorThreads = 0;
+    
     /** The number of hits when guided == true. */
     private int numberOfHits = 1;
 
@@ -1122,6 +1245,41 @@ public final class RunParameters implements Cloneable {
     	return this.runnerParameters.getUninterpretedPattern();
     }
 
+    /**
+     * Specifies that a method has no side effects on the symbolic 
+     * state, and thus that, whenever all its parameters are constant, 
+     * it can be executed metacircularly in a single step rather than 
+     * symbolically executed. Otherwise it is symbolically executed
+     * as usual.
+     * 
+     * @param methodClassName the name of the class containing the method.
+     * @param methodDescriptor the descriptor of the method.
+     * @param methodName the name of the method.
+     * @throws NullPointerException if any of the above parameters is {@code null}.
+     */
+    public void addConcreteOffload(String methodClassName, String methodDescriptor, String methodName) {
+        this.runnerParameters.addConcreteOffload(methodClassName, methodDescriptor, methodName);
+    }
+
+    /**
+     * Clears the methods set with {@link #addConcreteOffload(String, String, String) addConcreteOffload}.
+     */
+    public void clearConcreteOffload() {
+        this.runnerParameters.clearConcreteOffload();
+    }
+
+    /**
+     * Returns the methods that must be executed metacircularly
+     * whenever their parameters are constant.
+     * 
+     * @return A {@link List}{@code <}{@link String}{@code []>}, 
+     *         where each array is a triple (method class name, 
+     *         method parameters, method name).
+     */
+    public List<String[]> getConcreteOffload() {
+    	return this.runnerParameters.getConcreteOffload();
+    }
+
     /**
      * Sets the signature of the method which must be symbolically executed, 
      * and cancels the effect of any previous call to {@link #setStartingState(State)}.
@@ -1236,6 +1394,116 @@ public final class RunParameters implements Cloneable {
     public boolean getUseHashMapModel() {
     	return this.runnerParameters.getUseHashMapModel();
     }
+    
+    /**
+     * Sets whether the engine must execute the straight-line 
+     * sequences of simple, nonbranching bytecodes (loads, 
+     * stores, constants, iinc, forward gotos...) in a single 
+     * step, bypassing the decision procedure, the state tree 
+     * and the observers.
+     * 
+     * @param fastStep a {@code boolean}. If {@code true} the 
+     *        engine will execute the straight-line sequences of
+     *        simple bytecodes in a single step; as a consequence, 
+     *        the intermediate states will not be visible.
+     */
+    public void setFastStep(boolean fastStep) {
+    	this.runnerParameters.setFastStep(fastStep);
+    }
+    
+    /**
+     * Returns whether the engine must execute the straight-line 
+     * sequences of simple, nonbranching bytecodes in a single 
+     * step.
+     * 
+     * @return a {@code boolean}.
+     */
+    public boolean getFastStep() {
+    	return this.runnerParameters.getFastStep();
+    }
+
+    /**
+     * Sets the interval of the collection of the young generation
+     * of the heap during the post-initial phase. The old 
+     * generation is made of all the objects that survive the 
+     * collection of the heap performed at the initial state, 
+     * and it is not scanned by the young collections.
+     * 
+     * @param gcInterval an {@code int}, the number of steps between 
+     *        two collections of the young generation. If it is 
+     *        {@code <= 0} the young generation is never collected
+     *        (the default).
+     */
+    public void setGcInterval(int gcInterval) {
+    	this.runnerParameters.setGcInterval(gcInterval);
+    }
+    
+    /**
+     * Returns the interval of the collection of the young 
+     * generation of the heap during the post-initial phase.
+     * 
+     * @return an {@code int}, the number of steps between 
+     *         two collections of the young generation, or
+     *         {@code 0} if the young generation is never collected.
+     */
+    public int getGcInterval() {
+    	return this.runnerParameters.getGcInterval();
+    }
+
+    /**
+     * Sets whether the engine must merge the states at the
+     * control flow join points (path merging). When two 
+     * sibling states reach the same join point with the 
+     * same heap, except for some primitive fields, and the 
+     * same stack, except for some primitive values, they are
+     * joined in a single state where the different values 
+     * are fresh symbols constrained by the path condition.
+     * The merged paths are not visible to the observers, 
+     * thus state merging is not suitable for guided 
+     * execution or test generation: {@link Run} refuses 
+     * to start if state merging is set together with
+     * guidance or with the {@link StateFormatMode#JUNIT_TEST}
+     * or {@link StateFormatMode#DESCRIPTOR} state format modes. 
+     * The check methods of the heap checkers and the guidance
+     * driver methods are never run with state merging.
+     * 
+     * @param stateMerging a {@code boolean}. If {@code true} the 
+     *        engine will merge the states at the join points.
+     */
+    public void setStateMerging(boolean stateMerging) {
+    	this.runnerParameters.setStateMerging(stateMerging);
+    }
+
+    /**
+     * Returns whether the engine must merge the states 
+     * at the control flow join points.
+     * 
+     * @return a {@code boolean}.
+     */
+    public boolean getStateMerging() {
+    	return this.runnerParameters.getStateMerging();
+    }
+
+    /**
+     * Sets the maximum number of values that may differ
+     * in two merged states (see {@link #setStateMerging(boolean)}).
+     * 
+     * @param stateMergingMaxJoinedValues an {@code int}. If it 
+     *        is {@code <= 0} it is set to 1. The default is 8.
+     */
+    public void setStateMergingMaxJoinedValues(int stateMergingMaxJoinedValues) {
+    	this.runnerParameters.setStateMergingMaxJoinedValues(stateMergingMaxJoinedValues);
+    }
+
+    /**
+     * Returns the maximum number of values that may differ
+     * in two merged states.
+     * 
+     * @return a positive {@code int}.
+     */
+    public int getStateMergingMaxJoinedValues() {
+    	return this.runnerParameters.getStateMergingMaxJoinedValues();
+    }
 
     /**
      * Sets a timeout for execution.
@@ -1498,6 +1766,63 @@ public final class RunParameters implements Cloneable {
         return this.decisionProcedureType;
     }
 
+    /**
+     * Sets whether the {@link DecisionProcedureType#Z3} and 
+     * {@link DecisionProcedureType#CVC4} decision procedures 
+     * encode the Java integral types as fixed-width bit-vectors 
+     * and the Java floating point types as IEEE 754 floating
+     * point numbers. The encoding is precise on overflows and
+     * bitwise operations, and avoids nonlinear integer arithmetic, 
+     * but requires a solver supporting the bit-vector and 
+     * floating point theories. 
+     * 
+     * @param useBitVectorEncoding {@code true} iff the decision
+     *        procedure must use the bit-vector encoding; by default
+     *        the Java primitive types are encoded as integers and reals.
+     */
+    public void setUseBitVectorEncoding(boolean useBitVectorEncoding) {
+        this.useBitVectorEncoding = useBitVectorEncoding;
+    }
+
+    /**
+     * Returns whether the {@link DecisionProcedureType#Z3} and 
+     * {@link DecisionProcedureType#CVC4} decision procedures 
+     * encode the Java primitive types as bit-vectors and 
+     * floating point numbers.
+     * 
+     * @return a {@code boolean}.
+     */
+    public boolean getUseBitVectorEncoding() {
+        return this.useBitVectorEncoding;
+    }
+
+    /**
+     * Sets whether the {@link DecisionProcedureType#Z3} decision
+     * procedure runs in the same process through the Z3 Java API,
+     * rather than as an external process fed with SMTLIB2 text.
+     * It requires the Z3 Java bindings on the classpath and the Z3
+     * native library on the library path; if they are not available, 
+     * or if the bit-vector encoding is used (see 
+     * {@link #setUseBitVectorEncoding(boolean)}), the external 
+     * process is used.
+     * 
+     * @param useNativeZ3 {@code true} iff Z3 must run in the same
+     *        process; by default it runs as an external process.
+     */
+    public void setUseNativeZ3(boolean useNativeZ3) {
+        this.useNativeZ3 = useNativeZ3;
+    }
+
+    /**
+     * Returns whether the {@link DecisionProcedureType#Z3} decision 
+     * procedure runs in the same process through the Z3 Java API.
+     * 
+     * @return a {@code boolean}.
+     */
+    public boolean getUseNativeZ3() {
+        return this.useNativeZ3;
+    }
+
     /**
      * Sets the pathname of the executable
      * of the decision procedure (should match 
@@ -1543,6 +1868,188 @@ public final class RunParameters implements Cloneable {
         return this.externalDecisionProcedurePath;
     }
 
+    /**
+     * Sets the pathname of the executable
+     * of the fallback decision procedure, i.e., the 
+     * one among {@link DecisionProcedureType#Z3} and 
+     * {@link DecisionProcedureType#CVC4} that is not 
+     * set with {@link #setDecisionProcedureType(DecisionProcedureType)}.
+     * It is used when the solver unknown policy is 
+     * {@link UnknownPolicy#RETRY}.
+     * 
+     * @param externalDecisionProcedureFallbackPath a {@link Path} to the 
+     *        fallback decision procedure executable.
+     * @throws NullPointerException if {@code externalDecisionProcedureFallbackPath == null}.
+     */
+    public void setExternalDecisionProcedureFallbackPath(Path externalDecisionProcedureFallbackPath) { 
+        if (externalDecisionProcedureFallbackPath == null) {
+            throw new NullPointerException();
+        }
+        this.externalDecisionProcedureFallbackPath = externalDecisionProcedureFallbackPath; 
+    }
+
+    /**
+     * Gets the pathname of the executable
+     * of the fallback decision procedure set with 
+     * {@link #setExternalDecisionProcedureFallbackPath(Path)}.
+     * 
+     * @return a {@link Path}, or {@code null} if the
+     *         fallback decision procedure is in the
+     *         system path.
+     */
+    public Path getExternalDecisionProcedureFallbackPath() {
+        return this.externalDecisionProcedureFallbackPath;
+    }
+
+    /**
+     * Sets the time limit for each query to the external
+     * decision procedure. When a query exceeds it the
+     * decision procedure answers {@code unknown}, and the
+     * answer is treated as stated by 
+     * {@link #setSolverUnknownPolicy(UnknownPolicy)}.
+     * 
+     * @param time a {@code long}, the time limit, or 0
+     *        for the default time limit of the decision 
+     *        procedure command line.
+     * @param timeUnit the {@link TimeUnit} of {@code time}.
+     * @throws IllegalArgumentException if {@code time < 0}.
+     */
+    public void setSolverTimeout(long time, TimeUnit timeUnit) {
+        if (time < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.solverTimeout = timeUnit.toMillis(time);
+    }
+
+    /**
+     * Gets the time limit for each query to the external
+     * decision procedure.
+     * 
+     * @return a {@code long}, the time limit in milliseconds, 
+     *         or 0 for the default.
+     */
+    public long getSolverTimeout() {
+        return this.solverTimeout;
+    }
+
+    /**
+     * Sets the resource limit for each query to the external
+     * decision procedure, in the units of the decision 
+     * procedure. Differently from time limits, resource limits
+     * make the outcome of a query independent on the speed 
+     * and load of the machine. When a query exceeds it the
+     * decision procedure answers {@code unknown}, and the
+     * answer is treated as stated by 
+     * {@link #setSolverUnknownPolicy(UnknownPolicy)}.
+     * 
+     * @param solverResourceLimit a {@code long}, the resource 
+     *        limit, or 0 for no limit.
+     * @throws IllegalArgumentException if {@code solverResourceLimit < 0}.
+     */
+    public void setSolverResourceLimit(long solverResourceLimit) {
+        if (solverResourceLimit < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.solverResourceLimit = solverResourceLimit;
+    }
+
+    /**
+     * Gets the resource limit for each query to the external
+     * decision procedure.
+     * 
+     * @return a {@code long}, the resource limit, or 0 for 
+     *         no limit.
+     */
+    public long getSolverResourceLimit() {
+        return this.solverResourceLimit;
+    }
+
+    /**
+     * Sets the time the external decision procedure has for 
+     * answering a query before it is considered hung. A hung 
+     * decision procedure is killed and restarted with the same 
+     * assumptions, and the query is treated as if the decision 
+     * procedure answered {@code unknown}. It should be larger 
+     * than the time limit set with {@link #setSolverTimeout(long, TimeUnit)}, 
+     * so it does not fire when the decision procedure honors 
+     * its time limit.
+     * 
+     * @param time a {@code long}, the time, or 0 for no limit
+     *        (default).
+     * @param timeUnit the {@link TimeUnit} of {@code time}.
+     * @throws IllegalArgumentException if {@code time < 0}.
+     */
+    public void setSolverWatchdogTimeout(long time, TimeUnit timeUnit) {
+        if (time < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.solverWatchdogTimeout = timeUnit.toMillis(time);
+    }
+
+    /**
+     * Gets the time the external decision procedure has for 
+     * answering a query before it is considered hung.
+     * 
+     * @return a {@code long}, the time in milliseconds, 
+     *         or 0 for no limit.
+     */
+    public long getSolverWatchdogTimeout() {
+        return this.solverWatchdogTimeout;
+    }
+
+    /**
+     * Sets what to do when the external decision procedure 
+     * is unable to decide a query, either because it answers 
+     * {@code unknown} or because it hangs.
+     * 
+     * @param solverUnknownPolicy an {@link UnknownPolicy}; the
+     *        default is {@link UnknownPolicy#ASSUME_UNSAT}.
+     * @throws NullPointerException if {@code solverUnknownPolicy == null}.
+     */
+    public void setSolverUnknownPolicy(UnknownPolicy solverUnknownPolicy) {
+        if (solverUnknownPolicy == null) {
+            throw new NullPointerException();
+        }
+        this.solverUnknownPolicy = solverUnknownPolicy;
+    }
+
+    /**
+     * Gets what to do when the external decision procedure 
+     * is unable to decide a query.
+     * 
+     * @return an {@link UnknownPolicy}.
+     */
+    public UnknownPolicy getSolverUnknownPolicy() {
+        return this.solverUnknownPolicy;
+    }
+
+    /**
+     * Sets whether the external decision procedure should 
+     * get the unsat cores of the unsatisfiable queries and 
+     * cache them as conflicts. The subsequent queries that, 
+     * together with the current path condition, contain a 
+     * learned conflict are decided without querying the 
+     * solver. Only the SMT-LIB 2 decision procedures support
+     * conflict learning.
+     * 
+     * @param useSolverConflictCache {@code true} iff conflicts 
+     *        must be learned. The default is {@code false}.
+     */
+    public void setUseSolverConflictCache(boolean useSolverConflictCache) {
+        this.useSolverConflictCache = useSolverConflictCache;
+    }
+
+    /**
+     * Gets whether the external decision procedure should 
+     * learn conflicts from the unsat cores of the 
+     * unsatisfiable queries.
+     * 
+     * @return a {@code boolean}.
+     */
+    public boolean getUseSolverConflictCache() {
+        return this.useSolverConflictCache;
+    }
+
     /**
      * Adds a creation strategy to the strategies 
      * for creating the {@link DecisionProcedure}.
@@ -1597,6 +2104,29 @@ public final class RunParameters implements Cloneable {
         return this.doSignAnalysis;
     }
 
+    /**
+     * Sets whether the engine should decide the linear bound 
+     * constraints on integral values with an interval (difference 
+     * bounds) analysis before invoking the decision procedure
+     * set with {@link #setDecisionProcedureType(DecisionProcedureType)}.
+     * 
+     * @param doIntervalAnalysis {@code true} iff the engine must do 
+     *        interval analysis.
+     */
+    public void setDoIntervalAnalysis(boolean doIntervalAnalysis) {
+        this.doIntervalAnalysis = doIntervalAnalysis;
+    }
+
+    /**
+     * Gets whether the engine should decide the linear bound 
+     * constraints on integral values with an interval analysis.
+     * 
+     * @return {@code true} iff the engine must do interval analysis.
+     */
+    public boolean getDoIntervalAnalysis() {
+        return this.doIntervalAnalysis;
+    }
+
     /**
      * Sets whether the engine should decide equality with a
      * simple closure algorithm. 
@@ -1670,6 +2200,32 @@ public final class RunParameters implements Cloneable {
         return new HashMap<>(this.conservativeRepOks);
     }
 
+    /**
+     * Sets the number of threads that run the conservative 
+     * repOk and concretization methods on the objects of 
+     * a heap. With more than one thread each thread uses 
+     * its own numeric decision procedure, and the check 
+     * of a heap stops as soon as a method fails on an object.
+     * By default the methods are run by one thread.
+     * 
+     * @param heapCheckThreads an {@code int}. If it is 
+     *        {@code <= 1} the methods are run sequentially.
+     */
+    public void setHeapCheckThreads(int heapCheckThreads) {
+        this.heapCheckThreads = Math.max(heapCheckThreads, 1);
+    }
+
+    /**
+     * Returns the number of threads that run the conservative 
+     * repOk and concretization methods on the objects of 
+     * a heap.
+     * 
+     * @return a positive {@code int}.
+     */
+    public int getHeapCheckThreads() {
+        return this.heapCheckThreads;
+    }
+
     //TODO static (noncomputed) concretization heap scope
 
     /**
@@ -2324,6 +2880,70 @@ public final class RunParameters implements Cloneable {
         return this.stateFormatMode;
     }
     
+    /**
+     * Sets the directory where the {@link StateFormatMode#JUNIT_TEST}
+     * formatter writes the test suite. The test methods are written
+     * as soon as they are generated, split in test classes 
+     * of at most {@link #getJUnitTestsPerClass()} methods each, 
+     * rather than being emitted on the output.
+     * 
+     * @param s A {@link String} representing the pathname of a
+     *        directory. 
+     * @throws NullPointerException if {@code s == null}.
+     */
+    public void setJUnitTestSuiteDirectory(String s) {
+        if (s == null) {
+            throw new NullPointerException();
+        }
+        this.junitTestSuiteDirectory = Paths.get(s);
+    }
+    
+    /**
+     * Instructs the {@link StateFormatMode#JUNIT_TEST} formatter 
+     * to emit the test suite on the output, cancelling any previous 
+     * invocation of the {@link #setJUnitTestSuiteDirectory(String)}
+     * method. This is the default behaviour.
+     */
+    public void setJUnitTestSuiteDirectoryNone() {
+        this.junitTestSuiteDirectory = null;
+    }
+    
+    /**
+     * Returns the directory where the {@link StateFormatMode#JUNIT_TEST}
+     * formatter writes the test suite.
+     * 
+     * @return a {@link Path}, or {@code null} if the test suite 
+     *         is emitted on the output.
+     */
+    public Path getJUnitTestSuiteDirectory() {
+        return this.junitTestSuiteDirectory;
+    }
+    
+    /**
+     * Sets the maximum number of test methods in each of the
+     * test classes written in the directory set with 
+     * {@link #setJUnitTestSuiteDirectory(String)}.
+     * 
+     * @param junitTestsPerClass an {@code int}. If 
+     *        {@code junitTestsPerClass <= 0} there is no maximum
+     *        and all the test methods are in one class. 
+     *        The default is 1000.
+     */
+    public void setJUnitTestsPerClass(int junitTestsPerClass) {
+        this.junitTestsPerClass = junitTestsPerClass;
+    }
+    
+    /**
+     * Returns the maximum number of test methods in each of the
+     * test classes written in the directory set with 
+     * {@link #setJUnitTestSuiteDirectory(String)}.
+     * 
+     * @return an {@code int}, 0 or less if there is no maximum.
+     */
+    public int getJUnitTestsPerClass() {
+        return this.junitTestsPerClass;
+    }
+    
     /**
      * Sets the path of the source files.
      * 
@@ -2531,6 +3151,58 @@ public final class RunParameters implements Cloneable {
     public GuidanceType getGuidanceType() {
         return this.guidanceType;
     }
+    
+    /**
+     * Sets the number of resident JVMs for {@link GuidanceType#JDI}
+     * guidance. Resident JVMs are launched once and reused, 
+     * reloading the target classes, by all the guided runs 
+     * (and evaluations of uninterpreted functions) in this 
+     * JVM, thus avoiding to launch a JVM each time. 
+     * 
+     * @param guidanceResidentJVMs an {@code int}, the maximum 
+     *        number of idle resident JVMs kept for each classpath. 
+     *        If {@code guidanceResidentJVMs <= 0} guidance JVMs 
+     *        are not resident (default).
+     */
+    public void setGuidanceResidentJVMs(int guidanceResidentJVMs) {
+        this.guidanceResidentJVMs = Math.max(0, guidanceResidentJVMs);
+    }
+    
+    /**
+     * Returns the number of resident JVMs for {@link GuidanceType#JDI}
+     * guidance.
+     * 
+     * @return an {@code int}, 0 if guidance JVMs are not resident.
+     */
+    public int getGuidanceResidentJVMs() {
+        return this.guidanceResidentJVMs;
+    }
+    
+    /**
+     * Sets the depth of the snapshot of the concrete state taken 
+     * by {@link GuidanceType#JDI} guidance. When the guiding 
+     * concrete execution stops, all the objects reachable from 
+     * the root frame with at most {@code guidanceSnapshotDepth} 
+     * field or array accesses are fetched from the guiding JVM 
+     * in batch, and the subsequent queries are answered locally. 
+     * 
+     * @param guidanceSnapshotDepth an {@code int}. If 
+     *        {@code guidanceSnapshotDepth <= 0} the objects are
+     *        fetched on demand (default).
+     */
+    public void setGuidanceSnapshotDepth(int guidanceSnapshotDepth) {
+        this.guidanceSnapshotDepth = Math.max(0, guidanceSnapshotDepth);
+    }
+    
+    /**
+     * Returns the depth of the snapshot of the concrete state 
+     * taken by {@link GuidanceType#JDI} guidance.
+     * 
+     * @return an {@code int}, 0 if objects are fetched on demand.
+     */
+    public int getGuidanceSnapshotDepth() {
+        return this.guidanceSnapshotDepth;
+    }
 
     /**
      * Returns a new {@link RunnerParameters} that can be used
@@ -2551,6 +3223,7 @@ public final class RunParameters implements Cloneable {
         retVal.setHeapScopeComputed(this.concretizationHeapScope);
         retVal.setDepthScope(this.concretizationDepthScope);
         retVal.setCountScope(this.concretizationCountScope);
+        retVal.setStateMerging(false);
         retVal.setIdentifierSubregionRoot();
         return retVal;
     }
@@ -2570,6 +3243,7 @@ public final class RunParameters implements Cloneable {
         retVal.setHeapScopeComputed(this.concretizationHeapScope);
         retVal.setDepthScope(this.concretizationDepthScope);
         retVal.setCountScope(this.concretizationCountScope);
+        retVal.setStateMerging(false);
         retVal.setIdentifierSubregionRoot();
         return retVal;
     }
@@ -2600,6 +3274,7 @@ public final class RunParameters implements Cloneable {
             } 
             retVal.setStateIdentificationMode(StateIdentificationMode.COMPACT);
             retVal.setBreadthMode(BreadthMode.MORE_THAN_ONE);
+            retVal.setStateMerging(false);
             retVal.setIdentifierSubregionRoot();
         } else {
             retVal = null;
@@ -1342,6 +1342,12 @@ public class ClassFileJavassist extends ClassFile {
     throws MethodNotFoundException, MethodCodeNotFoundException {
         return getMethodCodeAttribute(methodSignature).getMaxLocals();
     }
+
+    @Override
+    public int getOperandStackMaxDepth(Signature methodSignature)
+    throws MethodNotFoundException, MethodCodeNotFoundException {
+        return getMethodCodeAttribute(methodSignature).getMaxStack();
+    }
     
     @Override
     public int getCodeLength(Signature methodSignature) throws MethodNotFoundException, MethodCodeNotFoundException {
@@ -518,6 +518,12 @@ public class ClassFileSnippetWrap extends ClassFile {
     	return this.component.getLocalVariableTableLength(methodSignature);
     }
 
+    @Override
+    public int getOperandStackMaxDepth(Signature methodSignature)
+    throws MethodNotFoundException, MethodCodeNotFoundException {
+    	return this.component.getOperandStackMaxDepth(methodSignature);
+    }
+
     @Override
     public int getCodeLength(Signature methodSignature) 
     throws MethodNotFoundException, MethodCodeNotFoundException {
@@ -182,6 +182,19 @@ final class ClassFileStore implements Cloneable {
         }
     }
     
+    /**
+     * Checks whether this store contains the same
+     * {@link ClassFile}s of another store.
+     * 
+     * @param other a {@link ClassFileStore}.
+     * @return {@code true} iff {@code this} and {@code other}
+     *         have the same loaded class caches and the same
+     *         anonymous classes.
+     */
+    boolean sameClassFiles(ClassFileStore other) {
+        return (this.loadedClassCache.equals(other.loadedClassCache) && this.anonymousClasses.equals(other.anonymousClasses));
+    }
+    
     @Override
     protected ClassFileStore clone() {
         final ClassFileStore o;
@@ -2027,6 +2027,22 @@ public final class ClassHierarchy implements Cloneable {
         return false; //no such m was found
     }
     
+    /**
+     * Checks whether this class hierarchy has loaded the same
+     * classes of another one, e.g., because both are clones of 
+     * a common class hierarchy and no class was loaded since.
+     * 
+     * @param other a {@link ClassHierarchy}.
+     * @return {@code true} iff {@code this} and {@code other}
+     *         have the same classpath and the same loaded 
+     *         {@link ClassFile}s.
+     */
+    public boolean sameLoadedClasses(ClassHierarchy other) {
+        return (this == other || 
+                (this.cp == other.cp && this.cfs.sameClassFiles(other.cfs) && 
+                 this.systemPackages.equals(other.systemPackages)));
+    }
+    
     @Override
     public ClassHierarchy clone() {
         final ClassHierarchy o;
@@ -241,6 +241,28 @@ public interface DecisionProcedure extends AutoCloseable {
         throw new NoModelException();
     }
 
+    /**
+     * Returns a model of the last clause whose satisfiability
+     * was checked with one of the {@code isSat}Xxx methods, 
+     * restricted to some symbols. It should be preferred to 
+     * {@link #getModel()} when only the values of few symbols 
+     * are needed, since it allows to avoid extracting from 
+     * the decision procedure the values of all the others.
+     * 
+     * @param symbols a {@link Collection}{@code <}{@link PrimitiveSymbolic}{@code >}, 
+     *        the symbols whose values are required, or {@code null}
+     *        for all the symbols (as in {@link #getModel()}).
+     * @return a {@link Map}{@code <}{@link PrimitiveSymbolic}{@code ,}
+     *         {@link Simplex}{@code >} associating a concrete 
+     *         numeric value to the symbols in {@code symbols}
+     *         that are in the last checked clause. 
+     * @throws DecisionException upon failure.
+     */
+    default Map<PrimitiveSymbolic, Simplex> getModel(Collection<? extends PrimitiveSymbolic> symbols) 
+    throws DecisionException {
+        return ModelEvaluator.restrict(getModel(), symbols);
+    }
+
     /**
      * Simplifies a {@link Primitive} under the current assumptions.
      * 
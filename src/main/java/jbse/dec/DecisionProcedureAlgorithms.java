@@ -12,6 +12,8 @@ import static jbse.common.Type.TYPEVAR;
 import static jbse.common.Type.typeParameterIdentifier;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -40,8 +42,10 @@ import jbse.dec.SolverEquationGenericTypes.Some;
 import jbse.dec.SolverEquationGenericTypes.TypeTerm;
 import jbse.dec.SolverEquationGenericTypes.Var;
 import jbse.dec.exc.DecisionException;
+import jbse.dec.exc.NoModelException;
 import jbse.mem.Array;
 import jbse.mem.Clause;
+import jbse.mem.ClauseAssume;
 import jbse.mem.ClauseAssumeExpands;
 import jbse.mem.Objekt;
 import jbse.mem.State;
@@ -71,6 +75,7 @@ import jbse.val.HistoryPoint;
 import jbse.val.KlassPseudoReference;
 import jbse.val.Operator;
 import jbse.val.Primitive;
+import jbse.val.PrimitiveSymbolic;
 import jbse.val.Reference;
 import jbse.val.ReferenceSymbolic;
 import jbse.val.ReferenceSymbolicApply;
@@ -250,12 +255,160 @@ public class DecisionProcedureAlgorithms extends DecisionProcedureDecorator {
     
     protected final Calculator calc;
 
+    /**
+     * Evaluates the alternatives under a model of the current 
+     * assumptions, or is {@code null} if there is no such model.
+     * The alternatives that the model satisfies are satisfiable,
+     * and are decided without querying the component.
+     */
+    private ModelEvaluator modelEvaluator = null;
+
+    /**
+     * {@code true} iff the component was unable to provide a 
+     * model of the current assumptions; it is not asked again
+     * until the assumptions are cleared.
+     */
+    private boolean modelUnavailable = false;
+
+    /** {@code true} iff the component is in fast and imprecise mode. */
+    private boolean fast = false;
+
     public DecisionProcedureAlgorithms(DecisionProcedure component) 
     throws InvalidInputException {
         super(component);
         this.calc = getCalculator();
     }
 
+    @Override
+    public void goFastAndImprecise() {
+        super.goFastAndImprecise();
+        this.fast = true;
+        this.modelEvaluator = null;
+    }
+
+    @Override
+    public void stopFastAndImprecise() {
+        super.stopFastAndImprecise();
+        this.fast = false;
+    }
+
+    @Override
+    public void pushAssumption(Clause c) 
+    throws InvalidInputException, DecisionException {
+        super.pushAssumption(c);
+        keepModelIfSatisfies(c);
+    }
+
+    @Override
+    public void clearAssumptions() throws DecisionException {
+        super.clearAssumptions();
+        this.modelEvaluator = null;
+        this.modelUnavailable = false;
+    }
+
+    @Override
+    public void addAssumptions(Iterable<Clause> assumptionsToAdd) 
+    throws InvalidInputException, DecisionException {
+        super.addAssumptions(assumptionsToAdd);
+        for (Clause c : assumptionsToAdd) {
+            keepModelIfSatisfies(c);
+        }
+    }
+
+    @Override
+    public void addAssumptions(Clause... assumptionsToAdd) 
+    throws InvalidInputException, DecisionException {
+        super.addAssumptions(assumptionsToAdd);
+        for (Clause c : assumptionsToAdd) {
+            keepModelIfSatisfies(c);
+        }
+    }
+
+    @Override
+    public void setAssumptions(Collection<Clause> newAssumptions) 
+    throws InvalidInputException, DecisionException {
+        super.setAssumptions(newAssumptions);
+        this.modelUnavailable = false;
+        for (Clause c : newAssumptions) {
+            keepModelIfSatisfies(c);
+        }
+    }
+
+    /**
+     * Discards the current model unless it satisfies
+     * a clause that was added to the assumptions.
+     * 
+     * @param c a {@link Clause}. 
+     */
+    private void keepModelIfSatisfies(Clause c) {
+        //the clauses that are not ClauseAssume do not
+        //constrain the numeric symbols
+        if (this.modelEvaluator != null && c instanceof ClauseAssume && 
+            this.modelEvaluator.evalBoolean(((ClauseAssume) c).getCondition()) != Boolean.TRUE) {
+            this.modelEvaluator = null;
+        }
+    }
+
+    /**
+     * Determines the satisfiability of an {@link Expression} under the
+     * current assumptions by first evaluating it under a model of the
+     * current assumptions, and querying the component only if the model 
+     * does not satisfy it. The evaluation follows the Java semantics, 
+     * so a model satisfying the current assumptions and {@code exp} 
+     * witnesses a concrete execution.
+     * 
+     * @param exp a boolean {@link Expression}.
+     * @return {@code true} iff {@code exp} is satisfiable under
+     *         the current assumptions.
+     * @throws InvalidInputException when {@code exp} is incorrect.
+     * @throws DecisionException upon failure.
+     */
+    private boolean isSatModelFirst(Expression exp) 
+    throws InvalidInputException, DecisionException {
+        if (!this.fast && !this.modelUnavailable) {
+            if (this.modelEvaluator == null) {
+                this.modelEvaluator = fetchModel();
+                this.modelUnavailable = (this.modelEvaluator == null);
+            }
+            if (this.modelEvaluator != null && this.modelEvaluator.evalBoolean(exp) == Boolean.TRUE) {
+                return true;
+            }
+        }
+        return isSat(exp);
+    }
+
+    /**
+     * Gets a model of the current assumptions from the component.
+     * 
+     * @return a {@link ModelEvaluator} for the model, or {@code null}
+     *         if the component does not provide a model, or if the model
+     *         does not satisfy all the current assumptions under the Java 
+     *         semantics.
+     * @throws DecisionException upon failure.
+     */
+    private ModelEvaluator fetchModel() throws DecisionException {
+        final Map<PrimitiveSymbolic, Simplex> model;
+        try {
+            model = getModel();
+        } catch (NoModelException e) {
+            return null;
+        }
+        final HashMap<PrimitiveSymbolic, Simplex> modelJava = new HashMap<>();
+        for (Map.Entry<PrimitiveSymbolic, Simplex> entry : model.entrySet()) {
+            final Simplex value = ModelEvaluator.toSymbolType(this.calc, entry.getKey(), entry.getValue());
+            if (value != null) {
+                modelJava.put(entry.getKey(), value);
+            }
+        }
+        final ModelEvaluator retVal = new ModelEvaluator(this.calc, modelJava);
+        for (Clause c : getAssumptions()) {
+            if (c instanceof ClauseAssume && retVal.evalBoolean(((ClauseAssume) c).getCondition()) != Boolean.TRUE) {
+                return null;
+            }
+        }
+        return retVal;
+    }
+
     /**
      * Decides a condition for "branch if integer comparison" bytecodes.
      * 
@@ -317,10 +470,10 @@ public class DecisionProcedureAlgorithms extends DecisionProcedureDecorator {
                 result.add(T);
                 result.add(F);
                 shouldRefine = false; //"don't care" does not require refinement
-            } else if (isSat(exp)) {
+            } else if (isSatModelFirst(exp)) {
                 result.add(T);
                 final Expression expNot = (Expression) this.calc.push(condition).not().pop(); 
-                if (isSat(expNot)) {
+                if (isSatModelFirst(expNot)) {
                     result.add(F);
                 }
                 shouldRefine = (result.size() > 1);
@@ -415,17 +568,17 @@ public class DecisionProcedureAlgorithms extends DecisionProcedureDecorator {
                 //this implementation saves one sat check in 33% cases
                 //(it exploits the fact that if both val1 > val2 and 
                 //val1 = val2 are unsat, then val1 < val2 is valid)
-                if (isSat(expGT)) {
+                if (isSatModelFirst(expGT)) {
                     result.add(GT);
-                    if (isSat(expEQ)) {
+                    if (isSatModelFirst(expEQ)) {
                         result.add(EQ);
                     }
-                    if (isSat(expLT)) {
+                    if (isSatModelFirst(expLT)) {
                         result.add(LT); 
                     }
-                } else if (isSat(expEQ)) { //expGT is unsat, so either expEQ or expLT, or both, are SAT 
+                } else if (isSatModelFirst(expEQ)) { //expGT is unsat, so either expEQ or expLT, or both, are SAT 
                     result.add(EQ);
-                    if (isSat(expLT)) {
+                    if (isSatModelFirst(expLT)) {
                         result.add(LT); 
                     }
                 } else {
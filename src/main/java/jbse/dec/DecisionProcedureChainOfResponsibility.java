@@ -462,7 +462,7 @@ public abstract class DecisionProcedureChainOfResponsibility implements Decision
             return ((Simplex) expSimpl).surelyTrue();
         } else { // (expSimpl instanceof Expression)
             final boolean localDecidesSat = isSatLocal(expression, (Expression) expSimpl);
-            if (localDecidesSat && hasNext()) {
+            if (localDecidesSat && hasNext() && !isSatLocalConclusive(expression, (Expression) expSimpl)) {
                 //tries the delegate, that could have a more restrictive answer
                 return delegateIsSat(expression);  //TODO shouldn't we pass expSimpl instead? do we really need to pass the original exp to the next in chain?
             }
@@ -489,6 +489,28 @@ public abstract class DecisionProcedureChainOfResponsibility implements Decision
         return true;
     }
 
+    /**
+     * May be overridden by subclasses whose {@link #isSatLocal(Expression, Expression) isSatLocal}
+     * is, in some cases, complete, i.e., it answers {@code true} only 
+     * when the expression is surely satisfiable under the current 
+     * assumptions. In such cases the next decision procedure in the 
+     * chain is not queried. It is invoked right after 
+     * {@link #isSatLocal(Expression, Expression) isSatLocal} 
+     * returned {@code true} on the same parameters. The default 
+     * implementation answers {@code false}.
+     * 
+     * @param exp see {@link #isSatLocal(Expression, Expression) isSatLocal}. 
+     * @param expSimpl see {@link #isSatLocal(Expression, Expression) isSatLocal}.
+     * @return {@code true} iff the {@code true} answer of 
+     *         {@link #isSatLocal(Expression, Expression) isSatLocal} 
+     *         is conclusive and must not be refined by the next 
+     *         decision procedure in the chain.
+     * @throws DecisionException upon failure.
+     */
+    protected boolean isSatLocalConclusive(Expression exp, Expression expSimpl) throws DecisionException {
+        return false;
+    }
+
     /**
      * Queries the next decision procedure in the chain for 
      * satisfiability of an {@link Expression}.
@@ -820,6 +842,35 @@ public abstract class DecisionProcedureChainOfResponsibility implements Decision
         return this.next.getModel();
     }
 
+    @Override
+    public Map<PrimitiveSymbolic, Simplex> getModel(Collection<? extends PrimitiveSymbolic> symbols) 
+    throws DecisionException {
+        try {
+            return getModelLocal(symbols);
+        } catch (NoModelException e) {
+            if (hasNext()) {
+                return this.next.getModel(symbols);
+            } else {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * May be overridden by subclasses to implement 
+     * {@link #getModel(Collection)}. 
+     * The default implementation filters the result of
+     * {@link #getModelLocal()}. 
+     * 
+     * @param symbols see {@link #getModel(Collection) getModel}.
+     * @return see {@link #getModel(Collection) getModel}.
+     * @throws DecisionException upon failure.
+     */
+    protected Map<PrimitiveSymbolic, Simplex> getModelLocal(Collection<? extends PrimitiveSymbolic> symbols) 
+    throws DecisionException {
+        return ModelEvaluator.restrict(getModelLocal(), symbols);
+    }
+
     @Override
     public final Primitive simplify(Primitive p) throws DecisionException {
         final Primitive pSimpl = simplifyLocal(p);
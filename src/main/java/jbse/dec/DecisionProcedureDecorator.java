@@ -124,6 +124,11 @@ public class DecisionProcedureDecorator implements DecisionProcedure {
         return this.component.getModel();
     }
 
+    @Override
+    public Map<PrimitiveSymbolic, Simplex> getModel(Collection<? extends PrimitiveSymbolic> symbols) throws DecisionException {
+        return this.component.getModel(symbols);
+    }
+
     @Override
     public Primitive simplify(Primitive c) throws DecisionException {
         return this.component.simplify(c);
@@ -1,8 +1,12 @@
 package jbse.dec;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
 import jbse.common.exc.InvalidInputException;
 import jbse.common.exc.UnexpectedInternalException;
 import jbse.dec.exc.DecisionException;
+import jbse.mem.Clause;
 import jbse.mem.ClauseAssume;
 import jbse.val.Any;
 import jbse.val.Expression;
@@ -16,12 +20,16 @@ import jbse.val.PrimitiveVisitor;
 import jbse.val.Rewriter;
 import jbse.val.Simplex;
 import jbse.val.Term;
+import jbse.val.Value;
 import jbse.val.WideningConversion;
+import jbse.val.exc.InvalidTypeException;
 import jbse.val.exc.NoResultException;
 
 /**
  * A poor man decision procedure for equalities and inequalities 
- * (not really congruence closure).
+ * (congruence closure restricted to the applications of 
+ * uninterpreted functions). Its partition is backtracked 
+ * incrementally when assumptions are popped.
  * 
  * @author Pietro Braione
  *
@@ -29,12 +37,32 @@ import jbse.val.exc.NoResultException;
 public final class DecisionProcedureEquality extends DecisionProcedureChainOfResponsibility {
 	private final Partition<Primitive> equivalence = new Partition<>();
 
+	/** 
+	 * The {@link PrimitiveSymbolicApply} terms occurring in 
+	 * the equalities in {@link #equivalence}, that must be 
+	 * kept closed under congruence.
+	 */
+	private final ArrayList<PrimitiveSymbolicApply> applies = new ArrayList<>();
+
+	/** 
+	 * For each pushed clause, the {@link Partition#mark() mark} 
+	 * of {@link #equivalence} and the size of {@link #applies} 
+	 * before the push.
+	 */
+	private final ArrayDeque<int[]> frames = new ArrayDeque<>();
+
 	public DecisionProcedureEquality(DecisionProcedure component) 
 	throws InvalidInputException {
 		super(component);
 		this.rewriters = new Rewriter[] { new RewriterUnify() }; //explicit assignment: no constructor call is allowed before super()
 	}
 
+	@Override
+	protected void pushAssumptionLocal(Clause cSimpl) throws DecisionException {
+		this.frames.push(new int[] { this.equivalence.mark(), this.applies.size() });
+		super.pushAssumptionLocal(cSimpl); //redispatches
+	}
+
 	@Override
 	protected void pushAssumptionLocal(ClauseAssume c) {
 		final Primitive p = c.getCondition();
@@ -46,13 +74,105 @@ public final class DecisionProcedureEquality extends DecisionProcedureChainOfRes
 		}
 		if (vEq.isEquality && !vEq.negated) {
 			this.equivalence.union(vEq.first, vEq.second);
-			//(see Partition.close, commented out) this.equivalence.close(this.calc, this.rewriters);
+			collectApplies(vEq.first);
+			collectApplies(vEq.second);
+			closeCongruence();
 		}
 	}
 
+	@Override
+	protected boolean canPopAssumptions() {
+		return true;
+	}
+
+	@Override
+	protected void popAssumptionLocal() throws DecisionException {
+		if (this.frames.isEmpty()) {
+			throw new DecisionException("Cannot pop from an empty set of assumptions.");
+		}
+		final int[] frame = this.frames.pop();
+		this.equivalence.backtrack(frame[0]);
+		this.applies.subList(frame[1], this.applies.size()).clear();
+	}
+
 	@Override
 	protected void clearAssumptionsLocal() {
 		this.equivalence.reset();
+		this.applies.clear();
+		this.frames.clear();
+	}
+
+	/**
+	 * Adds to {@link #applies} all the {@link PrimitiveSymbolicApply} 
+	 * subterms of a {@link Primitive}.
+	 * 
+	 * @param p a {@link Primitive}.
+	 */
+	private void collectApplies(Primitive p) {
+		if (p instanceof PrimitiveSymbolicApply) {
+			final PrimitiveSymbolicApply pApply = (PrimitiveSymbolicApply) p;
+			this.applies.add(pApply);
+			for (Value arg : pApply.getArgs()) {
+				if (arg instanceof Primitive) {
+					collectApplies((Primitive) arg);
+				}
+			}
+		} else if (p instanceof Expression) {
+			final Expression e = (Expression) p;
+			if (e.isUnary()) {
+				collectApplies(e.getOperand());
+			} else {
+				collectApplies(e.getFirstOperand());
+				collectApplies(e.getSecondOperand());
+			}
+		} else if (p instanceof WideningConversion) {
+			collectApplies(((WideningConversion) p).getArg());
+		} else if (p instanceof NarrowingConversion) {
+			collectApplies(((NarrowingConversion) p).getArg());
+		}
+	}
+
+	/**
+	 * Closes {@link #equivalence} under congruence: Every 
+	 * {@link PrimitiveSymbolicApply} in {@link #applies} is 
+	 * put in the same partition of the term obtained by replacing 
+	 * its arguments with their representatives, so all the 
+	 * applications of a function to equivalent arguments end 
+	 * up in the same partition.
+	 */
+	private void closeCongruence() {
+		boolean changed;
+		do {
+			changed = false;
+			for (int i = 0; i < this.applies.size(); ++i) {
+				final PrimitiveSymbolicApply term = this.applies.get(i);
+				final Value[] args = term.getArgs();
+				boolean argsChanged = false;
+				for (int j = 0; j < args.length; ++j) {
+					if (args[j] instanceof Primitive) {
+						final Primitive argRepresentative = this.equivalence.find((Primitive) args[j]);
+						if (!argRepresentative.equals(args[j])) {
+							args[j] = argRepresentative;
+							argsChanged = true;
+						}
+					}
+				}
+				if (!argsChanged) {
+					continue;
+				}
+				final PrimitiveSymbolicApply termCongruent;
+				try {
+					termCongruent = new PrimitiveSymbolicApply(term.getType(), term.historyPoint(), term.getOperator(), args);
+				} catch (InvalidTypeException | InvalidInputException e) {
+					//this should never happen
+					throw new UnexpectedInternalException(e);
+				}
+				if (!this.equivalence.find(term).equals(this.equivalence.find(termCongruent))) {
+					this.equivalence.union(term, termCongruent);
+					changed = true;
+				}
+			}
+		} while (changed);
 	}
 
 	@Override
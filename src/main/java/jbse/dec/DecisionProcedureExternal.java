@@ -2,6 +2,7 @@ package jbse.dec;
 
 import java.io.IOException;
 import java.util.ArrayDeque;
+import java.util.Collection;
 import java.util.Map;
 
 import jbse.bc.ClassFile;
@@ -308,6 +309,16 @@ public abstract class DecisionProcedureExternal extends DecisionProcedureChainOf
         }
     }
 
+    @Override
+    protected Map<PrimitiveSymbolic, Simplex> getModelLocal(Collection<? extends PrimitiveSymbolic> symbols)
+    throws DecisionException {
+        try {
+            return this.extIf.getModel(symbols);
+        } catch (ExternalProtocolInterfaceException | IOException e) {
+            throw new DecisionException(e);
+        }
+    }
+
     @Override
     protected final void closeLocal() throws DecisionException {
         if (this.extIf.isWorking()) {
@@ -1,6 +1,7 @@
 package jbse.dec;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Map;
 
 import jbse.bc.ClassHierarchy;
@@ -173,6 +174,30 @@ public abstract class DecisionProcedureExternalInterface {
         throw new NoModelException("Model extraction is not implemented for external decision procedure interface of class " + this.getClass().getName());
     }
 
+    /**
+     * Returns a model of the last sent clause whose satisfiability
+     * was checked with {@link #checkSat(ClassHierarchy, boolean) checkSat},
+     * restricted to some symbols. The default implementation
+     * filters the result of {@link #getModel()}, subclasses
+     * should override it to query the external decision 
+     * procedure for the required symbols only.
+     * 
+     * @param symbols a {@link Collection}{@code <}{@link PrimitiveSymbolic}{@code >}, 
+     *        the symbols whose values are required, or {@code null}
+     *        for all the symbols (as in {@link #getModel()}).
+     * @return a {@link Map}{@code <}{@link PrimitiveSymbolic}{@code ,}
+     *         {@link Simplex}{@code >} associating a concrete 
+     *         numeric value to the symbols in {@code symbols}
+     *         that are in the last checked clause.
+     * @throws NoModelException see {@link #getModel()}.
+     * @throws ExternalProtocolInterfaceException see {@link #getModel()}.
+     * @throws IOException see {@link #getModel()}.
+     */
+    public Map<PrimitiveSymbolic, Simplex> getModel(Collection<? extends PrimitiveSymbolic> symbols) 
+    throws NoModelException, ExternalProtocolInterfaceException, IOException {
+        return ModelEvaluator.restrict(getModel(), symbols);
+    }
+
     /**
      * Pushes the (possibly negated) current clauses to the current
      * assumptions. 
@@ -0,0 +1,400 @@
+package jbse.dec;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import jbse.common.Type;
+import jbse.common.exc.UnexpectedInternalException;
+import jbse.dec.exc.ExternalProtocolInterfaceException;
+import jbse.dec.exc.NoModelException;
+import jbse.mem.Objekt;
+import jbse.val.Calculator;
+import jbse.val.Primitive;
+import jbse.val.PrimitiveSymbolic;
+import jbse.val.ReferenceSymbolic;
+import jbse.val.Simplex;
+
+/**
+ * {@link DecisionProcedureExternalInterface} to a generic SMTLIB 2 solver.
+ * It implements the protocol with the solver, i.e., the bookkeeping of the
+ * current clause, of the pushed assumptions and of the declared symbols,
+ * the learning of conflicts and the reading of models, and leaves to the
+ * subclasses the encoding of the clauses in a given SMTLIB 2 logic, and
+ * the decoding of the values of the models.
+ *
+ * @author Pietro Braione
+ */
+abstract class DecisionProcedureExternalInterfaceSMTLIB2 extends DecisionProcedureExternalInterface {
+    //commands
+    private static final String PROLOGUE_OPTIONS =
+        "(set-option :print-success true)\n" +
+        "(set-option :interactive-mode true)\n" +
+        "(set-option :produce-models true)\n";
+    private static final String PRODUCE_UNSAT_CORES = "(set-option :produce-unsat-cores true)\n";
+    private static final String PUSH_1 = "(push 1)\n";
+    private static final String GETVALUE_BEGIN = "(get-value (";
+    private static final String GETVALUE_END = "))\n";
+
+    protected final Calculator calc;
+    protected final ExpressionMangler m;
+
+    /**
+     * The declared SMTLIB2 symbols, in declaration order,
+     * with the JBSE symbols they stand for (declared functions
+     * stand for no JBSE symbol). The subclasses declare
+     * the symbols when they translate a clause; the symbols
+     * are forgotten when the clause is retracted or popped.
+     */
+    protected final SMTLIB2SymbolTable symbolTable = new SMTLIB2SymbolTable();
+
+    private final SMTLIB2Solver solver;
+    private boolean working;
+    private boolean hasCurrentClause;
+
+    /** The declarations of the symbols of the current clause not yet sent to the solver. */
+    private String currentDeclarations;
+
+    /** The current clause, or {@code null} if it is outside the theory. */
+    private String currentClause;
+
+    /**
+     * The learned conflicts, or {@code null} if the
+     * {@link SMTLIB2SolverPolicy} does not learn them.
+     */
+    private final SMTLIB2ConflictCache conflicts;
+
+    /**
+     * The number of declared symbols before the current
+     * clause was sent.
+     */
+    private int nSymBeforeCurrentClause;
+
+    /**
+     * For each pushed assumption, the number of declared
+     * symbols before it was pushed, or {@code -1} if the
+     * assumption is outside the theory.
+     */
+    private final ArrayList<Integer> nSymBeforePushed = new ArrayList<>();
+
+    /**
+     * Costructor.
+     *
+     * @param calc a {@link Calculator}.
+     * @param solverCommandLine a {@link List}{@code <}{@link String}{@code >}, the
+     *        command line to launch the external process for the decision procedure.
+     * @param policy a {@link SMTLIB2SolverPolicy}, stating how the queries that
+     *        the solver is unable to decide must be treated.
+     * @param prologueLogic a {@link String}, the commands that set the logic
+     *        of the solver and define the functions the encoding needs.
+     * @throws ExternalProtocolInterfaceException if the solver does not
+     *         accept the prologue.
+     * @throws IOException if the solver cannot be started.
+     */
+    DecisionProcedureExternalInterfaceSMTLIB2(Calculator calc, List<String> solverCommandLine, SMTLIB2SolverPolicy policy, String prologueLogic)
+    throws ExternalProtocolInterfaceException, IOException {
+        this.calc = calc;
+        this.m = new ExpressionMangler("X", "", calc);
+        this.working = true;
+        this.conflicts = (policy.getLearnConflicts() ? new SMTLIB2ConflictCache(policy, this.symbolTable) : null);
+        final String prologue = PROLOGUE_OPTIONS + (this.conflicts == null ? "" : PRODUCE_UNSAT_CORES) + prologueLogic;
+        this.solver = new SMTLIB2Solver(solverCommandLine, prologue + PUSH_1, policy);
+    }
+
+    /**
+     * Translates a clause to SMTLIB2, declaring in
+     * {@link #symbolTable} the symbols it uses that
+     * are not declared yet.
+     *
+     * @param cond a boolean {@link Primitive}, the clause.
+     * @param declarations a {@link StringBuilder} where the
+     *        SMTLIB2 declarations of the symbols newly declared
+     *        in {@link #symbolTable} must be appended.
+     * @return a {@link String}, the SMTLIB2 boolean term for {@code cond}.
+     * @throws Exception if the translation fails.
+     */
+    protected abstract String translate(Primitive cond, StringBuilder declarations) throws Exception;
+
+    /**
+     * Reads the SMTLIB2 value of a symbol in a model
+     * (see {@link SMTLIB2Reader.ValueInterpreter}).
+     *
+     * @param reader a {@link SMTLIB2Reader}.
+     * @param token the first token of the value, already read.
+     * @param type a {@code char}, the type of the
+     *        JBSE symbol whose value is read.
+     * @return a {@link Simplex}, or {@code null} if
+     *         the value cannot be interpreted. In all cases
+     *         all the tokens of the value are consumed.
+     * @throws IOException if reading from the solver fails.
+     */
+    protected abstract Simplex readValue(SMTLIB2Reader reader, int token, char type) throws IOException;
+
+    @Override
+    public final boolean isWorking() {
+        return this.working && this.solver.isWorking();
+    }
+
+    @Override
+    public final void sendClauseAssume(Primitive cond)
+    throws ExternalProtocolInterfaceException {
+        if (cond == null || cond.getType() != Type.BOOLEAN) {
+            throw new ExternalProtocolInterfaceException("Attempted to send an invalid clause (numeric predicate).");
+        }
+        if (this.hasCurrentClause) {
+            throw new ExternalProtocolInterfaceException("Attempted to send a clause when a current clause already exists.");
+        }
+        this.hasCurrentClause = true;
+        this.nSymBeforeCurrentClause = this.symbolTable.size();
+
+        try {
+            final StringBuilder declarations = new StringBuilder();
+            this.currentClause = translate(cond, declarations);
+            this.currentDeclarations = declarations.toString();
+        } catch (ExternalProtocolInterfaceException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            //this should never happen
+            this.working = false;
+            throw new UnexpectedInternalException(e);
+        }
+    }
+
+    @Override
+    public final void sendClauseAssumeAliases(ReferenceSymbolic r, long heapPos, Objekt o)
+    throws ExternalProtocolInterfaceException {
+        if (r == null || heapPos < 0 || o == null) {
+            throw new ExternalProtocolInterfaceException("Attempted to send an invalid clause (assume aliases).");
+        }
+        sendClauseOutsideTheory();
+    }
+
+    @Override
+    public final void sendClauseAssumeExpands(ReferenceSymbolic r, String className)
+    throws ExternalProtocolInterfaceException {
+        if (r == null || className == null) {
+            throw new ExternalProtocolInterfaceException("Attempted to send an invalid clause (assume expands).");
+        }
+        sendClauseOutsideTheory();
+    }
+
+    @Override
+    public final void sendClauseAssumeNull(ReferenceSymbolic r)
+    throws ExternalProtocolInterfaceException {
+        if (r == null) {
+            throw new ExternalProtocolInterfaceException("Attempted to send an invalid clause (assume null).");
+        }
+        sendClauseOutsideTheory();
+    }
+
+    @Override
+    public final void sendClauseAssumeClassInitialized(String className)
+    throws ExternalProtocolInterfaceException {
+        if (className == null) {
+            throw new ExternalProtocolInterfaceException("Attempted to send an invalid clause (assume class initialized).");
+        }
+        sendClauseOutsideTheory();
+    }
+
+    @Override
+    public final void sendClauseAssumeClassNotInitialized(String className)
+    throws ExternalProtocolInterfaceException {
+        if (className == null) {
+            throw new ExternalProtocolInterfaceException("Attempted to send an invalid clause (assume class not initialized).");
+        }
+        sendClauseOutsideTheory();
+    }
+
+    private void sendClauseOutsideTheory() throws ExternalProtocolInterfaceException {
+        if (this.hasCurrentClause) {
+            throw new ExternalProtocolInterfaceException("Attempted to send a clause when a current clause already exists.");
+        }
+        this.hasCurrentClause = true;
+        this.nSymBeforeCurrentClause = this.symbolTable.size();
+        this.currentDeclarations = this.currentClause = null; //clause outside the theory
+    }
+
+    @Override
+    public final void retractClause() throws ExternalProtocolInterfaceException {
+        if (!this.hasCurrentClause) {
+            throw new ExternalProtocolInterfaceException("Attempted to retract a clause with no current clause.");
+        }
+        this.hasCurrentClause = false;
+        this.currentDeclarations = this.currentClause = null;
+        this.symbolTable.truncate(this.nSymBeforeCurrentClause);
+    }
+
+    @Override
+    public final boolean checkSat(boolean value)
+    throws ExternalProtocolInterfaceException, IOException {
+        if (!this.hasCurrentClause) {
+            throw new ExternalProtocolInterfaceException("Attempted to check satisfiability with no current clause.");
+        }
+
+        final String assertion = currentAssertion(value);
+        if (assertion == null) {
+            return true;
+        }
+        if (this.conflicts == null) {
+            return this.solver.checkSat(currentQuery(assertion, null));
+        }
+        if (this.conflicts.isConflicting(assertion)) {
+            return false;
+        }
+        final boolean sat = this.solver.checkSat(currentQuery(assertion, SMTLIB2ConflictCache.QUERY_NAME), true);
+        if (!sat) {
+            this.conflicts.learn(assertion, this.solver.unsatCore());
+        }
+        return sat;
+    }
+
+    /**
+     * Builds the assertion for the current clause.
+     *
+     * @param value a {@code boolean}, whether the
+     *        current clause must be asserted positive
+     *        or negated.
+     * @return a {@link String}, or {@code null} if
+     *         the current clause is outside the theory.
+     */
+    private String currentAssertion(boolean value) {
+        if (this.currentClause == null) {
+            return null;
+        }
+        return (value ? this.currentClause : "(not " + this.currentClause + ")");
+    }
+
+    /**
+     * Builds the query for the current clause.
+     *
+     * @param assertion a {@link String}, the assertion
+     *        for the current clause as returned by
+     *        {@link #currentAssertion(boolean)}.
+     * @param name a {@link String}, the name of the
+     *        assertion, or {@code null} for an unnamed
+     *        assertion.
+     * @return a {@link String}.
+     */
+    private String currentQuery(String assertion, String name) {
+        return PUSH_1 + this.currentDeclarations +
+               (name == null ? "(assert " + assertion + ")\n" : "(assert (! " + assertion + " :named " + name + "))\n");
+    }
+
+    @Override
+    public final Map<PrimitiveSymbolic, Simplex> getModel()
+    throws NoModelException, ExternalProtocolInterfaceException, IOException {
+        return getModel(null);
+    }
+
+    @Override
+    public final Map<PrimitiveSymbolic, Simplex> getModel(Collection<? extends PrimitiveSymbolic> symbols)
+    throws NoModelException, ExternalProtocolInterfaceException, IOException {
+        //the symbols of the current clause are not
+        //declared to the solver, that only knows the
+        //symbols in the pushed assumptions
+        final int nSymInSolver = (this.hasCurrentClause ? this.nSymBeforeCurrentClause : this.symbolTable.size());
+        final Set<?> wanted = (symbols == null || symbols instanceof Set<?> ? (Set<?>) symbols : new HashSet<>(symbols));
+        final StringBuilder query = new StringBuilder(GETVALUE_BEGIN);
+        boolean empty = true;
+        for (int id = 0; id < nSymInSolver; ++id) {
+            final Primitive symbol = this.symbolTable.primitive(id);
+            if (symbol instanceof PrimitiveSymbolic && (wanted == null || wanted.contains(symbol))) {
+                query.append(this.symbolTable.name(id));
+                query.append(' ');
+                empty = false;
+            }
+        }
+        query.append(GETVALUE_END);
+        if (!this.solver.checkSatCurrent()) { //always need a checksat before reading a model
+            throw new NoModelException();
+        }
+        if (empty) {
+            return new HashMap<>();
+        }
+        this.solver.send(query.toString());
+        try {
+            return new SMTLIB2Reader(this.solver.reader()).readModel(this.symbolTable, this::readValue);
+        } catch (IOException e) {
+            this.working = false;
+            throw e;
+        }
+    }
+
+    @Override
+    public final void pushAssumption(boolean value)
+    throws ExternalProtocolInterfaceException, IOException {
+        if (!this.hasCurrentClause) {
+            throw new ExternalProtocolInterfaceException("attempted to push assumption with no current clause");
+        }
+        this.hasCurrentClause = false;
+
+        final String assertion = currentAssertion(value);
+        if (assertion == null) {
+            this.nSymBeforePushed.add(-1);
+        } else {
+            this.nSymBeforePushed.add(this.nSymBeforeCurrentClause);
+            this.solver.pushScope(currentQuery(assertion, (this.conflicts == null ? null : this.conflicts.scopeName())));
+            if (this.conflicts != null) {
+                this.conflicts.push(assertion);
+            }
+        }
+    }
+
+    @Override
+    public final void popAssumption() throws ExternalProtocolInterfaceException, IOException {
+        final int last = this.nSymBeforePushed.size() - 1;
+        final int nSymBefore = this.nSymBeforePushed.remove(last);
+        if (nSymBefore < 0) {
+            //outside theory, do nothing
+        } else {
+            this.symbolTable.truncate(nSymBefore);
+            this.solver.popScopes(1);
+            if (this.conflicts != null) {
+                this.conflicts.pop(1);
+            }
+        }
+    }
+
+    @Override
+    public final void clear()
+    throws ExternalProtocolInterfaceException, IOException {
+        int nToPop = 0;
+        for (int nSymBefore : this.nSymBeforePushed) {
+            if (nSymBefore >= 0) {
+                ++nToPop;
+            }
+        }
+        this.solver.popScopes(nToPop);
+        if (this.conflicts != null) {
+            this.conflicts.clear();
+        }
+        this.currentDeclarations = this.currentClause = null;
+        this.hasCurrentClause = false;
+        this.nSymBeforePushed.clear();
+        this.symbolTable.truncate(0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void quit()
+    throws ExternalProtocolInterfaceException, IOException {
+        this.working = false;
+        this.solver.quit();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void fail() {
+        this.working = false;
+        this.solver.fail();
+    }
+}
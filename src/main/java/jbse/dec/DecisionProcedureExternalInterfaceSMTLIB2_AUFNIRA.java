@@ -1,24 +1,15 @@
 package jbse.dec;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedHashSet;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Stack;
 
 import jbse.common.Type;
 import jbse.common.exc.InvalidInputException;
 import jbse.common.exc.UnexpectedInternalException;
 import jbse.dec.exc.ExternalProtocolInterfaceException;
-import jbse.dec.exc.NoModelException;
-import jbse.mem.Objekt;
 import jbse.val.Any;
 import jbse.val.Calculator;
 import jbse.val.Expression;
@@ -27,9 +18,7 @@ import jbse.val.PrimitiveSymbolicAtomic;
 import jbse.val.NarrowingConversion;
 import jbse.val.Operator;
 import jbse.val.Primitive;
-import jbse.val.PrimitiveSymbolic;
 import jbse.val.PrimitiveVisitor;
-import jbse.val.ReferenceSymbolic;
 import jbse.val.Simplex;
 import jbse.val.Term;
 import jbse.val.Value;
@@ -43,46 +32,31 @@ import jbse.val.WideningConversion;
  * @author Diego Piazza
  */
 //TODO simplify implementation
-final class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionProcedureExternalInterface {
+final class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionProcedureExternalInterfaceSMTLIB2 {
     //commands
-    private static final String PROLOGUE = 
-        "(set-option :print-success true)\n" +
-        "(set-option :interactive-mode true)\n" +
-        "(set-option :produce-models true)\n" +
+    private static final String PROLOGUE_LOGIC = 
         "(set-logic AUFNIRA)\n" +
         "(define-fun round_to_zero ((x Real)) Int (ite (>= x 0.0) (to_int x) (- (to_int (- x)))))\n";
-    private static final String PUSH_1 = "(push 1)\n";
-    private static final String POP_BEGIN = "(pop ";
-    private static final String POP_END = ")\n";
-    private static final String POP_1 = "(pop 1)\n";
-    private static final String CHECKSAT = "(check-sat)\n";
-    private static final String GETVALUE_BEGIN = "(get-value (";
-    private static final String GETVALUE_END = "))\n";
-    private static final String EXIT = "(exit)\n";
-    
-    //answers
-    private static final String SUCCESS = "success";
-    private static final String SAT = "sat";
-    private static final String UNSAT = "unsat";
-    private static final String UNKNOWN = "unknown";
     
     //etc
     private static final String OTHER = "";
+    
+    /** 
+     * The maximum number of translations kept in each 
+     * translation cache. 
+     */
+    private static final int TRANSLATION_CACHE_CAPACITY = 100_000;
 
-    private final Calculator calc;
-    private final ExpressionMangler m;
-    private boolean working;
-    private Process solver;
-    private BufferedReader solverIn;
-    private BufferedWriter solverOut;
-    private String currentQueryPositive;
-    private String currentQueryNegative;
-    private boolean hasCurrentClause;
-    private SMTLIB2ExpressionVisitor v;
-    private ArrayList<Boolean> pushedClauseIsOutsideTheory;
-    private ArrayList<Integer> nSymPushed; 
-    private int nSymCurrent;
-    private int nTotalSymbols;
+    /** 
+     * Caches the translations of the (non-leaf) {@link Primitive}s
+     * in boolean context. Translations do not depend on the 
+     * declarations in the solver scope, so they survive popping 
+     * and clearing. 
+     */
+    private final HashMap<Primitive, Translation> translationsBoolean = new HashMap<>();
+    
+    /** Caches the translations of the (non-leaf) {@link Primitive}s in numeric context. */
+    private final HashMap<Primitive, Translation> translationsNumeric = new HashMap<>();
     
     /** 
      * Costructor.
@@ -93,464 +67,129 @@ final class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionPr
      */
     public DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA(Calculator calc, List<String> solverCommandLine) 
     throws ExternalProtocolInterfaceException, IOException {
-        this.calc = calc;
-        this.m = new ExpressionMangler("X", "", calc);
-        this.working = true;
-        final ProcessBuilder pb = new ProcessBuilder(solverCommandLine);
-        pb.redirectErrorStream(true);
-        this.solver = pb.start();
-        this.solverIn = new BufferedReader(new InputStreamReader(this.solver.getInputStream()));
-        this.solverOut = new BufferedWriter(new OutputStreamWriter(this.solver.getOutputStream()));
-        
-        final String query = PROLOGUE + PUSH_1;
-        sendAndCheckAnswer(query);
-        clear();
+        this(calc, solverCommandLine, new SMTLIB2SolverPolicy());
     }
 
-    @Override
-    public boolean isWorking() {
-        return this.working;
+    /**
+     * Costructor.
+     *
+     * @param calc a {@link Calculator}.
+     * @param solverCommandLine a {@link List}{@code <}{@link String}{@code >}, the
+     *        command line to launch the external process for the decision procedure.
+     * @param policy a {@link SMTLIB2SolverPolicy}, stating how the queries that
+     *        the solver is unable to decide must be treated.
+     */
+    public DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA(Calculator calc, List<String> solverCommandLine, SMTLIB2SolverPolicy policy) 
+    throws ExternalProtocolInterfaceException, IOException {
+        super(calc, solverCommandLine, policy, PROLOGUE_LOGIC);
     }
 
     @Override
-    public void sendClauseAssume(Primitive cond) 
-    throws ExternalProtocolInterfaceException {
-        if (cond == null || cond.getType() != Type.BOOLEAN) {
-            throw new ExternalProtocolInterfaceException("Attempted to send an invalid clause (numeric predicate).");
-        }       
-        if (this.hasCurrentClause) {
-            throw new ExternalProtocolInterfaceException("Attempted to send a clause when a current clause already exists.");
-        }
-        this.hasCurrentClause = true;
+    protected String translate(Primitive cond, StringBuilder declarations) throws Exception {
+        //the clause is translated once, the negative
+        //query just wraps it in a negation
+        final SMTLIB2ExpressionVisitor v = new SMTLIB2ExpressionVisitor();
+        v.translate(cond, true);
+        declarations.append(v.getQueryDeclarations());
+        return v.getQueryAssertClause();
+    }
 
+    @Override
+    protected Simplex readValue(SMTLIB2Reader reader, int token, char type) throws IOException {
+        final Number value = smtlib2ReadNumber(reader, token);
         try {
-            cond.accept(this.v);
-            this.currentQueryPositive = PUSH_1 + this.v.getQueryDeclarations() + "(assert " + this.v.getQueryAssertClause() + ")\n";
-            this.calc.push(cond).not().pop().accept(this.v);
-            this.currentQueryNegative = PUSH_1 + this.v.getQueryDeclarations() + "(assert " + this.v.getQueryAssertClause() + ")\n";
-        } catch (ExternalProtocolInterfaceException | RuntimeException e) {
-            throw e;
-        } catch (Exception e) {
+            return (value == null ? null : (Simplex) this.calc.val_(value));
+        } catch (InvalidInputException e) {
             //this should never happen
-            this.working = false;
             throw new UnexpectedInternalException(e);
         }
     }
 
-    @Override
-    public void sendClauseAssumeAliases(ReferenceSymbolic r, long heapPos, Objekt o) 
-    throws ExternalProtocolInterfaceException {
-        if (r == null || heapPos < 0 || o == null) {
-            throw new ExternalProtocolInterfaceException("Attempted to send an invalid clause (assume aliases).");
-        }       
-        if (this.hasCurrentClause) {
-            this.working = false;
-            throw new ExternalProtocolInterfaceException("Attempted to send a clause when a current clause already exists.");
-        }
-        this.hasCurrentClause = true;
-        
-        this.currentQueryPositive = this.currentQueryNegative = null; //clause outside the theory
-    }
-
-    @Override
-    public void sendClauseAssumeExpands(ReferenceSymbolic r, String className) 
-    throws ExternalProtocolInterfaceException {
-        if (r == null || className == null) {
-            throw new ExternalProtocolInterfaceException("Attempted to send an invalid clause (assume expands).");
-        }       
-        if (this.hasCurrentClause) {
-            throw new ExternalProtocolInterfaceException("Attempted to send a clause when a current clause already exists.");
-        }
-        this.hasCurrentClause = true;
-        
-        this.currentQueryPositive = this.currentQueryNegative = null; //clause outside the theory
-    }
-
-    @Override
-    public void sendClauseAssumeNull(ReferenceSymbolic r) 
-    throws ExternalProtocolInterfaceException {
-        if (r == null) {
-            throw new ExternalProtocolInterfaceException("Attempted to send an invalid clause (assume null).");
-        }       
-        if (this.hasCurrentClause) {
-            throw new ExternalProtocolInterfaceException("Attempted to send a clause when a current clause already exists.");
-        }
-        this.hasCurrentClause = true;
-
-        this.currentQueryPositive = this.currentQueryNegative = null; //clause outside the theory
-    }
-
-    @Override
-    public void sendClauseAssumeClassInitialized(String className) 
-    throws ExternalProtocolInterfaceException {
-        if (className == null) {
-            throw new ExternalProtocolInterfaceException("Attempted to send an invalid clause (assume class initialized).");
-        }       
-        if (this.hasCurrentClause) {
-            throw new ExternalProtocolInterfaceException("Attempted to send a clause when a current clause already exists.");
-        }
-        this.hasCurrentClause = true;
-        
-        this.currentQueryPositive = this.currentQueryNegative = null; //clause outside the theory
-    }
-
-    @Override
-    public void sendClauseAssumeClassNotInitialized(String className) 
-    throws ExternalProtocolInterfaceException {
-        if (className == null) {
-            throw new ExternalProtocolInterfaceException("Attempted to send an invalid clause (assume class not initialized).");
-        }       
-        if (this.hasCurrentClause) {
-            throw new ExternalProtocolInterfaceException("Attempted to send a clause when a current clause already exists.");
-        }
-        this.hasCurrentClause = true;
-
-        this.currentQueryPositive = this.currentQueryNegative = null; //clause outside the theory
-    }
-
-    @Override
-    public void retractClause() throws ExternalProtocolInterfaceException {
-        if (!this.hasCurrentClause) {
-            throw new ExternalProtocolInterfaceException("Attempted to retract a clause with no current clause.");
-        }
-        this.hasCurrentClause = false;
-        this.currentQueryPositive = this.currentQueryNegative = null;
-        forgetPushedDeclarations();
-    }
-
-    @Override
-    public boolean checkSat(boolean value) 
-    throws ExternalProtocolInterfaceException, IOException {
-        if (!this.hasCurrentClause) {
-            throw new ExternalProtocolInterfaceException("Attempted to check satisfiability with no current clause.");
-        }
-        
-        final String smtlib2Query = (value ? this.currentQueryPositive : this.currentQueryNegative);
-        if (smtlib2Query == null) {
-            return true;
-        }
-        sendAndCheckAnswer(smtlib2Query);
-        final boolean isSat = sendAndCheckAnswerChecksat();
-        sendAndCheckAnswer(POP_1);
-        return isSat;
-    }
-    
-    @Override
-    public Map<PrimitiveSymbolic, Simplex> getModel() 
-    throws NoModelException, ExternalProtocolInterfaceException, IOException {
-        sendAndCheckAnswerChecksat(); //always need a checksat before reading a model
-        final String smtlib2Model = sendAndCheckAnswerGetmodel();
-        if (smtlib2Model == null || smtlib2Model.startsWith("(error")) {
-            throw new NoModelException();
-        }
-        
-        final HashMap<PrimitiveSymbolic, Simplex> model = new HashMap<>();
-        String smtlib2Symbol = null;
-        LinkedList<LinkedList<Object>> smtlib2ParseStack = new LinkedList<>();
-        smtlib2ParseStack.push(new LinkedList<>());
-        int nestingLevel = 0;
-        boolean scanningSymbol = false;
-        final String[] smtlib2ModelTokens = smtlib2Model.replace("(", " ( ").replace(")", " ) ").trim().split("\\s+"); //thanks for the idea Peter Norvig!
-        for (String token : smtlib2ModelTokens) {
-            final int prevNestingLevel = nestingLevel;
-            if (token.equals("(")) {
-                ++nestingLevel;
-            } else if (token.equals(")")) {
-                --nestingLevel;
+    /**
+     * Reads an SMTLIB2 arithmetic value, i.e., a numeral, a
+     * decimal, or an application of {@code +}, {@code -}, 
+     * {@code *} or {@code /} to arithmetic values.
+     * 
+     * @param reader a {@link SMTLIB2Reader}.
+     * @param token the first token of the value, already read.
+     * @return a {@link Long} or a {@link Double}, or {@code null} 
+     *         if the value cannot be interpreted. In all cases
+     *         all the tokens of the value are consumed.
+     * @throws IOException if reading from the solver fails.
+     */
+    private static Number smtlib2ReadNumber(SMTLIB2Reader reader, int token) throws IOException {
+        if (token == SMTLIB2Reader.ATOM) {
+            // <constant>
+            if (reader.atomIsNumeral()) {
+                return reader.atomNumeral();
             }
-            if (prevNestingLevel == 1 && nestingLevel == 2) {
-                scanningSymbol = true;
-            } else if (nestingLevel == 2 && scanningSymbol) {
-                smtlib2Symbol = token;
-                scanningSymbol = false;
-            } else if (nestingLevel >= 2 && !scanningSymbol) {
-                if (token.equals("(")) {
-                    smtlib2ParseStack.push(new LinkedList<>());
-                } else if (token.equals(")")) {
-                    final LinkedList<Object> list = smtlib2ParseStack.pop();
-                    smtlib2ParseStack.peek().add(list);
-                } else {
-                    smtlib2ParseStack.peek().add(token);
-                }
-            } else if (prevNestingLevel == 2 && nestingLevel == 1) {
-                final Primitive jbseSymbol = this.v.smtlib2VarsToJBSESymbols.get(smtlib2Symbol);
-                if (jbseSymbol != null && jbseSymbol instanceof PrimitiveSymbolic) {
-                    final Number value = smtlib2Interpret(smtlib2ParseStack.pop());
-                    if (value == null) {
-                        //unable to interpret the SMTLIB2 expression
-                        throw new NoModelException(); //TODO possibly throw a different exception
-                    } else {
-                        try {
-							model.put((PrimitiveSymbolic) jbseSymbol, (Simplex) this.calc.val_(value));
-						} catch (InvalidInputException e) {
-							//this should never happen
-							throw new UnexpectedInternalException(e);
-						}
-                    }
-                }   
-                smtlib2Symbol = null;
-                smtlib2ParseStack = new LinkedList<>();
-                smtlib2ParseStack.push(new LinkedList<>());
+            try {
+                return Double.parseDouble(reader.atom());
+            } catch (NumberFormatException e) {
+                return null;
             }
         }
-        return model;
-    }
-    
-    private Number smtlib2Interpret(Object smtlib2ParsedExpression) {
-        if (smtlib2ParsedExpression == null) {
+        if (token != SMTLIB2Reader.OPEN) {
             return null;
         }
-        if (smtlib2ParsedExpression instanceof String) {
-            // <constant>
-            final String constant = (String) smtlib2ParsedExpression;
-            try {
-                final Long l = Long.parseLong(constant);
-                return l;
-            } catch (NumberFormatException e1) {
-                try {
-                    final Double d = Double.parseDouble(constant);
-                    return d;
-                } catch (NumberFormatException e2) {
-                    return null;
-                }
-            }
+        
+        // ( ... )
+        final int level = reader.nestingLevel() - 1;
+        if (reader.next() != SMTLIB2Reader.ATOM) {
+            reader.skipTo(level);
+            return null;
         }
-        if (smtlib2ParsedExpression instanceof LinkedList<?>) {
-            // ( ... )
-            final LinkedList<?> exprList = (LinkedList<?>) smtlib2ParsedExpression;
-            if (exprList.isEmpty()) {
-                // ()
+        final char operator;
+        if (reader.atomIs("+") || reader.atomIs("-") || reader.atomIs("*") || reader.atomIs("/")) {
+            operator = reader.atom().charAt(0);
+        } else {
+            // (<constant>)
+            final Number value = smtlib2ReadNumber(reader, SMTLIB2Reader.ATOM);
+            final boolean closed = (reader.next() == SMTLIB2Reader.CLOSE);
+            reader.skipTo(level);
+            return (closed ? value : null);
+        }
+        Number retVal = smtlib2ReadNumber(reader, reader.next());
+        int nOperands = 1;
+        for (int t = reader.next(); t != SMTLIB2Reader.CLOSE; t = reader.next()) {
+            if (t == SMTLIB2Reader.END) {
                 return null;
             }
-            final Object head = exprList.pollFirst();
-            if (exprList.isEmpty()) {
-                // (<subexpression>)
-                return smtlib2Interpret(head);
-            } else if (head instanceof String) {
-                final String headString = (String) head;
-                final Number firstOperand, secondOperand;
-                switch (headString) {
-                case "+":
-                    firstOperand = smtlib2Interpret(exprList.pollFirst());
-                    if (exprList.isEmpty()) {
-                        // (+ <firstOperand>)
-                        return firstOperand;
-                    } else {
-                        // (+ <firstOperand> <secondOperand>)
-                        secondOperand = smtlib2Interpret(exprList.pollFirst());
-                        if (firstOperand == null || secondOperand == null) {
-                            return null;
-                        } else if (firstOperand instanceof Float || firstOperand instanceof Double ||
-                        secondOperand instanceof Float || secondOperand instanceof Double) {
-                            return firstOperand.doubleValue() + secondOperand.doubleValue();
-                        } else {
-                            return firstOperand.longValue() + secondOperand.longValue();
-                        }
-                    }
-                case "-":
-                    firstOperand = smtlib2Interpret(exprList.pollFirst());
-                    if (exprList.isEmpty()) {
-                        // (- <firstOperand>)
-                        if (firstOperand == null) {
-                            return null;
-                        } else if (firstOperand instanceof Float || firstOperand instanceof Double) {
-                            return - firstOperand.doubleValue();
-                        } else {
-                            return - firstOperand.longValue();
-                        }
-                    } else {
-                        // (- <firstOperand> <secondOperand>)
-                        secondOperand = smtlib2Interpret(exprList.pollFirst());
-                        if (firstOperand == null || secondOperand == null) {
-                            return null;
-                        } else if (firstOperand instanceof Float || firstOperand instanceof Double ||
-                        secondOperand instanceof Float || secondOperand instanceof Double) {
-                            return firstOperand.doubleValue() - secondOperand.doubleValue();
-                        } else {
-                            return firstOperand.longValue() - secondOperand.longValue();
-                        }
-                    }
-                case "*":
-                    // (* <firstOperand> <secondOperand>)
-                    firstOperand = smtlib2Interpret(exprList.pollFirst());
-                    secondOperand = smtlib2Interpret(exprList.pollFirst());
-                    if (firstOperand == null || secondOperand == null) {
-                        return null;
-                    } else if (firstOperand instanceof Float || firstOperand instanceof Double ||
-                    secondOperand instanceof Float || secondOperand instanceof Double) {
-                        return firstOperand.doubleValue() * secondOperand.doubleValue();
-                    } else {
-                        return firstOperand.longValue() * secondOperand.longValue();
-                    }
-                case "/":
-                    // (/ <firstOperand> <secondOperand>)
-                    firstOperand = smtlib2Interpret(exprList.pollFirst());
-                    secondOperand = smtlib2Interpret(exprList.pollFirst());
-                    if (firstOperand == null || secondOperand == null) {
-                        return null;
-                    } else if (firstOperand instanceof Float || firstOperand instanceof Double ||
-                    secondOperand instanceof Float || secondOperand instanceof Double) {
-                        return firstOperand.doubleValue() / secondOperand.doubleValue();
-                    } else {
-                        return firstOperand.longValue() / secondOperand.longValue();
-                    }
-                }
-            }
+            final Number operand = smtlib2ReadNumber(reader, t);
+            retVal = smtlib2Apply(operator, retVal, operand);
+            ++nOperands;
         }
-        return null;
-    }
-
-    @Override
-    public void pushAssumption(boolean value) 
-    throws ExternalProtocolInterfaceException, IOException {
-        if (!this.hasCurrentClause) {
-            throw new ExternalProtocolInterfaceException("attempted to push assumption with no current clause");
-        }
-        this.hasCurrentClause = false;
-        
-        final String smtlib2Query = (value ? this.currentQueryPositive : this.currentQueryNegative);
-        if (smtlib2Query == null) {
-        	this.pushedClauseIsOutsideTheory.add(true);
-        } else {
-        	this.pushedClauseIsOutsideTheory.add(false);
-            rememberPushedDeclarations();
-            sendAndCheckAnswer(smtlib2Query);
+        if (nOperands == 1 && operator == '-' && retVal != null) {
+            // (- <operand>)
+            retVal = smtlib2Apply(operator, 0L, retVal);
         }
+        return retVal;
     }
 
-    @Override
-    public void popAssumption() throws ExternalProtocolInterfaceException, IOException {
-        final int last = this.pushedClauseIsOutsideTheory.size() - 1;
-        final boolean outsideTheory = this.pushedClauseIsOutsideTheory.get(last);
-        this.pushedClauseIsOutsideTheory.remove(last);
-        if (outsideTheory) {
-        	//do nothing
+    private static Number smtlib2Apply(char operator, Number firstOperand, Number secondOperand) {
+        if (firstOperand == null || secondOperand == null) {
+            return null;
+        } else if (firstOperand instanceof Float || firstOperand instanceof Double ||
+        secondOperand instanceof Float || secondOperand instanceof Double) {
+            final double first = firstOperand.doubleValue();
+            final double second = secondOperand.doubleValue();
+            switch (operator) {
+            case '+': return first + second;
+            case '-': return first - second;
+            case '*': return first * second;
+            default:  return first / second;
+            }
         } else {
-            forgetPoppedDeclarations();
-        	sendAndCheckAnswer(POP_1);
-        }
-    }
-
-    @Override
-    public void clear() 
-    throws ExternalProtocolInterfaceException, IOException {
-        final int nToPop = (this.nSymPushed == null ? 0 : this.nSymPushed.size());
-        if (nToPop > 0) {
-            sendAndCheckAnswer(POP_BEGIN + nToPop + POP_END);
-        }
-        this.currentQueryPositive = this.currentQueryNegative = null;
-        this.hasCurrentClause = false;
-        forgetAllDeclarations();
-    }
-    
-    private void send(String query) throws IOException {
-        //System.err.print("--->SMTLIB2: " + query); //TODO log differently!
-    	
-        try {
-            this.solverOut.write(query);
-            this.solverOut.flush();
-        } catch (IOException e) {
-            this.working = false;
-            throw e;
-        }
-    }
-    
-    private void sendAndCheckAnswer(String query) throws IOException, ExternalProtocolInterfaceException {
-        send(query);
-        for (int i = 0; i < query.length(); ++i) {
-            if (query.charAt(i) == '\n') {
-                final String answer = read();
-                if (answer == null) {
-                    this.working = false;
-                    throw new IOException("failed read of solver answer. Query: " + query + ", failed at character " + i);
-                }
-                if (!answer.equals(SUCCESS)) {
-                    this.working = false;
-                    throw new ExternalProtocolInterfaceException("unexpected solver answer. Message: " + answer);
-                }
+            final long first = firstOperand.longValue();
+            final long second = secondOperand.longValue();
+            switch (operator) {
+            case '+': return first + second;
+            case '-': return first - second;
+            case '*': return first * second;
+            default:  return (second == 0 ? null : first / second);
             }
         }
     }
-    
-    private String read() throws IOException {
-        final String answer;
-        try {
-            answer = this.solverIn.readLine();
-        } catch (IOException e) {
-            this.working = false;
-            throw e;
-        }
-        if (answer == null) {
-            this.working = false;
-            throw new IOException("failed read of solver output, premature end of stream reached, process alive: " + this.solver.isAlive() + ", exit value: " + this.solver.exitValue());
-        }
-
-        //System.err.println("<---SMTLIB2: " + answer); //TODO log differently!
-        return answer;
-    }
-    
-    private boolean sendAndCheckAnswerChecksat() throws IOException, ExternalProtocolInterfaceException {
-        send(CHECKSAT);
-        final String answer = read();
-        if (!answer.equals(SAT) && !answer.equals(UNSAT) && !answer.equals(UNKNOWN)) {
-            this.working = false;
-            throw new ExternalProtocolInterfaceException("unrecognized answer from solver when checking satisfiability. Message: " + answer);
-        }
-        return answer.equals(SAT); //conservatively returns false if answer is unknown
-    }
-    
-    private String sendAndCheckAnswerGetmodel() 
-    throws IOException, ExternalProtocolInterfaceException {
-        final StringBuilder query = new StringBuilder(GETVALUE_BEGIN);
-        for (String symbol : this.v.smtlib2DeclaredSymbols) {
-            query.append(symbol);
-            query.append(' ');
-        }
-        query.append(GETVALUE_END);
-        send(query.toString());
-        //answer can be multiline, we count parentheses to
-        //determine when the answer is over
-        final StringBuilder retVal = new StringBuilder();
-        int nestingLevel = 0;
-        do {
-            final String answer = read();
-            retVal.append(answer);
-            for (char c : answer.toCharArray()) {
-                if (c == '(') {
-                    ++nestingLevel;
-                } else if (c == ')') {
-                    --nestingLevel;
-                }
-            }
-        } while (nestingLevel > 0);
-        return retVal.toString();
-    }
-    
-    private void rememberPushedDeclarations() {
-        this.v.clearQueryDeclarations();
-        this.nSymPushed.add(this.nSymCurrent);
-        this.nSymCurrent = 0;
-    }
-    
-    private void forgetPushedDeclarations() {
-        this.v.clearQueryDeclarations();
-        this.v.removeDeclaredSymbols(this.nSymCurrent);
-        this.nSymCurrent = 0;
-    }
-
-    private void forgetPoppedDeclarations() {
-        final int last = this.nSymPushed.size() - 1;
-        this.v.removeDeclaredSymbols(this.nSymPushed.get(last));
-        this.nSymPushed.remove(last);
-    }
-
-    private void forgetAllDeclarations() {
-        this.v = new SMTLIB2ExpressionVisitor();
-        this.pushedClauseIsOutsideTheory = new ArrayList<>();
-        this.nSymPushed = new ArrayList<>();
-        this.nSymCurrent = 0;
-        this.nTotalSymbols = 0;
-    }
 
     /**
      * Returns the SMTLIB2 primitive operator which corresponds 
@@ -617,23 +256,50 @@ final class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionPr
     }
 
     /**
-     * Builds a SMTLIB2 string representing an expression.
+     * The declaration of an SMTLIB2 symbol.
      */
-    private class SMTLIB2ExpressionVisitor implements PrimitiveVisitor {
-        /** Is this a boolean expression? */
-        private boolean isBooleanExpression = true;
+    private static final class Declaration {
+        /** The SMTLIB2 symbol. */
+        final String symbol;
         
         /** 
-         * All the SMTLIB v2 symbols declared in 
-         * the visited Primitive. 
+         * The JBSE {@link Primitive} the symbol stands
+         * for, or {@code null} for function symbols.
          */
-        private LinkedHashSet<String> smtlib2DeclaredSymbols = new LinkedHashSet<>();
+        final Primitive primitive;
         
-        /** 
-         * Remaps the SMTLIB v2 symbols to
-         * their original JBSE primitives 
-         */
-        private HashMap<String, Primitive> smtlib2VarsToJBSESymbols = new HashMap<>();
+        /** The signature of the symbol, as in {@code declare-fun}. */
+        final String signature;
+        
+        Declaration(String symbol, Primitive primitive, String signature) {
+            this.symbol = symbol;
+            this.primitive = primitive;
+            this.signature = signature;
+        }
+    }
+    
+    /**
+     * The translation of a {@link Primitive} to SMTLIB2.
+     */
+    private static final class Translation {
+        /** The SMTLIB2 term. */
+        final String term;
+        
+        /** The declarations of the symbols used by {@link #term}. */
+        final Declaration[] declarations;
+        
+        Translation(String term, Declaration[] declarations) {
+            this.term = term;
+            this.declarations = declarations;
+        }
+    }
+
+    /**
+     * Builds a SMTLIB2 string representing an expression.
+     */
+    private class SMTLIB2ExpressionVisitor implements PrimitiveVisitor {
+        /** Is this a boolean expression? */
+        private boolean isBooleanExpression = true;
         
         /** 
          * SMTLIB2 query for the declaration of the symbols.
@@ -647,39 +313,78 @@ final class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionPr
          * Clauses stored during the visit.
          */
         private Stack<String> clauseStack = new Stack<>();
+        
+        /**
+         * The declarations of the symbols used by the 
+         * {@link Primitive} whose translation is being cached,
+         * or {@code null} if no translation is being cached.
+         */
+        private LinkedHashMap<String, Declaration> used = null;
 
         public String getQueryAssertClause() { return this.clauseStack.pop(); }
 
         public String getQueryDeclarations() { return this.queryDeclarations.toString(); }
 
-        public void clearQueryDeclarations() {
-            this.queryDeclarations = new StringBuilder();                       
-        }
-
-        void removeDeclaredSymbols(int nSymbolsToForget) {
-            final ArrayList<String> symbolsToForget = new ArrayList<>();
-            int n = nTotalSymbols - nSymbolsToForget;
-            int c = 0;
-            for (String s : this.smtlib2DeclaredSymbols) {
-                if (c < n) {
-                    ++c;
-                } else {
-                    this.smtlib2VarsToJBSESymbols.remove(s);
-                    symbolsToForget.add(s);
-                }
-            }
-            this.smtlib2DeclaredSymbols.removeAll(symbolsToForget);
-            nTotalSymbols = nTotalSymbols - nSymbolsToForget;
-        }
-
         public SMTLIB2ExpressionVisitor() { }
 
         public SMTLIB2ExpressionVisitor(SMTLIB2ExpressionVisitor v, boolean isBooleanExpression) {
             this.isBooleanExpression = isBooleanExpression;
-            this.smtlib2DeclaredSymbols = v.smtlib2DeclaredSymbols;
-            this.smtlib2VarsToJBSESymbols = v.smtlib2VarsToJBSESymbols;
             this.queryDeclarations = v.queryDeclarations;
             this.clauseStack = v.clauseStack;
+            this.used = v.used;
+        }
+        
+        /**
+         * Translates a {@link Primitive} and pushes the
+         * result on the clause stack. The translations of
+         * the non-leaf {@link Primitive}s are cached, and 
+         * a cached translation is reused by just declaring 
+         * the symbols it uses that are not declared yet.
+         * 
+         * @param p the {@link Primitive} to translate.
+         * @param isBooleanExpression whether {@code p} is
+         *        in boolean context.
+         * @throws Exception if the translation fails.
+         */
+        void translate(Primitive p, boolean isBooleanExpression) throws Exception {
+            final SMTLIB2ExpressionVisitor v = new SMTLIB2ExpressionVisitor(this, isBooleanExpression);
+            if (p instanceof PrimitiveSymbolicAtomic || p instanceof Term || p instanceof Simplex) {
+                p.accept(v);
+                return;
+            }
+            final HashMap<Primitive, Translation> translations = 
+                (isBooleanExpression ? translationsBoolean : translationsNumeric);
+            Translation translation = translations.get(p);
+            if (translation == null) {
+                v.used = new LinkedHashMap<>();
+                p.accept(v);
+                translation = new Translation(this.clauseStack.pop(), v.used.values().toArray(new Declaration[0]));
+                if (translations.size() >= TRANSLATION_CACHE_CAPACITY) {
+                    translations.clear();
+                }
+                translations.put(p, translation);
+            }
+            for (Declaration declaration : translation.declarations) {
+                use(declaration);
+            }
+            this.clauseStack.push(translation.term);
+        }
+        
+        /**
+         * Records that a symbol is used, and declares
+         * it if it is not declared yet.
+         * 
+         * @param declaration the {@link Declaration} of
+         *        the symbol.
+         */
+        private void use(Declaration declaration) {
+            if (this.used != null) {
+                this.used.putIfAbsent(declaration.symbol, declaration);
+            }
+            if (DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA.this.symbolTable.lookup(declaration.symbol) < 0) {
+                DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA.this.symbolTable.declare(declaration.symbol, declaration.primitive, declaration.signature);
+                this.queryDeclarations.append("(declare-fun " + declaration.signature + ")\n");
+            }
         }
 
         @Override
@@ -698,8 +403,8 @@ final class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionPr
                 //operation well formed
                 if (operation == Operator.NE) {
                     //1-NE is not a SMTLIB2 operator but can be translated to a combination of SMTLIB2 operators
-                    firstOperand.accept(new SMTLIB2ExpressionVisitor(this, isBooleanOperator));
-                    secondOperand.accept(new SMTLIB2ExpressionVisitor(this, isBooleanOperator));
+                    translate(firstOperand, isBooleanOperator);
+                    translate(secondOperand, isBooleanOperator);
                     final String secondOperandSMT = this.clauseStack.pop();
                     final String firstOperandSMT = this.clauseStack.pop();
                     this.clauseStack.push("(not (= " + firstOperandSMT + " " + secondOperandSMT + "))");
@@ -710,11 +415,11 @@ final class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionPr
                     //3-The operator correspond to a SMTLIB2 operator
                     final String clause;
                     if (e.isUnary()) {
-                        e.getOperand().accept(new SMTLIB2ExpressionVisitor(this, isBooleanOperator));
+                        translate(e.getOperand(), isBooleanOperator);
                         clause = "(" + op + " "+ this.clauseStack.pop() + ")";
                     } else {
-                        firstOperand.accept(new SMTLIB2ExpressionVisitor(this, isBooleanOperator));
-                        secondOperand.accept(new SMTLIB2ExpressionVisitor(this, isBooleanOperator));
+                        translate(firstOperand, isBooleanOperator);
+                        translate(secondOperand, isBooleanOperator);
                         final String secondOperandSMT = this.clauseStack.pop();
                         final String firstOperandSMT = this.clauseStack.pop();
                         clause = "(" + op + " " + firstOperandSMT + " " + secondOperandSMT + ")";
@@ -761,7 +466,7 @@ final class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionPr
             	}
             	for (Value v : x.getArgs()) {
             		final Primitive p = (Primitive) v;
-            		p.accept(new SMTLIB2ExpressionVisitor(this, false));
+            		translate(p, false);
             		clause.append(this.clauseStack.pop());
             		clause.append(" ");
             		final String smtlib2Type = toSMTLIB2Type(p.getType());
@@ -773,14 +478,9 @@ final class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionPr
             	smtlib2Signature.append(") ");
             	smtlib2Signature.append(toSMTLIB2Type(type));
 
-            	if (this.smtlib2DeclaredSymbols.contains(operator) || builtIn) {
-            		// does nothing
-            	} else {
-            		this.smtlib2DeclaredSymbols.add(operator);
-            		//not added to smtlib2VarsToJBSESymbols, sorry, no model for this
-            		this.queryDeclarations.append("(declare-fun " + smtlib2Signature + " )\n");
-            		nSymCurrent = nSymCurrent + 1;
-            		nTotalSymbols = nTotalSymbols + 1;
+            	if (!builtIn) {
+            		//no JBSE primitive for it, sorry, no model for this
+            		use(new Declaration(operator, null, smtlib2Signature.toString() + " "));
             	}
             } else {
             	DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA.this.m.mangle(x).accept(this);
@@ -795,7 +495,7 @@ final class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionPr
                 throw new UnexpectedInternalException("Error while parsing expression (context expected a boolean expression but it is numeric): " + x.toString());
             }
             final Primitive arg = x.getArg();
-            arg.accept(new SMTLIB2ExpressionVisitor(this, arg.getType() == Type.BOOLEAN));
+            translate(arg, arg.getType() == Type.BOOLEAN);
             if (Type.isPrimitiveIntegral(x.getType()) != Type.isPrimitiveIntegral(arg.getType())) {
                 this.clauseStack.push("(to_real " + this.clauseStack.pop() + ")");
             }
@@ -809,7 +509,7 @@ final class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionPr
                 throw new UnexpectedInternalException("Error while parsing expression (context expected a boolean expression but it is numeric): " + x.toString());
             }
             final Primitive arg = x.getArg();
-            arg.accept(new SMTLIB2ExpressionVisitor(this, false));
+            translate(arg, false);
             if (Type.isPrimitiveIntegral(x.getType()) != Type.isPrimitiveIntegral(arg.getType())) {
                 this.clauseStack.push("(round_to_zero " + this.clauseStack.pop() + ")");
             }
@@ -894,79 +594,8 @@ final class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionPr
             final String smtlib2Variable = (symbolToString.charAt(0) == '{' ? 
                                             symbolToString.substring(1, symbolToString.length() - 1) :
                                             symbolToString);
-            if (this.smtlib2DeclaredSymbols.contains(smtlib2Variable)) {
-                // does nothing
-            } else {
-                this.smtlib2DeclaredSymbols.add(smtlib2Variable);
-                this.smtlib2VarsToJBSESymbols.put(smtlib2Variable, symbol);
-                this.queryDeclarations.append("(declare-fun " + smtlib2Variable + " () " + toSMTLIB2Type(type) + ")\n");
-                ++nSymCurrent;
-                ++nTotalSymbols;
-            }
+            use(new Declaration(smtlib2Variable, symbol, smtlib2Variable + " () " + toSMTLIB2Type(type)));
             this.clauseStack.push(smtlib2Variable);
         }
     }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public void quit() 
-    throws ExternalProtocolInterfaceException, IOException {
-        this.working = false;
-        send(EXIT);
-        while (this.solverIn.readLine() != null) {
-            //do nothing
-        }
-        this.solverIn.close();
-        this.solverOut.close();
-        try {
-            //we don't check the exit code because Z3 seems to 
-            //always exit with code 1 when invoked from Java
-            this.solver.waitFor();
-        } catch (InterruptedException e) {
-            throw new ExternalProtocolInterfaceException(e);
-        }
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public void fail() {
-        this.working = false;
-        try {
-			while (this.solverIn.readLine() != null) {
-			    //do nothing
-			}
-		} catch (IOException e) {
-			//do nothing
-		}
-        try {
-			this.solverIn.close();
-		} catch (IOException e) {
-			//do nothing
-		}
-        try {
-			this.solverOut.close();
-		} catch (IOException e) {
-			//do nothing
-		}
-        try {
-			this.solver.getInputStream().close();
-		} catch (IOException e) {
-			//do nothing
-		}
-        try {
-			this.solver.getOutputStream().close();
-		} catch (IOException e) {
-			//do nothing
-		}
-        try {
-			this.solver.getErrorStream().close();
-		} catch (IOException e) {
-			//do nothing
-		}
-        this.solver.destroyForcibly();
-    }
 }
@@ -0,0 +1,571 @@
+package jbse.dec;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Stack;
+
+import jbse.common.Type;
+import jbse.common.exc.UnexpectedInternalException;
+import jbse.dec.exc.ExternalProtocolInterfaceException;
+import jbse.val.Any;
+import jbse.val.Calculator;
+import jbse.val.Expression;
+import jbse.val.NarrowingConversion;
+import jbse.val.Operator;
+import jbse.val.Primitive;
+import jbse.val.PrimitiveSymbolicApply;
+import jbse.val.PrimitiveSymbolicAtomic;
+import jbse.val.PrimitiveVisitor;
+import jbse.val.Simplex;
+import jbse.val.Term;
+import jbse.val.Value;
+import jbse.val.WideningConversion;
+
+/**
+ * {@link DecisionProcedureExternalInterface} to a generic SMTLIB 2 solver
+ * that supports the bit-vector and floating point theories. Differently
+ * from {@link DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA},
+ * that encodes the Java integral types as unbounded integers and the Java
+ * floating point types as reals, this interface encodes the Java integral
+ * types as bit-vectors with the width of the type, and the Java floating
+ * point types as IEEE 754 floating point numbers. The encoding is therefore
+ * precise with respect to overflows, bitwise operators and shifts, and
+ * the satisfiability problems it produces are decidable by bit-blasting.
+ *
+ * @author Pietro Braione
+ */
+final class DecisionProcedureExternalInterfaceSMTLIB2_BV extends DecisionProcedureExternalInterfaceSMTLIB2 {
+    //commands
+    private static final String PROLOGUE_LOGIC =
+        "(set-logic ALL)\n";
+
+    //rounding modes: Java rounds to nearest in arithmetic and
+    //conversions between floating point types, and towards zero
+    //in conversions from floating point to integral types
+    private static final String RNE = "RNE";
+    private static final String RTZ = "RTZ";
+
+    /**
+     * Costructor.
+     *
+     * @param calc a {@link Calculator}.
+     * @param solverCommandLine a {@link List}{@code <}{@link String}{@code >}, the
+     *        command line to launch the external process for the decision procedure.
+     */
+    public DecisionProcedureExternalInterfaceSMTLIB2_BV(Calculator calc, List<String> solverCommandLine)
+    throws ExternalProtocolInterfaceException, IOException {
+        this(calc, solverCommandLine, new SMTLIB2SolverPolicy());
+    }
+
+    /**
+     * Costructor.
+     *
+     * @param calc a {@link Calculator}.
+     * @param solverCommandLine a {@link List}{@code <}{@link String}{@code >}, the
+     *        command line to launch the external process for the decision procedure.
+     * @param policy a {@link SMTLIB2SolverPolicy}, stating how the queries that
+     *        the solver is unable to decide must be treated.
+     */
+    public DecisionProcedureExternalInterfaceSMTLIB2_BV(Calculator calc, List<String> solverCommandLine, SMTLIB2SolverPolicy policy)
+    throws ExternalProtocolInterfaceException, IOException {
+        super(calc, solverCommandLine, policy, PROLOGUE_LOGIC);
+    }
+
+    @Override
+    protected String translate(Primitive cond, StringBuilder declarations) throws Exception {
+        final SMTLIB2ExpressionVisitor v = new SMTLIB2ExpressionVisitor();
+        cond.accept(v);
+        declarations.append(v.getDeclarations());
+        return v.getClause();
+    }
+
+    @Override
+    protected Simplex readValue(SMTLIB2Reader reader, int token, char type) throws IOException {
+        if (type == Type.BOOLEAN) {
+            if (token == SMTLIB2Reader.OPEN) {
+                reader.skipTo(reader.nestingLevel() - 1);
+            }
+            if (token != SMTLIB2Reader.ATOM) {
+                return null;
+            }
+            return (reader.atomIs("true") ? this.calc.valBoolean(true) :
+                    reader.atomIs("false") ? this.calc.valBoolean(false) : null);
+        } else if (type == Type.FLOAT || type == Type.DOUBLE) {
+            if (token != SMTLIB2Reader.OPEN) {
+                return null;
+            }
+            final int level = reader.nestingLevel() - 1;
+            final boolean isFloat = (type == Type.FLOAT);
+            final int eb = (isFloat ? 8 : 11);
+            final int sb = (isFloat ? 24 : 53);
+            Simplex retVal = null;
+            if (reader.next() == SMTLIB2Reader.ATOM) {
+                if (reader.atomIs("fp")) {
+                    // (fp <sign> <exponent> <significand>)
+                    final long sign = smtlib2ReadBitVector(reader, reader.next());
+                    boolean valid = this.bitVectorRead;
+                    final long exponent = smtlib2ReadBitVector(reader, reader.next());
+                    valid = valid && this.bitVectorRead;
+                    final long significand = smtlib2ReadBitVector(reader, reader.next());
+                    valid = valid && this.bitVectorRead;
+                    if (valid) {
+                        final long bits = (sign << (eb + sb - 1)) | (exponent << (sb - 1)) | significand;
+                        retVal = (isFloat ? this.calc.valFloat(Float.intBitsToFloat((int) bits)) : this.calc.valDouble(Double.longBitsToDouble(bits)));
+                    }
+                } else if (reader.atomIs("_") && reader.next() == SMTLIB2Reader.ATOM) {
+                    // (_ <special value> eb sb)
+                    if (reader.atomIs("+zero")) {
+                        retVal = (isFloat ? this.calc.valFloat(0.0f) : this.calc.valDouble(0.0));
+                    } else if (reader.atomIs("-zero")) {
+                        retVal = (isFloat ? this.calc.valFloat(-0.0f) : this.calc.valDouble(-0.0));
+                    } else if (reader.atomIs("+oo")) {
+                        retVal = (isFloat ? this.calc.valFloat(Float.POSITIVE_INFINITY) : this.calc.valDouble(Double.POSITIVE_INFINITY));
+                    } else if (reader.atomIs("-oo")) {
+                        retVal = (isFloat ? this.calc.valFloat(Float.NEGATIVE_INFINITY) : this.calc.valDouble(Double.NEGATIVE_INFINITY));
+                    } else if (reader.atomIs("NaN")) {
+                        retVal = (isFloat ? this.calc.valFloat(Float.NaN) : this.calc.valDouble(Double.NaN));
+                    }
+                }
+            }
+            reader.skipTo(level);
+            return retVal;
+        } else {
+            final long bits = smtlib2ReadBitVector(reader, token);
+            if (!this.bitVectorRead) {
+                return null;
+            }
+            switch (type) {
+            case Type.BYTE:
+                return this.calc.valByte((byte) bits);
+            case Type.SHORT:
+                return this.calc.valShort((short) bits);
+            case Type.CHAR:
+                return this.calc.valChar((char) bits);
+            case Type.INT:
+                return this.calc.valInt((int) bits);
+            case Type.LONG:
+                return this.calc.valLong(bits);
+            default:
+                return null;
+            }
+        }
+    }
+
+    /** Whether the last invocation of {@link #smtlib2ReadBitVector} read a bit-vector value. */
+    private boolean bitVectorRead;
+
+    /**
+     * Reads an SMTLIB2 bit-vector value.
+     *
+     * @param reader a {@link SMTLIB2Reader}.
+     * @param token the first token of the value, already read.
+     * @return the bits of the value as a {@code long}. Whether
+     *         the value was a bit-vector value is recorded in
+     *         {@link #bitVectorRead}. In all cases all the tokens
+     *         of the value are consumed.
+     * @throws IOException if reading from the solver fails.
+     */
+    private long smtlib2ReadBitVector(SMTLIB2Reader reader, int token) throws IOException {
+        this.bitVectorRead = false;
+        if (token == SMTLIB2Reader.ATOM) {
+            if (reader.atomIsBitVector()) {
+                this.bitVectorRead = true;
+                return reader.atomBitVector();
+            }
+        } else if (token == SMTLIB2Reader.OPEN) {
+            // (_ bv<value> <width>)
+            final int level = reader.nestingLevel() - 1;
+            if (reader.next() == SMTLIB2Reader.ATOM && reader.atomIs("_") &&
+                reader.next() == SMTLIB2Reader.ATOM && reader.atomIsPrefixedNumeral("bv")) {
+                final long retVal = reader.atomAsBits(2, 10);
+                if (reader.next() == SMTLIB2Reader.ATOM && reader.atomIsNumeral() && reader.next() == SMTLIB2Reader.CLOSE) {
+                    this.bitVectorRead = true;
+                    return retVal;
+                }
+            }
+            reader.skipTo(level);
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the width of the bit-vector encoding
+     * a Java integral type.
+     *
+     * @param type a {@code char}, an integral type
+     *        other than boolean.
+     * @return an {@code int}.
+     */
+    private static int width(char type) {
+        switch (type) {
+        case Type.BYTE:
+            return 8;
+        case Type.SHORT:
+        case Type.CHAR:
+            return 16;
+        case Type.INT:
+            return 32;
+        case Type.LONG:
+            return 64;
+        default:
+            //this should never happen
+            throw new UnexpectedInternalException("Attempted to encode as a bit-vector the non-integral type " + type + ".");
+        }
+    }
+
+    private static boolean isFloating(char type) {
+        return type == Type.FLOAT || type == Type.DOUBLE;
+    }
+
+    private static boolean isBitVector(char type) {
+        return Type.isPrimitiveIntegral(type) && type != Type.BOOLEAN;
+    }
+
+    /**
+     * Returns a SMTLIB2 sort which corresponds to a Java type.
+     */
+    private static String toSMTLIB2Sort(char type) {
+        if (type == Type.BOOLEAN) {
+            return "Bool";
+        } else if (type == Type.FLOAT) {
+            return "(_ FloatingPoint 8 24)";
+        } else if (type == Type.DOUBLE) {
+            return "(_ FloatingPoint 11 53)";
+        } else {
+            return "(_ BitVec " + width(type) + ")";
+        }
+    }
+
+    /**
+     * Returns an SMTLIB2 bit-vector literal.
+     *
+     * @param value a {@code long}; only its {@code width}
+     *        least significant bits are considered.
+     * @param width an {@code int}.
+     * @return a {@link String}.
+     */
+    private static String bitVectorLiteral(long value, int width) {
+        final long bits = (width == 64 ? value : value & ((1L << width) - 1));
+        return "(_ bv" + Long.toUnsignedString(bits) + " " + width + ")";
+    }
+
+    /**
+     * Returns an SMTLIB2 floating point literal.
+     *
+     * @param bits a {@code long}, the IEEE 754 encoding of the literal.
+     * @param eb an {@code int}, the number of bits of the exponent.
+     * @param sb an {@code int}, the number of bits of the significand
+     *        (including the hidden bit).
+     * @return a {@link String}.
+     */
+    private static String floatingPointLiteral(long bits, int eb, int sb) {
+        final long sign = (bits >>> (eb + sb - 1)) & 1L;
+        final long exponent = (bits >>> (sb - 1)) & ((1L << eb) - 1);
+        final long significand = bits & ((1L << (sb - 1)) - 1);
+        return "(fp " + bitVectorLiteral(sign, 1) + " " + bitVectorLiteral(exponent, eb) + " " + bitVectorLiteral(significand, sb - 1) + ")";
+    }
+
+    /**
+     * Converts an SMTLIB2 term between two Java types with
+     * the semantics of the Java primitive conversions.
+     *
+     * @param term a {@link String}, the term to be converted.
+     * @param from a {@code char}, the type of {@code term}.
+     * @param to a {@code char}, the target type.
+     * @return a {@link String}, the converted term.
+     */
+    private static String convert(String term, char from, char to) {
+        if (from == to) {
+            return term;
+        } else if (from == Type.BOOLEAN) {
+            return "(ite " + term + " " + convert("(_ bv1 32)", Type.INT, to) + " " + convert("(_ bv0 32)", Type.INT, to) + ")";
+        } else if (to == Type.BOOLEAN) {
+            //as in bastore, only the least significant bit is relevant
+            final String asInt = convert(term, from, Type.INT);
+            return "(= ((_ extract 0 0) " + asInt + ") #b1)";
+        } else if (isBitVector(from) && isBitVector(to)) {
+            final int fromWidth = width(from);
+            final int toWidth = width(to);
+            if (fromWidth < toWidth) {
+                return "((_ " + (from == Type.CHAR ? "zero_extend " : "sign_extend ") + (toWidth - fromWidth) + ") " + term + ")";
+            } else if (fromWidth > toWidth) {
+                return "((_ extract " + (toWidth - 1) + " 0) " + term + ")";
+            } else {
+                return term; //short <-> char
+            }
+        } else if (isBitVector(from) && isFloating(to)) {
+            //char is unsigned, to_fp interprets bit-vectors as signed
+            final String signed = (from == Type.CHAR ? convert(term, from, Type.INT) : term);
+            return "((_ to_fp " + (to == Type.FLOAT ? "8 24" : "11 53") + ") " + RNE + " " + signed + ")";
+        } else if (isFloating(from) && isFloating(to)) {
+            return "((_ to_fp " + (to == Type.FLOAT ? "8 24" : "11 53") + ") " + RNE + " " + term + ")";
+        } else { //isFloating(from) && isBitVector(to)
+            //Java converts to int or long with saturation,
+            //NaN converts to 0, narrower types are converted
+            //from int
+            final char intermediate = (to == Type.LONG ? Type.LONG : Type.INT);
+            final int w = width(intermediate);
+            final long max = (intermediate == Type.LONG ? Long.MAX_VALUE : Integer.MAX_VALUE);
+            final long min = (intermediate == Type.LONG ? Long.MIN_VALUE : Integer.MIN_VALUE);
+            final String maxLiteral = bitVectorLiteral(max, w);
+            final String minLiteral = bitVectorLiteral(min, w);
+            final String fpSort = (from == Type.FLOAT ? "8 24" : "11 53");
+            final String converted =
+                "(ite (fp.isNaN " + term + ") " + bitVectorLiteral(0, w) +
+                " (ite (fp.geq " + term + " ((_ to_fp " + fpSort + ") " + RNE + " " + maxLiteral + ")) " + maxLiteral +
+                " (ite (fp.leq " + term + " ((_ to_fp " + fpSort + ") " + RNE + " " + minLiteral + ")) " + minLiteral +
+                " ((_ fp.to_sbv " + w + ") " + RTZ + " " + term + "))))";
+            return convert(converted, intermediate, to);
+        }
+    }
+
+    /**
+     * Builds a SMTLIB2 string representing an expression.
+     * Every visited {@link Primitive} is translated to a term
+     * whose sort is the encoding of the {@link Primitive}'s type.
+     */
+    private class SMTLIB2ExpressionVisitor implements PrimitiveVisitor {
+        /**
+         * SMTLIB2 query for the declaration of the symbols
+         * declared during the visit.
+         */
+        private final StringBuilder queryDeclarations = new StringBuilder();
+
+        /**
+         * Terms stored during the visit.
+         */
+        private final Stack<String> clauseStack = new Stack<>();
+
+        String getClause() { return this.clauseStack.pop(); }
+
+        String getDeclarations() { return this.queryDeclarations.toString(); }
+
+        @Override
+        public void visitAny(Any x) throws ExternalProtocolInterfaceException {
+            throw new ExternalProtocolInterfaceException("values of type Any should not reach the SMT solver");
+        }
+
+        @Override
+        public void visitExpression(Expression e) throws Exception {
+            final Operator operator = e.getOperator();
+            if (e.isUnary()) {
+                final Primitive operand = e.getOperand();
+                operand.accept(this);
+                final String operandSMT = this.clauseStack.pop();
+                final char type = operand.getType();
+                if (operator == Operator.NEG) {
+                    this.clauseStack.push(isFloating(type) ? "(fp.neg " + operandSMT + ")" : "(bvneg " + operandSMT + ")");
+                } else if (operator == Operator.NOT) {
+                    this.clauseStack.push("(not " + convert(operandSMT, type, Type.BOOLEAN) + ")");
+                } else {
+                    DecisionProcedureExternalInterfaceSMTLIB2_BV.this.m.mangle(e).accept(this);
+                }
+                return;
+            }
+
+            final Primitive firstOperand = e.getFirstOperand();
+            final Primitive secondOperand = e.getSecondOperand();
+            final char firstType = firstOperand.getType();
+            final char secondType = secondOperand.getType();
+            if (operator == Operator.REM && isFloating(firstType)) {
+                //the Java floating point remainder truncates,
+                //the IEEE 754 one rounds to nearest
+                DecisionProcedureExternalInterfaceSMTLIB2_BV.this.m.mangle(e).accept(this);
+                return;
+            }
+            firstOperand.accept(this);
+            secondOperand.accept(this);
+            String secondOperandSMT = this.clauseStack.pop();
+            String firstOperandSMT = this.clauseStack.pop();
+
+            if (operator == Operator.AND || operator == Operator.OR) {
+                this.clauseStack.push("(" + (operator == Operator.AND ? "and " : "or ") +
+                                      convert(firstOperandSMT, firstType, Type.BOOLEAN) + " " +
+                                      convert(secondOperandSMT, secondType, Type.BOOLEAN) + ")");
+                return;
+            }
+            if (operator == Operator.SHL || operator == Operator.SHR || operator == Operator.USHR) {
+                //Java masks the shift distance
+                final int w = width(firstType);
+                final String distance = "(bvand " + convert(secondOperandSMT, secondType, Type.INT) + " " + bitVectorLiteral(w - 1, 32) + ")";
+                final String op = (operator == Operator.SHL ? "bvshl" : operator == Operator.SHR ? "bvashr" : "bvlshr");
+                this.clauseStack.push("(" + op + " " + firstOperandSMT + " " + convert(distance, Type.INT, firstType) + ")");
+                return;
+            }
+
+            //brings the operands to a common type
+            final char type;
+            if (firstType == secondType) {
+                type = firstType;
+            } else if (firstType == Type.BOOLEAN || secondType == Type.BOOLEAN) {
+                type = (firstType == Type.BOOLEAN ? secondType : firstType);
+            } else if (isFloating(firstType) || isFloating(secondType)) {
+                type = (firstType == Type.DOUBLE || secondType == Type.DOUBLE ? Type.DOUBLE : Type.FLOAT);
+            } else {
+                type = (firstType == Type.LONG || secondType == Type.LONG ? Type.LONG : Type.INT);
+            }
+            firstOperandSMT = convert(firstOperandSMT, firstType, type);
+            secondOperandSMT = convert(secondOperandSMT, secondType, type);
+
+            final String op;
+            if (type == Type.BOOLEAN) {
+                op = (operator == Operator.EQ ? "=" :
+                      operator == Operator.NE ? "distinct" :
+                      operator == Operator.ANDBW ? "and" :
+                      operator == Operator.ORBW ? "or" :
+                      operator == Operator.XORBW ? "xor" : null);
+            } else if (isFloating(type)) {
+                op = (operator == Operator.ADD ? "fp.add " + RNE :
+                      operator == Operator.SUB ? "fp.sub " + RNE :
+                      operator == Operator.MUL ? "fp.mul " + RNE :
+                      operator == Operator.DIV ? "fp.div " + RNE :
+                      operator == Operator.EQ ? "fp.eq" :
+                      operator == Operator.LT ? "fp.lt" :
+                      operator == Operator.LE ? "fp.leq" :
+                      operator == Operator.GT ? "fp.gt" :
+                      operator == Operator.GE ? "fp.geq" : null);
+                if (operator == Operator.NE) {
+                    //NaN != NaN holds in Java
+                    this.clauseStack.push("(not (fp.eq " + firstOperandSMT + " " + secondOperandSMT + "))");
+                    return;
+                }
+            } else {
+                //char is the only unsigned type
+                final boolean unsigned = (type == Type.CHAR);
+                op = (operator == Operator.ADD ? "bvadd" :
+                      operator == Operator.SUB ? "bvsub" :
+                      operator == Operator.MUL ? "bvmul" :
+                      operator == Operator.DIV ? "bvsdiv" : //truncates as Java does
+                      operator == Operator.REM ? "bvsrem" : //sign of the dividend as Java does
+                      operator == Operator.ANDBW ? "bvand" :
+                      operator == Operator.ORBW ? "bvor" :
+                      operator == Operator.XORBW ? "bvxor" :
+                      operator == Operator.EQ ? "=" :
+                      operator == Operator.NE ? "distinct" :
+                      operator == Operator.LT ? (unsigned ? "bvult" : "bvslt") :
+                      operator == Operator.LE ? (unsigned ? "bvule" : "bvsle") :
+                      operator == Operator.GT ? (unsigned ? "bvugt" : "bvsgt") :
+                      operator == Operator.GE ? (unsigned ? "bvuge" : "bvsge") : null);
+            }
+            if (op == null) {
+                //operator does not correspond to a SMTLIB2 operator
+                DecisionProcedureExternalInterfaceSMTLIB2_BV.this.m.mangle(e).accept(this);
+            } else {
+                this.clauseStack.push("(" + op + " " + firstOperandSMT + " " + secondOperandSMT + ")");
+            }
+        }
+
+        @Override
+        public void visitPrimitiveSymbolicApply(PrimitiveSymbolicApply x) throws Exception {
+            boolean allArgsPrimitive = true;
+            for (Value v : x.getArgs()) {
+                if (!(v instanceof Primitive)) {
+                    allArgsPrimitive = false;
+                    break;
+                }
+            }
+            if (!allArgsPrimitive) {
+                DecisionProcedureExternalInterfaceSMTLIB2_BV.this.m.mangle(x).accept(this);
+                return;
+            }
+
+            final String operator = x.getOperator().split(":")[2];
+            final char type = x.getType();
+            final Value[] args = x.getArgs();
+            if (args.length == 1 && ("abs".equals(operator) || "sqrt".equals(operator))) {
+                ((Primitive) args[0]).accept(this);
+                final String arg = convert(this.clauseStack.pop(), ((Primitive) args[0]).getType(), type);
+                if ("sqrt".equals(operator) && isFloating(type)) {
+                    //StrictMath.sqrt is correctly rounded
+                    this.clauseStack.push("(fp.sqrt " + RNE + " " + arg + ")");
+                    return;
+                } else if ("abs".equals(operator) && isFloating(type)) {
+                    this.clauseStack.push("(fp.abs " + arg + ")");
+                    return;
+                } else if ("abs".equals(operator) && isBitVector(type)) {
+                    //abs(MIN_VALUE) == MIN_VALUE as in Java
+                    this.clauseStack.push("(ite (bvslt " + arg + " " + bitVectorLiteral(0, width(type)) + ") (bvneg " + arg + ") " + arg + ")");
+                    return;
+                }
+            }
+
+            //uninterpreted function: the name includes the descriptor,
+            //so overloaded methods are different functions
+            final String smtlib2Function = "|" + x.getOperator() + "|";
+            final StringBuilder clause = new StringBuilder("(" + smtlib2Function);
+            final StringBuilder smtlib2Signature = new StringBuilder(smtlib2Function + " (");
+            for (Value v : args) {
+                final Primitive p = (Primitive) v;
+                p.accept(this);
+                clause.append(' ');
+                clause.append(this.clauseStack.pop());
+                smtlib2Signature.append(toSMTLIB2Sort(p.getType()));
+                smtlib2Signature.append(' ');
+            }
+            clause.append(')');
+            this.clauseStack.push(args.length == 0 ? smtlib2Function : clause.toString());
+            smtlib2Signature.append(") ");
+            smtlib2Signature.append(toSMTLIB2Sort(type));
+            if (DecisionProcedureExternalInterfaceSMTLIB2_BV.this.symbolTable.lookup(smtlib2Function) < 0) {
+                //stands for no JBSE symbol, sorry, no model for this
+                final String signature = smtlib2Signature.toString();
+                DecisionProcedureExternalInterfaceSMTLIB2_BV.this.symbolTable.declare(smtlib2Function, null, signature);
+                this.queryDeclarations.append("(declare-fun " + signature + ")\n");
+            }
+        }
+
+        @Override
+        public void visitWideningConversion(WideningConversion x) throws Exception {
+            final Primitive arg = x.getArg();
+            arg.accept(this);
+            this.clauseStack.push(convert(this.clauseStack.pop(), arg.getType(), x.getType()));
+        }
+
+        @Override
+        public void visitNarrowingConversion(NarrowingConversion x) throws Exception {
+            final Primitive arg = x.getArg();
+            arg.accept(this);
+            this.clauseStack.push(convert(this.clauseStack.pop(), arg.getType(), x.getType()));
+        }
+
+        @Override
+        public void visitSimplex(Simplex x) {
+            final Object obj = x.getActualValue();
+            final char type = x.getType();
+            if (type == Type.BOOLEAN) {
+                this.clauseStack.push(((Boolean) obj) ? "true" : "false");
+            } else if (type == Type.CHAR) {
+                this.clauseStack.push(bitVectorLiteral(((Character) obj).charValue(), 16));
+            } else if (type == Type.FLOAT) {
+                this.clauseStack.push(floatingPointLiteral(Float.floatToRawIntBits((Float) obj) & 0xFFFFFFFFL, 8, 24));
+            } else if (type == Type.DOUBLE) {
+                this.clauseStack.push(floatingPointLiteral(Double.doubleToRawLongBits((Double) obj), 11, 53));
+            } else {
+                this.clauseStack.push(bitVectorLiteral(((Number) obj).longValue(), width(type)));
+            }
+        }
+
+        @Override
+        public void visitPrimitiveSymbolicAtomic(PrimitiveSymbolicAtomic s) {
+            putSymbol(s);
+        }
+
+        @Override
+        public void visitTerm(Term x) {
+            putSymbol(x);
+        }
+
+        private void putSymbol(Primitive symbol) {
+            final String symbolToString = symbol.toString();
+            final String smtlib2Variable = (symbolToString.charAt(0) == '{' ?
+                                            symbolToString.substring(1, symbolToString.length() - 1) :
+                                            symbolToString);
+            if (DecisionProcedureExternalInterfaceSMTLIB2_BV.this.symbolTable.lookup(smtlib2Variable) < 0) {
+                final String signature = smtlib2Variable + " () " + toSMTLIB2Sort(symbol.getType());
+                DecisionProcedureExternalInterfaceSMTLIB2_BV.this.symbolTable.declare(smtlib2Variable, symbol, signature);
+                this.queryDeclarations.append("(declare-fun " + signature + ")\n");
+            }
+            this.clauseStack.push(smtlib2Variable);
+        }
+    }
+}
@@ -0,0 +1,765 @@
+package jbse.dec;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.microsoft.z3.AlgebraicNum;
+import com.microsoft.z3.ArithExpr;
+import com.microsoft.z3.BoolExpr;
+import com.microsoft.z3.Context;
+import com.microsoft.z3.Expr;
+import com.microsoft.z3.FuncDecl;
+import com.microsoft.z3.IntExpr;
+import com.microsoft.z3.IntNum;
+import com.microsoft.z3.Model;
+import com.microsoft.z3.Params;
+import com.microsoft.z3.RatNum;
+import com.microsoft.z3.RealExpr;
+import com.microsoft.z3.Solver;
+import com.microsoft.z3.Sort;
+import com.microsoft.z3.Status;
+import com.microsoft.z3.Z3Exception;
+
+import jbse.common.Type;
+import jbse.common.exc.InvalidInputException;
+import jbse.common.exc.UnexpectedInternalException;
+import jbse.dec.SMTLIB2SolverPolicy.UnknownPolicy;
+import jbse.dec.exc.ExternalProtocolInterfaceException;
+import jbse.dec.exc.NoModelException;
+import jbse.mem.Objekt;
+import jbse.val.Any;
+import jbse.val.Calculator;
+import jbse.val.Expression;
+import jbse.val.NarrowingConversion;
+import jbse.val.Operator;
+import jbse.val.Primitive;
+import jbse.val.PrimitiveSymbolic;
+import jbse.val.PrimitiveSymbolicApply;
+import jbse.val.PrimitiveSymbolicAtomic;
+import jbse.val.PrimitiveVisitor;
+import jbse.val.ReferenceSymbolic;
+import jbse.val.Simplex;
+import jbse.val.Term;
+import jbse.val.Value;
+import jbse.val.WideningConversion;
+
+/**
+ * {@link DecisionProcedureExternalInterface} to Z3 through its Java
+ * API. It uses the same encoding of
+ * {@link DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA}, but builds
+ * the Z3 ASTs directly from the JBSE {@link Primitive}s and keeps them
+ * in an incremental solver living in the same process, so no SMTLIB2
+ * text is produced or parsed, and the models are read as objects.
+ * This is the only class depending on the Z3 Java bindings: It is
+ * compiled only when they are available, and it is loaded reflectively
+ * by {@link DecisionProcedureZ3Java}.
+ *
+ * @author Pietro Braione
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+final class DecisionProcedureExternalInterfaceZ3Java extends DecisionProcedureExternalInterface {
+    /**
+     * The maximum number of translations kept in each
+     * translation cache.
+     */
+    private static final int TRANSLATION_CACHE_CAPACITY = 100_000;
+
+    private final Calculator calc;
+    private final ExpressionMangler m;
+    private final SMTLIB2SolverPolicy policy;
+    private final Context ctx;
+    private final Solver solver;
+    private boolean working;
+    private BoolExpr currentClause;
+    private boolean hasCurrentClause;
+
+    /**
+     * Caches the translations of the (non-leaf) {@link Primitive}s
+     * in boolean context. The ASTs belong to the context, so they
+     * survive popping and clearing.
+     */
+    private final HashMap<Primitive, Translation> translationsBoolean = new HashMap<>();
+
+    /** Caches the translations of the (non-leaf) {@link Primitive}s in numeric context. */
+    private final HashMap<Primitive, Translation> translationsNumeric = new HashMap<>();
+
+    /** The Z3 constants standing for the JBSE symbols. */
+    private final HashMap<Primitive, Expr> constants = new HashMap<>();
+
+    /**
+     * The JBSE symbols used by the clauses in the solver scope,
+     * and by the current clause, in order of first use.
+     */
+    private final ArrayList<Primitive> symbolsInScope = new ArrayList<>();
+
+    /** The same as {@link #symbolsInScope}, for fast membership. */
+    private final HashSet<Primitive> symbolsInScopeSet = new HashSet<>();
+
+    /** The size of {@link #symbolsInScope} before the current clause. */
+    private int nSymBeforeCurrentClause;
+    private ArrayList<Boolean> pushedClauseIsOutsideTheory;
+    private ArrayList<Integer> nSymPushed;
+
+    /**
+     * Constructor.
+     *
+     * @param calc a {@link Calculator}.
+     * @param timeout a {@code long}, the time (in milliseconds) the
+     *        solver has for answering a query, or 0 for no limit.
+     * @param resourceLimit a {@code long}, the resource limit
+     *        of the solver for answering a query, or 0 for no limit.
+     * @param policy a {@link SMTLIB2SolverPolicy}, stating how the queries that
+     *        the solver is unable to decide must be treated.
+     *        {@link UnknownPolicy#RETRY} behaves as {@link UnknownPolicy#ASSUME_UNSAT}.
+     * @throws ExternalProtocolInterfaceException if the Z3 context
+     *         cannot be created.
+     */
+    public DecisionProcedureExternalInterfaceZ3Java(Calculator calc, long timeout, long resourceLimit, SMTLIB2SolverPolicy policy)
+    throws ExternalProtocolInterfaceException {
+        this.calc = calc;
+        this.m = new ExpressionMangler("X", "", calc);
+        this.policy = policy;
+        try {
+            final HashMap<String, String> cfg = new HashMap<>();
+            cfg.put("model", "true");
+            this.ctx = new Context(cfg);
+            this.solver = this.ctx.mkSolver();
+            final Params params = this.ctx.mkParams();
+            if (timeout > 0) {
+                params.add("timeout", (int) Math.min(timeout, Integer.MAX_VALUE));
+            }
+            if (resourceLimit > 0) {
+                params.add("rlimit", (int) Math.min(resourceLimit, Integer.MAX_VALUE));
+            }
+            this.solver.setParameters(params);
+        } catch (Z3Exception e) {
+            throw new ExternalProtocolInterfaceException(e);
+        }
+        this.working = true;
+        clear();
+    }
+
+    @Override
+    public boolean isWorking() {
+        return this.working;
+    }
+
+    @Override
+    public void sendClauseAssume(Primitive cond)
+    throws ExternalProtocolInterfaceException {
+        if (cond == null || cond.getType() != Type.BOOLEAN) {
+            throw new ExternalProtocolInterfaceException("Attempted to send an invalid clause (numeric predicate).");
+        }
+        if (this.hasCurrentClause) {
+            throw new ExternalProtocolInterfaceException("Attempted to send a clause when a current clause already exists.");
+        }
+        this.hasCurrentClause = true;
+        this.nSymBeforeCurrentClause = this.symbolsInScope.size();
+
+        try {
+            this.currentClause = toBoolean(new Z3ExpressionVisitor().translate(cond, true));
+        } catch (Z3Exception e) {
+            this.working = false;
+            throw new ExternalProtocolInterfaceException(e);
+        } catch (ExternalProtocolInterfaceException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            //this should never happen
+            this.working = false;
+            throw new UnexpectedInternalException(e);
+        }
+    }
+
+    @Override
+    public void sendClauseAssumeAliases(ReferenceSymbolic r, long heapPos, Objekt o)
+    throws ExternalProtocolInterfaceException {
+        if (r == null || heapPos < 0 || o == null) {
+            throw new ExternalProtocolInterfaceException("Attempted to send an invalid clause (assume aliases).");
+        }
+        sendClauseOutsideTheory();
+    }
+
+    @Override
+    public void sendClauseAssumeExpands(ReferenceSymbolic r, String className)
+    throws ExternalProtocolInterfaceException {
+        if (r == null || className == null) {
+            throw new ExternalProtocolInterfaceException("Attempted to send an invalid clause (assume expands).");
+        }
+        sendClauseOutsideTheory();
+    }
+
+    @Override
+    public void sendClauseAssumeNull(ReferenceSymbolic r)
+    throws ExternalProtocolInterfaceException {
+        if (r == null) {
+            throw new ExternalProtocolInterfaceException("Attempted to send an invalid clause (assume null).");
+        }
+        sendClauseOutsideTheory();
+    }
+
+    @Override
+    public void sendClauseAssumeClassInitialized(String className)
+    throws ExternalProtocolInterfaceException {
+        if (className == null) {
+            throw new ExternalProtocolInterfaceException("Attempted to send an invalid clause (assume class initialized).");
+        }
+        sendClauseOutsideTheory();
+    }
+
+    @Override
+    public void sendClauseAssumeClassNotInitialized(String className)
+    throws ExternalProtocolInterfaceException {
+        if (className == null) {
+            throw new ExternalProtocolInterfaceException("Attempted to send an invalid clause (assume class not initialized).");
+        }
+        sendClauseOutsideTheory();
+    }
+
+    private void sendClauseOutsideTheory() throws ExternalProtocolInterfaceException {
+        if (this.hasCurrentClause) {
+            throw new ExternalProtocolInterfaceException("Attempted to send a clause when a current clause already exists.");
+        }
+        this.hasCurrentClause = true;
+        this.nSymBeforeCurrentClause = this.symbolsInScope.size();
+        this.currentClause = null; //clause outside the theory
+    }
+
+    @Override
+    public void retractClause() throws ExternalProtocolInterfaceException {
+        if (!this.hasCurrentClause) {
+            throw new ExternalProtocolInterfaceException("Attempted to retract a clause with no current clause.");
+        }
+        this.hasCurrentClause = false;
+        this.currentClause = null;
+        forgetSymbols(this.nSymBeforeCurrentClause);
+    }
+
+    @Override
+    public boolean checkSat(boolean value)
+    throws ExternalProtocolInterfaceException, IOException {
+        if (!this.hasCurrentClause) {
+            throw new ExternalProtocolInterfaceException("Attempted to check satisfiability with no current clause.");
+        }
+        if (this.currentClause == null) {
+            return true;
+        }
+        try {
+            this.solver.push();
+            this.solver.add(value ? this.currentClause : this.ctx.mkNot(this.currentClause));
+            final Status status = this.solver.check();
+            this.solver.pop();
+            if (status == Status.UNKNOWN) {
+                return unknown();
+            }
+            return (status == Status.SATISFIABLE);
+        } catch (Z3Exception e) {
+            this.working = false;
+            throw new ExternalProtocolInterfaceException(e);
+        }
+    }
+
+    /**
+     * Applies the policy for the queries that the solver
+     * was unable to decide.
+     *
+     * @return the assumed answer to the query.
+     */
+    private boolean unknown() {
+        final String reason = this.solver.getReasonUnknown();
+        final boolean timeout = (reason != null &&
+                                 (reason.contains("timeout") || reason.contains("resource") || reason.contains("canceled")));
+        this.policy.recordUnknown(timeout);
+        return (this.policy.getUnknownPolicy() == UnknownPolicy.ASSUME_SAT);
+    }
+
+    @Override
+    public Map<PrimitiveSymbolic, Simplex> getModel()
+    throws NoModelException, ExternalProtocolInterfaceException, IOException {
+        return getModel(null);
+    }
+
+    @Override
+    public Map<PrimitiveSymbolic, Simplex> getModel(Collection<? extends PrimitiveSymbolic> symbols)
+    throws NoModelException, ExternalProtocolInterfaceException, IOException {
+        final Set<?> wanted = (symbols == null || symbols instanceof Set<?> ? (Set<?>) symbols : new HashSet<>(symbols));
+        final HashMap<PrimitiveSymbolic, Simplex> retVal = new HashMap<>();
+        try {
+            //always need a check before reading a model
+            if (this.solver.check() != Status.SATISFIABLE) {
+                throw new NoModelException();
+            }
+            final Model model = this.solver.getModel();
+            for (Primitive symbol : this.symbolsInScope) {
+                if (symbol instanceof PrimitiveSymbolic && (wanted == null || wanted.contains(symbol))) {
+                    final Number value = toNumber(model.eval(this.constants.get(symbol), true));
+                    if (value == null) {
+                        throw new ExternalProtocolInterfaceException("Unable to interpret the value of symbol " + symbol.toString() + " returned by Z3.");
+                    }
+                    retVal.put((PrimitiveSymbolic) symbol, (Simplex) this.calc.val_(value));
+                }
+            }
+        } catch (Z3Exception e) {
+            this.working = false;
+            throw new ExternalProtocolInterfaceException(e);
+        } catch (InvalidInputException e) {
+            //this should never happen
+            throw new UnexpectedInternalException(e);
+        }
+        return retVal;
+    }
+
+    /**
+     * Interprets a Z3 arithmetic value.
+     *
+     * @param value an {@link Expr}.
+     * @return a {@link Long} or a {@link Double}, or
+     *         {@code null} if the value cannot be interpreted.
+     */
+    private static Number toNumber(Expr value) {
+        if (value.isIntNum()) {
+            final IntNum intValue = (IntNum) value;
+            if (intValue.getBigInteger().bitLength() < 64) {
+                return intValue.getInt64();
+            } else {
+                return intValue.getBigInteger().doubleValue();
+            }
+        } else if (value.isRatNum()) {
+            final RatNum ratValue = (RatNum) value;
+            return new BigDecimal(ratValue.getBigIntNumerator()).doubleValue() /
+                   new BigDecimal(ratValue.getBigIntDenominator()).doubleValue();
+        } else if (value.isAlgebraicNumber()) {
+            try {
+                return Double.parseDouble(((AlgebraicNum) value).toDecimal(20).replace("?", ""));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        } else {
+            return null;
+        }
+    }
+
+    @Override
+    public void pushAssumption(boolean value)
+    throws ExternalProtocolInterfaceException, IOException {
+        if (!this.hasCurrentClause) {
+            throw new ExternalProtocolInterfaceException("attempted to push assumption with no current clause");
+        }
+        this.hasCurrentClause = false;
+
+        if (this.currentClause == null) {
+            this.pushedClauseIsOutsideTheory.add(true);
+        } else {
+            this.pushedClauseIsOutsideTheory.add(false);
+            this.nSymPushed.add(this.nSymBeforeCurrentClause);
+            try {
+                this.solver.push();
+                this.solver.add(value ? this.currentClause : this.ctx.mkNot(this.currentClause));
+            } catch (Z3Exception e) {
+                this.working = false;
+                throw new ExternalProtocolInterfaceException(e);
+            }
+            this.currentClause = null;
+        }
+    }
+
+    @Override
+    public void popAssumption() throws ExternalProtocolInterfaceException, IOException {
+        final int last = this.pushedClauseIsOutsideTheory.size() - 1;
+        final boolean outsideTheory = this.pushedClauseIsOutsideTheory.get(last);
+        this.pushedClauseIsOutsideTheory.remove(last);
+        if (outsideTheory) {
+            //do nothing
+        } else {
+            final int lastPushed = this.nSymPushed.size() - 1;
+            forgetSymbols(this.nSymPushed.get(lastPushed));
+            this.nSymPushed.remove(lastPushed);
+            try {
+                this.solver.pop();
+            } catch (Z3Exception e) {
+                this.working = false;
+                throw new ExternalProtocolInterfaceException(e);
+            }
+        }
+    }
+
+    @Override
+    public void clear()
+    throws ExternalProtocolInterfaceException {
+        final int nToPop = (this.nSymPushed == null ? 0 : this.nSymPushed.size());
+        try {
+            if (nToPop > 0) {
+                this.solver.pop(nToPop);
+            }
+        } catch (Z3Exception e) {
+            this.working = false;
+            throw new ExternalProtocolInterfaceException(e);
+        }
+        this.currentClause = null;
+        this.hasCurrentClause = false;
+        forgetSymbols(0);
+        this.pushedClauseIsOutsideTheory = new ArrayList<>();
+        this.nSymPushed = new ArrayList<>();
+    }
+
+    private void useSymbol(Primitive symbol) {
+        if (this.symbolsInScopeSet.add(symbol)) {
+            this.symbolsInScope.add(symbol);
+        }
+    }
+
+    private void forgetSymbols(int nSymbolsToKeep) {
+        for (int i = this.symbolsInScope.size() - 1; i >= nSymbolsToKeep; --i) {
+            this.symbolsInScopeSet.remove(this.symbolsInScope.remove(i));
+        }
+    }
+
+    /**
+     * Returns the Z3 sort which corresponds to a Java type.
+     */
+    private Sort toZ3Sort(char type) {
+        if (type == Type.FLOAT || type == Type.DOUBLE) {
+            return this.ctx.getRealSort();
+        } else {
+            //integral types and boolean
+            return this.ctx.getIntSort();
+        }
+    }
+
+    /**
+     * Converts to boolean an {@link Expr} that might be
+     * numeric, as booleans are numeric in numeric context.
+     */
+    private BoolExpr toBoolean(Expr e) {
+        if (e instanceof BoolExpr) {
+            return (BoolExpr) e;
+        }
+        return this.ctx.mkNot(this.ctx.mkEq(e, this.ctx.mkInt(0)));
+    }
+
+    /**
+     * Converts to real an arithmetic {@link Expr} that
+     * might be integer.
+     */
+    private ArithExpr toReal(Expr e) {
+        if (e instanceof IntExpr) {
+            return this.ctx.mkInt2Real((IntExpr) e);
+        }
+        return (ArithExpr) e;
+    }
+
+    /**
+     * The translation of a {@link Primitive} to a Z3 AST.
+     */
+    private static final class Translation {
+        /** The Z3 AST. */
+        final Expr expr;
+
+        /** The JBSE symbols used by {@link #expr}. */
+        final Primitive[] symbols;
+
+        Translation(Expr expr, Primitive[] symbols) {
+            this.expr = expr;
+            this.symbols = symbols;
+        }
+    }
+
+    /**
+     * Builds a Z3 AST representing an expression.
+     */
+    private class Z3ExpressionVisitor implements PrimitiveVisitor {
+        /** Is this a boolean expression? */
+        private boolean isBooleanExpression = true;
+
+        /** The ASTs built during the visit. */
+        private ArrayDeque<Expr> exprStack = new ArrayDeque<>();
+
+        /**
+         * The symbols used by the {@link Primitive} whose translation
+         * is being cached, or {@code null} if no translation is being
+         * cached.
+         */
+        private LinkedHashSet<Primitive> used = null;
+
+        public Z3ExpressionVisitor() { }
+
+        public Z3ExpressionVisitor(Z3ExpressionVisitor v, boolean isBooleanExpression) {
+            this.isBooleanExpression = isBooleanExpression;
+            this.exprStack = v.exprStack;
+            this.used = v.used;
+        }
+
+        /**
+         * Translates a {@link Primitive}. The translations of the
+         * non-leaf {@link Primitive}s are cached.
+         *
+         * @param p the {@link Primitive} to translate.
+         * @param isBooleanExpression whether {@code p} is
+         *        in boolean context.
+         * @return the translation of {@code p}.
+         * @throws Exception if the translation fails.
+         */
+        Expr translate(Primitive p, boolean isBooleanExpression) throws Exception {
+            final Z3ExpressionVisitor v = new Z3ExpressionVisitor(this, isBooleanExpression);
+            if (p instanceof PrimitiveSymbolicAtomic || p instanceof Term || p instanceof Simplex) {
+                p.accept(v);
+                return this.exprStack.pop();
+            }
+            final HashMap<Primitive, Translation> translations =
+                (isBooleanExpression ? translationsBoolean : translationsNumeric);
+            Translation translation = translations.get(p);
+            if (translation == null) {
+                v.used = new LinkedHashSet<>();
+                p.accept(v);
+                translation = new Translation(this.exprStack.pop(), v.used.toArray(new Primitive[0]));
+                if (translations.size() >= TRANSLATION_CACHE_CAPACITY) {
+                    translations.clear();
+                }
+                translations.put(p, translation);
+            }
+            for (Primitive symbol : translation.symbols) {
+                use(symbol);
+            }
+            return translation.expr;
+        }
+
+        private void use(Primitive symbol) {
+            if (this.used != null) {
+                this.used.add(symbol);
+            }
+            useSymbol(symbol);
+        }
+
+        @Override
+        public void visitAny(Any x) throws ExternalProtocolInterfaceException {
+            throw new ExternalProtocolInterfaceException("values of type Any should not reach the SMT solver");
+        }
+
+        @Override
+        public void visitExpression(Expression e) throws Exception {
+            final Operator operation = e.getOperator();
+            final boolean isBooleanOperator = operation.acceptsBoolean();
+            if (operation.returnsBoolean() != this.isBooleanExpression) {
+                throw new UnexpectedInternalException("error while parsing expression (expected a boolean expression but it is not): " + e.toString());
+            }
+            if (e.isUnary()) {
+                final Expr operand = translate(e.getOperand(), isBooleanOperator);
+                if (operation == Operator.NEG) {
+                    this.exprStack.push(ctx.mkUnaryMinus((ArithExpr) operand));
+                } else if (operation == Operator.NOT) {
+                    this.exprStack.push(ctx.mkNot(toBoolean(operand)));
+                } else {
+                    //the operator does not correspond to a Z3 operator
+                    DecisionProcedureExternalInterfaceZ3Java.this.m.mangle(e).accept(this);
+                }
+                return;
+            }
+            final Primitive firstOperand = e.getFirstOperand();
+            final Primitive secondOperand = e.getSecondOperand();
+            if (operation == Operator.AND || operation == Operator.OR) {
+                final BoolExpr first = toBoolean(translate(firstOperand, isBooleanOperator));
+                final BoolExpr second = toBoolean(translate(secondOperand, isBooleanOperator));
+                this.exprStack.push(operation == Operator.AND ? ctx.mkAnd(first, second) : ctx.mkOr(first, second));
+                return;
+            }
+            if (operation != Operator.ADD && operation != Operator.SUB && operation != Operator.MUL &&
+                operation != Operator.DIV && operation != Operator.REM && operation != Operator.LT &&
+                operation != Operator.LE && operation != Operator.EQ && operation != Operator.NE &&
+                operation != Operator.GE && operation != Operator.GT) {
+                //the operator does not correspond to a Z3 operator
+                DecisionProcedureExternalInterfaceZ3Java.this.m.mangle(e).accept(this);
+                return;
+            }
+            Expr first = translate(firstOperand, isBooleanOperator);
+            Expr second = translate(secondOperand, isBooleanOperator);
+            if ((operation == Operator.EQ || operation == Operator.NE) && (first instanceof BoolExpr || second instanceof BoolExpr)) {
+                first = toBoolean(first);
+                second = toBoolean(second);
+            } else if (first instanceof RealExpr || second instanceof RealExpr) {
+                first = toReal(first);
+                second = toReal(second);
+            }
+            if (operation == Operator.REM && !(first instanceof IntExpr)) {
+                //the remainder of reals does not correspond to a Z3 operator
+                DecisionProcedureExternalInterfaceZ3Java.this.m.mangle(e).accept(this);
+                return;
+            }
+            final Expr result;
+            if (operation == Operator.ADD) {
+                result = ctx.mkAdd((ArithExpr) first, (ArithExpr) second);
+            } else if (operation == Operator.SUB) {
+                result = ctx.mkSub((ArithExpr) first, (ArithExpr) second);
+            } else if (operation == Operator.MUL) {
+                result = ctx.mkMul((ArithExpr) first, (ArithExpr) second);
+            } else if (operation == Operator.DIV) {
+                //integer division iff both operands are integer
+                result = ctx.mkDiv((ArithExpr) first, (ArithExpr) second);
+            } else if (operation == Operator.REM) {
+                result = ctx.mkMod((IntExpr) first, (IntExpr) second);
+            } else if (operation == Operator.LT) {
+                result = ctx.mkLt((ArithExpr) first, (ArithExpr) second);
+            } else if (operation == Operator.LE) {
+                result = ctx.mkLe((ArithExpr) first, (ArithExpr) second);
+            } else if (operation == Operator.EQ) {
+                result = ctx.mkEq(first, second);
+            } else if (operation == Operator.NE) {
+                result = ctx.mkNot(ctx.mkEq(first, second));
+            } else if (operation == Operator.GE) {
+                result = ctx.mkGe((ArithExpr) first, (ArithExpr) second);
+            } else { //operation == Operator.GT
+                result = ctx.mkGt((ArithExpr) first, (ArithExpr) second);
+            }
+            this.exprStack.push(result);
+        }
+
+        @Override
+        public void visitPrimitiveSymbolicApply(PrimitiveSymbolicApply x) throws Exception {
+            if (x.getType() == Type.BOOLEAN && !this.isBooleanExpression) {
+                throw new UnexpectedInternalException("error while parsing expression (expected a boolean expression but it is not): " + x.toString());
+            } else if (x.getType() != Type.BOOLEAN && this.isBooleanExpression) {
+                throw new UnexpectedInternalException("error while parsing expression (expected a numeric expression but it is not): " + x.toString());
+            }
+            boolean allArgsPrimitive = true;
+            for (Value v : x.getArgs()) {
+                if (!(v instanceof Primitive)) {
+                    allArgsPrimitive = false;
+                    break;
+                }
+            }
+            if (allArgsPrimitive) {
+                final String operator = x.getOperator().split(":")[2];
+                final Value[] args = x.getArgs();
+                final Expr[] argsZ3 = new Expr[args.length];
+                final Sort[] signature = new Sort[args.length];
+                for (int i = 0; i < args.length; ++i) {
+                    final Primitive p = (Primitive) args[i];
+                    argsZ3[i] = translate(p, false);
+                    signature[i] = toZ3Sort(p.getType());
+                }
+                if ("abs".equals(operator) && args.length == 1) {
+                    final ArithExpr arg = (ArithExpr) argsZ3[0];
+                    final ArithExpr zero = (arg instanceof RealExpr ? ctx.mkReal(0) : ctx.mkInt(0));
+                    this.exprStack.push(ctx.mkITE(ctx.mkLt(arg, zero), ctx.mkUnaryMinus(arg), arg));
+                } else {
+                    //no JBSE primitive for it, sorry, no model for this
+                    final FuncDecl function = ctx.mkFuncDecl(operator, signature, toZ3Sort(x.getType()));
+                    this.exprStack.push(ctx.mkApp(function, argsZ3));
+                }
+            } else {
+                DecisionProcedureExternalInterfaceZ3Java.this.m.mangle(x).accept(this);
+            }
+        }
+
+        @Override
+        public void visitWideningConversion(WideningConversion x) throws Exception {
+            if (x.getType() == Type.BOOLEAN && !this.isBooleanExpression) {
+                throw new UnexpectedInternalException("Error while parsing expression (context expected a numeric expression but it is boolean): " + x.toString());
+            } else if (x.getType() != Type.BOOLEAN && this.isBooleanExpression) {
+                throw new UnexpectedInternalException("Error while parsing expression (context expected a boolean expression but it is numeric): " + x.toString());
+            }
+            final Primitive arg = x.getArg();
+            Expr argZ3 = translate(arg, arg.getType() == Type.BOOLEAN);
+            if (argZ3 instanceof BoolExpr) {
+                argZ3 = ctx.mkITE((BoolExpr) argZ3, ctx.mkInt(1), ctx.mkInt(0));
+            }
+            if (Type.isPrimitiveIntegral(x.getType()) != Type.isPrimitiveIntegral(arg.getType())) {
+                argZ3 = toReal(argZ3);
+            }
+            this.exprStack.push(argZ3);
+        }
+
+        @Override
+        public void visitNarrowingConversion(NarrowingConversion x) throws Exception {
+            if (x.getType() == Type.BOOLEAN && !this.isBooleanExpression) {
+                throw new UnexpectedInternalException("Error while parsing expression (context expected a numeric expression but it is boolean): " + x.toString());
+            } else if (x.getType() != Type.BOOLEAN && this.isBooleanExpression) {
+                throw new UnexpectedInternalException("Error while parsing expression (context expected a boolean expression but it is numeric): " + x.toString());
+            }
+            final Primitive arg = x.getArg();
+            final Expr argZ3 = translate(arg, false);
+            if (Type.isPrimitiveIntegral(x.getType()) != Type.isPrimitiveIntegral(arg.getType()) && argZ3 instanceof RealExpr) {
+                //rounds to zero
+                final RealExpr real = (RealExpr) argZ3;
+                this.exprStack.push(ctx.mkITE(ctx.mkGe(real, ctx.mkReal(0)),
+                                              ctx.mkReal2Int(real),
+                                              ctx.mkUnaryMinus(ctx.mkReal2Int((RealExpr) ctx.mkUnaryMinus(real)))));
+            } else {
+                this.exprStack.push(argZ3);
+            }
+        }
+
+        @Override
+        public void visitSimplex(Simplex x) throws ExternalProtocolInterfaceException {
+            final Object obj = x.getActualValue();
+            final char mytype = x.getType();
+            if (mytype == Type.CHAR) {
+                this.exprStack.push(ctx.mkInt((long) ((Character) obj).charValue()));
+            } else if (mytype == Type.BYTE || mytype == Type.SHORT ||
+                       mytype == Type.INT || mytype == Type.LONG) {
+                this.exprStack.push(ctx.mkInt(((Number) obj).longValue()));
+            } else if (mytype == Type.FLOAT || mytype == Type.DOUBLE) {
+                final double value = ((Number) obj).doubleValue();
+                if (Double.isNaN(value) || Double.isInfinite(value)) {
+                    throw new ExternalProtocolInterfaceException("value " + obj.toString() + " cannot be encoded in the AUFNIRA logic");
+                }
+                this.exprStack.push(ctx.mkReal(new BigDecimal(obj.toString()).toPlainString()));
+            } else if (mytype == Type.BOOLEAN) {
+                if ((Boolean) obj) {
+                    this.exprStack.push(this.isBooleanExpression ? ctx.mkTrue() : ctx.mkInt(1));
+                } else {
+                    this.exprStack.push(this.isBooleanExpression ? ctx.mkFalse() : ctx.mkInt(0));
+                }
+            }
+        }
+
+        @Override
+        public void visitPrimitiveSymbolicAtomic(PrimitiveSymbolicAtomic s) {
+            putSymbol(s);
+        }
+
+        @Override
+        public void visitTerm(Term x) {
+            putSymbol(x);
+        }
+
+        private void putSymbol(Primitive symbol) {
+            Expr constant = constants.get(symbol);
+            if (constant == null) {
+                final String symbolToString = symbol.toString();
+                final String z3Variable = (symbolToString.charAt(0) == '{' ?
+                                           symbolToString.substring(1, symbolToString.length() - 1) :
+                                           symbolToString);
+                constant = ctx.mkConst(z3Variable, toZ3Sort(symbol.getType()));
+                constants.put(symbol, constant);
+            }
+            use(symbol);
+            this.exprStack.push(constant);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void quit() {
+        fail();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void fail() {
+        if (this.working) {
+            this.working = false;
+            this.ctx.close();
+        }
+    }
+}
@@ -0,0 +1,786 @@
+package jbse.dec;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import jbse.common.Type;
+import jbse.common.exc.InvalidInputException;
+import jbse.common.exc.UnexpectedInternalException;
+import jbse.dec.exc.DecisionException;
+import jbse.mem.Clause;
+import jbse.mem.ClauseAssume;
+import jbse.val.Any;
+import jbse.val.Expression;
+import jbse.val.NarrowingConversion;
+import jbse.val.Operator;
+import jbse.val.Primitive;
+import jbse.val.PrimitiveSymbolicApply;
+import jbse.val.PrimitiveSymbolicAtomic;
+import jbse.val.PrimitiveVisitor;
+import jbse.val.Simplex;
+import jbse.val.Term;
+import jbse.val.WideningConversion;
+
+/**
+ * Decides conjunctions of linear bound constraints with shape
+ * {@code x - y rel_op number}, {@code x rel_op number} or
+ * {@code number rel_op x}, where {@code x} and {@code y} are
+ * integral symbols, by keeping the bounds implied by the current
+ * assumptions in a difference bound matrix (i.e., in the zone
+ * abstract domain, that subsumes the interval one). Whenever all
+ * the current numeric assumptions are in the domain the decision
+ * is complete, and the next decision procedure in the chain is
+ * queried only if the domain is not able to express the query.
+ * Floating point values are out of the theory, and function
+ * applications are only approximated by unconstrained symbols, so
+ * they never make a satisfiable answer conclusive.
+ *
+ * @author Pietro Braione
+ *
+ */
+public final class DecisionProcedureIntervalAnalysis extends DecisionProcedureChainOfResponsibility {
+	/** The infinite bound. */
+	private static final long INF = Long.MAX_VALUE;
+
+	/** The smallest finite bound. */
+	private static final long MIN_BOUND = Long.MIN_VALUE + 1;
+
+	/** The initial number of nodes the bound matrix can store. */
+	private static final int INITIAL_CAPACITY = 16;
+
+	/**
+	 * A saved state of the assumptions, to restore
+	 * upon pop.
+	 *
+	 * @author Pietro Braione
+	 *
+	 */
+	private static final class Frame {
+		final int trailSize;
+		final boolean inconsistent;
+		final int inexact;
+
+		Frame(int trailSize, boolean inconsistent, int inexact) {
+			this.trailSize = trailSize;
+			this.inconsistent = inconsistent;
+			this.inexact = inexact;
+		}
+	}
+
+	/**
+	 * A constraint {@code pos - neg <= bound}. A {@code null}
+	 * symbol stands for zero.
+	 *
+	 * @author Pietro Braione
+	 *
+	 */
+	private static final class Constraint {
+		final Primitive pos;
+		final Primitive neg;
+		final long bound;
+
+		Constraint(Primitive pos, Primitive neg, long bound) {
+			this.pos = pos;
+			this.neg = neg;
+			this.bound = bound;
+		}
+	}
+
+	/**
+	 * A linear form {@code sum(coefficient_i * symbol_i) + constant}.
+	 * Its operations throw {@link ArithmeticException} upon overflow.
+	 *
+	 * @author Pietro Braione
+	 *
+	 */
+	private static final class LinearForm {
+		final HashMap<Primitive, Long> coefficients = new HashMap<>();
+		long constant = 0;
+
+		void add(LinearForm other, long sign) {
+			for (Map.Entry<Primitive, Long> e : other.coefficients.entrySet()) {
+				final long coefficient = Math.addExact(this.coefficients.getOrDefault(e.getKey(), 0L), Math.multiplyExact(sign, e.getValue()));
+				if (coefficient == 0) {
+					this.coefficients.remove(e.getKey());
+				} else {
+					this.coefficients.put(e.getKey(), coefficient);
+				}
+			}
+			this.constant = Math.addExact(this.constant, Math.multiplyExact(sign, other.constant));
+		}
+	}
+
+	/**
+	 * Whether the integral values are bounded by the range of
+	 * their types and wrap around upon overflow.
+	 */
+	private final boolean boundedIntegers;
+
+	/** Maps the symbols to their nodes in {@link #bounds}. */
+	private final HashMap<Primitive, Integer> nodes = new HashMap<>();
+
+	/** Maps the nodes in {@link #bounds} to their symbols. */
+	private Primitive[] symbols = new Primitive[INITIAL_CAPACITY];
+
+	/**
+	 * The difference bound matrix; {@code bounds[i][j]} is the
+	 * upper bound of {@code node_i - node_j}, and node 0 is zero.
+	 * It is kept closed.
+	 */
+	private long[][] bounds = new long[INITIAL_CAPACITY][INITIAL_CAPACITY];
+
+	/** The number of nodes in {@link #bounds}. */
+	private int nNodes;
+
+	/**
+	 * The rows of the changes to {@link #bounds} done since the
+	 * last clear, or -1 for the creation of the node in
+	 * {@link #trailCol}.
+	 */
+	private int[] trailRow = new int[INITIAL_CAPACITY];
+
+	/** The columns of the changes to {@link #bounds} done since the last clear. */
+	private int[] trailCol = new int[INITIAL_CAPACITY];
+
+	/** The overwritten values of the changes to {@link #bounds} done since the last clear. */
+	private long[] trailOld = new long[INITIAL_CAPACITY];
+
+	/** The number of changes in the trail. */
+	private int trailSize;
+
+	/** The saved states, one for each pushed clause. */
+	private final ArrayDeque<Frame> frames = new ArrayDeque<>();
+
+	/** Whether the current assumptions are contradictory. */
+	private boolean inconsistent;
+
+	/** The number of current assumptions that are out of the theory or approximated. */
+	private int inexact;
+
+	/** Whether the last answer of {@link #isSatLocal(Expression, Expression)} was conclusive. */
+	private boolean lastAnswerConclusive;
+
+	/**
+	 * Whether the last conversion met a function application. Function
+	 * applications are converted to unconstrained symbols, which
+	 * forgets their semantics (e.g., that {@code abs(x) >= 0}) and
+	 * their congruence (e.g., that {@code a == b} implies
+	 * {@code f(a) == f(b)}): The result of the conversion is implied
+	 * by the converted predicate, but it is not equivalent to it.
+	 */
+	private boolean approximated;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param next The next {@link DecisionProcedure} in the
+	 *        Chain Of Responsibility.
+	 * @param boundedIntegers {@code true} iff the next decision
+	 *        procedures in the chain model integral values as
+	 *        fixed-width machine integers, {@code false} iff
+	 *        they model them as unbounded integers. In the
+	 *        first case the range of the symbols is constrained
+	 *        by their types, and only expressions with no
+	 *        arithmetic operations are in the theory.
+	 * @throws InvalidInputException if {@code next == null}.
+	 */
+	public DecisionProcedureIntervalAnalysis(DecisionProcedure next, boolean boundedIntegers)
+	throws InvalidInputException {
+		super(next);
+		this.boundedIntegers = boundedIntegers;
+		reset();
+	}
+
+	@Override
+	protected void pushAssumptionLocal(Clause cSimpl) throws DecisionException {
+		this.frames.push(new Frame(this.trailSize, this.inconsistent, this.inexact));
+		super.pushAssumptionLocal(cSimpl); //redispatches
+	}
+
+	@Override
+	protected void pushAssumptionLocal(ClauseAssume c) {
+		if (this.inconsistent) {
+			return; //nothing to add
+		}
+		try {
+			final ArrayList<Constraint> constraints = new ArrayList<>();
+			this.approximated = false;
+			if (toConstraints(c.getCondition(), false, constraints)) {
+				for (Constraint constraint : constraints) {
+					addConstraint(constraint);
+				}
+				if (!this.approximated) {
+					return;
+				}
+			}
+		} catch (ArithmeticException e) {
+			//falls through
+		}
+		++this.inexact;
+	}
+
+	@Override
+	protected boolean canPopAssumptions() {
+		return true;
+	}
+
+	@Override
+	protected void popAssumptionLocal() throws DecisionException {
+		if (this.frames.isEmpty()) {
+			throw new DecisionException("Cannot pop from an empty set of assumptions.");
+		}
+		final Frame frame = this.frames.pop();
+		undo(frame.trailSize);
+		this.inconsistent = frame.inconsistent;
+		this.inexact = frame.inexact;
+	}
+
+	@Override
+	protected void clearAssumptionsLocal() {
+		reset();
+	}
+
+	@Override
+	protected boolean isSatLocal(Expression exp, Expression expSimpl)
+	throws DecisionException {
+		this.lastAnswerConclusive = false;
+		if (this.inconsistent) {
+			return false;
+		}
+		try {
+			final ArrayList<Constraint> constraints = new ArrayList<>();
+			final boolean retVal;
+			this.approximated = false;
+			if (toConstraints(expSimpl, false, constraints)) {
+				retVal = isSatConjunction(constraints);
+			} else {
+				final Constraint disequality = toDisequality(expSimpl, false);
+				if (disequality == null) {
+					return true; //out of the theory
+				}
+				retVal = isSatDisequality(disequality);
+			}
+			this.lastAnswerConclusive = (retVal && this.inexact == 0 && !this.approximated);
+			return retVal;
+		} catch (ArithmeticException e) {
+			return true; //out of the theory
+		}
+	}
+
+	@Override
+	protected boolean isSatLocalConclusive(Expression exp, Expression expSimpl) {
+		return this.lastAnswerConclusive;
+	}
+
+	/**
+	 * Drops all the symbols and bounds.
+	 */
+	private void reset() {
+		this.nodes.clear();
+		Arrays.fill(this.symbols, null);
+		this.nNodes = 1;
+		this.bounds[0][0] = 0;
+		this.trailSize = 0;
+		this.frames.clear();
+		this.inconsistent = false;
+		this.inexact = 0;
+	}
+
+	/**
+	 * Checks whether a conjunction of constraints is
+	 * satisfiable under the current assumptions.
+	 *
+	 * @param constraints a {@link ArrayList}{@code <}{@link Constraint}{@code >}.
+	 * @return {@code false} iff the conjunction of {@code constraints}
+	 *         contradicts the current assumptions.
+	 */
+	private boolean isSatConjunction(ArrayList<Constraint> constraints) {
+		if (constraints.size() == 1) {
+			final Constraint constraint = constraints.get(0);
+			final Integer pos = getNode(constraint.pos);
+			final Integer neg = getNode(constraint.neg);
+			if (pos != null && neg != null) {
+				return add(this.bounds[neg][pos], constraint.bound) >= 0;
+			}
+		}
+
+		//general case: tentatively adds the constraints and rolls back
+		final int mark = this.trailSize;
+		for (Constraint constraint : constraints) {
+			addConstraint(constraint);
+		}
+		final boolean retVal = !this.inconsistent;
+		undo(mark);
+		this.inconsistent = false;
+		return retVal;
+	}
+
+	/**
+	 * Checks whether a disequality is satisfiable under
+	 * the current assumptions.
+	 *
+	 * @param disequality a {@link Constraint} {@code pos - neg <= bound},
+	 *        standing for the disequality {@code pos - neg != bound}.
+	 * @return {@code false} iff the current assumptions force
+	 *         {@code pos - neg == bound}.
+	 */
+	private boolean isSatDisequality(Constraint disequality) {
+		final int mark = this.trailSize;
+		final int pos = makeNode(disequality.pos);
+		final int neg = makeNode(disequality.neg);
+		final boolean retVal =
+			this.inconsistent || this.bounds[pos][neg] != disequality.bound || this.bounds[neg][pos] != -disequality.bound;
+		undo(mark);
+		this.inconsistent = false;
+		return retVal;
+	}
+
+	/**
+	 * Returns the node of a symbol.
+	 *
+	 * @param symbol a {@link Primitive}, or {@code null} for zero.
+	 * @return the node of {@code symbol}, or {@code null} if
+	 *         {@code symbol} has no node yet.
+	 */
+	private Integer getNode(Primitive symbol) {
+		if (symbol == null) {
+			return 0;
+		}
+		return this.nodes.get(symbol);
+	}
+
+	/**
+	 * Returns the node of a symbol, possibly creating it.
+	 *
+	 * @param symbol a {@link Primitive}, or {@code null} for zero.
+	 * @return the node of {@code symbol}.
+	 */
+	private int makeNode(Primitive symbol) {
+		final Integer node = getNode(symbol);
+		if (node != null) {
+			return node;
+		}
+
+		//grows the matrix if necessary
+		final int newNode = this.nNodes;
+		if (newNode == this.symbols.length) {
+			final int newCapacity = 2 * newNode;
+			final long[][] newBounds = new long[newCapacity][];
+			for (int i = 0; i < newCapacity; ++i) {
+				newBounds[i] = (i < newNode ? Arrays.copyOf(this.bounds[i], newCapacity) : new long[newCapacity]);
+			}
+			this.bounds = newBounds;
+			this.symbols = Arrays.copyOf(this.symbols, newCapacity);
+		}
+
+		//adds the node, unconstrained
+		for (int i = 0; i < newNode; ++i) {
+			this.bounds[i][newNode] = INF;
+			this.bounds[newNode][i] = INF;
+		}
+		this.bounds[newNode][newNode] = 0;
+		this.symbols[newNode] = symbol;
+		this.nodes.put(symbol, newNode);
+		this.nNodes = newNode + 1;
+		record(-1, newNode, 0);
+
+		//constrains the node by the range of its type
+		if (this.boundedIntegers) {
+			final char type = symbol.getType();
+			final long min, max;
+			if (type == Type.BYTE) {
+				min = Byte.MIN_VALUE;
+				max = Byte.MAX_VALUE;
+			} else if (type == Type.SHORT) {
+				min = Short.MIN_VALUE;
+				max = Short.MAX_VALUE;
+			} else if (type == Type.CHAR) {
+				min = Character.MIN_VALUE;
+				max = Character.MAX_VALUE;
+			} else if (type == Type.INT) {
+				min = Integer.MIN_VALUE;
+				max = Integer.MAX_VALUE;
+			} else { //type == Type.LONG: all the representable bounds
+				min = MIN_BOUND;
+				max = INF;
+			}
+			addConstraint(newNode, 0, max);
+			addConstraint(0, newNode, -min);
+		}
+		return newNode;
+	}
+
+	/**
+	 * Adds a constraint to the current assumptions.
+	 *
+	 * @param constraint a {@link Constraint}.
+	 */
+	private void addConstraint(Constraint constraint) {
+		final int pos = makeNode(constraint.pos);
+		final int neg = makeNode(constraint.neg);
+		addConstraint(pos, neg, constraint.bound);
+	}
+
+	/**
+	 * Adds the constraint {@code node_x - node_y <= c} to
+	 * the current assumptions, and incrementally closes
+	 * the bound matrix.
+	 *
+	 * @param x a node.
+	 * @param y a node.
+	 * @param c the bound.
+	 */
+	private void addConstraint(int x, int y, long c) {
+		if (this.inconsistent || c == INF || this.bounds[x][y] <= c) {
+			return; //nothing to add
+		}
+		if (add(this.bounds[y][x], c) < 0) {
+			this.inconsistent = true;
+			return;
+		}
+		for (int i = 0; i < this.nNodes; ++i) {
+			final long ix = this.bounds[i][x];
+			if (ix == INF) {
+				continue;
+			}
+			final long ixc = add(ix, c);
+			for (int j = 0; j < this.nNodes; ++j) {
+				final long ij = add(ixc, this.bounds[y][j]);
+				if (ij < this.bounds[i][j]) {
+					record(i, j, this.bounds[i][j]);
+					this.bounds[i][j] = ij;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Records a change in the trail.
+	 *
+	 * @param row the row of the changed bound, or -1 for
+	 *        the creation of a node.
+	 * @param col the column of the changed bound, or the
+	 *        created node.
+	 * @param old the overwritten bound.
+	 */
+	private void record(int row, int col, long old) {
+		if (this.trailSize == this.trailRow.length) {
+			final int newCapacity = 2 * this.trailSize;
+			this.trailRow = Arrays.copyOf(this.trailRow, newCapacity);
+			this.trailCol = Arrays.copyOf(this.trailCol, newCapacity);
+			this.trailOld = Arrays.copyOf(this.trailOld, newCapacity);
+		}
+		this.trailRow[this.trailSize] = row;
+		this.trailCol[this.trailSize] = col;
+		this.trailOld[this.trailSize] = old;
+		++this.trailSize;
+	}
+
+	/**
+	 * Undoes all the changes in the trail after a mark.
+	 *
+	 * @param mark the size of the trail to restore.
+	 */
+	private void undo(int mark) {
+		while (this.trailSize > mark) {
+			--this.trailSize;
+			final int row = this.trailRow[this.trailSize];
+			final int col = this.trailCol[this.trailSize];
+			if (row < 0) {
+				this.nodes.remove(this.symbols[col]);
+				this.symbols[col] = null;
+				this.nNodes = col;
+			} else {
+				this.bounds[row][col] = this.trailOld[this.trailSize];
+			}
+		}
+	}
+
+	/**
+	 * Adds two bounds, rounding toward infinity upon overflow.
+	 *
+	 * @param a a bound.
+	 * @param b a bound.
+	 * @return a bound not less than {@code a + b}.
+	 */
+	private static long add(long a, long b) {
+		if (a == INF || b == INF) {
+			return INF;
+		}
+		final long r = a + b;
+		if (((a ^ r) & (b ^ r)) < 0) {
+			return (a > 0 ? INF : MIN_BOUND);
+		}
+		return (r < MIN_BOUND ? MIN_BOUND : r);
+	}
+
+	/**
+	 * Converts a predicate to a conjunction of {@link Constraint}s.
+	 *
+	 * @param p a {@link Primitive}.
+	 * @param negated {@code true} iff the negation of {@code p} must
+	 *        be converted.
+	 * @param constraints a {@link ArrayList}{@code <}{@link Constraint}{@code >},
+	 *        where the result is appended.
+	 * @return {@code true} iff {@code p} (or its negation) is equivalent to
+	 *         a conjunction of {@link Constraint}s; if {@code false}, the
+	 *         content of {@code constraints} is unspecified.
+	 * @throws ArithmeticException if the constant in some
+	 *         constraint cannot be represented.
+	 */
+	private boolean toConstraints(Primitive p, boolean negated, ArrayList<Constraint> constraints) {
+		if (!(p instanceof Expression)) {
+			return false;
+		}
+		final Expression e = (Expression) p;
+		final Operator operator = e.getOperator();
+		if (operator == Operator.NOT) {
+			return toConstraints(e.getOperand(), !negated, constraints);
+		} else if ((operator == Operator.AND && !negated) || (operator == Operator.OR && negated)) {
+			return toConstraints(e.getFirstOperand(), negated, constraints) &&
+				   toConstraints(e.getSecondOperand(), negated, constraints);
+		}
+		final Operator relation = relation(e, negated);
+		if (relation == null || relation == Operator.NE) {
+			return false;
+		}
+		final Constraint difference = toDifference(e);
+		if (difference == null) {
+			return false;
+		}
+		final Primitive x = difference.pos;
+		final Primitive y = difference.neg;
+		final long k = difference.bound;
+		switch (relation) {
+		case LE:
+			constraints.add(new Constraint(x, y, k));
+			break;
+		case LT:
+			constraints.add(new Constraint(x, y, Math.subtractExact(k, 1)));
+			break;
+		case GE:
+			constraints.add(new Constraint(y, x, Math.negateExact(k)));
+			break;
+		case GT:
+			constraints.add(new Constraint(y, x, Math.subtractExact(Math.negateExact(k), 1)));
+			break;
+		case EQ:
+			constraints.add(new Constraint(x, y, k));
+			constraints.add(new Constraint(y, x, Math.negateExact(k)));
+			break;
+		default:
+			//this should never happen
+			throw new UnexpectedInternalException("Unexpected relational operator " + relation + ".");
+		}
+		return true;
+	}
+
+	/**
+	 * Converts a predicate to a disequality.
+	 *
+	 * @param p a {@link Primitive}.
+	 * @param negated {@code true} iff the negation of {@code p} must
+	 *        be converted.
+	 * @return a {@link Constraint} {@code pos - neg <= bound} standing
+	 *         for the disequality {@code pos - neg != bound} equivalent to
+	 *         {@code p} (or to its negation), or {@code null} if {@code p}
+	 *         is not a disequality.
+	 * @throws ArithmeticException if the constant in the
+	 *         disequality cannot be represented.
+	 */
+	private Constraint toDisequality(Primitive p, boolean negated) {
+		if (!(p instanceof Expression)) {
+			return null;
+		}
+		final Expression e = (Expression) p;
+		if (e.getOperator() == Operator.NOT) {
+			return toDisequality(e.getOperand(), !negated);
+		}
+		if (relation(e, negated) != Operator.NE) {
+			return null;
+		}
+		return toDifference(e);
+	}
+
+	/**
+	 * Returns the relational operator of a comparison
+	 * between integral values.
+	 *
+	 * @param e an {@link Expression}.
+	 * @param negated {@code true} iff the operator of the negation
+	 *        of {@code e} must be returned.
+	 * @return the relational {@link Operator} of {@code e} (or of its
+	 *         negation), or {@code null} if {@code e} is not a
+	 *         comparison between integral values.
+	 */
+	private static Operator relation(Expression e, boolean negated) {
+		if (e.isUnary() || !isIntegral(e.getFirstOperand().getType())) {
+			return null;
+		}
+		switch (e.getOperator()) {
+		case EQ:
+			return (negated ? Operator.NE : Operator.EQ);
+		case NE:
+			return (negated ? Operator.EQ : Operator.NE);
+		case LE:
+			return (negated ? Operator.GT : Operator.LE);
+		case LT:
+			return (negated ? Operator.GE : Operator.LT);
+		case GE:
+			return (negated ? Operator.LT : Operator.GE);
+		case GT:
+			return (negated ? Operator.LE : Operator.GT);
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Rewrites the difference of the operands of a comparison
+	 * in the form {@code x - y - k}.
+	 *
+	 * @param e an {@link Expression}, a comparison between
+	 *        integral values.
+	 * @return a {@link Constraint} whose {@code pos}, {@code neg} and
+	 *         {@code bound} are respectively {@code x}, {@code y} and
+	 *         {@code k}, or {@code null} if the difference cannot be
+	 *         rewritten in that form.
+	 * @throws ArithmeticException if {@code k} cannot be represented.
+	 */
+	private Constraint toDifference(Expression e) {
+		final LinearForm first = linearize(e.getFirstOperand());
+		final LinearForm second = linearize(e.getSecondOperand());
+		if (first == null || second == null) {
+			return null;
+		}
+		first.add(second, -1);
+		if (first.coefficients.size() > 2) {
+			return null;
+		}
+		Primitive x = null, y = null;
+		for (Map.Entry<Primitive, Long> entry : first.coefficients.entrySet()) {
+			final long coefficient = entry.getValue();
+			if (coefficient == 1 && x == null) {
+				x = entry.getKey();
+			} else if (coefficient == -1 && y == null) {
+				y = entry.getKey();
+			} else {
+				return null;
+			}
+		}
+		return new Constraint(x, y, Math.negateExact(first.constant));
+	}
+
+	/**
+	 * Converts a {@link Primitive} to a {@link LinearForm}.
+	 *
+	 * @param p a {@link Primitive}.
+	 * @return a {@link LinearForm} equivalent to {@code p}, or
+	 *         {@code null} if {@code p} is not in the theory.
+	 * @throws ArithmeticException if some coefficient cannot be
+	 *         represented.
+	 */
+	private LinearForm linearize(Primitive p) {
+		final LinearFormVisitor v = new LinearFormVisitor();
+		try {
+			p.accept(v);
+		} catch (ArithmeticException e) {
+			throw e;
+		} catch (Exception e) {
+			//this should never happen
+			throw new UnexpectedInternalException(e);
+		}
+		return v.result;
+	}
+
+	private static boolean isIntegral(char type) {
+		return Type.isPrimitiveIntegral(type) && type != Type.BOOLEAN;
+	}
+
+	private class LinearFormVisitor implements PrimitiveVisitor {
+		LinearForm result = null;
+
+		@Override
+		public void visitAny(Any x) {
+			this.result = null;
+		}
+
+		@Override
+		public void visitExpression(Expression e) {
+			this.result = null;
+			if (DecisionProcedureIntervalAnalysis.this.boundedIntegers || !isIntegral(e.getType())) {
+				return; //arithmetic might overflow
+			}
+			final Operator operator = e.getOperator();
+			if (e.isUnary()) {
+				if (operator == Operator.NEG) {
+					final LinearForm operand = linearize(e.getOperand());
+					if (operand != null) {
+						this.result = new LinearForm();
+						this.result.add(operand, -1);
+					}
+				}
+			} else if (operator == Operator.ADD || operator == Operator.SUB) {
+				final LinearForm first = linearize(e.getFirstOperand());
+				final LinearForm second = linearize(e.getSecondOperand());
+				if (first != null && second != null) {
+					first.add(second, (operator == Operator.ADD ? 1 : -1));
+					this.result = first;
+				}
+			}
+		}
+
+		@Override
+		public void visitPrimitiveSymbolicApply(PrimitiveSymbolicApply x) {
+			visitAtom(x);
+			if (this.result != null) {
+				DecisionProcedureIntervalAnalysis.this.approximated = true;
+			}
+		}
+
+		@Override
+		public void visitPrimitiveSymbolicAtomic(PrimitiveSymbolicAtomic s) {
+			visitAtom(s);
+		}
+
+		@Override
+		public void visitTerm(Term x) {
+			visitAtom(x);
+		}
+
+		private void visitAtom(Primitive x) {
+			if (isIntegral(x.getType())) {
+				this.result = new LinearForm();
+				this.result.coefficients.put(x, 1L);
+			} else {
+				this.result = null;
+			}
+		}
+
+		@Override
+		public void visitSimplex(Simplex x) {
+			this.result = null;
+			if (isIntegral(x.getType())) {
+				final Object value = x.getActualValue();
+				this.result = new LinearForm();
+				this.result.constant = (value instanceof Character ? (long) ((Character) value).charValue() : ((Number) value).longValue());
+			}
+		}
+
+		@Override
+		public void visitNarrowingConversion(NarrowingConversion x) {
+			this.result = null;
+		}
+
+		@Override
+		public void visitWideningConversion(WideningConversion x) {
+			this.result = null;
+			if (isIntegral(x.getType()) && isIntegral(x.getArg().getType())) {
+				this.result = linearize(x.getArg()); //widening preserves the value
+			}
+		}
+	}
+}
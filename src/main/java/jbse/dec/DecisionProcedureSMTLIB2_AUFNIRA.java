@@ -19,10 +19,15 @@ import java.util.List;
  */
 public final class DecisionProcedureSMTLIB2_AUFNIRA extends DecisionProcedureExternal {
 	public DecisionProcedureSMTLIB2_AUFNIRA(DecisionProcedure next, List<String> solverCommandLine) 
+	throws InvalidInputException, DecisionException {
+		this(next, solverCommandLine, new SMTLIB2SolverPolicy());
+	}
+	
+	public DecisionProcedureSMTLIB2_AUFNIRA(DecisionProcedure next, List<String> solverCommandLine, SMTLIB2SolverPolicy policy) 
 	throws InvalidInputException, DecisionException {
 		super(next);
 		try {
-			this.extIf = new DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA(getCalculator(), solverCommandLine);
+			this.extIf = new DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA(getCalculator(), solverCommandLine, policy);
 		} catch (ExternalProtocolInterfaceException | IOException e) {
 			throw new DecisionException(e);
 		}
@@ -0,0 +1,50 @@
+package jbse.dec;
+
+import jbse.common.exc.InvalidInputException;
+import jbse.dec.exc.DecisionException;
+import jbse.dec.exc.ExternalProtocolInterfaceException;
+import jbse.val.Calculator;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A decision procedure for solvers compatible with SMTLIB 2 specification
+ * supporting the bit-vector and floating point theories and interactive 
+ * mode. Java integral types are encoded as fixed-width bit-vectors, and
+ * Java floating point types as IEEE 754 floating point numbers, so
+ * arithmetic overflows and bitwise operations are decided precisely. 
+ * 
+ * @author Pietro Braione
+ */
+public final class DecisionProcedureSMTLIB2_BV extends DecisionProcedureExternal {
+	public DecisionProcedureSMTLIB2_BV(DecisionProcedure next, List<String> solverCommandLine) 
+	throws InvalidInputException, DecisionException {
+		this(next, solverCommandLine, new SMTLIB2SolverPolicy());
+	}
+	
+	public DecisionProcedureSMTLIB2_BV(DecisionProcedure next, List<String> solverCommandLine, SMTLIB2SolverPolicy policy) 
+	throws InvalidInputException, DecisionException {
+		super(next);
+		try {
+			this.extIf = new DecisionProcedureExternalInterfaceSMTLIB2_BV(getCalculator(), solverCommandLine, policy);
+		} catch (ExternalProtocolInterfaceException | IOException e) {
+			throw new DecisionException(e);
+		}
+	}
+	
+	public DecisionProcedureSMTLIB2_BV(Calculator calc, List<String> solverCommandLine) 
+	throws InvalidInputException, DecisionException {
+		super(calc);
+		try {
+			this.extIf = new DecisionProcedureExternalInterfaceSMTLIB2_BV(getCalculator(), solverCommandLine);
+		} catch (ExternalProtocolInterfaceException | IOException e) {
+			throw new DecisionException(e);
+		}
+	}
+	
+	@Override
+	protected boolean canPopAssumptions() {
+		return true;
+	}
+}
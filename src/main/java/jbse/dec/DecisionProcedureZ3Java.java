@@ -0,0 +1,101 @@
+package jbse.dec;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
+import jbse.common.exc.InvalidInputException;
+import jbse.common.exc.UnexpectedInternalException;
+import jbse.dec.exc.DecisionException;
+import jbse.val.Calculator;
+
+/**
+ * A decision procedure that runs Z3 in the same process through
+ * its Java API, with the encoding of {@link DecisionProcedureSMTLIB2_AUFNIRA}.
+ * It needs the Z3 Java bindings ({@code com.microsoft.z3.jar}) on
+ * the classpath, and the Z3 native library on the library path;
+ * use {@link #isAvailable()} to check whether they are present.
+ *
+ * @author Pietro Braione
+ *
+ */
+public final class DecisionProcedureZ3Java extends DecisionProcedureExternal {
+	/**
+	 * The interface to Z3, that is compiled only when the Z3 Java
+	 * bindings are available, and thus is loaded reflectively.
+	 */
+	private static final String INTERFACE_CLASS_NAME = "jbse.dec.DecisionProcedureExternalInterfaceZ3Java";
+
+	/** A class of the Z3 Java bindings that loads the native library. */
+	private static final String Z3_NATIVE_CLASS_NAME = "com.microsoft.z3.Native";
+
+	/**
+	 * Checks whether the Z3 Java bindings and the Z3 native
+	 * library are available.
+	 *
+	 * @return {@code true} iff a {@link DecisionProcedureZ3Java}
+	 *         can be created.
+	 */
+	public static boolean isAvailable() {
+		try {
+			Class.forName(INTERFACE_CLASS_NAME);
+			Class.forName(Z3_NATIVE_CLASS_NAME); //initialization loads the native library
+			return true;
+		} catch (ClassNotFoundException | LinkageError e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param next the next {@link DecisionProcedure} in the chain of responsibility.
+	 * @param timeout a {@code long}, the time (in milliseconds) Z3 has
+	 *        for answering a query, or 0 for no limit.
+	 * @param resourceLimit a {@code long}, the resource limit of Z3
+	 *        for answering a query, or 0 for no limit.
+	 * @param policy a {@link SMTLIB2SolverPolicy}, stating how the queries that
+	 *        Z3 is unable to decide must be treated. Its watchdog timeout
+	 *        and fallback solver are ignored.
+	 * @throws InvalidInputException if {@code next == null}.
+	 * @throws DecisionException if the Z3 Java bindings or the Z3 native
+	 *         library are not available, or if Z3 fails.
+	 */
+	public DecisionProcedureZ3Java(DecisionProcedure next, long timeout, long resourceLimit, SMTLIB2SolverPolicy policy)
+	throws InvalidInputException, DecisionException {
+		super(next);
+		this.extIf = makeInterface(getCalculator(), timeout, resourceLimit, policy);
+	}
+
+	public DecisionProcedureZ3Java(Calculator calc, long timeout, long resourceLimit, SMTLIB2SolverPolicy policy)
+	throws InvalidInputException, DecisionException {
+		super(calc);
+		this.extIf = makeInterface(getCalculator(), timeout, resourceLimit, policy);
+	}
+
+	private static DecisionProcedureExternalInterface makeInterface(Calculator calc, long timeout, long resourceLimit, SMTLIB2SolverPolicy policy)
+	throws DecisionException {
+		try {
+			final Constructor<?> constructor =
+				Class.forName(INTERFACE_CLASS_NAME).getConstructor(Calculator.class, long.class, long.class, SMTLIB2SolverPolicy.class);
+			return (DecisionProcedureExternalInterface) constructor.newInstance(calc, timeout, resourceLimit, policy);
+		} catch (ClassNotFoundException | LinkageError e) {
+			throw new DecisionException("The Z3 Java bindings or the Z3 native library are not available: " + e.getMessage());
+		} catch (InvocationTargetException e) {
+			if (e.getCause() instanceof Exception) {
+				throw new DecisionException((Exception) e.getCause());
+			} else if (e.getCause() instanceof LinkageError) {
+				throw new DecisionException("The Z3 native library is not available: " + e.getCause().getMessage());
+			}
+			//this should never happen
+			throw new UnexpectedInternalException(e);
+		} catch (NoSuchMethodException | InstantiationException | IllegalAccessException e) {
+			//this should never happen
+			throw new UnexpectedInternalException(e);
+		}
+	}
+
+	@Override
+	protected boolean canPopAssumptions() {
+		return true;
+	}
+}
@@ -0,0 +1,343 @@
+package jbse.dec;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import jbse.common.Type;
+import jbse.val.Any;
+import jbse.val.Calculator;
+import jbse.val.Expression;
+import jbse.val.NarrowingConversion;
+import jbse.val.Operator;
+import jbse.val.Primitive;
+import jbse.val.PrimitiveSymbolic;
+import jbse.val.PrimitiveSymbolicApply;
+import jbse.val.PrimitiveSymbolicAtomic;
+import jbse.val.PrimitiveVisitor;
+import jbse.val.Simplex;
+import jbse.val.Term;
+import jbse.val.WideningConversion;
+
+/**
+ * Evaluates {@link Primitive}s under a model, i.e., an
+ * assignment of concrete values to the numeric symbols,
+ * with the Java semantics of the operators as implemented
+ * by a {@link Calculator}. Since the decision procedures 
+ * reason on unbounded integers and on reals, an evaluation 
+ * is unknown whenever an arithmetic operation or a conversion
+ * does not yield the exact result (e.g., because it overflows
+ * or rounds), so that the evaluator never contradicts the 
+ * decision procedure that produced the model.
+ *
+ * @author Pietro Braione
+ */
+final class ModelEvaluator implements PrimitiveVisitor {
+    private final Calculator calc;
+    private final Map<PrimitiveSymbolic, Simplex> model;
+    private Primitive value; //the result
+
+    /**
+     * Constructor.
+     *
+     * @param calc a {@link Calculator}. It must fold the
+     *        operations on {@link Simplex} operands.
+     * @param model a {@link Map}{@code <}{@link PrimitiveSymbolic}{@code ,}{@link Simplex}{@code >},
+     *        the model. Its values must have the same type of their symbols
+     *        (see {@link #toSymbolType(Calculator, PrimitiveSymbolic, Simplex)}).
+     */
+    ModelEvaluator(Calculator calc, Map<PrimitiveSymbolic, Simplex> model) {
+        this.calc = calc;
+        this.model = model;
+    }
+
+    /**
+     * Evaluates a boolean {@link Primitive} under the model.
+     *
+     * @param p a {@link Primitive} with boolean type.
+     * @return {@link Boolean#TRUE} or {@link Boolean#FALSE} if the model
+     *         satisfies or falsifies {@code p}, {@code null} if {@code p}
+     *         cannot be evaluated (e.g., because it contains a symbol
+     *         not in the model, or an uninterpreted function).
+     */
+    Boolean evalBoolean(Primitive p) {
+        try {
+            p.accept(this);
+        } catch (Exception e) {
+            //e.g., a division by zero
+            return null;
+        }
+        if (this.value instanceof Simplex && this.value.getType() == Type.BOOLEAN) {
+            return (Boolean) ((Simplex) this.value).getActualValue();
+        }
+        return null;
+    }
+
+    /**
+     * Converts a value of a model, as returned by a decision procedure
+     * (that may encode all the integral types with one type, and all the
+     * floating point types with another one), to the type of its symbol.
+     *
+     * @param calc a {@link Calculator}.
+     * @param symbol a {@link PrimitiveSymbolic}.
+     * @param value the {@link Simplex} value of {@code symbol}.
+     * @return a {@link Simplex} with the type of {@code symbol}, or
+     *         {@code null} if {@code value} is out of the range of
+     *         the type of {@code symbol}.
+     */
+    static Simplex toSymbolType(Calculator calc, PrimitiveSymbolic symbol, Simplex value) {
+        final char type = symbol.getType();
+        if (value.getType() == type) {
+            return value;
+        }
+        final Object actualValue = value.getActualValue();
+        if (type == Type.FLOAT || type == Type.DOUBLE) {
+            if (!(actualValue instanceof Number)) {
+                return null;
+            }
+            final double d = ((Number) actualValue).doubleValue();
+            return (type == Type.FLOAT ? calc.valFloat((float) d) : calc.valDouble(d));
+        }
+        final long l;
+        if (actualValue instanceof Long || actualValue instanceof Integer ||
+            actualValue instanceof Short || actualValue instanceof Byte) {
+            l = ((Number) actualValue).longValue();
+        } else if (actualValue instanceof Character) {
+            l = ((Character) actualValue).charValue();
+        } else if (actualValue instanceof Double || actualValue instanceof Float) {
+            final double d = ((Number) actualValue).doubleValue();
+            if (d != Math.rint(d) || d < Long.MIN_VALUE || d > Long.MAX_VALUE) {
+                return null;
+            }
+            l = (long) d;
+        } else {
+            return null;
+        }
+        switch (type) {
+        case Type.BOOLEAN:
+            return (l == 0 || l == 1 ? calc.valBoolean(l == 1) : null);
+        case Type.BYTE:
+            return (l == (byte) l ? calc.valByte((byte) l) : null);
+        case Type.SHORT:
+            return (l == (short) l ? calc.valShort((short) l) : null);
+        case Type.CHAR:
+            return (l == (char) l ? calc.valChar((char) l) : null);
+        case Type.INT:
+            return (l == (int) l ? calc.valInt((int) l) : null);
+        case Type.LONG:
+            return calc.valLong(l);
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * Restricts a model to some symbols.
+     *
+     * @param model a {@link Map}{@code <}{@link PrimitiveSymbolic}{@code ,}{@link Simplex}{@code >},
+     *        the model.
+     * @param symbols a {@link Collection}{@code <}{@link PrimitiveSymbolic}{@code >}, 
+     *        the symbols to keep, or {@code null} for all the symbols.
+     * @return {@code model} if {@code symbols == null}, otherwise a new
+     *         {@link Map} with the entries of {@code model} whose keys 
+     *         are in {@code symbols}.
+     */
+    static Map<PrimitiveSymbolic, Simplex> restrict(Map<PrimitiveSymbolic, Simplex> model, Collection<? extends PrimitiveSymbolic> symbols) {
+        if (symbols == null) {
+            return model;
+        }
+        final HashMap<PrimitiveSymbolic, Simplex> retVal = new HashMap<>();
+        for (PrimitiveSymbolic symbol : symbols) {
+            final Simplex value = model.get(symbol);
+            if (value != null) {
+                retVal.put(symbol, value);
+            }
+        }
+        return retVal;
+    }
+
+    @Override
+    public void visitAny(Any x) {
+        this.value = null;
+    }
+
+    @Override
+    public void visitExpression(Expression e) throws Exception {
+        if (e.isUnary()) {
+            e.getOperand().accept(this);
+            final Primitive operandValue = this.value;
+            if (!(operandValue instanceof Simplex)) {
+                this.value = null;
+                return;
+            }
+            this.value = this.calc.push(operandValue).applyUnary(e.getOperator()).pop();
+            if (!(this.value instanceof Simplex) || !isExact(e.getOperator(), (Simplex) operandValue, null, (Simplex) this.value)) {
+                this.value = null;
+            }
+        } else {
+            e.getFirstOperand().accept(this);
+            final Primitive firstOperandValue = this.value;
+            if (!(firstOperandValue instanceof Simplex)) {
+                this.value = null;
+                return;
+            }
+            e.getSecondOperand().accept(this);
+            final Primitive secondOperandValue = this.value;
+            if (!(secondOperandValue instanceof Simplex)) {
+                this.value = null;
+                return;
+            }
+            this.value = this.calc.push(firstOperandValue).applyBinary(e.getOperator(), secondOperandValue).pop();
+            if (!(this.value instanceof Simplex) || !isExact(e.getOperator(), (Simplex) firstOperandValue, (Simplex) secondOperandValue, (Simplex) this.value)) {
+                this.value = null;
+            }
+        }
+    }
+
+    /**
+     * Checks whether the Java result of an operation is the
+     * same as the one of the operation on unbounded integers 
+     * or reals.
+     * 
+     * @param operator an {@link Operator}.
+     * @param firstOperand a {@link Simplex}, the first (or only) 
+     *        operand of {@code operator}.
+     * @param secondOperand a {@link Simplex}, the second operand 
+     *        of {@code operator}, or {@code null} if it is unary.
+     * @param result a {@link Simplex}, the result of the Java
+     *        operation.
+     * @return {@code false} iff {@code operator} is arithmetic 
+     *         and {@code result} is not exact.
+     */
+    private static boolean isExact(Operator operator, Simplex firstOperand, Simplex secondOperand, Simplex result) {
+        if (operator != Operator.ADD && operator != Operator.SUB && operator != Operator.MUL &&
+            operator != Operator.DIV && operator != Operator.REM && operator != Operator.NEG) {
+            return true;
+        }
+        final BigDecimal first = toBigDecimal(firstOperand);
+        final BigDecimal second = (secondOperand == null ? null : toBigDecimal(secondOperand));
+        final BigDecimal actual = toBigDecimal(result);
+        if (first == null || (secondOperand != null && second == null) || actual == null) {
+            return false;
+        }
+        final BigDecimal exact;
+        if (operator == Operator.ADD) {
+            exact = first.add(second);
+        } else if (operator == Operator.SUB) {
+            exact = first.subtract(second);
+        } else if (operator == Operator.MUL) {
+            exact = first.multiply(second);
+        } else if (operator == Operator.NEG) {
+            exact = first.negate();
+        } else if (Type.isPrimitiveIntegral(result.getType())) {
+            //Java truncates the quotient, the integer div and mod
+            //of the decision procedures leave a nonnegative remainder: 
+            //they agree when the dividend is nonnegative (this also
+            //excludes the overflow of MIN_VALUE / -1)
+            return (first.signum() >= 0);
+        } else if (operator == Operator.DIV) {
+            return (actual.multiply(second).compareTo(first) == 0);
+        } else { //floating point REM
+            return false;
+        }
+        return (exact.compareTo(actual) == 0);
+    }
+
+    /**
+     * Checks whether the Java result of a conversion is the
+     * same as the one of the conversion on unbounded integers 
+     * or reals.
+     * 
+     * @param arg the {@link Simplex} argument of the conversion.
+     * @param result the {@link Simplex} result of the conversion.
+     * @return {@code true} iff {@code result} is the exact value
+     *         of {@code arg}, or its truncation toward zero if 
+     *         {@code arg} is floating point and {@code result} is 
+     *         integral.
+     */
+    private static boolean isExactConversion(Simplex arg, Simplex result) {
+        if (arg.getType() == Type.BOOLEAN || result.getType() == Type.BOOLEAN) {
+            return true;
+        }
+        final BigDecimal argValue = toBigDecimal(arg);
+        final BigDecimal resultValue = toBigDecimal(result);
+        if (argValue == null || resultValue == null) {
+            return false;
+        }
+        final BigDecimal exact = (Type.isPrimitiveIntegral(result.getType()) ? argValue.setScale(0, RoundingMode.DOWN) : argValue);
+        return (exact.compareTo(resultValue) == 0);
+    }
+
+    /**
+     * Converts a numeric {@link Simplex} to a {@link BigDecimal}.
+     * 
+     * @param x a {@link Simplex}.
+     * @return the exact value of {@code x} as a {@link BigDecimal}, 
+     *         or {@code null} if {@code x} is not numeric, or is
+     *         an infinity or a NaN.
+     */
+    private static BigDecimal toBigDecimal(Simplex x) {
+        final Object actualValue = x.getActualValue();
+        if (actualValue instanceof Character) {
+            return BigDecimal.valueOf(((Character) actualValue).charValue());
+        } else if (actualValue instanceof Double || actualValue instanceof Float) {
+            final double d = ((Number) actualValue).doubleValue();
+            return (Double.isNaN(d) || Double.isInfinite(d) ? null : new BigDecimal(d));
+        } else if (actualValue instanceof Number) {
+            return BigDecimal.valueOf(((Number) actualValue).longValue());
+        } else {
+            return null;
+        }
+    }
+
+    @Override
+    public void visitPrimitiveSymbolicApply(PrimitiveSymbolicApply x) {
+        //uninterpreted functions are usually not in the model
+        this.value = this.model.get(x);
+    }
+
+    @Override
+    public void visitPrimitiveSymbolicAtomic(PrimitiveSymbolicAtomic s) {
+        this.value = this.model.get(s);
+    }
+
+    @Override
+    public void visitSimplex(Simplex x) {
+        this.value = x;
+    }
+
+    @Override
+    public void visitTerm(Term x) {
+        this.value = null;
+    }
+
+    @Override
+    public void visitNarrowingConversion(NarrowingConversion x) throws Exception {
+        x.getArg().accept(this);
+        if (this.value instanceof Simplex) {
+            final Simplex arg = (Simplex) this.value;
+            this.value = this.calc.push(arg).narrow(x.getType()).pop();
+            if (!(this.value instanceof Simplex) || !isExactConversion(arg, (Simplex) this.value)) {
+                this.value = null;
+            }
+        } else {
+            this.value = null;
+        }
+    }
+
+    @Override
+    public void visitWideningConversion(WideningConversion x) throws Exception {
+        x.getArg().accept(this);
+        if (this.value instanceof Simplex) {
+            final Simplex arg = (Simplex) this.value;
+            this.value = (x.getType() == arg.getType() ? arg : this.calc.push(arg).widen(x.getType()).pop());
+            if (!(this.value instanceof Simplex) || !isExactConversion(arg, (Simplex) this.value)) {
+                this.value = null;
+            }
+        } else {
+            this.value = null;
+        }
+    }
+}
@@ -1,9 +1,15 @@
 package jbse.dec;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 
 /**
- * Union-find partition data structure.
+ * Union-find partition data structure. It is backtrackable:
+ * {@link #mark()} returns a point in the history of the
+ * partition, and {@link #backtrack(int)} undoes all the
+ * changes done after it, at a cost proportional to the
+ * number of the undone changes. For this reason it does not
+ * compress paths, and relies on union by rank only.
  * 
  * @author Pietro Braione
  */
@@ -24,7 +30,44 @@ class Partition<X> {
 			return ">" + this.parent.element.toString() +"(r" + this.rank + ")";
 		}
 	}
+
+	/**
+	 * A change to the partition, either the creation
+	 * of a node or the union of two partitions.
+	 *
+	 * @author Pietro Braione
+	 */
+	private class Change {
+		/** The created node, or {@code null} if this is a union. */
+		private final PartitionNode created;
+
+		/** The root that was linked to {@link #higher}. */
+		private final PartitionNode lower;
+
+		/** The root to which {@link #lower} was linked. */
+		private final PartitionNode higher;
+
+		/** Whether the rank of {@link #higher} was incremented. */
+		private final boolean rankIncremented;
+
+		Change(PartitionNode created) {
+			this.created = created;
+			this.lower = this.higher = null;
+			this.rankIncremented = false;
+		}
+
+		Change(PartitionNode lower, PartitionNode higher, boolean rankIncremented) {
+			this.created = null;
+			this.lower = lower;
+			this.higher = higher;
+			this.rankIncremented = rankIncremented;
+		}
+	}
+
 	private final LinkedHashMap<X, PartitionNode> nodes = new LinkedHashMap<>();
+
+	/** The changes done since the last reset, in order. */
+	private final ArrayList<Change> trail = new ArrayList<>();
 	
 	void union(X elemFirst, X elemSecond) {
 		if (elemFirst.equals(elemSecond)) {
@@ -35,7 +78,11 @@ class Partition<X> {
 		final boolean firstShorter = (firstLength < secondLength);
 		final PartitionNode partitionFirst = (firstShorter ? rootNode(elemFirst) : rootNode(elemSecond));
 		final PartitionNode partitionSecond = (firstShorter ? rootNode(elemSecond) : rootNode(elemFirst));
+		if (partitionFirst == partitionSecond) {
+			return;
+		}
 		final PartitionNode partitionLower, partitionHigher; 
+		boolean rankIncremented = false;
 		if (partitionFirst.rank < partitionSecond.rank) {
 			partitionLower = partitionFirst;
 			partitionHigher = partitionSecond;
@@ -44,9 +91,11 @@ class Partition<X> {
 			partitionHigher = partitionFirst;
 			if (partitionLower.rank == partitionHigher.rank) {
 				++partitionHigher.rank;
+				rankIncremented = true;
 			}
 		}
 		partitionLower.parent = partitionHigher;
+		this.trail.add(new Change(partitionLower, partitionHigher, rankIncremented));
 	}
 	
 	X find (X elem) {
@@ -54,18 +103,54 @@ class Partition<X> {
 		if (node == null) {
 			return elem;
 		}
-		return findRootAndCompress(node).element;
+		return findRoot(node).element;
+	}
+
+	/**
+	 * Returns the current point in the history of
+	 * the partition.
+	 *
+	 * @return an {@code int}, to be passed to
+	 *         {@link #backtrack(int)}.
+	 */
+	int mark() {
+		return this.trail.size();
+	}
+
+	/**
+	 * Undoes all the changes done after a point
+	 * in the history of the partition.
+	 *
+	 * @param mark an {@code int} previously returned
+	 *        by {@link #mark()}, and not invalidated by
+	 *        a subsequent {@link #backtrack(int)} to a
+	 *        previous point or by {@link #reset()}.
+	 */
+	void backtrack(int mark) {
+		for (int i = this.trail.size() - 1; i >= mark; --i) {
+			final Change change = this.trail.remove(i);
+			if (change.created == null) {
+				change.lower.parent = change.lower;
+				if (change.rankIncremented) {
+					--change.higher.rank;
+				}
+			} else {
+				this.nodes.remove(change.created.element);
+			}
+		}
 	}
 	
 	void reset() {
 		this.nodes.clear();
+		this.trail.clear();
 	}
 
-	private PartitionNode findRootAndCompress(PartitionNode node) {
-		if (node.parent != node) {
-			node.parent = findRootAndCompress(node.parent);
+	private PartitionNode findRoot(PartitionNode node) {
+		PartitionNode retVal = node;
+		while (retVal.parent != retVal) {
+			retVal = retVal.parent;
 		}
-		return node.parent;
+		return retVal;
 	}
 	
 	private PartitionNode rootNode(X elem) {
@@ -73,8 +158,9 @@ class Partition<X> {
 		if (elemNode == null) {
 			elemNode = new PartitionNode(elem);
 			this.nodes.put(elem, elemNode);
+			this.trail.add(new Change(elemNode));
 		}
-		return findRootAndCompress(elemNode);
+		return findRoot(elemNode);
 	}
 	
 }
@@ -0,0 +1,240 @@
+package jbse.dec;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * A cache of the conflicts learned from the unsat cores of
+ * the queries to an SMT-LIB 2 solver. A conflict is a set of
+ * assertions that is unsatisfiable; a query is unsatisfiable
+ * if, together with the assertions pushed on the solver, it
+ * contains a conflict. The assertions are named after their
+ * position in the assertion stack of the solver (see
+ * {@link #scopeName()} and {@link #QUERY_NAME}), so the
+ * names in an unsat core can be mapped back to them, and
+ * are identified by their text together with the signatures
+ * of the symbols they mention. The names of the symbols are
+ * reused after a pop, possibly with different sorts, but an
+ * unsatisfiable set of assertions stays unsatisfiable when its
+ * symbols are redeclared with the same signatures, so the
+ * learned conflicts survive pops and clears. The conflicts are
+ * indexed by each of their assertions.
+ *
+ * @author Pietro Braione
+ */
+final class SMTLIB2ConflictCache {
+    /** The name of the assertion of a query. */
+    static final String QUERY_NAME = "jbse_q";
+
+    /** The prefix of the names of the pushed assertions. */
+    private static final String SCOPE_NAME_PREFIX = "jbse_a";
+
+    /**
+     * The maximum number of conflicts in the cache; when it
+     * is reached the cache is emptied.
+     */
+    static final int CAPACITY = 10_000;
+
+    private final SMTLIB2SolverPolicy policy;
+
+    /** The symbols declared to the solver. */
+    private final SMTLIB2SymbolTable symbolTable;
+
+    /** The keys (see {@link #key(String)}) of the pushed assertions, in push order. */
+    private final ArrayList<String> scope = new ArrayList<>();
+
+    /**
+     * The number of occurrences in {@link #scope} of
+     * each key.
+     */
+    private final HashMap<String, Integer> inScope = new HashMap<>();
+
+    /** Maps each key to the conflicts containing it. */
+    private final HashMap<String, List<String[]>> conflicts = new HashMap<>();
+
+    /** The number of conflicts in the cache. */
+    private int size = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param policy the {@link SMTLIB2SolverPolicy}, where
+     *        the statistics of the cache are recorded.
+     * @param symbolTable the {@link SMTLIB2SymbolTable} of
+     *        the symbols declared to the solver. When an
+     *        assertion is passed to this cache all the 
+     *        symbols it mentions must be declared in it.
+     */
+    SMTLIB2ConflictCache(SMTLIB2SolverPolicy policy, SMTLIB2SymbolTable symbolTable) {
+        this.policy = policy;
+        this.symbolTable = symbolTable;
+    }
+
+    /**
+     * Returns the key of an assertion, i.e., its text 
+     * preceded by the signatures of the symbols it 
+     * mentions, in order of first occurrence.
+     *
+     * @param assertion a {@link String}, the text of
+     *        an assertion.
+     * @return a {@link String}.
+     */
+    private String key(String assertion) {
+        final StringBuilder key = new StringBuilder();
+        final HashSet<Integer> mentioned = new HashSet<>();
+        final char[] buf = assertion.toCharArray();
+        int i = 0;
+        while (i < buf.length) {
+            final char c = buf[i];
+            if (c == '(' || c == ')' || Character.isWhitespace(c)) {
+                ++i;
+                continue;
+            }
+            final int start = i;
+            if (c == '|') {
+                //quoted symbol
+                do {
+                    ++i;
+                } while (i < buf.length && buf[i] != '|');
+                ++i;
+            } else {
+                while (i < buf.length && buf[i] != '(' && buf[i] != ')' && !Character.isWhitespace(buf[i])) {
+                    ++i;
+                }
+            }
+            final int id = this.symbolTable.lookup(buf, start, Math.min(i, buf.length) - start);
+            if (id >= 0 && mentioned.add(id)) {
+                key.append(this.symbolTable.signature(id));
+                key.append('\n');
+            }
+        }
+        key.append(assertion);
+        return key.toString();
+    }
+
+    /**
+     * Returns the name of the next assertion to push.
+     *
+     * @return a {@link String}.
+     */
+    String scopeName() {
+        return SCOPE_NAME_PREFIX + this.scope.size();
+    }
+
+    /**
+     * Records that an assertion was pushed on the solver
+     * with name {@link #scopeName()}.
+     *
+     * @param assertion a {@link String}, the text of the
+     *        pushed assertion.
+     */
+    void push(String assertion) {
+        final String key = key(assertion);
+        this.scope.add(key);
+        this.inScope.merge(key, 1, Integer::sum);
+    }
+
+    /**
+     * Records that assertions were popped from the solver.
+     *
+     * @param n an {@code int}, the number of popped assertions.
+     */
+    void pop(int n) {
+        for (int i = 0; i < n; ++i) {
+            final String key = this.scope.remove(this.scope.size() - 1);
+            this.inScope.computeIfPresent(key, (k, v) -> (v == 1 ? null : v - 1));
+        }
+    }
+
+    /**
+     * Records that all the assertions were popped from the
+     * solver. The learned conflicts are kept, since they do
+     * not depend on the declarations made in the popped scopes.
+     */
+    void clear() {
+        this.scope.clear();
+        this.inScope.clear();
+    }
+
+    /**
+     * Checks whether a query, together with the pushed
+     * assertions, contains a learned conflict.
+     *
+     * @param query a {@link String}, the text of the
+     *        assertion of the query.
+     * @return {@code true} iff the query is unsatisfiable
+     *         because it contains a learned conflict.
+     */
+    boolean isConflicting(String query) {
+        final String queryKey = key(query);
+        final List<String[]> candidates = this.conflicts.get(queryKey);
+        if (candidates == null) {
+            return false;
+        }
+        for (String[] conflict : candidates) {
+            if (contains(conflict, queryKey)) {
+                this.policy.recordConflictHit();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean contains(String[] conflict, String queryKey) {
+        for (String key : conflict) {
+            if (!key.equals(queryKey) && !this.inScope.containsKey(key)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Learns a conflict from the unsat core of a query.
+     *
+     * @param query a {@link String}, the text of the
+     *        assertion of the query.
+     * @param unsatCore a {@link List}{@code <}{@link String}{@code >},
+     *        the names of the assertions in the unsat core of
+     *        the query, or {@code null}. Unsat cores that do not
+     *        contain the query, or that contain unknown names, are
+     *        ignored.
+     */
+    void learn(String query, List<String> unsatCore) {
+        if (unsatCore == null || !unsatCore.contains(QUERY_NAME)) {
+            return;
+        }
+        final LinkedHashSet<String> conflict = new LinkedHashSet<>();
+        for (String name : unsatCore) {
+            if (name.equals(QUERY_NAME)) {
+                conflict.add(key(query));
+            } else if (name.startsWith(SCOPE_NAME_PREFIX)) {
+                final int i;
+                try {
+                    i = Integer.parseInt(name.substring(SCOPE_NAME_PREFIX.length()));
+                } catch (NumberFormatException e) {
+                    return;
+                }
+                if (i < 0 || i >= this.scope.size()) {
+                    return;
+                }
+                conflict.add(this.scope.get(i));
+            } else {
+                return;
+            }
+        }
+        if (this.size == CAPACITY) {
+            this.conflicts.clear();
+            this.size = 0;
+        }
+        final String[] conflictArray = conflict.toArray(new String[0]);
+        for (String key : conflictArray) {
+            this.conflicts.computeIfAbsent(key, k -> new ArrayList<>()).add(conflictArray);
+        }
+        ++this.size;
+        this.policy.recordConflictLearned();
+    }
+}
@@ -0,0 +1,387 @@
+package jbse.dec;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import jbse.dec.exc.ExternalProtocolInterfaceException;
+import jbse.dec.exc.NoModelException;
+import jbse.val.Primitive;
+import jbse.val.PrimitiveSymbolic;
+import jbse.val.Simplex;
+
+/**
+ * A streaming tokenizer for the SMTLIB2 s-expressions output
+ * by a solver. It reads the characters directly from the
+ * output stream of the solver, and exposes the current atom
+ * as a character buffer that can be interpreted in place,
+ * without building intermediate {@link String}s.
+ *
+ * @author Pietro Braione
+ */
+final class SMTLIB2Reader {
+    /** Token: an open parenthesis. */
+    static final int OPEN = 0;
+
+    /** Token: a close parenthesis. */
+    static final int CLOSE = 1;
+
+    /** Token: an atom (symbol, numeral, decimal, string...). */
+    static final int ATOM = 2;
+
+    /** Token: the end of the stream. */
+    static final int END = 3;
+
+    /**
+     * Interprets the value of a symbol in a model.
+     *
+     * @author Pietro Braione
+     */
+    @FunctionalInterface
+    interface ValueInterpreter {
+        /**
+         * Interprets a value.
+         *
+         * @param reader the {@link SMTLIB2Reader} from which the value
+         *        must be read. On return all the tokens of the value,
+         *        and only them, must have been consumed.
+         * @param token the first token of the value, already read.
+         * @param type a {@code char}, the type of the symbol.
+         * @return the interpretation of the value as a {@link Simplex},
+         *         or {@code null} if the value cannot be interpreted.
+         * @throws IOException if reading from the solver fails.
+         */
+        Simplex interpret(SMTLIB2Reader reader, int token, char type) throws IOException;
+    }
+
+    private final Reader in;
+
+    /** The buffer containing the current atom. */
+    private char[] atom = new char[64];
+
+    /** The length of the current atom. */
+    private int atomLength = 0;
+
+    /** A character read in advance, or -2 if none. */
+    private int lookahead = -2;
+
+    /** The current nesting level of parentheses. */
+    private int nestingLevel = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param in the {@link Reader} of the output of the
+     *        solver.
+     */
+    SMTLIB2Reader(Reader in) {
+        this.in = in;
+    }
+
+    private int read() throws IOException {
+        if (this.lookahead != -2) {
+            final int retVal = this.lookahead;
+            this.lookahead = -2;
+            return retVal;
+        }
+        return this.in.read();
+    }
+
+    private void append(int c) {
+        if (this.atomLength == this.atom.length) {
+            this.atom = Arrays.copyOf(this.atom, 2 * this.atomLength);
+        }
+        this.atom[this.atomLength++] = (char) c;
+    }
+
+    /**
+     * Reads the next token.
+     *
+     * @return one of {@link #OPEN}, {@link #CLOSE},
+     *         {@link #ATOM}, {@link #END}.
+     * @throws IOException if reading from the solver fails.
+     */
+    int next() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c >= 0 && Character.isWhitespace(c));
+        if (c < 0) {
+            return END;
+        } else if (c == '(') {
+            ++this.nestingLevel;
+            return OPEN;
+        } else if (c == ')') {
+            --this.nestingLevel;
+            return CLOSE;
+        }
+        this.atomLength = 0;
+        if (c == '|') {
+            //quoted symbol, unquoted
+            while ((c = read()) >= 0 && c != '|') {
+                append(c);
+            }
+        } else if (c == '"') {
+            //string literal, quotes are kept
+            append(c);
+            while ((c = read()) >= 0) {
+                append(c);
+                if (c == '"') {
+                    final int d = read();
+                    if (d == '"') {
+                        append(d); //escaped double quote
+                    } else {
+                        this.lookahead = d;
+                        break;
+                    }
+                }
+            }
+        } else {
+            append(c);
+            while ((c = read()) >= 0 && !Character.isWhitespace(c) && c != '(' && c != ')' && c != '|' && c != '"') {
+                append(c);
+            }
+            this.lookahead = c;
+        }
+        return ATOM;
+    }
+
+    /**
+     * Reads the answer of the solver to a {@code get-value}
+     * command, i.e., a list of {@code (<symbol> <value>)} pairs.
+     * On return the whole answer has been consumed, up to the
+     * end of its last line.
+     *
+     * @param table the {@link SMTLIB2SymbolTable} of the declared symbols.
+     * @param interpreter the {@link ValueInterpreter} for the values.
+     * @return a {@link Map}{@code <}{@link PrimitiveSymbolic}{@code ,}
+     *         {@link Simplex}{@code >} associating the values to the
+     *         {@link PrimitiveSymbolic}s the symbols stand for. The
+     *         symbols not standing for a {@link PrimitiveSymbolic} are
+     *         skipped.
+     * @throws NoModelException if the answer is an error or is malformed.
+     * @throws ExternalProtocolInterfaceException if some value 
+     *         cannot be interpreted.
+     * @throws IOException if reading from the solver fails.
+     */
+    Map<PrimitiveSymbolic, Simplex> readModel(SMTLIB2SymbolTable table, ValueInterpreter interpreter)
+    throws NoModelException, ExternalProtocolInterfaceException, IOException {
+        final HashMap<PrimitiveSymbolic, Simplex> model = new HashMap<>();
+        try {
+            if (next() != OPEN) {
+                throw new NoModelException();
+            }
+            int token = next();
+            if (token == ATOM && atomIs("error")) {
+                throw new NoModelException();
+            }
+            while (token == OPEN) {
+                if (next() != ATOM) {
+                    throw new NoModelException();
+                }
+                final int id = atomLookup(table);
+                final Primitive symbol = (id < 0 ? null : table.primitive(id));
+                if (symbol instanceof PrimitiveSymbolic) {
+                    final Simplex value = interpreter.interpret(this, next(), symbol.getType());
+                    if (value == null) {
+                        throw new ExternalProtocolInterfaceException("Unable to interpret the value of symbol " + symbol.toString() + " returned by the solver.");
+                    }
+                    model.put((PrimitiveSymbolic) symbol, value);
+                    if (next() != CLOSE) {
+                        throw new NoModelException();
+                    }
+                } else {
+                    skipTo(1);
+                }
+                token = next();
+            }
+            if (token != CLOSE) {
+                throw new NoModelException();
+            }
+            return model;
+        } finally {
+            skipTo(0);
+            skipLine();
+        }
+    }
+
+    /**
+     * Returns the current nesting level of parentheses.
+     *
+     * @return an {@code int}, the number of open parentheses
+     *         read and not yet closed.
+     */
+    int nestingLevel() {
+        return this.nestingLevel;
+    }
+
+    /**
+     * Skips tokens until the nesting level of parentheses
+     * drops to a given value.
+     *
+     * @param level an {@code int}.
+     * @throws IOException if reading from the solver fails.
+     */
+    void skipTo(int level) throws IOException {
+        while (this.nestingLevel > level) {
+            if (next() == END) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Skips the rest of the current line, so the output
+     * of the solver can be read line by line again.
+     *
+     * @throws IOException if reading from the solver fails.
+     */
+    void skipLine() throws IOException {
+        int c = read();
+        while (c >= 0 && c != '\n') {
+            c = read();
+        }
+        this.nestingLevel = 0;
+    }
+
+    /**
+     * Returns the current atom.
+     *
+     * @return a {@link String}; use the other accessors for
+     *         avoiding its construction.
+     */
+    String atom() {
+        return new String(this.atom, 0, this.atomLength);
+    }
+
+    /**
+     * Checks the current atom.
+     *
+     * @param s a {@link String}.
+     * @return {@code true} iff the current atom is {@code s}.
+     */
+    boolean atomIs(String s) {
+        if (s.length() != this.atomLength) {
+            return false;
+        }
+        for (int i = 0; i < this.atomLength; ++i) {
+            if (s.charAt(i) != this.atom[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Looks up the current atom in a symbol table.
+     *
+     * @param table a {@link SMTLIB2SymbolTable}.
+     * @return the id of the current atom in {@code table},
+     *         or -1 if it is not declared.
+     */
+    int atomLookup(SMTLIB2SymbolTable table) {
+        return table.lookup(this.atom, 0, this.atomLength);
+    }
+
+    /**
+     * Checks whether the current atom is a numeral.
+     *
+     * @return {@code true} iff the current atom is a nonempty
+     *         sequence of decimal digits.
+     */
+    boolean atomIsNumeral() {
+        return isDigits(0, 10);
+    }
+
+    /**
+     * Checks whether the current atom is a bit-vector
+     * literal.
+     *
+     * @return {@code true} iff the current atom has either
+     *         the form {@code #b<binary digits>} or the form
+     *         {@code #x<hexadecimal digits>}.
+     */
+    boolean atomIsBitVector() {
+        return this.atomLength > 2 && this.atom[0] == '#' &&
+               ((this.atom[1] == 'b' && isDigits(2, 2)) || (this.atom[1] == 'x' && isDigits(2, 16)));
+    }
+
+    private boolean isDigits(int from, int radix) {
+        if (from >= this.atomLength) {
+            return false;
+        }
+        for (int i = from; i < this.atomLength; ++i) {
+            if (Character.digit(this.atom[i], radix) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Interprets (a suffix of) the current atom as an unsigned
+     * integer.
+     *
+     * @param from the start of the digits in the current atom.
+     * @param radix the radix of the digits.
+     * @return the value of the digits, modulo 2<sup>64</sup>.
+     */
+    long atomAsBits(int from, int radix) {
+        long retVal = 0;
+        for (int i = from; i < this.atomLength; ++i) {
+            retVal = retVal * radix + Character.digit(this.atom[i], radix);
+        }
+        return retVal;
+    }
+
+    /**
+     * Interprets the current atom as a bit-vector literal.
+     *
+     * @return the bits of the current atom, that must satisfy
+     *         {@link #atomIsBitVector()}, as a {@code long}.
+     */
+    long atomBitVector() {
+        return atomAsBits(2, (this.atom[1] == 'b' ? 2 : 16));
+    }
+
+    /**
+     * Interprets the current atom as a numeral.
+     *
+     * @return the value of the current atom, that must satisfy
+     *         {@link #atomIsNumeral()}, as a {@link Long} or, if
+     *         it overflows, as a {@link Double}.
+     */
+    Number atomNumeral() {
+        long retVal = 0;
+        for (int i = 0; i < this.atomLength; ++i) {
+            final int digit = this.atom[i] - '0';
+            if (retVal > (Long.MAX_VALUE - digit) / 10) {
+                return Double.parseDouble(atom());
+            }
+            retVal = retVal * 10 + digit;
+        }
+        return retVal;
+    }
+
+    /**
+     * Interprets the current atom as an unsigned numeral
+     * with a prefix.
+     *
+     * @param prefix a {@link String}.
+     * @return {@code true} iff the current atom is {@code prefix}
+     *         followed by decimal digits, as in {@code bv42}.
+     */
+    boolean atomIsPrefixedNumeral(String prefix) {
+        if (this.atomLength <= prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); ++i) {
+            if (prefix.charAt(i) != this.atom[i]) {
+                return false;
+            }
+        }
+        return isDigits(prefix.length(), 10);
+    }
+}
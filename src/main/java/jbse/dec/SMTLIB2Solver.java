@@ -0,0 +1,552 @@
+package jbse.dec;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import jbse.dec.SMTLIB2SolverPolicy.UnknownPolicy;
+import jbse.dec.exc.ExternalProtocolInterfaceException;
+
+/**
+ * The process of an external SMTLIB2 solver in interactive
+ * mode, with print-success enabled. It keeps the scopes pushed
+ * on the assertion stack of the solver, so that when the solver
+ * hangs on a query it can be killed and restarted with the same
+ * assertion stack, and deals with the queries the solver is
+ * unable to decide as stated by a {@link SMTLIB2SolverPolicy}.
+ *
+ * @author Pietro Braione
+ */
+final class SMTLIB2Solver {
+    //commands
+    private static final String POP_BEGIN = "(pop ";
+    private static final String POP_END = ")\n";
+    private static final String POP_1 = "(pop 1)\n";
+    private static final String CHECKSAT = "(check-sat)\n";
+    private static final String GETINFO_REASON_UNKNOWN = "(get-info :reason-unknown)\n";
+    private static final String GETUNSATCORE = "(get-unsat-core)\n";
+    private static final String EXIT = "(exit)\n";
+
+    //answers
+    private static final String SUCCESS = "success";
+    private static final String SAT = "sat";
+    private static final String UNSAT = "unsat";
+    private static final String UNKNOWN = "unknown";
+
+    /** Kills the solvers that do not answer in time. */
+    private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(r -> {
+        final Thread t = new Thread(r, "SMTLIB2 solver watchdog");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final List<String> commandLine;
+
+    /** The commands sent to the solver upon start. */
+    private final String prologue;
+
+    private final SMTLIB2SolverPolicy policy;
+
+    /** Whether this is the fallback solver of another solver. */
+    private final boolean isFallback;
+
+    private Process process;
+    private BufferedReader solverIn;
+    private BufferedWriter solverOut;
+    private boolean working;
+
+    /**
+     * Set by {@link #checkSatAnswer()} when the watchdog killed
+     * the solver right after its answer was read: The answer is
+     * valid, but the solver was restarted and the query was lost.
+     */
+    private boolean answerOutlivedSolver;
+
+    /**
+     * The scopes pushed on the assertion stack of the solver
+     * after the prologue, in push order. Each scope is the
+     * sequence of commands that pushed it.
+     */
+    private final ArrayList<String> scopes = new ArrayList<>();
+
+    /** The fallback solver, created lazily. */
+    private SMTLIB2Solver fallback = null;
+
+    /** Whether the fallback solver failed. */
+    private boolean fallbackFailed = false;
+
+    /**
+     * The names in the unsat core of the last query
+     * checked with {@link #checkSat(String, boolean)},
+     * or {@code null} if none.
+     */
+    private List<String> unsatCore = null;
+
+    /**
+     * Constructor. Starts the solver.
+     *
+     * @param commandLine a {@link List}{@code <}{@link String}{@code >}, the
+     *        command line to launch the solver.
+     * @param prologue a {@link String}, the commands to send to the
+     *        solver upon start.
+     * @param policy a {@link SMTLIB2SolverPolicy}.
+     * @throws ExternalProtocolInterfaceException if the solver
+     *         does not accept the prologue.
+     * @throws IOException if the solver cannot be started.
+     */
+    SMTLIB2Solver(List<String> commandLine, String prologue, SMTLIB2SolverPolicy policy)
+    throws ExternalProtocolInterfaceException, IOException {
+        this(commandLine, prologue, policy, false);
+    }
+
+    private SMTLIB2Solver(List<String> commandLine, String prologue, SMTLIB2SolverPolicy policy, boolean isFallback)
+    throws ExternalProtocolInterfaceException, IOException {
+        this.commandLine = commandLine;
+        this.prologue = prologue;
+        this.policy = policy;
+        this.isFallback = isFallback;
+        start();
+    }
+
+    private void start() throws ExternalProtocolInterfaceException, IOException {
+        final ProcessBuilder pb = new ProcessBuilder(this.commandLine);
+        pb.redirectErrorStream(true);
+        this.process = pb.start();
+        this.solverIn = new BufferedReader(new InputStreamReader(this.process.getInputStream()));
+        this.solverOut = new BufferedWriter(new OutputStreamWriter(this.process.getOutputStream()));
+        this.working = true;
+        sendAndCheckAnswer(this.prologue);
+        for (String scope : this.scopes) {
+            sendAndCheckAnswer(scope);
+        }
+    }
+
+    private void restart() throws ExternalProtocolInterfaceException, IOException {
+        this.policy.recordRestart();
+        destroy();
+        start();
+    }
+
+    /**
+     * Checks whether the solver is working.
+     *
+     * @return {@code false} iff the last interaction with
+     *         the solver failed.
+     */
+    boolean isWorking() {
+        return this.working;
+    }
+
+    /**
+     * Pushes a scope on the assertion stack of the solver.
+     *
+     * @param scope a {@link String}, a sequence of commands
+     *        starting with {@code (push 1)} and followed by
+     *        declarations and assertions.
+     * @throws ExternalProtocolInterfaceException if the solver
+     *         does not accept {@code scope}.
+     * @throws IOException if the communication with the solver fails.
+     */
+    void pushScope(String scope) throws ExternalProtocolInterfaceException, IOException {
+        sendAndCheckAnswer(scope);
+        this.scopes.add(scope);
+    }
+
+    /**
+     * Pops scopes from the assertion stack of the solver.
+     *
+     * @param n an {@code int}, the number of scopes to pop.
+     * @throws ExternalProtocolInterfaceException if the solver
+     *         does not accept the pop.
+     * @throws IOException if the communication with the solver fails.
+     */
+    void popScopes(int n) throws ExternalProtocolInterfaceException, IOException {
+        if (n <= 0) {
+            return;
+        }
+        sendAndCheckAnswer(POP_BEGIN + n + POP_END);
+        for (int i = 0; i < n; ++i) {
+            this.scopes.remove(this.scopes.size() - 1);
+        }
+    }
+
+    /**
+     * Checks the satisfiability of a query under the
+     * current assertion stack, leaving the assertion
+     * stack unchanged.
+     *
+     * @param query a {@link String}, a scope as in
+     *        {@link #pushScope(String)}.
+     * @return {@code true} if the query is satisfiable,
+     *         {@code false} if it is not. If the solver is
+     *         unable to decide the query the result depends
+     *         on the {@link SMTLIB2SolverPolicy}.
+     * @throws ExternalProtocolInterfaceException if the solver
+     *         does not accept {@code query}.
+     * @throws IOException if the communication with the solver fails.
+     */
+    boolean checkSat(String query) throws ExternalProtocolInterfaceException, IOException {
+        return checkSat(query, false);
+    }
+
+    /**
+     * Checks the satisfiability of a query under the
+     * current assertion stack, leaving the assertion
+     * stack unchanged, and possibly gets the unsat core
+     * of the query (see {@link #unsatCore()}).
+     *
+     * @param query a {@link String}, a scope as in
+     *        {@link #pushScope(String)}.
+     * @param getUnsatCore {@code true} iff the unsat core
+     *        must be got when the solver answers that the
+     *        query is unsatisfiable. The solver must have
+     *        been started with a prologue that enables the
+     *        production of unsat cores.
+     * @return {@code true} if the query is satisfiable,
+     *         {@code false} if it is not. If the solver is
+     *         unable to decide the query the result depends
+     *         on the {@link SMTLIB2SolverPolicy}.
+     * @throws ExternalProtocolInterfaceException if the solver
+     *         does not accept {@code query}.
+     * @throws IOException if the communication with the solver fails.
+     */
+    boolean checkSat(String query, boolean getUnsatCore) throws ExternalProtocolInterfaceException, IOException {
+        this.unsatCore = null;
+        sendAndCheckAnswer(query);
+        final String answer = checkSatAnswer();
+        if (answer == null) {
+            //killed and restarted, the query was lost with the process
+            return unknown(query, true);
+        }
+        if (this.answerOutlivedSolver) {
+            //the query was lost with the process, and with it the unsat core
+            return answer.equals(SAT);
+        }
+        final boolean timeout = (answer.equals(UNKNOWN) && reasonUnknownIsTimeout());
+        if (getUnsatCore && answer.equals(UNSAT)) {
+            this.unsatCore = readUnsatCore();
+        }
+        sendAndCheckAnswer(POP_1);
+        if (answer.equals(UNKNOWN)) {
+            return unknown(query, timeout);
+        }
+        return answer.equals(SAT);
+    }
+
+    /**
+     * Checks the satisfiability of the current assertion
+     * stack, as it is necessary before reading a model.
+     *
+     * @return {@code true} iff the current assertion stack
+     *         is satisfiable; conservatively {@code false}
+     *         if the solver is unable to decide it.
+     * @throws ExternalProtocolInterfaceException if the solver
+     *         gives an unexpected answer.
+     * @throws IOException if the communication with the solver fails.
+     */
+    boolean checkSatCurrent() throws ExternalProtocolInterfaceException, IOException {
+        String answer = checkSatAnswer();
+        if (answer != null && this.answerOutlivedSolver) {
+            //the restarted solver must check again before a model can be read
+            answer = checkSatAnswer();
+            if (this.answerOutlivedSolver) {
+                answer = null;
+            }
+        }
+        if (answer == null) {
+            this.policy.recordUnknown(true);
+            return false;
+        }
+        return answer.equals(SAT);
+    }
+
+    /**
+     * Sends {@code (check-sat)} and reads the answer under
+     * the watchdog.
+     *
+     * @return the answer, or {@code null} if the watchdog
+     *         killed the solver, that was restarted, before
+     *         a decisive answer was read.
+     * @throws ExternalProtocolInterfaceException if the solver
+     *         gives an unexpected answer.
+     * @throws IOException if the communication with the solver fails.
+     */
+    private String checkSatAnswer() throws ExternalProtocolInterfaceException, IOException {
+        send(CHECKSAT);
+        this.answerOutlivedSolver = false;
+        final long watchdogTimeout = this.policy.getWatchdogTimeout();
+        final ScheduledFuture<?> watchdog;
+        final AtomicBoolean settled = new AtomicBoolean(false);
+        if (watchdogTimeout > 0) {
+            final Process process = this.process;
+            watchdog = WATCHDOG.schedule(() -> {
+                if (settled.compareAndSet(false, true)) {
+                    process.destroyForcibly();
+                }
+            }, watchdogTimeout, TimeUnit.MILLISECONDS);
+        } else {
+            watchdog = null;
+        }
+        String answer = null;
+        IOException failure = null;
+        try {
+            answer = this.solverIn.readLine();
+        } catch (IOException e) {
+            failure = e;
+        }
+
+        //once the answer is read the watchdog may not kill the
+        //solver anymore; if it did it right before, a decisive
+        //answer still wins
+        final boolean killed = (watchdog != null && !settled.compareAndSet(false, true));
+        if (watchdog != null) {
+            watchdog.cancel(false);
+        }
+        if (killed) {
+            restart();
+            if (SAT.equals(answer) || UNSAT.equals(answer)) {
+                this.answerOutlivedSolver = true;
+                return answer;
+            }
+            return null;
+        }
+        if (failure != null) {
+            this.working = false;
+            throw failure;
+        }
+        if (answer == null) {
+            this.working = false;
+            throw new IOException("failed read of solver output, premature end of stream reached, process alive: " + this.process.isAlive());
+        }
+        if (!answer.equals(SAT) && !answer.equals(UNSAT) && !answer.equals(UNKNOWN)) {
+            this.working = false;
+            throw new ExternalProtocolInterfaceException("unrecognized answer from solver when checking satisfiability. Message: " + answer);
+        }
+        return answer;
+    }
+
+    /**
+     * Returns the unsat core of the last query.
+     *
+     * @return a {@link List}{@code <}{@link String}{@code >}, the
+     *         names of the assertions in the unsat core of the
+     *         last query checked with {@link #checkSat(String, boolean) checkSat(query, true)},
+     *         or {@code null} if the solver did not answer that
+     *         the query is unsatisfiable, or if it did not
+     *         produce the unsat core.
+     */
+    List<String> unsatCore() {
+        return this.unsatCore;
+    }
+
+    private List<String> readUnsatCore() throws IOException {
+        send(GETUNSATCORE);
+        final SMTLIB2Reader reader = new SMTLIB2Reader(this.solverIn);
+        try {
+            if (reader.next() != SMTLIB2Reader.OPEN) {
+                return null;
+            }
+            final ArrayList<String> retVal = new ArrayList<>();
+            for (int t = reader.next(); t != SMTLIB2Reader.CLOSE; t = reader.next()) {
+                if (t != SMTLIB2Reader.ATOM) {
+                    return null; //e.g., an (error ...)
+                }
+                retVal.add(reader.atom());
+            }
+            return retVal;
+        } catch (IOException e) {
+            this.working = false;
+            throw e;
+        } finally {
+            reader.skipTo(0);
+            reader.skipLine();
+        }
+    }
+
+    private boolean reasonUnknownIsTimeout() throws IOException {
+        send(GETINFO_REASON_UNKNOWN);
+        final String reason = read().toLowerCase();
+        return !reason.startsWith("(error") &&
+               (reason.contains("timeout") || reason.contains("resource") || reason.contains("canceled"));
+    }
+
+    /**
+     * Applies the {@link SMTLIB2SolverPolicy} to a query
+     * the solver was unable to decide.
+     *
+     * @param query a {@link String}, the query.
+     * @param timeout {@code true} iff the solver was unable
+     *        to decide {@code query} for lack of time or
+     *        resources.
+     * @return the assumed satisfiability of {@code query}.
+     */
+    private boolean unknown(String query, boolean timeout) {
+        this.policy.recordUnknown(timeout);
+        if (this.isFallback) {
+            return false;
+        }
+        final UnknownPolicy unknownPolicy = this.policy.getUnknownPolicy();
+        if (unknownPolicy == UnknownPolicy.ASSUME_SAT) {
+            return true;
+        } else if (unknownPolicy == UnknownPolicy.RETRY && this.policy.getFallbackCommandLine() != null && !this.fallbackFailed) {
+            this.policy.recordRetry();
+            try {
+                if (this.fallback == null) {
+                    this.fallback = new SMTLIB2Solver(this.policy.getFallbackCommandLine(), this.prologue, this.policy, true);
+                }
+                this.fallback.alignScopes(this.scopes);
+                return this.fallback.checkSat(query);
+            } catch (ExternalProtocolInterfaceException | IOException e) {
+                this.fallbackFailed = true;
+                if (this.fallback != null) {
+                    this.fallback.fail();
+                    this.fallback = null;
+                }
+                return false;
+            }
+        } else { //ASSUME_UNSAT, or RETRY with no fallback
+            return false;
+        }
+    }
+
+    /**
+     * Makes the assertion stack of this solver equal to
+     * another one, by popping and pushing the scopes that
+     * differ.
+     *
+     * @param otherScopes the scopes of the other solver.
+     * @throws ExternalProtocolInterfaceException if the solver
+     *         does not accept some scope.
+     * @throws IOException if the communication with the solver fails.
+     */
+    private void alignScopes(List<String> otherScopes) throws ExternalProtocolInterfaceException, IOException {
+        int common = 0;
+        while (common < this.scopes.size() && common < otherScopes.size() &&
+               this.scopes.get(common).equals(otherScopes.get(common))) {
+            ++common;
+        }
+        popScopes(this.scopes.size() - common);
+        for (String scope : otherScopes.subList(common, otherScopes.size())) {
+            pushScope(scope);
+        }
+    }
+
+    /**
+     * Sends commands to the solver, without reading
+     * the answers.
+     *
+     * @param query a {@link String}.
+     * @throws IOException if the communication with the solver fails.
+     */
+    void send(String query) throws IOException {
+        try {
+            this.solverOut.write(query);
+            this.solverOut.flush();
+        } catch (IOException e) {
+            this.working = false;
+            throw e;
+        }
+    }
+
+    private void sendAndCheckAnswer(String query) throws ExternalProtocolInterfaceException, IOException {
+        send(query);
+        for (int i = 0; i < query.length(); ++i) {
+            if (query.charAt(i) == '\n') {
+                final String answer = read();
+                if (!answer.equals(SUCCESS)) {
+                    this.working = false;
+                    throw new ExternalProtocolInterfaceException("unexpected solver answer. Message: " + answer);
+                }
+            }
+        }
+    }
+
+    private String read() throws IOException {
+        final String answer;
+        try {
+            answer = this.solverIn.readLine();
+        } catch (IOException e) {
+            this.working = false;
+            throw e;
+        }
+        if (answer == null) {
+            this.working = false;
+            throw new IOException("failed read of solver output, premature end of stream reached, process alive: " + this.process.isAlive());
+        }
+        return answer;
+    }
+
+    /**
+     * Returns the output of the solver, e.g., for reading
+     * a model.
+     *
+     * @return a {@link Reader}.
+     */
+    Reader reader() {
+        return this.solverIn;
+    }
+
+    /**
+     * Quits the solver.
+     *
+     * @throws ExternalProtocolInterfaceException if the solver
+     *         was interrupted while quitting.
+     * @throws IOException if the communication with the solver fails.
+     */
+    void quit() throws ExternalProtocolInterfaceException, IOException {
+        this.working = false;
+        if (this.fallback != null) {
+            this.fallback.fail();
+            this.fallback = null;
+        }
+        send(EXIT);
+        while (this.solverIn.readLine() != null) {
+            //do nothing
+        }
+        this.solverIn.close();
+        this.solverOut.close();
+        try {
+            //we don't check the exit code because Z3 seems to
+            //always exit with code 1 when invoked from Java
+            this.process.waitFor();
+        } catch (InterruptedException e) {
+            throw new ExternalProtocolInterfaceException(e);
+        }
+    }
+
+    /**
+     * Kills the solver after a failure.
+     */
+    void fail() {
+        this.working = false;
+        if (this.fallback != null) {
+            this.fallback.fail();
+            this.fallback = null;
+        }
+        destroy();
+    }
+
+    private void destroy() {
+        this.process.destroyForcibly();
+        try {
+            this.solverIn.close();
+        } catch (IOException e) {
+            //do nothing
+        }
+        try {
+            this.solverOut.close();
+        } catch (IOException e) {
+            //do nothing
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package jbse.dec;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * How the SMTLIB2 decision procedures deal with queries
+ * that the solver is unable to decide, either because it
+ * answers {@code unknown} (e.g., because the query exceeds
+ * its time or resource limits) or because it hangs, and whether
+ * they learn conflicts from the unsatisfiable queries. It also
+ * keeps the statistics of these events. An object of this
+ * class can be shared by many decision procedures, also
+ * running in different threads.
+ *
+ * @author Pietro Braione
+ */
+public final class SMTLIB2SolverPolicy {
+    /**
+     * What to do when the solver answers {@code unknown}.
+     *
+     * @author Pietro Braione
+     */
+    public enum UnknownPolicy {
+        /** Assumes that the query is satisfiable. */
+        ASSUME_SAT,
+
+        /** Assumes that the query is unsatisfiable. */
+        ASSUME_UNSAT,
+
+        /**
+         * Retries the query with the fallback solver, and if
+         * also the fallback solver answers {@code unknown},
+         * assumes that the query is unsatisfiable.
+         */
+        RETRY
+    }
+
+    /**
+     * The time the solver has for answering a query before it
+     * is killed and restarted, in milliseconds, or 0 for no limit.
+     */
+    private final long watchdogTimeout;
+
+    /** What to do when the solver answers {@code unknown}. */
+    private final UnknownPolicy unknownPolicy;
+
+    /**
+     * The command line of the fallback solver for
+     * {@link UnknownPolicy#RETRY}, or {@code null}.
+     */
+    private final List<String> fallbackCommandLine;
+
+    /**
+     * Whether the unsat cores of the unsatisfiable queries
+     * are cached as conflicts, to decide in-process the
+     * subsequent queries that contain them.
+     */
+    private final boolean learnConflicts;
+
+    /** The number of {@code unknown} answers. */
+    private final AtomicLong unknowns = new AtomicLong(0);
+
+    /**
+     * The number of queries that exceeded the time or
+     * resource limits of the solver, or the watchdog timeout.
+     */
+    private final AtomicLong timeouts = new AtomicLong(0);
+
+    /** The number of solver restarts. */
+    private final AtomicLong restarts = new AtomicLong(0);
+
+    /** The number of queries retried with the fallback solver. */
+    private final AtomicLong retries = new AtomicLong(0);
+
+    /** The number of learned conflicts. */
+    private final AtomicLong conflictsLearned = new AtomicLong(0);
+
+    /** The number of queries decided by a learned conflict. */
+    private final AtomicLong conflictHits = new AtomicLong(0);
+
+    /**
+     * Constructor for the default policy: no watchdog,
+     * and {@code unknown} answers are assumed unsatisfiable.
+     */
+    public SMTLIB2SolverPolicy() {
+        this(0, UnknownPolicy.ASSUME_UNSAT, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param watchdogTimeout a {@code long}, the time (in milliseconds)
+     *        the solver has for answering a query before it is killed
+     *        and restarted, or 0 for no limit.
+     * @param unknownPolicy an {@link UnknownPolicy}.
+     * @param fallbackCommandLine a {@link List}{@code <}{@link String}{@code >},
+     *        the command line of the fallback solver for
+     *        {@link UnknownPolicy#RETRY}. If it is {@code null},
+     *        {@link UnknownPolicy#RETRY} behaves as
+     *        {@link UnknownPolicy#ASSUME_UNSAT}.
+     * @throws NullPointerException if {@code unknownPolicy == null}.
+     * @throws IllegalArgumentException if {@code watchdogTimeout < 0}.
+     */
+    public SMTLIB2SolverPolicy(long watchdogTimeout, UnknownPolicy unknownPolicy, List<String> fallbackCommandLine) {
+        this(watchdogTimeout, unknownPolicy, fallbackCommandLine, false);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param watchdogTimeout a {@code long}, the time (in milliseconds)
+     *        the solver has for answering a query before it is killed
+     *        and restarted, or 0 for no limit.
+     * @param unknownPolicy an {@link UnknownPolicy}.
+     * @param fallbackCommandLine a {@link List}{@code <}{@link String}{@code >},
+     *        the command line of the fallback solver for
+     *        {@link UnknownPolicy#RETRY}. If it is {@code null},
+     *        {@link UnknownPolicy#RETRY} behaves as
+     *        {@link UnknownPolicy#ASSUME_UNSAT}.
+     * @param learnConflicts {@code true} iff the solvers must produce
+     *        the unsat cores of the unsatisfiable queries, and cache them
+     *        as conflicts. The subsequent queries that contain a conflict
+     *        are decided unsatisfiable without querying the solver. 
+     * @throws NullPointerException if {@code unknownPolicy == null}.
+     * @throws IllegalArgumentException if {@code watchdogTimeout < 0}.
+     */
+    public SMTLIB2SolverPolicy(long watchdogTimeout, UnknownPolicy unknownPolicy, List<String> fallbackCommandLine, boolean learnConflicts) {
+        if (unknownPolicy == null) {
+            throw new NullPointerException();
+        }
+        if (watchdogTimeout < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.watchdogTimeout = watchdogTimeout;
+        this.unknownPolicy = unknownPolicy;
+        this.fallbackCommandLine = (fallbackCommandLine == null ? null : Collections.unmodifiableList(new ArrayList<>(fallbackCommandLine)));
+        this.learnConflicts = learnConflicts;
+    }
+
+    long getWatchdogTimeout() {
+        return this.watchdogTimeout;
+    }
+
+    UnknownPolicy getUnknownPolicy() {
+        return this.unknownPolicy;
+    }
+
+    List<String> getFallbackCommandLine() {
+        return this.fallbackCommandLine;
+    }
+
+    boolean getLearnConflicts() {
+        return this.learnConflicts;
+    }
+
+    void recordUnknown(boolean timeout) {
+        this.unknowns.incrementAndGet();
+        if (timeout) {
+            this.timeouts.incrementAndGet();
+        }
+    }
+
+    void recordRestart() {
+        this.restarts.incrementAndGet();
+    }
+
+    void recordRetry() {
+        this.retries.incrementAndGet();
+    }
+
+    void recordConflictLearned() {
+        this.conflictsLearned.incrementAndGet();
+    }
+
+    void recordConflictHit() {
+        this.conflictHits.incrementAndGet();
+    }
+
+    /**
+     * Returns the number of queries the solvers were
+     * unable to decide.
+     *
+     * @return a {@code long}, the number of {@code unknown}
+     *         answers, including the watchdog timeouts.
+     */
+    public long getUnknowns() {
+        return this.unknowns.get();
+    }
+
+    /**
+     * Returns the number of queries the solvers were
+     * unable to decide for lack of time or resources.
+     *
+     * @return a {@code long}, the number of queries that
+     *         exceeded the time or resource limits of the
+     *         solver, or the watchdog timeout.
+     */
+    public long getTimeouts() {
+        return this.timeouts.get();
+    }
+
+    /**
+     * Returns the number of solver restarts.
+     *
+     * @return a {@code long}, the number of times a solver
+     *         was killed by the watchdog and restarted.
+     */
+    public long getRestarts() {
+        return this.restarts.get();
+    }
+
+    /**
+     * Returns the number of queries retried with
+     * the fallback solver.
+     *
+     * @return a {@code long}.
+     */
+    public long getRetries() {
+        return this.retries.get();
+    }
+
+    /**
+     * Returns the number of conflicts learned from
+     * the unsat cores of the unsatisfiable queries.
+     *
+     * @return a {@code long}.
+     */
+    public long getConflictsLearned() {
+        return this.conflictsLearned.get();
+    }
+
+    /**
+     * Returns the number of queries decided unsatisfiable
+     * by a learned conflict, without querying the solver.
+     *
+     * @return a {@code long}.
+     */
+    public long getConflictHits() {
+        return this.conflictHits.get();
+    }
+}
@@ -0,0 +1,226 @@
+package jbse.dec;
+
+import java.util.Arrays;
+
+import jbse.val.Primitive;
+
+/**
+ * The table of the symbols declared to an SMTLIB2 solver.
+ * It assigns to each symbol a dense integer id, in order of
+ * declaration, and allows to look up the id of a symbol
+ * directly from a character buffer, without building a
+ * {@link String}. Symbols are forgotten in reverse order of
+ * declaration, as it happens when the assertion stack of the
+ * solver is popped.
+ *
+ * @author Pietro Braione
+ */
+final class SMTLIB2SymbolTable {
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** The names of the symbols, indexed by id. */
+    private String[] names = new String[INITIAL_CAPACITY];
+
+    /**
+     * The JBSE {@link Primitive}s the symbols stand for, indexed
+     * by id, or {@code null} for the symbols with no corresponding
+     * {@link Primitive} (e.g., function symbols).
+     */
+    private Primitive[] primitives = new Primitive[INITIAL_CAPACITY];
+
+    /**
+     * The signatures of the symbols, as in {@code declare-fun},
+     * indexed by id.
+     */
+    private String[] signatures = new String[INITIAL_CAPACITY];
+
+    /** The hash codes of the names of the symbols, indexed by id. */
+    private int[] hashes = new int[INITIAL_CAPACITY];
+
+    /** The next id in the same bucket, indexed by id, or -1. */
+    private int[] nextInBucket = new int[INITIAL_CAPACITY];
+
+    /** The heads of the buckets, or -1. */
+    private int[] buckets = newBuckets(INITIAL_CAPACITY);
+
+    /** The number of symbols. */
+    private int size = 0;
+
+    private static int[] newBuckets(int n) {
+        final int[] retVal = new int[n];
+        Arrays.fill(retVal, -1);
+        return retVal;
+    }
+
+    private static int hash(CharSequence name) {
+        int h = 0;
+        for (int i = 0; i < name.length(); ++i) {
+            h = 31 * h + name.charAt(i);
+        }
+        return h;
+    }
+
+    private static int hash(char[] buf, int offset, int length) {
+        int h = 0;
+        for (int i = offset; i < offset + length; ++i) {
+            h = 31 * h + buf[i];
+        }
+        return h;
+    }
+
+    private int bucket(int hash) {
+        return (hash & 0x7fffffff) % this.buckets.length;
+    }
+
+    /**
+     * Declares a symbol.
+     *
+     * @param name a {@link String}, the name of the symbol.
+     *        It must not be already declared.
+     * @param primitive the {@link Primitive} the symbol stands
+     *        for, or {@code null}.
+     * @param signature a {@link String}, the signature of the
+     *        symbol as in {@code declare-fun}.
+     * @return the id of the symbol.
+     */
+    int declare(String name, Primitive primitive, String signature) {
+        if (this.size == this.names.length) {
+            grow();
+        }
+        final int id = this.size;
+        final int hash = hash(name);
+        final int bucket = bucket(hash);
+        this.names[id] = name;
+        this.primitives[id] = primitive;
+        this.signatures[id] = signature;
+        this.hashes[id] = hash;
+        this.nextInBucket[id] = this.buckets[bucket];
+        this.buckets[bucket] = id;
+        ++this.size;
+        return id;
+    }
+
+    private void grow() {
+        final int newCapacity = 2 * this.names.length;
+        this.names = Arrays.copyOf(this.names, newCapacity);
+        this.primitives = Arrays.copyOf(this.primitives, newCapacity);
+        this.signatures = Arrays.copyOf(this.signatures, newCapacity);
+        this.hashes = Arrays.copyOf(this.hashes, newCapacity);
+        this.nextInBucket = Arrays.copyOf(this.nextInBucket, newCapacity);
+        this.buckets = newBuckets(newCapacity);
+        for (int id = 0; id < this.size; ++id) {
+            final int bucket = bucket(this.hashes[id]);
+            this.nextInBucket[id] = this.buckets[bucket];
+            this.buckets[bucket] = id;
+        }
+    }
+
+    /**
+     * Forgets the most recently declared symbols.
+     *
+     * @param newSize the number of symbols to keep.
+     */
+    void truncate(int newSize) {
+        while (this.size > newSize) {
+            --this.size;
+            //the last declared symbol is the head of its bucket
+            this.buckets[bucket(this.hashes[this.size])] = this.nextInBucket[this.size];
+            this.names[this.size] = null;
+            this.primitives[this.size] = null;
+            this.signatures[this.size] = null;
+        }
+    }
+
+    /**
+     * Forgets all the symbols.
+     */
+    void clear() {
+        truncate(0);
+    }
+
+    /**
+     * Returns the number of declared symbols.
+     *
+     * @return an {@code int}.
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Looks up a symbol.
+     *
+     * @param name a {@link String}, the name of the symbol.
+     * @return the id of the symbol, or -1 if it is not declared.
+     */
+    int lookup(String name) {
+        final int hash = hash(name);
+        for (int id = this.buckets[bucket(hash)]; id >= 0; id = this.nextInBucket[id]) {
+            if (this.hashes[id] == hash && this.names[id].equals(name)) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Looks up a symbol.
+     *
+     * @param buf a {@code char[]} containing the name of the symbol.
+     * @param offset the offset of the name in {@code buf}.
+     * @param length the length of the name.
+     * @return the id of the symbol, or -1 if it is not declared.
+     */
+    int lookup(char[] buf, int offset, int length) {
+        final int hash = hash(buf, offset, length);
+        for (int id = this.buckets[bucket(hash)]; id >= 0; id = this.nextInBucket[id]) {
+            if (this.hashes[id] == hash && sameName(this.names[id], buf, offset, length)) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean sameName(String name, char[] buf, int offset, int length) {
+        if (name.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; ++i) {
+            if (name.charAt(i) != buf[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the name of a symbol.
+     *
+     * @param id the id of a declared symbol.
+     * @return a {@link String}.
+     */
+    String name(int id) {
+        return this.names[id];
+    }
+
+    /**
+     * Returns the {@link Primitive} a symbol stands for.
+     *
+     * @param id the id of a declared symbol.
+     * @return a {@link Primitive}, or {@code null}.
+     */
+    Primitive primitive(int id) {
+        return this.primitives[id];
+    }
+
+    /**
+     * Returns the signature of a symbol.
+     *
+     * @param id the id of a declared symbol.
+     * @return a {@link String}, the signature of the
+     *         symbol as in {@code declare-fun}.
+     */
+    String signature(int id) {
+        return this.signatures[id];
+    }
+}
@@ -18,6 +18,7 @@ import jbse.algo.ExecutionContext;
 import jbse.algo.InterruptException;
 import jbse.algo.Action;
 import jbse.algo.Action_START;
+import jbse.algo.FastStepper;
 import jbse.algo.exc.CannotManageStateException;
 import jbse.bc.exc.InvalidClassFileFactoryClassException;
 import jbse.common.exc.ClasspathException;
@@ -68,6 +69,28 @@ public class Engine implements AutoCloseable {
     /** The {@link VariableObserverManager}. */
     private final VariableObserverManager vom;
 
+    /** 
+     * The {@link FastStepper} used to execute straight-line 
+     * sequences of simple bytecodes, or {@code null} if
+     * every bytecode must be executed by the full 
+     * {@link Algorithm} machinery.
+     */
+    private final FastStepper fastStepper;
+    
+    /** 
+     * The number of post-initial steps between two collections
+     * of the young generation of the heap, or {@code 0} if the 
+     * young generation must never be collected.
+     */
+    private final int gcInterval;
+
+    /** 
+     * The {@link StateMerger} that merges the states at the
+     * control flow join points, or {@code null} if the states
+     * must not be merged.
+     */
+    private final StateMerger stateMerger;
+
     //State of the execution
 
     /** The current JVM {@link State} of the symbolic execution. */
@@ -111,16 +134,36 @@ public class Engine implements AutoCloseable {
     /** The total number of {@link State}s analyzed by the {@link Engine}. */
     private long analyzedStates = 0L;
     
+    /** The number of steps since the last collection of the heap. */
+    private int stepsSinceLastGc = 0;
+    
     //Construction.
 
     /**
      * Constructor. Used by the builder.
      * 
      * @param ctx an {@link ExecutionContext}.
+     * @param vom a {@link VariableObserverManager}.
+     * @param fastStep a {@code boolean}, whether the engine 
+     *        must execute the straight-line sequences of simple,
+     *        nonbranching bytecodes in a single step.
+     * @param gcInterval an {@code int}, the number of post-initial
+     *        steps between two collections of the young generation
+     *        of the heap, or {@code 0} if the young generation must
+     *        never be collected.
+     * @param stateMerging a {@code boolean}, whether the engine
+     *        must merge the states at the control flow join points.
+     * @param stateMergingMaxJoinedValues a positive {@code int}, the 
+     *        maximum number of values that may differ in two merged 
+     *        states.
      */
-    Engine(ExecutionContext ctx, VariableObserverManager vom) {
+    Engine(ExecutionContext ctx, VariableObserverManager vom, boolean fastStep, int gcInterval, 
+           boolean stateMerging, int stateMergingMaxJoinedValues) {
         this.ctx = ctx;
         this.vom = vom;
+        this.fastStepper = (fastStep ? new FastStepper(ctx.getCalculator()) : null);
+        this.gcInterval = gcInterval;
+        this.stateMerger = (stateMerging ? new StateMerger(ctx.getCalculator(), stateMergingMaxJoinedValues) : null);
     }
 
     /**
@@ -243,7 +286,13 @@ public class Engine implements AutoCloseable {
     }
 
     /**
-     * Steps the execution.
+     * Steps the execution. If the engine was built with
+     * fast stepping enabled, and the step does not create
+     * a branch, the step also executes all the simple,
+     * nonbranching bytecodes (loads, stores, constants, 
+     * iinc, forward gotos...) that immediately follow, 
+     * without notifying the observers nor storing them
+     * in the state tree.
      * 
      * @return the {@link BranchPoint} created after the execution of the 
      *         current bytecode, allowing to resume the execution from the states 
@@ -292,6 +341,15 @@ public class Engine implements AutoCloseable {
         	this.preStepStackSize = this.currentState.getStackSize();
         	this.preStepSourceRow = (this.preStepStackSize == 0 ? -1 : this.currentState.getSourceRow());
 
+        	//possibly collects the young generation of the heap, 
+        	//so that the states cloned at the next branch do not
+        	//carry garbage
+        	if (this.gcInterval > 0 && this.currentState.phase() == Phase.POST_INITIAL && 
+        	    ++this.stepsSinceLastGc >= this.gcInterval) {
+        		this.currentState.gcYoung();
+        		this.stepsSinceLastGc = 0;
+        	}
+
         	//steps
         	Action action = (atLastPreInitialState ? 
   				             this.ctx.dispatcher.selectInit() :
@@ -325,6 +383,9 @@ public class Engine implements AutoCloseable {
         	
         	//cleans, stores and creates a branch for the initial state
     	    if (atInitialState()) {
+    	    	if (this.gcInterval > 0) {
+    	    		this.currentState.setGenerationalGc();
+    	    	}
     			this.currentState.gc();
     			this.ctx.switchInitial(this.currentState);
         		this.vom.init(this);
@@ -363,6 +424,17 @@ public class Engine implements AutoCloseable {
         	if (this.analyzedStates < Long.MAX_VALUE) { 
         		++this.analyzedStates;
         	}
+        	
+        	//possibly executes the next straight-line bytecodes
+        	if (this.fastStepper != null && retVal == null) {
+        		fastStep();
+        	}
+
+        	//possibly merges the current state with a parked one,
+        	//or parks it to wait for a sibling
+        	if (this.stateMerger != null && this.stateMerger.atJoinPoint(this.currentState)) {
+        		mergeOrPark();
+        	}
 
         	//returns
         	return retVal;
@@ -372,6 +444,91 @@ public class Engine implements AutoCloseable {
         }
     }
 
+    /**
+     * Executes the longest sequence of bytecodes, starting 
+     * from the current state's program counter, that can 
+     * be executed by {@link #fastStepper}. 
+     * 
+     * @throws ThreadStackEmptyException if the thread stack is empty.
+     * @throws FrozenStateException if the current state is frozen.
+     */
+    private void fastStep() throws ThreadStackEmptyException, FrozenStateException {
+    	while (this.currentState.phase() != Phase.INITIAL && 
+    	       !this.currentState.isStuck() && this.currentState.getStackSize() > 0 &&
+    	       (this.stateMerger == null || !this.stateMerger.atJoinPoint(this.currentState)) &&
+    	       this.fastStepper.step(this.currentState)) {
+    		this.currentState.incSequenceNumber();
+    		this.currentState.incCount();
+    		if (this.analyzedStates < Long.MAX_VALUE) { 
+    			++this.analyzedStates;
+    		}
+    	}
+    }
+
+    /**
+     * Merges the current state, that is at a join point, with 
+     * a parked state at the same join point. If no such state
+     * exists, and the next pending state is a sibling that has
+     * not yet passed the join point, parks the current state 
+     * and backtracks to the sibling. If the sibling is already
+     * at the join point, repeats.
+     * 
+     * @throws DecisionException if the decision procedure fails.
+     * @throws FrozenStateException if the current state is frozen.
+     */
+    private void mergeOrPark() throws DecisionException, FrozenStateException {
+    	do {
+    		final State merged = this.stateMerger.merge(this.currentState);
+    		if (merged != null) {
+    			this.currentState = merged;
+    			try {
+    				this.ctx.decisionProcedure.setAssumptions(this.currentState.getPathCondition());
+    			} catch (InvalidInputException e) {
+    				//this should never happen
+    				throw new UnexpectedInternalException(e);
+    			}
+    			this.currentState.resetLastPathConditionClauses();
+    			return;
+    		}
+    		if (!this.stateMerger.shouldPark(this.currentState, this.ctx.stateTree)) {
+    			return;
+    		}
+    		final BranchPoint bp = new BranchPoint();
+    		this.vom.saveObservedVariablesValues(bp);
+    		this.stateMerger.park(this.currentState, this.ctx.stateTree.getNumOfStates() - 1, bp);
+    		try {
+    			backtrack();
+    		} catch (DecisionBacktrackException e) {
+    			throw new DecisionException(e);
+    		} catch (CannotBacktrackException e) {
+    			//this should never happen
+    			throw new UnexpectedInternalException(e);
+    		}
+    	} while (this.stateMerger.atJoinPoint(this.currentState));
+    }
+
+    /**
+     * Returns the number of times two states were merged
+     * at a control flow join point.
+     * 
+     * @return a {@code long}, {@code 0L} if this engine 
+     *         does not merge states.
+     */
+    public long getMergedStates() {
+    	return (this.stateMerger == null ? 0L : this.stateMerger.getMerges());
+    }
+
+    /**
+     * Returns the number of times a state was parked 
+     * at a control flow join point to wait for a sibling.
+     * 
+     * @return a {@code long}, {@code 0L} if this engine 
+     *         does not merge states.
+     */
+    public long getParkedStates() {
+    	return (this.stateMerger == null ? 0L : this.stateMerger.getParks());
+    }
+
     /**
      * Returns the engine's current JVM state 
      * (<em>not</em> a copy).
@@ -445,10 +602,10 @@ public class Engine implements AutoCloseable {
      * Checks whether the engine can backtrack to some state.
      * 
      * @return {@code true} iff the engine has at least one 
-     *         pending backtrack point.
+     *         pending backtrack point, or a parked state.
      */
     public boolean canBacktrack() {
-        return this.ctx.stateTree.hasStates();
+        return this.ctx.stateTree.hasStates() || (this.stateMerger != null && this.stateMerger.hasParked());
     }
 
     /**
@@ -467,6 +624,24 @@ public class Engine implements AutoCloseable {
             throw new CannotBacktrackException();
         }
 
+        //resumes the last parked state if all the states
+        //that were pending when it was parked are explored
+        if (this.stateMerger != null && this.stateMerger.mustResume(this.ctx.stateTree.getNumOfStates())) {
+            final BranchPoint bp = this.stateMerger.resumeBranch();
+            try {
+                this.currentState = this.stateMerger.resume();
+                this.ctx.decisionProcedure.setAssumptions(this.currentState.getPathCondition());
+                this.currentState.resetLastPathConditionClauses();
+            } catch (DecisionException e) {
+                throw new DecisionBacktrackException(e);
+            } catch (InvalidInputException e) {
+                //this should never happen
+                throw new UnexpectedInternalException(e);
+            }
+            this.vom.restoreObservedVariablesValues(bp, true);
+            return bp;
+        }
+
         final BranchPoint bp = this.ctx.stateTree.nextBranch();
         final boolean isLast = (getNumOfStatesAtBranch(bp) == 1);
 
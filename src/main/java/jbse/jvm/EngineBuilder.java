@@ -102,7 +102,8 @@ public class EngineBuilder {
 	        //sets the observers
 	        setObservers(vom, parameters);
 	
-	        return new Engine(ctx, vom);
+	        return new Engine(ctx, vom, parameters.getFastStep(), parameters.getGcInterval(),
+	                          parameters.getStateMerging(), parameters.getStateMergingMaxJoinedValues());
     	} catch (IOException e) {
     		throw new CannotBuildEngineException(e);
     	}
@@ -120,6 +121,10 @@ public class EngineBuilder {
             ctx.addUninterpreted(new Signature(rule[0], rule[1], rule[2]));
         }
         
+        for (String[] rule : parameters.getConcreteOffload()) {
+            ctx.addConcreteOffload(new Signature(rule[0], rule[1], rule[2]));
+        }
+        
         for (String[] rule : parameters.getUninterpretedPattern()) {
             try {
 				ctx.addUninterpretedPattern(rule[0], rule[1], rule[2]);
@@ -719,6 +719,41 @@ public final class RunnerParameters implements Cloneable {
     	return this.engineParameters.getUninterpretedPattern();
     }
 
+    /**
+     * Specifies that a method has no side effects on the symbolic 
+     * state, and thus that, whenever all its parameters are constant, 
+     * it can be executed metacircularly in a single step rather than 
+     * symbolically executed. Otherwise it is symbolically executed
+     * as usual.
+     * 
+     * @param methodClassName the name of the class containing the method.
+     * @param methodDescriptor the descriptor of the method.
+     * @param methodName the name of the method.
+     * @throws NullPointerException if any of the above parameters is {@code null}.
+     */
+    public void addConcreteOffload(String methodClassName, String methodDescriptor, String methodName) {
+        this.engineParameters.addConcreteOffload(methodClassName, methodDescriptor, methodName);
+    }
+
+    /**
+     * Clears the methods set with {@link #addConcreteOffload(String, String, String) addConcreteOffload}.
+     */
+    public void clearConcreteOffload() {
+        this.engineParameters.clearConcreteOffload();
+    }
+
+    /**
+     * Returns the methods that must be executed metacircularly
+     * whenever their parameters are constant.
+     * 
+     * @return A {@link List}{@code <}{@link String}{@code []>}, 
+     *         where each array is a triple (method class name, 
+     *         method parameters, method name).
+     */
+    public List<String[]> getConcreteOffload() {
+    	return this.engineParameters.getConcreteOffload();
+    }
+
     /**
      * Sets the signature of the method which must be symbolically executed, 
      * and cancels the effect of any previous call to {@link #setStartingState(State)}.
@@ -833,6 +868,111 @@ public final class RunnerParameters implements Cloneable {
     public boolean getUseHashMapModel() {
     	return this.engineParameters.getUseHashMapModel();
     }
+    
+    /**
+     * Sets whether the engine must execute the straight-line 
+     * sequences of simple, nonbranching bytecodes (loads, 
+     * stores, constants, iinc, forward gotos...) in a single 
+     * step, bypassing the decision procedure, the state tree 
+     * and the observers.
+     * 
+     * @param fastStep a {@code boolean}. If {@code true} the 
+     *        engine will execute the straight-line sequences of
+     *        simple bytecodes in a single step; as a consequence, 
+     *        the intermediate states will not be visible.
+     */
+    public void setFastStep(boolean fastStep) {
+    	this.engineParameters.setFastStep(fastStep);
+    }
+    
+    /**
+     * Returns whether the engine must execute the straight-line 
+     * sequences of simple, nonbranching bytecodes in a single 
+     * step.
+     * 
+     * @return a {@code boolean}.
+     */
+    public boolean getFastStep() {
+    	return this.engineParameters.getFastStep();
+    }
+
+    /**
+     * Sets the interval of the collection of the young generation
+     * of the heap during the post-initial phase. The old 
+     * generation is made of all the objects that survive the 
+     * collection of the heap performed at the initial state, 
+     * and it is not scanned by the young collections.
+     * 
+     * @param gcInterval an {@code int}, the number of steps between 
+     *        two collections of the young generation. If it is 
+     *        {@code <= 0} the young generation is never collected
+     *        (the default).
+     */
+    public void setGcInterval(int gcInterval) {
+    	this.engineParameters.setGcInterval(gcInterval);
+    }
+    
+    /**
+     * Returns the interval of the collection of the young 
+     * generation of the heap during the post-initial phase.
+     * 
+     * @return an {@code int}, the number of steps between 
+     *         two collections of the young generation, or
+     *         {@code 0} if the young generation is never collected.
+     */
+    public int getGcInterval() {
+    	return this.engineParameters.getGcInterval();
+    }
+
+    /**
+     * Sets whether the engine must merge the states at the
+     * control flow join points (path merging). When two 
+     * sibling states reach the same join point with the 
+     * same heap, except for some primitive fields, and the 
+     * same stack, except for some primitive values, they are
+     * joined in a single state where the different values 
+     * are fresh symbols constrained by the path condition.
+     * The merged paths are not visible to the observers, 
+     * thus state merging is not suitable for guided 
+     * execution or test generation.
+     * 
+     * @param stateMerging a {@code boolean}. If {@code true} the 
+     *        engine will merge the states at the join points.
+     */
+    public void setStateMerging(boolean stateMerging) {
+    	this.engineParameters.setStateMerging(stateMerging);
+    }
+
+    /**
+     * Returns whether the engine must merge the states 
+     * at the control flow join points.
+     * 
+     * @return a {@code boolean}.
+     */
+    public boolean getStateMerging() {
+    	return this.engineParameters.getStateMerging();
+    }
+
+    /**
+     * Sets the maximum number of values that may differ
+     * in two merged states (see {@link #setStateMerging(boolean)}).
+     * 
+     * @param stateMergingMaxJoinedValues an {@code int}. If it 
+     *        is {@code <= 0} it is set to 1. The default is 8.
+     */
+    public void setStateMergingMaxJoinedValues(int stateMergingMaxJoinedValues) {
+    	this.engineParameters.setStateMergingMaxJoinedValues(stateMergingMaxJoinedValues);
+    }
+
+    /**
+     * Returns the maximum number of values that may differ
+     * in two merged states.
+     * 
+     * @return a positive {@code int}.
+     */
+    public int getStateMergingMaxJoinedValues() {
+    	return this.engineParameters.getStateMergingMaxJoinedValues();
+    }
 
     /**
      * Sets a timeout for execution.
@@ -0,0 +1,450 @@
+package jbse.jvm;
+
+import static jbse.bc.Offsets.GOTO_OFFSET;
+import static jbse.bc.Offsets.GOTO_W_OFFSET;
+import static jbse.bc.Offsets.IFX_OFFSET;
+import static jbse.bc.Opcodes.OP_GOTO;
+import static jbse.bc.Opcodes.OP_GOTO_W;
+import static jbse.bc.Opcodes.OP_IFEQ;
+import static jbse.bc.Opcodes.OP_IFNONNULL;
+import static jbse.bc.Opcodes.OP_IFNULL;
+import static jbse.bc.Opcodes.OP_IF_ACMPNE;
+import static jbse.bc.Opcodes.OP_JSR;
+import static jbse.bc.Opcodes.OP_JSR_W;
+import static jbse.bc.Opcodes.OP_LOOKUPSWITCH;
+import static jbse.bc.Opcodes.OP_RET;
+import static jbse.bc.Opcodes.OP_TABLESWITCH;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+
+import jbse.bc.ClassFile;
+import jbse.bc.Offsets;
+import jbse.bc.Signature;
+import jbse.common.exc.InvalidInputException;
+import jbse.common.exc.UnexpectedInternalException;
+import jbse.mem.Clause;
+import jbse.mem.ClauseAssume;
+import jbse.mem.Frame;
+import jbse.mem.MethodFrame;
+import jbse.mem.State;
+import jbse.mem.State.Phase;
+import jbse.mem.exc.FrozenStateException;
+import jbse.mem.exc.ThreadStackEmptyException;
+import jbse.tree.StateTree;
+import jbse.tree.StateTree.BranchPoint;
+import jbse.val.Calculator;
+
+/**
+ * Merges the states of an {@link Engine} at the control flow
+ * join points (path merging). A join point is the target of a
+ * forward jump in the bytecode of a method. When the current
+ * state reaches a join point, and the next pending state is
+ * a sibling that has not yet passed it, the current state is
+ * parked and the engine backtracks to the sibling; when the
+ * sibling reaches the join point, it is joined with the parked
+ * state (see {@link State#join(State, Calculator, int, int)}).
+ * A parked state that is not joined is resumed as soon as the
+ * pending states that were in the state tree when it was parked
+ * are all explored.
+ *
+ * @author Pietro Braione
+ */
+final class StateMerger {
+    /**
+     * The maximum number of clauses in the path condition
+     * of a state after the common prefix with the path
+     * condition of the state it is joined with.
+     */
+    private static final int MAX_SUFFIX_LENGTH = 8;
+
+    /** The maximum number of parked states. */
+    private static final int MAX_PARKED = 16;
+
+    /** A parked {@link State}. */
+    private static final class Parked {
+        final State state;
+
+        /**
+         * The number of states in the state tree at or
+         * below which the parked state must be resumed.
+         */
+        final int resumeThreshold;
+
+        /** The {@link BranchPoint} returned when the state is resumed. */
+        final BranchPoint branch;
+
+        Parked(State state, int resumeThreshold, BranchPoint branch) {
+            this.state = state;
+            this.resumeThreshold = resumeThreshold;
+            this.branch = branch;
+        }
+    }
+
+    /** Identifies a method. */
+    private static final class MethodKey {
+        final ClassFile classFile;
+        final Signature signature;
+
+        MethodKey(ClassFile classFile, Signature signature) {
+            this.classFile = classFile;
+            this.signature = signature;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.classFile, this.signature);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            final MethodKey other = (MethodKey) obj;
+            return this.classFile.equals(other.classFile) && this.signature.equals(other.signature);
+        }
+    }
+
+    private final Calculator calc;
+
+    /** The maximum number of values joined by a merge. */
+    private final int maxJoinedValues;
+
+    /** The join points of the methods. */
+    private final HashMap<MethodKey, BitSet> joinPoints = new HashMap<>();
+
+    /** The parked states, in park order. */
+    private final ArrayList<Parked> parked = new ArrayList<>();
+
+    /** The number of merges. */
+    private long merges = 0L;
+
+    /** The number of parked states. */
+    private long parks = 0L;
+
+    /**
+     * Constructor.
+     *
+     * @param calc a {@link Calculator}.
+     * @param maxJoinedValues a positive {@code int}, the maximum
+     *        number of values that may differ in two merged states.
+     */
+    StateMerger(Calculator calc, int maxJoinedValues) {
+        this.calc = calc;
+        this.maxJoinedValues = maxJoinedValues;
+    }
+
+    /**
+     * Checks whether a state is at a join point.
+     *
+     * @param state a {@link State}.
+     * @return {@code true} iff {@code state} is a post-initial,
+     *         not stuck state whose program counter is a join point
+     *         of the current method.
+     * @throws FrozenStateException if {@code state} is frozen.
+     */
+    boolean atJoinPoint(State state) throws FrozenStateException {
+        if (state.phase() != Phase.POST_INITIAL || state.isStuck() || state.getStackSize() == 0) {
+            return false;
+        }
+        try {
+            final Frame frame = state.getCurrentFrame();
+            if (!(frame instanceof MethodFrame)) {
+                return false;
+            }
+            final MethodKey key = new MethodKey(frame.getMethodClass(), ((MethodFrame) frame).getMethodSignature());
+            BitSet methodJoinPoints = this.joinPoints.get(key);
+            if (methodJoinPoints == null) {
+                methodJoinPoints = findJoinPoints(frame.getCode());
+                this.joinPoints.put(key, methodJoinPoints);
+            }
+            return methodJoinPoints.get(frame.getProgramCounter());
+        } catch (ThreadStackEmptyException e) {
+            //this should never happen
+            throw new UnexpectedInternalException(e);
+        }
+    }
+
+    /**
+     * Finds the targets of the forward jumps in some bytecode.
+     *
+     * @param code a {@code byte[]}, the bytecode of a method.
+     * @return a {@link BitSet} of the program counters of the
+     *         targets. It is empty if {@code code} contains
+     *         subroutines or bytecodes that cannot be decoded.
+     */
+    private static BitSet findJoinPoints(byte[] code) {
+        final BitSet retVal = new BitSet();
+        int prevPC = -1;
+        int pc = 0;
+        while (pc < code.length) {
+            final byte opcode = code[pc];
+            final int offset;
+            if ((opcode >= OP_IFEQ && opcode <= OP_IF_ACMPNE) || opcode == OP_IFNULL || opcode == OP_IFNONNULL) {
+                addForwardTarget(retVal, pc, pc + readShort(code, pc + 1));
+                offset = IFX_OFFSET;
+            } else if (opcode == OP_GOTO) {
+                addForwardTarget(retVal, pc, pc + readShort(code, pc + 1));
+                offset = GOTO_OFFSET;
+            } else if (opcode == OP_GOTO_W) {
+                addForwardTarget(retVal, pc, pc + readInt(code, pc + 1));
+                offset = GOTO_W_OFFSET;
+            } else if (opcode == OP_TABLESWITCH || opcode == OP_LOOKUPSWITCH) {
+                final int start = (pc + 4) & ~3; //skips the padding
+                if (start + 8 > code.length) {
+                    return new BitSet();
+                }
+                addForwardTarget(retVal, pc, pc + readInt(code, start));
+                final long n;
+                final int firstJump;
+                final int stride;
+                final long end;
+                if (opcode == OP_TABLESWITCH) {
+                    if (start + 12 > code.length) {
+                        return new BitSet();
+                    }
+                    n = (long) readInt(code, start + 8) - readInt(code, start + 4) + 1;
+                    firstJump = start + 12;
+                    stride = 4;
+                    end = start + 12 + 4 * n;
+                } else {
+                    n = readInt(code, start + 4);
+                    firstJump = start + 12; //the offset of the first match-offset pair
+                    stride = 8;
+                    end = start + 8 + 8 * n;
+                }
+                if (n < 0 || end > code.length) {
+                    return new BitSet();
+                }
+                for (int i = 0; i < n; ++i) {
+                    addForwardTarget(retVal, pc, pc + readInt(code, firstJump + i * stride));
+                }
+                offset = (int) end - pc;
+            } else {
+                //jsr, ret and the bytecodes that Offsets does not know
+                //end the scan, since the join points cannot be found
+                offset = Offsets.offset(code, pc, prevPC);
+                if (offset == 0 || opcode == OP_JSR || opcode == OP_JSR_W || opcode == OP_RET) {
+                    return new BitSet();
+                }
+            }
+            prevPC = pc;
+            pc += offset;
+        }
+        return retVal;
+    }
+
+    private static void addForwardTarget(BitSet joinPoints, int pc, int target) {
+        if (target > pc) {
+            joinPoints.set(target);
+        }
+    }
+
+    private static int readShort(byte[] code, int pos) {
+        return (short) (((code[pos] & 0xFF) << 8) | (code[pos + 1] & 0xFF));
+    }
+
+    private static int readInt(byte[] code, int pos) {
+        return ((code[pos] & 0xFF) << 24) | ((code[pos + 1] & 0xFF) << 16) | ((code[pos + 2] & 0xFF) << 8) | (code[pos + 3] & 0xFF);
+    }
+
+    /**
+     * Merges a state, at a join point, with a parked state
+     * at the same join point.
+     *
+     * @param state a {@link State}.
+     * @return the parked {@link State} that {@code state}
+     *         was joined into, that is no longer parked,
+     *         or {@code null} if {@code state} was not
+     *         joined with any parked state.
+     * @throws FrozenStateException if {@code state} is frozen.
+     */
+    State merge(State state) throws FrozenStateException {
+        for (int i = this.parked.size() - 1; i >= 0; --i) {
+            final State parkedState = this.parked.get(i).state;
+            try {
+                if (sameLocation(parkedState, state, true) &&
+                    parkedState.join(state, this.calc, this.maxJoinedValues, MAX_SUFFIX_LENGTH)) {
+                    this.parked.remove(i);
+                    ++this.merges;
+                    return parkedState;
+                }
+            } catch (InvalidInputException e) {
+                //this should never happen
+                throw new UnexpectedInternalException(e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether a state, at a join point, should be parked
+     * to wait for the next pending state in a state tree.
+     *
+     * @param state a {@link State}.
+     * @param tree a {@link StateTree}.
+     * @return {@code true} iff the next pending state in
+     *         {@code tree} is in the same method invocation
+     *         of {@code state} but has not yet passed its
+     *         program counter, and the path conditions of the
+     *         two states differ by few numeric assumptions.
+     * @throws FrozenStateException if {@code state} is frozen.
+     */
+    boolean shouldPark(State state, StateTree tree) throws FrozenStateException {
+        if (this.parked.size() >= MAX_PARKED || !tree.hasStates()) {
+            return false;
+        }
+        final State pending;
+        try {
+            pending = tree.getStateAtBranch(tree.nextBranch(), 0);
+        } catch (InvalidInputException e) {
+            //this should never happen
+            throw new UnexpectedInternalException(e);
+        }
+        if (pending.phase() != Phase.POST_INITIAL || pending.isStuck() || !sameLocation(state, pending, false)) {
+            return false;
+        }
+        final List<Clause> stateClauses = state.getPathCondition();
+        final List<Clause> pendingClauses = pending.getPathCondition();
+        int prefixLength = 0;
+        while (prefixLength < stateClauses.size() && prefixLength < pendingClauses.size() &&
+               stateClauses.get(prefixLength).equals(pendingClauses.get(prefixLength))) {
+            ++prefixLength;
+        }
+        return (isJoinableSuffix(stateClauses, prefixLength) && isJoinableSuffix(pendingClauses, prefixLength));
+    }
+
+    private static boolean isJoinableSuffix(List<Clause> clauses, int prefixLength) {
+        if (clauses.size() - prefixLength > MAX_SUFFIX_LENGTH) {
+            return false;
+        }
+        for (Clause c : clauses.subList(prefixLength, clauses.size())) {
+            if (!(c instanceof ClauseAssume)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether two states execute the same method
+     * invocations.
+     *
+     * @param first a {@link State}.
+     * @param second a {@link State}.
+     * @param samePC a {@code boolean}; if {@code true} the
+     *        states must be at the same program counter,
+     *        otherwise {@code second} must be at a program
+     *        counter that does not follow that of {@code first}.
+     * @return {@code true} iff {@code first} and {@code second}
+     *         have stacks of the same size, with the same
+     *         methods, and the same program counters in all the
+     *         frames except possibly the current one.
+     * @throws FrozenStateException if {@code first} or
+     *         {@code second} is frozen.
+     */
+    private static boolean sameLocation(State first, State second, boolean samePC) throws FrozenStateException {
+        final List<Frame> firstStack = first.getStack();
+        final List<Frame> secondStack = second.getStack();
+        if (firstStack.isEmpty() || firstStack.size() != secondStack.size()) {
+            return false;
+        }
+        final int top = firstStack.size() - 1;
+        for (int i = 0; i <= top; ++i) {
+            final Frame firstFrame = firstStack.get(i);
+            final Frame secondFrame = secondStack.get(i);
+            if (!(firstFrame instanceof MethodFrame) || !(secondFrame instanceof MethodFrame) ||
+                !firstFrame.getMethodClass().equals(secondFrame.getMethodClass()) ||
+                !((MethodFrame) firstFrame).getMethodSignature().equals(((MethodFrame) secondFrame).getMethodSignature())) {
+                return false;
+            }
+            final boolean pcOk = (i < top || samePC ?
+                                  firstFrame.getProgramCounter() == secondFrame.getProgramCounter() :
+                                  secondFrame.getProgramCounter() <= firstFrame.getProgramCounter());
+            if (!pcOk || firstFrame.getReturnProgramCounter() != secondFrame.getReturnProgramCounter()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parks a state.
+     *
+     * @param state the {@link State} to park.
+     * @param resumeThreshold an {@code int}; {@code state} must
+     *        be resumed when the number of states in the state tree
+     *        is at most {@code resumeThreshold}.
+     * @param branch the {@link BranchPoint} to be returned
+     *        when {@code state} is resumed.
+     */
+    void park(State state, int resumeThreshold, BranchPoint branch) {
+        this.parked.add(new Parked(state, resumeThreshold, branch));
+        ++this.parks;
+    }
+
+    /**
+     * Checks whether some state is parked.
+     *
+     * @return {@code true} iff some state is parked.
+     */
+    boolean hasParked() {
+        return !this.parked.isEmpty();
+    }
+
+    /**
+     * Checks whether the last parked state must be resumed.
+     *
+     * @param numOfStates an {@code int}, the number of states
+     *        in the state tree.
+     * @return {@code true} iff some state is parked and all
+     *         the states that were pending when the last one
+     *         was parked have been explored.
+     */
+    boolean mustResume(int numOfStates) {
+        return hasParked() && numOfStates <= this.parked.get(this.parked.size() - 1).resumeThreshold;
+    }
+
+    /**
+     * Returns the {@link BranchPoint} of the last parked state.
+     *
+     * @return a {@link BranchPoint}.
+     */
+    BranchPoint resumeBranch() {
+        return this.parked.get(this.parked.size() - 1).branch;
+    }
+
+    /**
+     * Resumes the last parked state.
+     *
+     * @return the {@link State} that is no longer parked.
+     */
+    State resume() {
+        return this.parked.remove(this.parked.size() - 1).state;
+    }
+
+    /**
+     * Returns the number of merges.
+     *
+     * @return a {@code long}.
+     */
+    long getMerges() {
+        return this.merges;
+    }
+
+    /**
+     * Returns the number of times a state was parked.
+     *
+     * @return a {@code long}.
+     */
+    long getParks() {
+        return this.parks;
+    }
+}
@@ -430,7 +430,7 @@ public final class ArrayImpl extends HeapObjektImpl implements Array {
             //this should never happen
             throw new UnexpectedInternalException(e);
         }
-        this.fields.get(this.lengthSignature).setValue(otherArray.getLength());
+        setFieldValue(this.lengthSignature, otherArray.getLength());
         try {
             final Expression indexGreaterEqualZero = (Expression) calc.push(indexFormal).ge(calc.valInt(0)).pop();
             final Expression indexLessThanLength = (Expression) calc.push(indexFormal).lt(getLength()).pop();
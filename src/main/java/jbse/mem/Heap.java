@@ -1,5 +1,8 @@
 package jbse.mem;
 
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
@@ -18,6 +21,33 @@ final class Heap implements Cloneable {
     private TreeMap<Long, HeapObjekt> objects; //nonfinal to allow cloning
     private long nextIndex;
     
+    /**
+     * The first position of the young generation: All the 
+     * objects at lower positions are in the old generation.
+     */
+    private long youngGenerationStart;
+    
+    /** 
+     * The positions of the objects in the old generation 
+     * that were accessed (thus, possibly modified) since the
+     * last promotion. Nonfinal to allow cloning.
+     */
+    private HashSet<Long> rememberedSet;
+    
+    /**
+     * Set to {@code true} when the old generation was 
+     * exposed in a way that does not allow to precisely
+     * track the accessed objects.
+     */
+    private boolean rememberedSetOverflow;
+    
+    /**
+     * Set to {@code true} when the young generation is 
+     * collected alone; otherwise the remembered set is
+     * not tracked.
+     */
+    private boolean generational;
+    
     /**
      * Constructor.
      * 
@@ -29,6 +59,10 @@ final class Heap implements Cloneable {
         this.maxHeapSize = maxHeapSize;
         this.objects = new TreeMap<>();
         this.nextIndex = Util.POS_ROOT;
+        this.youngGenerationStart = Util.POS_ROOT;
+        this.rememberedSet = new HashSet<>();
+        this.rememberedSetOverflow = false;
+        this.generational = false;
     }
 
     /**
@@ -92,6 +126,7 @@ final class Heap implements Cloneable {
      * @param item the {@link HeapObjekt} to stored at {@code pos}.
      */
     void set(long pos, HeapObjekt item) {
+        remember(pos);
         this.objects.put(pos, item);
     }
 
@@ -105,6 +140,7 @@ final class Heap implements Cloneable {
      */
     HeapObjekt getObject(long pos) {
     	if (existsAt(pos)) {
+    	    remember(pos);
     		final HeapObjekt localObjekt = this.objects.get(pos);
     		if (localObjekt == null) {
     			final HeapObjektImpl trueObjekt = getTheRealThing(pos);
@@ -141,6 +177,84 @@ final class Heap implements Cloneable {
 		}
     }
     
+    /**
+     * Gets the real {@link HeapObjektImpl} that is stored
+     * at some position, without making a wrapper for it.
+     *
+     * @param pos a {@code long}.
+     * @return the {@link HeapObjektImpl} stored at {@code pos}
+     *         (see {@link #getTheRealThing(long)}), or {@code null}
+     *         if nothing is stored at {@code pos}.
+     */
+    HeapObjektImpl getRealObject(long pos) {
+        return (existsAt(pos) ? getTheRealThing(pos) : null);
+    }
+
+    /**
+     * Returns the positions where two heaps may store
+     * different objects, i.e., the positions that were
+     * set in either heap since their nearest common
+     * ancestor in the lazy cloning chain. At all the
+     * other positions both heaps see the same objects.
+     *
+     * @param first a {@link Heap}.
+     * @param second a {@link Heap}.
+     * @return a {@link Set}{@code <}{@link Long}{@code >}, or
+     *         {@code null} if {@code first} and {@code second}
+     *         have no common ancestor.
+     */
+    static Set<Long> positionsChangedSinceCommonAncestor(Heap first, Heap second) {
+        final Set<Heap> firstChain = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Heap h = first; h != null; h = h.delegate) {
+            firstChain.add(h);
+        }
+        Heap ancestor = second;
+        while (ancestor != null && !firstChain.contains(ancestor)) {
+            ancestor = ancestor.delegate;
+        }
+        if (ancestor == null) {
+            return null;
+        }
+        final HashSet<Long> retVal = new HashSet<>();
+        for (Heap h = first; h != ancestor; h = h.delegate) {
+            retVal.addAll(h.objects.keySet());
+        }
+        for (Heap h = second; h != ancestor; h = h.delegate) {
+            retVal.addAll(h.objects.keySet());
+        }
+        return retVal;
+    }
+
+    /**
+     * Adds to the remembered set of this heap the
+     * positions in the remembered set of another heap.
+     *
+     * @param other a {@link Heap} with the same young
+     *        generation as this heap.
+     */
+    void joinRememberedSet(Heap other) {
+        if (!this.generational) {
+            return;
+        }
+        this.rememberedSet.addAll(other.rememberedSet);
+        this.rememberedSetOverflow = this.rememberedSetOverflow || other.rememberedSetOverflow;
+    }
+
+    /**
+     * Checks whether this heap has the same size and
+     * generations of another heap.
+     *
+     * @param other a {@link Heap}.
+     * @return {@code true} iff {@code this} and {@code other}
+     *         have same maximum size, next free position and
+     *         start of the young generation.
+     */
+    boolean sameLayout(Heap other) {
+        return (this.maxHeapSize == other.maxHeapSize &&
+                this.nextIndex == other.nextIndex &&
+                this.youngGenerationStart == other.youngGenerationStart);
+    }
+
     private TreeSet<Long> filledPositions() {
     	final TreeSet<Long> retVal = new TreeSet<>();
     	for (long pos : this.objects.keySet()) {
@@ -173,6 +287,10 @@ final class Heap implements Cloneable {
      * at them.
      */
     SortedMap<Long, Objekt> getObjects() {
+        //the caller might modify any object
+        if (this.youngGenerationStart > Util.POS_ROOT) {
+            this.rememberedSetOverflow = true;
+        }
     	makeAllWrappers();
         return new TreeMap<>(this.objects);
     }    
@@ -203,6 +321,109 @@ final class Heap implements Cloneable {
         }
     }
 
+    /**
+     * Deletes objects in the young generation 
+     * from this heap.
+     * 
+     * @param exceptPos a {@link Set}{@code <}{@link Long}{@code >}.
+     *        The objects at positions in {@code except}
+     *        will not be deleted, all the remaining objects
+     *        in the young generation will.
+     */
+    void disposeYoungExcept(Set<Long> exceptPos) {
+        for (long pos : filledPositionsFrom(this.youngGenerationStart)) {
+            if (exceptPos.contains(pos)) {
+                continue;
+            }
+            this.objects.put(pos, null);
+        }
+    }
+    
+    private TreeSet<Long> filledPositionsFrom(long from) {
+        final TreeSet<Long> retVal = (this.delegate == null ? new TreeSet<>() : this.delegate.filledPositionsFrom(from));
+        for (Map.Entry<Long, HeapObjekt> e : this.objects.tailMap(from).entrySet()) {
+            if (e.getValue() == null) {
+                retVal.remove(e.getKey());
+            } else {
+                retVal.add(e.getKey());
+            }
+        }
+        return retVal;
+    }
+    
+    /**
+     * Moves all the objects currently in the heap 
+     * to the old generation.
+     */
+    void promoteAll() {
+        this.youngGenerationStart = this.nextIndex;
+        this.rememberedSet = new HashSet<>();
+        this.rememberedSetOverflow = false;
+    }
+    
+    /**
+     * Enables the tracking of the remembered set, so 
+     * the young generation can be collected alone.
+     */
+    void setGenerational() {
+        this.generational = true;
+    }
+    
+    /**
+     * Checks whether the remembered set is tracked.
+     * 
+     * @return {@code true} iff {@link #setGenerational()}
+     *         was invoked.
+     */
+    boolean isGenerational() {
+        return this.generational;
+    }
+    
+    private void remember(long pos) {
+        if (this.generational && pos < this.youngGenerationStart) {
+            this.rememberedSet.add(pos);
+        }
+    }
+    
+    /**
+     * Checks whether the objects in the old generation
+     * that were accessed since the last promotion are 
+     * precisely known.
+     * 
+     * @return {@code false} iff the remembered set is
+     *         precise, so the young generation can be
+     *         collected alone.
+     */
+    boolean rememberedSetOverflow() {
+        return this.rememberedSetOverflow;
+    }
+    
+    /**
+     * Returns the positions of the objects in the old 
+     * generation that were accessed since the last 
+     * promotion. 
+     * 
+     * @return a {@link Set}{@code <}{@link Long}{@code >}.
+     *         Only the objects in the old generation
+     *         at these positions may refer objects
+     *         in the young generation.
+     */
+    Set<Long> getRememberedSet() {
+        return new HashSet<>(this.rememberedSet);
+    }
+
+    /**
+     * Checks whether an object must be scanned 
+     * when collecting the young generation.
+     * 
+     * @param pos a {@code long}, a heap position.
+     * @return {@code true} iff {@code pos} is in the
+     *         young generation or in the remembered set.
+     */
+    boolean mustScanWhenCollectingYoung(long pos) {
+        return (pos >= this.youngGenerationStart || this.rememberedSet.contains(pos));
+    }
+
     Heap lazyClone() {
         final Heap h;
         try {
@@ -213,6 +434,9 @@ final class Heap implements Cloneable {
 
         h.delegate = this;
         h.objects = new TreeMap<>();
+        if (this.generational) {
+            h.rememberedSet = new HashSet<>(this.rememberedSet);
+        } //else, it is empty and is never modified, thus can be shared
         
         return h;
     }
@@ -251,6 +475,9 @@ final class Heap implements Cloneable {
             objectsClone.put(pos, getTheRealThing(pos).clone());
         }
         h.objects = objectsClone;
+        if (this.generational) {
+            h.rememberedSet = new HashSet<>(this.rememberedSet);
+        } //else, it is empty and is never modified, thus can be shared
         
         return h;
     }
@@ -39,7 +39,7 @@ public abstract class HeapObjektImpl extends ObjektImpl implements HeapObjekt {
     @Override
     public HeapObjektImpl clone() {
     	return (HeapObjektImpl) super.clone();
-        //note that we do not clone this.fields because
+        //note that we do not clone this.fieldValues because
         //it is immutable for arrays and mutable for instances
         //so the two subclasses may either deep-copy it or share;
         //note also that the clone will have same
@@ -67,7 +67,7 @@ public abstract class InstanceImpl extends HeapObjektImpl implements Instance {
         buf.append(this.classFile);
         buf.append(", Fields:{");
         boolean isFirst = true;
-        for (Map.Entry<Signature, Variable> e : this.fields.entrySet()) {
+        for (Map.Entry<Signature, Variable> e : fields().entrySet()) {
             if (isFirst) {
                 isFirst = false;
             } else {
@@ -82,7 +82,7 @@ public abstract class InstanceImpl extends HeapObjektImpl implements Instance {
     @Override
     public InstanceImpl clone() {
         final InstanceImpl o = (InstanceImpl) super.clone();
-        o.fields = fieldsDeepCopy();
+        o.fieldValues = fieldValuesCopy();
         
         return o;
     }
@@ -45,7 +45,7 @@ public final class InstanceImpl_DEFAULT extends InstanceImpl {
     @Override
     public InstanceImpl_DEFAULT clone() {
         final InstanceImpl_DEFAULT o = (InstanceImpl_DEFAULT) super.clone();
-        o.fields = fieldsDeepCopy();
+        o.fieldValues = fieldValuesCopy();
         
         return o;
     }
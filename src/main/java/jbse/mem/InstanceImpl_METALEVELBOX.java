@@ -352,6 +352,12 @@ public final class InstanceImpl_METALEVELBOX extends InstanceImpl implements Ins
 			throw new MethodNotFoundException(methodSignature.toString());
 		}
 
+		@Override
+		public int getOperandStackMaxDepth(Signature methodSignature)
+		throws MethodNotFoundException, MethodCodeNotFoundException {
+			throw new MethodNotFoundException(methodSignature.toString());
+		}
+
 		@Override
 		public int getCodeLength(Signature methodSignature)
 		throws MethodNotFoundException, MethodCodeNotFoundException {
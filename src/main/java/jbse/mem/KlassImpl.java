@@ -62,7 +62,7 @@ public final class KlassImpl extends ObjektImpl implements Klass {
     @Override
     public KlassImpl clone() {
         final KlassImpl o = (KlassImpl) super.clone();
-        o.fields = fieldsDeepCopy();
+        o.fieldValues = fieldValuesCopy();
 
         return o;
     }
@@ -13,10 +13,6 @@ import static jbse.common.Type.REFERENCE;
 import static jbse.common.Type.TYPEEND;
 import static jbse.common.Type.UNKNOWN;
 
-import java.util.Map;
-import java.util.Set;
-import java.util.SortedMap;
-import java.util.TreeMap;
 
 import jbse.bc.LocalVariableTable;
 import jbse.bc.LocalVariableTable.Row;
@@ -31,8 +27,12 @@ class LocalVariablesArea implements Cloneable {
     /** The local variable table for the method. */
     private final LocalVariableTable lvt;
 
-    /** Values in the memory area, accessible by slot. */
-    private SortedMap<Integer, Value> values = new TreeMap<Integer, Value>();
+    /** 
+     * Values in the memory area, accessible by slot; 
+     * {@code null} marks the slots that were not written.
+     * Not final because of clone().
+     */
+    private Value[] values;
 
     /**
      * Constructor.
@@ -41,6 +41,7 @@ class LocalVariablesArea implements Cloneable {
      */
     LocalVariablesArea(LocalVariableTable lvt) {
         this.lvt = lvt;
+        this.values = new Value[lvt.getSlots()];
         //initializes all the local variables by using args
         //until exhaustion, then DefaultValue
     }
@@ -105,11 +106,11 @@ class LocalVariablesArea implements Cloneable {
         }
 
         if (nslots == 2) {
-            this.values.remove(slot + 1);
+            this.values[slot + 1] = null;
         }
 
         //stores val at slot
-        this.values.put(slot, val);
+        this.values[slot] = val;
     }
     
     private static final String REFERENCE_JAVA_OBJECT       = "" + REFERENCE + JAVA_OBJECT + TYPEEND;
@@ -140,7 +141,10 @@ class LocalVariablesArea implements Cloneable {
      * @throws InvalidSlotException if {@code slot} is not a valid slot number.
      */
     Value get(int slot) throws InvalidSlotException {
-        Value retVal = this.values.get(slot);
+        if (slot < 0 || slot >= this.values.length) {
+            throw new InvalidSlotException("Slot " + slot + " was not written.");
+        }
+        final Value retVal = this.values[slot];
 
         //the next case denotes, e.g., we wrote a cat2 value at slot x
         //and we try to read at slot x+1. 
@@ -167,14 +171,27 @@ class LocalVariablesArea implements Cloneable {
     }
 
     /**
-     * Returns all the slots of the local variable area.
+     * Returns the number of slots of the local variable area.
      * 
-     * @return a {@link Set}{@code <}{@link Integer}{@code >} 
-     *         containing all the valid slot numbers of this local variable
-     *         area.
+     * @return an {@code int}; the valid slot numbers of this local 
+     *         variable area are those between {@code 0} (included) and
+     *         the returned value (excluded) for which 
+     *         {@link #isWritten(int)} returns {@code true}.
      */
-    Set<Integer> slots() {
-        return this.values.keySet();
+    int size() {
+        return this.values.length;
+    }
+
+    /**
+     * Checks whether a slot of the local variable area 
+     * was written.
+     * 
+     * @param slot the number of a slot.
+     * @return {@code true} iff {@code slot} is a valid slot
+     *         number of this local variable area.
+     */
+    boolean isWritten(int slot) {
+        return (slot >= 0 && slot < this.values.length && this.values[slot] != null);
     }
 
     /**
@@ -226,8 +243,7 @@ class LocalVariablesArea implements Cloneable {
             throw new InternalError(e);
         }
 
-        final SortedMap<Integer, Value> valuesCopy = new TreeMap<>(this.values);        
-        o.values = valuesCopy;
+        o.values = this.values.clone();
         return o;
     }
 
@@ -235,15 +251,19 @@ class LocalVariablesArea implements Cloneable {
     public String toString() {
         final StringBuilder buf = new StringBuilder();
         buf.append("[");
-        int j = 0;
-        for (Map.Entry<Integer, Value> e : values.entrySet()) {
-            buf.append(e.getKey());
-            buf.append(":");
-            buf.append(e.getValue());
-            if (j < values.size() - 1) {
+        boolean isFirst = true;
+        for (int slot = 0; slot < this.values.length; ++slot) {
+            if (this.values[slot] == null) {
+                continue;
+            }
+            if (isFirst) {
+                isFirst = false;
+            } else {
                 buf.append(", ");
             }
-            ++j;
+            buf.append(slot);
+            buf.append(":");
+            buf.append(this.values[slot]);
         }
         buf.append("]");
         return buf.toString();
@@ -48,7 +48,7 @@ public final class MethodFrame extends Frame implements Cloneable {
         this.methodSignature = methodSignature;
         this.lnt = classMethodImpl.getLineNumberTable(methodSignature);
         this.localVariables = new LocalVariablesArea(classMethodImpl.getLocalVariableTable(methodSignature));
-        this.operandStack = new OperandStack();
+        this.operandStack = new OperandStack(classMethodImpl.getOperandStackMaxDepth(methodSignature));
     }
 
     @Override
@@ -76,7 +76,10 @@ public final class MethodFrame extends Frame implements Cloneable {
     @Override
     public SortedMap<Integer, Variable> localVariables() {
         final TreeMap<Integer, Variable> retVal = new TreeMap<>();
-        for (int slot : this.localVariables.slots()) {
+        for (int slot = 0; slot < this.localVariables.size(); ++slot) {
+            if (!this.localVariables.isWritten(slot)) {
+                continue;
+            }
             try {
                 retVal.put(slot, this.localVariables.buildLocalVariable(slot, getProgramCounter()));
             } catch (InvalidSlotException e) {
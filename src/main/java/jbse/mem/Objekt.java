@@ -1,6 +1,7 @@
 package jbse.mem;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 import jbse.bc.ClassFile;
@@ -85,6 +86,20 @@ public interface Objekt extends Cloneable {
      */
     Collection<Signature> getStoredFieldSignatures();
 
+    /**
+     * Returns the values of all the fields
+     * this {@link Objekt} stores. It is cheaper 
+     * than {@link #fields()}, and must be preferred 
+     * when the fields are only read.
+     * 
+     * @return an immutable 
+     *         {@link List}{@code <}{@link Value}{@code >}
+     *         backed by this {@link Objekt}'s fields, 
+     *         whose elements are the values of the fields
+     *         in the same order of {@link #getStoredFieldSignatures()}.
+     */
+    List<Value> getStoredFieldValues();
+
     /**
      * Checks whether an object has an offset.
      * 
@@ -1,11 +1,18 @@
 package jbse.mem;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 import jbse.bc.ClassFile;
 import jbse.bc.Signature;
@@ -45,13 +52,18 @@ public abstract class ObjektImpl implements Objekt {
     private final int numOfStaticFields;
 
     /** 
-     * All the signatures of all the fields declared by 
-     * this {@link ObjektImpl}'s class (static and nonstatic)
-     * or superclasses (nonstatic). The position of a field
-     * signature in this list (starting from the end) is 
-     * the field's offset number, as used by sun.misc.Unsafe 
-     * methods. Immutable. */
-    private final List<Signature> fieldSignatures;
+     * The layout of the fields of this {@link ObjektImpl}. 
+     * Immutable and shared by all the {@link ObjektImpl}s
+     * with same field signatures.
+     */
+    private final FieldLayout layout;
+    
+    /**
+     * The position (in {@code this.layout}) of the
+     * first field stored in {@code this.fieldValues}.
+     * Immutable.
+     */
+    private final int firstStoredField;
 
     /** 
      * The identity hash code of this {@link ObjektImpl}. Mutable only
@@ -61,13 +73,145 @@ public abstract class ObjektImpl implements Objekt {
     private Primitive identityHashCode;
 
     /** 
-     * The fields as a map of signatures (as strings) to variables.
-     * Immutable for arrays, but mutable otherwise (the map
-     * is by itself immutable but the stored Variables may be 
-     * mutable). 
+     * The values of the stored fields, where the value of
+     * the field at position {@code pos} in {@code this.layout} 
+     * is at index {@code pos - this.firstStoredField}. 
+     * Immutable for arrays, but mutable otherwise (the array
+     * is by itself immutable but its members are mutable). 
+     */
+    protected Value[] fieldValues;
+    
+    /**
+     * The layout of the fields of an {@link ObjektImpl}, 
+     * i.e., all the signatures of all the fields declared by 
+     * its class (static and nonstatic) or superclasses (nonstatic),
+     * and the position of each of them. The position of a field
+     * signature (starting from the end) is the field's offset 
+     * number, as used by sun.misc.Unsafe methods. Immutable.
+     * 
+     * @author Pietro Braione
+     */
+    private static final class FieldLayout {
+        /** The field signatures. */
+        private final List<Signature> fieldSignatures;
+        
+        /** Maps each field signature to its position in {@code fieldSignatures}. */
+        private final HashMap<Signature, Integer> positions = new HashMap<>();
+        
+        FieldLayout(Signature[] fieldSignatures) {
+            this.fieldSignatures = Collections.unmodifiableList(Arrays.asList(fieldSignatures.clone())); //safety copy
+            for (int pos = 0; pos < fieldSignatures.length; ++pos) {
+                this.positions.put(fieldSignatures[pos], pos);
+            }
+        }
+        
+        int size() {
+            return this.fieldSignatures.size();
+        }
+        
+        Signature get(int pos) {
+            return this.fieldSignatures.get(pos);
+        }
+        
+        int position(Signature fieldSignature) {
+            final Integer retVal = this.positions.get(fieldSignature);
+            return (retVal == null ? -1 : retVal.intValue());
+        }
+    }
+    
+    /**
+     * A weak reference to a cached {@link FieldLayout}, that
+     * remembers its key in {@link #LAYOUTS} so it can be removed
+     * when the layout is collected.
+     * 
+     * @author Pietro Braione
+     */
+    private static final class LayoutReference extends WeakReference<FieldLayout> {
+        private final List<Signature> key;
+        
+        LayoutReference(FieldLayout layout) {
+            super(layout, STALE_LAYOUTS);
+            this.key = layout.fieldSignatures;
+        }
+    }
+    
+    /** 
+     * Cache of the {@link FieldLayout}s, so they are
+     * built once per class, rather than once per object.
+     * The layouts are weakly referenced, so a layout is 
+     * dropped from the cache when no object uses it anymore,
+     * e.g., when the classes of a run are unloaded.
+     */
+    private static final ConcurrentHashMap<List<Signature>, LayoutReference> LAYOUTS = new ConcurrentHashMap<>();
+    
+    /** The references to the collected {@link FieldLayout}s. */
+    private static final ReferenceQueue<FieldLayout> STALE_LAYOUTS = new ReferenceQueue<>();
+    
+    /**
+     * Removes from {@link #LAYOUTS} the entries of
+     * the collected {@link FieldLayout}s.
+     */
+    private static void purgeLayouts() {
+        for (Reference<? extends FieldLayout> stale = STALE_LAYOUTS.poll(); stale != null; stale = STALE_LAYOUTS.poll()) {
+            LAYOUTS.remove(((LayoutReference) stale).key, stale);
+        }
+    }
+    
+    private static FieldLayout layout(Signature[] fieldSignatures) {
+        purgeLayouts();
+        final List<Signature> key = Arrays.asList(fieldSignatures);
+        while (true) {
+            final LayoutReference ref = LAYOUTS.get(key);
+            final FieldLayout retVal = (ref == null ? null : ref.get());
+            if (retVal != null) {
+                return retVal;
+            }
+            final FieldLayout newLayout = new FieldLayout(fieldSignatures);
+            final LayoutReference newRef = new LayoutReference(newLayout);
+            final boolean cached = (ref == null ? LAYOUTS.putIfAbsent(newRef.key, newRef) == null : LAYOUTS.replace(key, ref, newRef));
+            if (cached) {
+                return newLayout;
+            }
+            //else, another thread cached a layout first: retry
+        }
+    }
+    
+    /**
+     * Checks whether a {@link FieldLayout} is cached.
+     * 
+     * @param fieldSignatures varargs of field {@link Signature}s.
+     * @return {@code true} iff the cache has an entry for 
+     *         the layout of {@code fieldSignatures}. 
+     */
+    static boolean hasCachedLayout(Signature... fieldSignatures) {
+        purgeLayouts();
+        return LAYOUTS.containsKey(Arrays.asList(fieldSignatures));
+    }
+    
+    /**
+     * A {@link Variable} that reads and writes the value
+     * of a field of this {@link ObjektImpl}.
+     * 
+     * @author Pietro Braione
      */
-    protected HashMap<Signature, Variable> fields;
-    //TODO once fields was a map from String (the signature toString()) to variables; in old comment it was said it was necessary because type erasure didn't play well. Investigate whether the issue still holds.
+    private final class FieldVariable extends Variable {
+        private final int index;
+        
+        FieldVariable(Signature fieldSignature, int index) {
+            super(fieldSignature.getDescriptor(), fieldSignature.getName(), null);
+            this.index = index;
+        }
+        
+        @Override
+        public Value getValue() {
+            return ObjektImpl.this.fieldValues[this.index];
+        }
+        
+        @Override
+        public void setValue(Value value) {
+            ObjektImpl.this.fieldValues[this.index] = value;
+        }
+    }
     
     /**
      * Constructor.
@@ -92,17 +236,14 @@ public abstract class ObjektImpl implements Objekt {
     protected ObjektImpl(Calculator calc, boolean symbolic, ClassFile classFile, ReferenceSymbolic origin, HistoryPoint epoch, boolean staticFields, int numOfStaticFields, Signature... fieldSignatures) {
     	//TODO (null-)check parameters, throw exceptions
         this.symbolic = symbolic;
-        this.fields = new HashMap<>();
         this.staticFields = staticFields;
         this.numOfStaticFields = numOfStaticFields;
-        this.fieldSignatures = Arrays.asList(fieldSignatures.clone()); //safety copy
-        int curSlot = 0;
-        for (Signature fieldSignature : this.fieldSignatures) {
-            if ((staticFields && curSlot < numOfStaticFields) ||
-                (!staticFields && curSlot >= numOfStaticFields)) {
-                this.fields.put(fieldSignature, new Variable(calc, fieldSignature.getDescriptor(), fieldSignature.getName()));
-            }
-            ++curSlot;
+        this.layout = layout(fieldSignatures);
+        this.firstStoredField = (staticFields ? 0 : numOfStaticFields);
+        final int lastStoredField = (staticFields ? numOfStaticFields : fieldSignatures.length);
+        this.fieldValues = new Value[lastStoredField - this.firstStoredField];
+        for (int i = 0; i < this.fieldValues.length; ++i) {
+            this.fieldValues[i] = calc.valDefault(fieldSignatures[this.firstStoredField + i].getDescriptor().charAt(0));
         }
         this.classFile = classFile;
         this.origin = origin;
@@ -152,15 +293,30 @@ public abstract class ObjektImpl implements Objekt {
 
     @Override
     public final Collection<Signature> getStoredFieldSignatures() {
-        if (this.staticFields) {
-            return Collections.unmodifiableCollection(this.fieldSignatures.subList(0, this.numOfStaticFields));
-        } else {
-            return Collections.unmodifiableCollection(this.fieldSignatures.subList(this.numOfStaticFields, this.fieldSignatures.size()));
-        }
+        return this.layout.fieldSignatures.subList(this.firstStoredField, this.firstStoredField + this.fieldValues.length);
+    }
+    
+    @Override
+    public final List<Value> getStoredFieldValues() {
+        return Collections.unmodifiableList(Arrays.asList(this.fieldValues));
     }
     
     private int ofstToPos(int ofst) {
-        return this.fieldSignatures.size() - 1 - ofst;
+        return this.layout.size() - 1 - ofst;
+    }
+    
+    /**
+     * Converts a position in the field layout to an index
+     * in {@code this.fieldValues}.
+     * 
+     * @param pos an {@code int}, a position in the field layout.
+     * @return the index in {@code this.fieldValues} of the field
+     *         at position {@code pos}, or {@code -1} if 
+     *         this {@link ObjektImpl} does not store it.
+     */
+    private int posToIndex(int pos) {
+        final int index = pos - this.firstStoredField;
+        return (pos < 0 || index < 0 || index >= this.fieldValues.length ? -1 : index);
     }
 
     //TODO overridden by array, refactor to avoid this
@@ -170,22 +326,19 @@ public abstract class ObjektImpl implements Objekt {
         if (this.staticFields) {
             return (0 <= pos && pos < this.numOfStaticFields);
         } else {
-            return (this.numOfStaticFields <= pos && pos < this.fieldSignatures.size());
+            return (this.numOfStaticFields <= pos && pos < this.layout.size());
         }
     }
 
     @Override
     public final Value getFieldValue(Signature sig) {
-        try {
-            return this.fields.get(sig).getValue();
-        } catch (Exception e) {
-            return null;
-        }
+        final int index = posToIndex(this.layout.position(sig));
+        return (index < 0 ? null : this.fieldValues[index]);
     }
 
     @Override
     public final Value getFieldValue(String fieldName, String fieldClass) {
-        for (Signature sig: this.fieldSignatures) { //not very efficient but we don't care
+        for (Signature sig: this.layout.fieldSignatures) { //not very efficient but we don't care
             if (sig.getName().equals(fieldName) && sig.getClassName().equals(fieldClass)) {
                 return getFieldValue(sig);
             }
@@ -195,33 +348,82 @@ public abstract class ObjektImpl implements Objekt {
 
     @Override
     public final Value getFieldValue(int ofst) {
-        try {
-            return getFieldValue(this.fieldSignatures.get(ofstToPos(ofst)));
-        } catch (IndexOutOfBoundsException e) {
-            return null;
-        }
+        final int index = posToIndex(ofstToPos(ofst));
+        return (index < 0 ? null : this.fieldValues[index]);
     }
 
     @Override
     public final void setFieldValue(Signature field, Value item) {
-        this.fields.get(field).setValue(item);
+        final int index = posToIndex(this.layout.position(field));
+        if (index < 0) {
+            throw new NullPointerException("Attempted to set the value of field " + field + " that is not stored in this object.");
+        }
+        this.fieldValues[index] = item;
     }
 
     @Override
     public final void setFieldValue(int ofst, Value item) {
-        setFieldValue(this.fieldSignatures.get(ofstToPos(ofst)), item);
+        final int index = posToIndex(ofstToPos(ofst));
+        if (index < 0) {
+            throw new IndexOutOfBoundsException("Attempted to set the value of the field with offset " + ofst + " that is not stored in this object.");
+        }
+        this.fieldValues[index] = item;
     }
 
+    /**
+     * {@inheritDoc}
+     * 
+     * The returned map is a view of the fields of this
+     * {@link ObjektImpl}: Setting the value of one of its 
+     * {@link Variable}s sets the value of the corresponding 
+     * field. It is built upon invocation, thus it is 
+     * preferable to access the fields by means of the
+     * {@code getFieldValue} methods when possible.
+     */
     @Override
     public final Map<Signature, Variable> fields() {
-        return Collections.unmodifiableMap(this.fields);
+        final LinkedHashMap<Signature, Variable> retVal = new LinkedHashMap<>();
+        for (int index = 0; index < this.fieldValues.length; ++index) {
+            final Signature fieldSignature = this.layout.get(this.firstStoredField + index);
+            retVal.put(fieldSignature, new FieldVariable(fieldSignature, index));
+        }
+        return Collections.unmodifiableMap(retVal);
     }
 
-    protected final HashMap<Signature, Variable> fieldsDeepCopy() {
-        final HashMap<Signature, Variable> retVal = new HashMap<>();
-        for (Signature key : this.fields.keySet()) {
-            final Variable variableClone = this.fields.get(key).clone();
-            retVal.put(key, variableClone);
+    protected final Value[] fieldValuesCopy() {
+        return this.fieldValues.clone();
+    }
+
+    /**
+     * Compares the fields of this {@link ObjektImpl} with
+     * those of another one, to join them.
+     *
+     * @param other an {@link ObjektImpl}.
+     * @return {@code null} if {@code this} and {@code other}
+     *         have different class, kind, origin, creation
+     *         {@link HistoryPoint}, identity hash code or fields,
+     *         otherwise a {@link List}{@code <}{@link Signature}{@code >}
+     *         of the signatures of the fields that store different
+     *         values in {@code this} and in {@code other}.
+     */
+    final List<Signature> differingFields(ObjektImpl other) {
+        if (getClass() != other.getClass() ||
+            !this.classFile.equals(other.classFile) ||
+            this.symbolic != other.symbolic ||
+            !Objects.equals(this.origin, other.origin) ||
+            !Objects.equals(this.epoch, other.epoch) ||
+            this.staticFields != other.staticFields ||
+            this.layout != other.layout ||
+            this.firstStoredField != other.firstStoredField ||
+            this.fieldValues.length != other.fieldValues.length ||
+            !Objects.equals(this.identityHashCode, other.identityHashCode)) {
+            return null;
+        }
+        final ArrayList<Signature> retVal = new ArrayList<>();
+        for (int index = 0; index < this.fieldValues.length; ++index) {
+            if (!Objects.equals(this.fieldValues[index], other.fieldValues[index])) {
+                retVal.add(this.layout.get(this.firstStoredField + index));
+            }
         }
         return retVal;
     }
@@ -233,7 +435,7 @@ public abstract class ObjektImpl implements Objekt {
         } catch (CloneNotSupportedException e) {
             throw new InternalError(e);
         }
-        //note that we do not clone this.fields because
+        //note that we do not clone this.fieldValues because
         //it is immutable for arrays and mutable for instances
         //so the two subclasses may either deep-copy it or share;
         //note also that the clone will have same
@@ -1,6 +1,7 @@
 package jbse.mem;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 import jbse.bc.ClassFile;
@@ -94,6 +95,11 @@ abstract class ObjektWrapper<T extends ObjektImpl> implements Objekt {
 		return getDelegate().getStoredFieldSignatures();
 	}
 
+	@Override
+	public final List<Value> getStoredFieldValues() {
+		return getDelegate().getStoredFieldValues();
+	}
+
 	@Override
 	public final boolean hasOffset(int slot) {
 		return getDelegate().hasOffset(slot);
@@ -1,8 +1,10 @@
 package jbse.mem;
 
-import java.util.ArrayDeque;
+import java.util.AbstractCollection;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 import jbse.mem.exc.InvalidNumberOfOperandsException;
 import jbse.val.Value;
@@ -12,15 +14,31 @@ import jbse.val.Value;
  */
 //TODO manage stack maps and possibly raise unexpected internal error
 final class OperandStack implements Cloneable {
-    /** Not final because of clone(). */
-    private ArrayDeque<Value> valueStack;
+    /** 
+     * The values in the operand stack, from the bottom
+     * (position 0) to the top (position {@code size - 1}).
+     * It is sized on the max_stack of the method, that bounds
+     * the depth reached by its bytecode. It may grow only when 
+     * a meta-level algorithm pushes on the stack the operands 
+     * of a wrap snippet, that runs on the operand stack of its 
+     * context frame. Not final because of clone() and of growth.
+     */
+    private Value[] valueStack;
+    
+    /** The number of values in the operand stack. */
+    private int size;
     
     /**
      * Constructor of empty operand stack.
      * 
+     * @param capacity a nonnegative {@code int}, the 
+     *        maximum depth of the operand stack, i.e., the
+     *        max_stack of the method. The operand stack grows 
+     *        if it is exceeded.
      */
-    OperandStack() {
-        this.valueStack = new ArrayDeque<Value>();
+    OperandStack(int capacity) {
+        this.valueStack = new Value[Math.max(capacity, 1)];
+        this.size = 0;
     }
     
     /**
@@ -29,7 +47,13 @@ final class OperandStack implements Cloneable {
      *             of the operand stack.
      */
     void push(Value item) {
-        this.valueStack.push(item);
+        if (item == null) {
+            throw new NullPointerException(); //same as ArrayDeque
+        }
+        if (this.size == this.valueStack.length) {
+            this.valueStack = Arrays.copyOf(this.valueStack, 2 * this.valueStack.length);
+        }
+        this.valueStack[this.size++] = item;
     }
     
     /**
@@ -39,10 +63,12 @@ final class OperandStack implements Cloneable {
      * @throws InvalidNumberOfOperandsException if the operand stack is empty.
      */
     Value pop() throws InvalidNumberOfOperandsException {
-    	if (this.valueStack.isEmpty()) {
+    	if (this.size == 0) {
     		throw new InvalidNumberOfOperandsException();
     	}
-    	return this.valueStack.pop();
+    	final Value retVal = this.valueStack[--this.size];
+    	this.valueStack[this.size] = null; //for the garbage collector
+    	return retVal;
     }
 
     /**
@@ -54,12 +80,12 @@ final class OperandStack implements Cloneable {
      *         if {@code num} is negative.
      */
     void pop(int num) throws InvalidNumberOfOperandsException {
-        if (num < 0 || this.valueStack.size() < num) {
+        if (num < 0 || this.size < num) {
             throw new InvalidNumberOfOperandsException();
         }
-        for (int i = 1; i <= num; ++i) {
-            this.valueStack.pop();
-        }
+        final int newSize = this.size - num;
+        Arrays.fill(this.valueStack, newSize, this.size, null); //for the garbage collector
+        this.size = newSize;
     }
     
     /**
@@ -69,10 +95,10 @@ final class OperandStack implements Cloneable {
      * @throws InvalidNumberOfOperandsException if the operand stack is empty.
      */
     Value top() throws InvalidNumberOfOperandsException {
-    	if (this.valueStack.isEmpty()) {
+    	if (this.size == 0) {
     		throw new InvalidNumberOfOperandsException();
     	}
-        return(this.valueStack.peek());
+        return this.valueStack[this.size - 1];
     }
 
     /**
@@ -88,27 +114,61 @@ final class OperandStack implements Cloneable {
      *         or if {@code num} is negative. 
      */
     Value[] operands(int num) throws InvalidNumberOfOperandsException {
-        if (num < 0 || this.valueStack.size() < num) {
+        if (num < 0 || this.size < num) {
             throw new InvalidNumberOfOperandsException();
         }
-        final Value[] retVal = new Value[num];
-        int i = num - 1;
-        for (Value v : this.valueStack) {
-            if (i < 0) {
-                break;
-            }
-            retVal[i] = v;
-            --i;
-        }
-        return retVal;
+        return Arrays.copyOfRange(this.valueStack, this.size - num, this.size);
+    }
+    
+    /**
+     * Returns the number of values the operand stack
+     * can hold without growing.
+     * 
+     * @return a positive {@code int}.
+     */
+    int capacity() {
+        return this.valueStack.length;
     }
     
     void clear() {
-    	this.valueStack.clear();
+        Arrays.fill(this.valueStack, 0, this.size, null); //for the garbage collector
+        this.size = 0;
     }
     
+    /**
+     * Returns a read-only view of the operand stack.
+     * 
+     * @return a {@link Collection}{@code <}{@link Value}{@code >}
+     *         whose iteration order is from the topmost
+     *         to the deepest element of the operand stack.
+     */
     Collection<Value> values() {
-    	return Collections.unmodifiableCollection(this.valueStack);
+    	return new AbstractCollection<Value>() {
+            @Override
+            public Iterator<Value> iterator() {
+                return new Iterator<Value>() {
+                    private int next = OperandStack.this.size - 1;
+                    
+                    @Override
+                    public boolean hasNext() {
+                        return this.next >= 0;
+                    }
+
+                    @Override
+                    public Value next() {
+                        if (this.next < 0) {
+                            throw new NoSuchElementException();
+                        }
+                        return OperandStack.this.valueStack[this.next--];
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return OperandStack.this.size;
+            }
+        };
     }
     
     /**
@@ -117,14 +177,11 @@ final class OperandStack implements Cloneable {
     public String toString() {
         final StringBuilder buf = new StringBuilder();
         buf.append("{");
-        boolean isFirst = true;
-        for (Value v : this.valueStack) {
-            if (isFirst) {
-                isFirst = false;
-            } else {
+        for (int i = this.size - 1; i >= 0; --i) {
+            buf.append(this.valueStack[i].toString());
+            if (i > 0) {
                 buf.append(", ");
             }
-            buf.append(v.toString());
         }
         buf.append("}");
         return buf.toString();
@@ -138,9 +195,7 @@ final class OperandStack implements Cloneable {
         } catch (CloneNotSupportedException e) {
             throw new InternalError(e);
         }        
-        o.valueStack = new ArrayDeque<Value>(this.valueStack);
+        o.valueStack = this.valueStack.clone();
         return o;
     }
 }
-
-
@@ -212,6 +212,19 @@ final class PathCondition implements Cloneable {
         return Collections.unmodifiableList(this.clauses);
     }
 
+    /**
+     * Removes the last {@link Clause}s of the path condition.
+     *
+     * @param size an {@code int}, the number of {@link Clause}s
+     *        that must be kept. All the removed {@link Clause}s
+     *        must be {@link ClauseAssume}s, so the cached
+     *        information on the resolved references does
+     *        not change.
+     */
+    void truncate(int size) {
+        this.clauses.subList(size, this.clauses.size()).clear();
+    }
+
     @Override
     public String toString() {
         final StringBuilder buf = new StringBuilder();
@@ -6,7 +6,6 @@ import java.util.Set;
 import java.util.SortedMap;
 
 import jbse.bc.ClassFile;
-import jbse.bc.Signature;
 import jbse.common.exc.UnexpectedInternalException;
 import jbse.mem.exc.FrozenStateException;
 import jbse.mem.exc.ThreadStackEmptyException;
@@ -53,11 +52,42 @@ public final class ReachableObjectsCollector {
             final Reference rootObjectReference = (emptyStack ? null : s.getRootObjectReference());
             final long rootObjectPosition = (rootObjectReference == null ? -1 : rootObjectReference instanceof ReferenceConcrete ? ((ReferenceConcrete) rootObjectReference).getHeapPosition() : s.getResolution((ReferenceSymbolic) rootObjectReference));
             final ClassFile rootClass = (emptyStack ? null : s.getRootClass());
-            return reachable(s, precise, rootObjectPosition, rootClass);
+            return reachable(s, precise, rootObjectPosition, rootClass, false);
         } catch (ThreadStackEmptyException e) {
             throw new UnexpectedInternalException(e);
         }
     }
+    
+    /**
+     * Returns the heap positions of the objects in the 
+     * young generation that are reachable from the roots 
+     * of a {@link State}, as {@link #reachable(State, boolean) reachable}{@code (s, true)}
+     * does, plus the objects in the old generation that
+     * might refer them. Differently from {@link #reachable(State, boolean)}, 
+     * it does not scan the objects in the old generation 
+     * that were not accessed after the last promotion, 
+     * that therefore may only refer objects in the old 
+     * generation.
+     * 
+     * @param s a {@link State}. It must not be {@code null}.
+     * @return a {@link Set}{@code <}{@link Long}{@code >}
+     *         containing (at least) all the heap positions of 
+     *         the objects in the young generation that are 
+     *         reachable from the collection roots.
+     * @throws FrozenStateException if {@code s} is frozen.
+     */
+    public Set<Long> reachableYoung(State s) throws FrozenStateException {
+        try {
+            final boolean emptyStack = s.getStack().isEmpty();
+            final Reference rootObjectReference = (emptyStack ? null : s.getRootObjectReference());
+            final long rootObjectPosition = (rootObjectReference == null ? -1 : rootObjectReference instanceof ReferenceConcrete ? ((ReferenceConcrete) rootObjectReference).getHeapPosition() : s.getResolution((ReferenceSymbolic) rootObjectReference));
+            final ClassFile rootClass = (emptyStack ? null : s.getRootClass());
+            return reachable(s, true, rootObjectPosition, rootClass, true);
+        } catch (ThreadStackEmptyException e) {
+            throw new UnexpectedInternalException(e);
+        }
+    }
+
     /**
      * Returns the heap positions of the objects
      * that are reachable from the roots of a 
@@ -82,12 +112,17 @@ public final class ReachableObjectsCollector {
      * @param rootClass a {@link ClassFile}. If {@code rootClass != null}
      *        all the static fields of the root class are also considered 
      *        as roots for collection.
+     * @param young a {@code boolean}, if {@code true}, then the 
+     *        objects in the remembered set are also considered as
+     *        roots for collection, and the objects in the old 
+     *        generation that are not in the remembered set are 
+     *        not scanned.
      * @return a {@link Set}{@code <}{@link Long}{@code >}
      *         containing all the heap positions of the objects
      *         reachable from the collection roots.
      * @throws FrozenStateException if {@code s} is frozen.
      */
-    private Set<Long> reachable(State s, boolean precise, long rootObject, ClassFile rootClass) throws FrozenStateException {
+    private Set<Long> reachable(State s, boolean precise, long rootObject, ClassFile rootClass, boolean young) throws FrozenStateException {
         if (s == null) {
             throw new NullPointerException();
         }
@@ -106,9 +141,7 @@ public final class ReachableObjectsCollector {
             reachable.add(rootObject);
             final ClassFile rootObjectClass = s.getObject(new ReferenceConcrete(rootObject)).getType();
             final Klass k = s.getKlass(rootObjectClass);
-            final Map<Signature, Variable> fields = k.fields();
-            for (Variable var : fields.values()) {
-                final Value v = var.getValue();
+            for (Value v : k.getStoredFieldValues()) {
                 addIfReference(reachable, s, v);
             }
         }
@@ -116,9 +149,7 @@ public final class ReachableObjectsCollector {
         //possibly adds the root class' static fields
         if (rootClass != null) {
             final Klass k = s.getKlass(rootClass);
-            final Map<Signature, Variable> fields = k.fields();
-            for (Variable var : fields.values()) {
-                final Value v = var.getValue();
+            for (Value v : k.getStoredFieldValues()) {
                 addIfReference(reachable, s, v);
             }
         }
@@ -150,9 +181,7 @@ public final class ReachableObjectsCollector {
         if (precise) {
             final Map<ClassFile, Klass> staticMethodArea = s.getStaticMethodArea();
             for (Klass k : staticMethodArea.values()) {
-                final Map<Signature, Variable> fields = k.fields();
-                for (Variable var : fields.values()) {
-                    final Value v = var.getValue();
+                for (Value v : k.getStoredFieldValues()) {
                     addIfReference(reachable, s, v);
                 }
             }
@@ -212,15 +241,24 @@ public final class ReachableObjectsCollector {
         	reachable.add(s.getMainThreadGroup().getHeapPosition());
         }
 
+        //possibly adds the remembered set
+        if (young) {
+            reachable.addAll(s.getRememberedSet());
+        }
+
         //closes reachable
         HashSet<Long> toVisit = new HashSet<>(reachable);
         while (true) {
             final HashSet<Long> toVisitNext = new HashSet<>();
             for (long nextObject : toVisit) {
+                if (young && !s.mustScanWhenCollectingYoung(nextObject)) {
+                    continue;
+                }
                 final Objekt o = s.getObject(new ReferenceConcrete(nextObject));
-                final Map<Signature, Variable> fields = o.fields();
-                for (Variable var : fields.values()) {
-                    final Value v = var.getValue();
+                if (o == null) {
+                    continue;
+                }
+                for (Value v : o.getStoredFieldValues()) {
                     addIfReferenceAndMarkNext(reachable, toVisitNext, s, v);
                 }
                 if (o instanceof Array) {
@@ -37,7 +37,7 @@ public final class SnippetFrameNoWrap extends Frame implements Cloneable {
      */
     public SnippetFrameNoWrap(Snippet snippet, ClassFile hostClass, String className) {
         super(new ClassFileSnippetNoWrap(snippet, hostClass, className), snippet.getBytecode());
-        this.operandStack = new OperandStack();
+        this.operandStack = new OperandStack(snippet.getBytecode().length); //a snippet is short, straight-line code
         this.localVariablesValues = new ArrayList<>(snippet.getArgs());
     }
     
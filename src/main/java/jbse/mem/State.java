@@ -41,8 +41,10 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
 import java.util.SortedMap;
+import java.util.function.Consumer;
 
 import jbse.bc.ClassFile;
 import jbse.bc.ClassFileFactory;
@@ -3834,6 +3836,337 @@ public final class State implements Cloneable {
         this.wereResetLastPathConditionClauses = true;
     }
 
+    /**
+     * Joins another state into this state (path merging), so
+     * this state represents the executions of both. The states
+     * can be joined only if they are at the same program point,
+     * with thread stacks, heaps and static method areas that
+     * differ at most in a bounded number of primitive integral
+     * values, and path conditions that differ only in a bounded
+     * suffix of numeric assumptions. Let {@code g1} and {@code g2}
+     * be the conjunctions of the suffixes of this and of the other
+     * state. Each pair {@code v1}, {@code v2} of different values
+     * is replaced in this state by a fresh symbol {@code m},
+     * and the suffix of the path condition of this state is
+     * replaced by the clauses {@code g1 || g2} and, for each
+     * fresh symbol, {@code (g1 && m == v1) || (g2 && m == v2)}.
+     * After a join the decision procedure must be synchronized
+     * with the whole path condition of this state.
+     *
+     * @param other the {@link State} to be joined into this state.
+     *        It is not modified.
+     * @param calc a {@link Calculator}.
+     * @param maxJoinedValues an {@code int}, the maximum number of
+     *        values that may differ in the two states.
+     * @param maxSuffixLength an {@code int}, the maximum number of
+     *        clauses in the suffix of each path condition.
+     * @return {@code true} iff the states were joined. If {@code false}
+     *         this state is not modified.
+     * @throws InvalidInputException if {@code other == null || calc == null}.
+     * @throws FrozenStateException if this state is frozen.
+     */
+    public boolean join(State other, Calculator calc, int maxJoinedValues, int maxSuffixLength)
+    throws InvalidInputException, FrozenStateException {
+    	if (this.frozen) {
+    		throw new FrozenStateException();
+    	}
+        if (other == null || calc == null) {
+            throw new InvalidInputException("Attempted to invoke " + getClass().getName() + ".join with a null other or calc.");
+        }
+        if (other == this || !isJoinableWith(other)) {
+            return false;
+        }
+
+        //the path conditions must differ only in
+        //short suffixes of numeric assumptions
+        final List<Clause> thisClauses = this.pathCondition.getClauses();
+        final List<Clause> otherClauses = other.pathCondition.getClauses();
+        int prefixLength = 0;
+        while (prefixLength < thisClauses.size() && prefixLength < otherClauses.size() &&
+               thisClauses.get(prefixLength).equals(otherClauses.get(prefixLength))) {
+            ++prefixLength;
+        }
+        final List<Clause> thisSuffix = thisClauses.subList(prefixLength, thisClauses.size());
+        final List<Clause> otherSuffix = otherClauses.subList(prefixLength, otherClauses.size());
+        if (!isJoinableSuffix(thisSuffix, maxSuffixLength) || !isJoinableSuffix(otherSuffix, maxSuffixLength)) {
+            return false;
+        }
+
+        //finds the values to join
+        final ArrayList<JoinedValue> joinedValues = new ArrayList<>();
+        final ArrayList<Runnable> finalizers = new ArrayList<>();
+        if (!collectJoinedValuesStack(other, joinedValues, finalizers) ||
+            !collectJoinedValuesHeap(other, joinedValues) ||
+            !collectJoinedValuesStaticMethodArea(other, joinedValues) ||
+            joinedValues.size() > maxJoinedValues) {
+            return false;
+        }
+
+        //joins
+        try {
+            final Primitive thisGuard = conjunction(calc, thisSuffix);
+            final Primitive otherGuard = conjunction(calc, otherSuffix);
+            final ArrayList<Primitive> joinClauses = new ArrayList<>();
+            joinClauses.add(calc.push(thisGuard).or(otherGuard).pop());
+            for (JoinedValue joinedValue : joinedValues) {
+                final PrimitiveSymbolic m =
+                    this.symbolFactory.createSymbolLocalVariablePrimitive(this.historyPoint, "" + joinedValue.thisValue.getType(), JOINED_VALUE_NAME);
+                final Primitive thisCase = calc.push(m).eq(joinedValue.thisValue).and(thisGuard).pop();
+                final Primitive otherCase = calc.push(m).eq(joinedValue.otherValue).and(otherGuard).pop();
+                joinClauses.add(calc.push(thisCase).or(otherCase).pop());
+                joinedValue.setter.accept(m);
+            }
+            for (Runnable finalizer : finalizers) {
+                finalizer.run();
+            }
+            this.heap.joinRememberedSet(other.heap);
+            this.pathCondition.truncate(prefixLength);
+            for (Primitive joinClause : joinClauses) {
+                this.pathCondition.addClauseAssume(joinClause);
+            }
+        } catch (InvalidOperandException | InvalidTypeException e) {
+            //this should never happen
+            throw new UnexpectedInternalException(e);
+        }
+        this.nPushedClauses = 0;
+        this.wereResetLastPathConditionClauses = false;
+        return true;
+    }
+
+    /** The name of the fresh symbols created by {@link #join(State, Calculator, int, int) join}. */
+    private static final String JOINED_VALUE_NAME = "{JOIN}";
+
+    /**
+     * A pair of different values of two joined states,
+     * and a way to replace the value in the first state.
+     *
+     * @author Pietro Braione
+     */
+    private static final class JoinedValue {
+        final Primitive thisValue;
+        final Primitive otherValue;
+        final Consumer<Primitive> setter;
+
+        JoinedValue(Primitive thisValue, Primitive otherValue, Consumer<Primitive> setter) {
+            this.thisValue = thisValue;
+            this.otherValue = otherValue;
+            this.setter = setter;
+        }
+    }
+
+    private boolean isJoinableWith(State other) {
+        //the files, memory blocks, zip files and inflaters are
+        //copied when a state is cloned, so they can be shared
+        //only if they are the standard input/output/error
+        return (!other.frozen && this.phase == Phase.POST_INITIAL && other.phase == Phase.POST_INITIAL &&
+                !this.stuck && !other.stuck && !this.wide && !other.wide &&
+                this.mayViolateAssumption == other.mayViolateAssumption &&
+                this.classHierarchy.sameLoadedClasses(other.classHierarchy) &&
+                this.heap.sameLayout(other.heap) &&
+                this.symbolFactory.hasSameNextIdentifiers(other.symbolFactory) &&
+                this.nextClassLoaderIdentifier == other.nextClassLoaderIdentifier &&
+                this.standardClassLoadersNotReady == other.standardClassLoadersNotReady &&
+                this.snippetClassFileCounter == other.snippetClassFileCounter &&
+                Objects.equals(this.exc, other.exc) && Objects.equals(this.val, other.val) &&
+                Objects.equals(this.mainThreadGroup, other.mainThreadGroup) &&
+                Objects.equals(this.mainThread, other.mainThread) &&
+                this.stringLiterals.equals(other.stringLiterals) &&
+                this.classes.equals(other.classes) &&
+                this.classesPrimitive.equals(other.classesPrimitive) &&
+                this.classLoaders.equals(other.classLoaders) &&
+                this.methodTypes.equals(other.methodTypes) &&
+                this.methodHandles.equals(other.methodHandles) &&
+                this.files.equals(other.files) &&
+                this.allocatedMemory.isEmpty() && other.allocatedMemory.isEmpty() &&
+                this.zipFiles.isEmpty() && other.zipFiles.isEmpty() &&
+                this.zipFileEntries.isEmpty() && other.zipFileEntries.isEmpty() &&
+                this.inflaters.isEmpty() && other.inflaters.isEmpty() &&
+                this.perfCounters.equals(other.perfCounters) &&
+                this.methodAdapters.equals(other.methodAdapters) &&
+                this.methodAppendices.equals(other.methodAppendices) &&
+                this.callSiteAdapters.equals(other.callSiteAdapters) &&
+                this.callSiteAppendices.equals(other.callSiteAppendices));
+    }
+
+    private static boolean isJoinableSuffix(List<Clause> suffix, int maxSuffixLength) {
+        if (suffix.size() > maxSuffixLength) {
+            return false;
+        }
+        for (Clause c : suffix) {
+            if (!(c instanceof ClauseAssume)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Primitive conjunction(Calculator calc, List<Clause> suffix)
+    throws InvalidOperandException, InvalidTypeException {
+        Primitive retVal = calc.valBoolean(true);
+        for (Clause c : suffix) {
+            retVal = calc.push(retVal).and(((ClauseAssume) c).getCondition()).pop();
+        }
+        return retVal;
+    }
+
+    private static boolean addJoinedValue(Value thisValue, Value otherValue, Consumer<Primitive> setter, List<JoinedValue> joinedValues) {
+        if (Objects.equals(thisValue, otherValue)) {
+            return true;
+        }
+        //floating point values are not joined, because
+        //m == v does not hold when v is NaN
+        if (thisValue instanceof Primitive && otherValue instanceof Primitive &&
+            thisValue.getType() == otherValue.getType() && Type.isPrimitiveIntegral(thisValue.getType())) {
+            joinedValues.add(new JoinedValue((Primitive) thisValue, (Primitive) otherValue, setter));
+            return true;
+        }
+        return false;
+    }
+
+    private boolean collectJoinedValuesStack(State other, List<JoinedValue> joinedValues, List<Runnable> finalizers) {
+        final List<Frame> thisFrames = this.stack.frames();
+        final List<Frame> otherFrames = other.stack.frames();
+        if (thisFrames.isEmpty() || thisFrames.size() != otherFrames.size()) {
+            return false;
+        }
+        try {
+            for (int i = 0; i < thisFrames.size(); ++i) {
+                if (!(thisFrames.get(i) instanceof MethodFrame) || !(otherFrames.get(i) instanceof MethodFrame)) {
+                    return false;
+                }
+                final MethodFrame thisFrame = (MethodFrame) thisFrames.get(i);
+                final MethodFrame otherFrame = (MethodFrame) otherFrames.get(i);
+                if (!thisFrame.getMethodClass().equals(otherFrame.getMethodClass()) ||
+                    !thisFrame.getMethodSignature().equals(otherFrame.getMethodSignature()) ||
+                    thisFrame.getProgramCounter() != otherFrame.getProgramCounter() ||
+                    thisFrame.getReturnProgramCounter() != otherFrame.getReturnProgramCounter() ||
+                    !Arrays.equals(thisFrame.getCode(), otherFrame.getCode())) {
+                    return false;
+                }
+
+                //local variables
+                final LocalVariablesArea thisLocals = thisFrame.getLocalVariableArea();
+                final LocalVariablesArea otherLocals = otherFrame.getLocalVariableArea();
+                final int nSlots = thisLocals.size();
+                if (nSlots != otherLocals.size()) {
+                    return false;
+                }
+                for (int slot = 0; slot < nSlots; ++slot) {
+                    if (thisLocals.isWritten(slot) != otherLocals.isWritten(slot)) {
+                        return false;
+                    }
+                }
+                final int pc = thisFrame.getProgramCounter();
+                for (int slot = 0; slot < nSlots; ++slot) {
+                    if (!thisLocals.isWritten(slot)) {
+                        continue;
+                    }
+                    final int joinedSlot = slot;
+                    final Consumer<Primitive> setter = value -> {
+                        try {
+                            thisFrame.setLocalVariableValue(joinedSlot, pc, value);
+                        } catch (InvalidSlotException e) {
+                            //this should never happen
+                            throw new UnexpectedInternalException(e);
+                        }
+                    };
+                    if (!addJoinedValue(thisFrame.getLocalVariableValue(slot), otherFrame.getLocalVariableValue(slot), setter, joinedValues)) {
+                        return false;
+                    }
+                }
+
+                //operand stack
+                final int size = thisFrame.operands().size();
+                if (size != otherFrame.operands().size()) {
+                    return false;
+                }
+                final Value[] thisOperands = thisFrame.operands(size);
+                final Value[] otherOperands = otherFrame.operands(size);
+                boolean operandsJoined = false;
+                for (int k = 0; k < size; ++k) {
+                    final int index = k;
+                    final int before = joinedValues.size();
+                    if (!addJoinedValue(thisOperands[k], otherOperands[k], value -> thisOperands[index] = value, joinedValues)) {
+                        return false;
+                    }
+                    operandsJoined = operandsJoined || (joinedValues.size() > before);
+                }
+                if (operandsJoined) {
+                    finalizers.add(() -> {
+                        thisFrame.clear();
+                        for (Value operand : thisOperands) {
+                            thisFrame.push(operand);
+                        }
+                    });
+                }
+            }
+        } catch (InvalidSlotException | InvalidNumberOfOperandsException e) {
+            //this should never happen
+            throw new UnexpectedInternalException(e);
+        }
+        return true;
+    }
+
+    private boolean collectJoinedValuesHeap(State other, List<JoinedValue> joinedValues) {
+        final Set<Long> positions = Heap.positionsChangedSinceCommonAncestor(this.heap, other.heap);
+        if (positions == null) {
+            return false;
+        }
+        for (long pos : positions) {
+            final HeapObjektImpl thisObject = this.heap.getRealObject(pos);
+            final HeapObjektImpl otherObject = other.heap.getRealObject(pos);
+            if (thisObject == otherObject) {
+                continue;
+            }
+            //only plain instances are joined, with their fields
+            if (!(thisObject instanceof InstanceImpl_DEFAULT) || !(otherObject instanceof InstanceImpl_DEFAULT) ||
+                ((InstanceImpl) thisObject).isInitial() != ((InstanceImpl) otherObject).isInitial()) {
+                return false;
+            }
+            final List<Signature> fields = thisObject.differingFields(otherObject);
+            if (fields == null) {
+                return false;
+            }
+            for (Signature field : fields) {
+                final Consumer<Primitive> setter = value -> this.heap.getObject(pos).setFieldValue(field, value);
+                if (!addJoinedValue(thisObject.getFieldValue(field), otherObject.getFieldValue(field), setter, joinedValues)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean collectJoinedValuesStaticMethodArea(State other, List<JoinedValue> joinedValues) {
+        final Set<ClassFile> classFiles = StaticMethodArea.classesChangedSinceCommonAncestor(this.staticMethodArea, other.staticMethodArea);
+        if (classFiles == null) {
+            return false;
+        }
+        for (ClassFile classFile : classFiles) {
+            final KlassImpl thisKlass = this.staticMethodArea.getRealKlass(classFile);
+            final KlassImpl otherKlass = other.staticMethodArea.getRealKlass(classFile);
+            if (thisKlass == otherKlass) {
+                continue;
+            }
+            if (thisKlass == null || otherKlass == null ||
+                thisKlass.initializationStarted() != otherKlass.initializationStarted() ||
+                thisKlass.initializationCompleted() != otherKlass.initializationCompleted()) {
+                return false;
+            }
+            final List<Signature> fields = thisKlass.differingFields(otherKlass);
+            if (fields == null) {
+                return false;
+            }
+            for (Signature field : fields) {
+                final Consumer<Primitive> setter = value -> this.staticMethodArea.get(classFile).setFieldValue(field, value);
+                if (!addJoinedValue(thisKlass.getFieldValue(field), otherKlass.getFieldValue(field), setter, joinedValues)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     /**
      * Sets the {@link State} stuck because of a return
      * from the topmost method,
@@ -4380,13 +4713,77 @@ public final class State implements Cloneable {
     }
     
     /**
-     * Collects and disposes the unreachable heap objects.
+     * Enables the generational collection of the heap, 
+     * i.e., the tracking of the objects in the old generation
+     * that are accessed, so that {@link #gcYoung()} can
+     * avoid to scan the whole old generation. 
+     * 
+     * @throws FrozenStateException if the state is frozen.
+     */
+    public void setGenerationalGc() throws FrozenStateException {
+    	if (this.frozen) {
+    		throw new FrozenStateException();
+    	}
+        this.heap.setGenerational();
+    }
+    
+    /**
+     * Collects and disposes the unreachable heap objects,
+     * and, if the generational collection is enabled (see
+     * {@link #setGenerationalGc()}), moves all the surviving 
+     * objects to the old generation.
      * 
      * @throws FrozenStateException if the state is frozen.
      */
     public void gc() throws FrozenStateException {
         final Set<Long> doNotDispose = new ReachableObjectsCollector().reachable(this, true);
         this.heap.disposeExcept(doNotDispose);
+        if (this.heap.isGenerational()) {
+            this.heap.promoteAll();
+        }
+    }
+    
+    /**
+     * Collects and disposes the unreachable heap objects
+     * in the young generation, i.e., the objects created 
+     * after the last invocation of {@link #gc()}. It is 
+     * cheaper than {@link #gc()} because it does not scan
+     * the objects in the old generation, except those 
+     * that were accessed after the last invocation of 
+     * {@link #gc()}. If these are not precisely known 
+     * it falls back to {@link #gc()}. 
+     * 
+     * @throws FrozenStateException if the state is frozen.
+     */
+    public void gcYoung() throws FrozenStateException {
+        if (this.heap.rememberedSetOverflow()) {
+            gc();
+            return;
+        }
+        final Set<Long> doNotDispose = new ReachableObjectsCollector().reachableYoung(this);
+        this.heap.disposeYoungExcept(doNotDispose);
+    }
+    
+    /**
+     * Getter for garbage collection.
+     * 
+     * @return a {@link Set}{@code <}{@link Long}{@code >}, the 
+     *         positions of the objects in the old generation 
+     *         that might refer objects in the young generation.
+     */
+    Set<Long> getRememberedSet() {
+        return this.heap.getRememberedSet();
+    }
+    
+    /**
+     * Getter for garbage collection.
+     * 
+     * @param pos a {@code long}, a heap position.
+     * @return {@code true} iff the object at {@code pos} must
+     *         be scanned when collecting the young generation.
+     */
+    boolean mustScanWhenCollectingYoung(long pos) {
+        return this.heap.mustScanWhenCollectingYoung(pos);
     }
     
     /**
@@ -1,7 +1,9 @@
 package jbse.mem;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -58,6 +60,52 @@ final class StaticMethodArea implements Cloneable {
     	}
     }
     
+    /**
+     * Gets the real {@link KlassImpl} for some class,
+     * without making a wrapper for it.
+     *
+     * @param classFile a {@link ClassFile}.
+     * @return the {@link KlassImpl} for {@code classFile},
+     *         or {@code null} if this area has none.
+     */
+    KlassImpl getRealKlass(ClassFile classFile) {
+        return (contains(classFile) ? getTheRealThing(classFile) : null);
+    }
+
+    /**
+     * Returns the classes whose {@link Klass}es may differ
+     * in two static method areas, i.e., the classes that
+     * were set in either area since their nearest common
+     * ancestor in the lazy cloning chain.
+     *
+     * @param first a {@link StaticMethodArea}.
+     * @param second a {@link StaticMethodArea}.
+     * @return a {@link Set}{@code <}{@link ClassFile}{@code >}, or
+     *         {@code null} if {@code first} and {@code second}
+     *         have no common ancestor.
+     */
+    static Set<ClassFile> classesChangedSinceCommonAncestor(StaticMethodArea first, StaticMethodArea second) {
+        final Set<StaticMethodArea> firstChain = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (StaticMethodArea a = first; a != null; a = a.delegate) {
+            firstChain.add(a);
+        }
+        StaticMethodArea ancestor = second;
+        while (ancestor != null && !firstChain.contains(ancestor)) {
+            ancestor = ancestor.delegate;
+        }
+        if (ancestor == null) {
+            return null;
+        }
+        final HashSet<ClassFile> retVal = new HashSet<>();
+        for (StaticMethodArea a = first; a != ancestor; a = a.delegate) {
+            retVal.addAll(a.objects.keySet());
+        }
+        for (StaticMethodArea a = second; a != ancestor; a = a.delegate) {
+            retVal.addAll(a.objects.keySet());
+        }
+        return retVal;
+    }
+    
     private HashSet<ClassFile> filledPositions() {
     	final HashSet<ClassFile> retVal = new HashSet<>();
     	retVal.addAll(this.objects.keySet());
@@ -96,7 +96,8 @@ public class Variable implements Cloneable {
 
     @Override
     public String toString() {
-        final String tmp = (this.value == null) ? "<UNASSIGNED>" : this.value.toString();
+        final Value value = getValue();
+        final String tmp = (value == null) ? "<UNASSIGNED>" : value.toString();
         return "[Name:" + this.name + ", Type:" + this.type + ", Value:" + tmp + "]";
     }
 }
\ No newline at end of file
@@ -0,0 +1,133 @@
+package jbse.rules;
+
+import static jbse.rules.Util.ANY;
+import static jbse.rules.Util.makeOriginPatternAbsolute;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import jbse.val.OriginPath;
+import jbse.val.ReferenceSymbolic;
+
+/**
+ * Matches the {@link OriginPath}s of {@link ReferenceSymbolic}s
+ * against an absolute origin expression in a rule. Most origin
+ * expressions are a literal origin, possibly preceded by
+ * {R_ANY}: These are matched by walking the {@link OriginPath}
+ * backwards, without building its origin {@link String}. All
+ * the other origin expressions are matched by compiling them
+ * to a regular expression {@link Pattern}, whose results are
+ * cached.
+ *
+ * @author Pietro Braione
+ */
+final class OriginMatcher {
+	/** The maximum number of cached results of {@link #matches(ReferenceSymbolic)}. */
+	static final int MAX_CACHED = 4096;
+
+	/** The characters that make an origin expression not literal. */
+	private static final String REGEX_METACHARS = "\\^*+?()|";
+
+	/** The regular expression {@link Pattern} for the origin expression. */
+	private final Pattern pattern;
+
+	/**
+	 * The literal part of the origin expression, or {@code null}
+	 * if the origin expression is not literal.
+	 */
+	private final String literal;
+
+	/** {@code true} iff the origin expression starts with {R_ANY}. */
+	private final boolean startsWithAny;
+
+	/** Caches the results of {@link #matches(ReferenceSymbolic)} for non literal expressions. */
+	private final ConcurrentHashMap<OriginPath, Boolean> matchesCache;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param originExpAbsolute a {@link String}, the absolute origin expression.
+	 */
+	OriginMatcher(String originExpAbsolute) {
+		this.pattern = makeOriginPatternAbsolute(originExpAbsolute);
+		this.startsWithAny = originExpAbsolute.startsWith(ANY);
+		final String rest = (this.startsWithAny ? originExpAbsolute.substring(ANY.length()) : originExpAbsolute);
+		this.literal = (isLiteral(rest) ? rest : null);
+		this.matchesCache = (this.literal == null ? new ConcurrentHashMap<>() : null);
+	}
+
+	private static boolean isLiteral(String exp) {
+		if (exp.contains(ANY) || exp.contains(Util.REGEX_ALLCHARS) || exp.contains("{EOL}")) {
+			return false;
+		}
+		for (int i = 0; i < exp.length(); ++i) {
+			if (REGEX_METACHARS.indexOf(exp.charAt(i)) >= 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the regular expression for the origin
+	 * expression.
+	 *
+	 * @return a {@link Pattern}.
+	 */
+	Pattern pattern() {
+		return this.pattern;
+	}
+
+	/**
+	 * Checks whether the origin of a reference matches
+	 * the origin expression.
+	 *
+	 * @param ref a {@link ReferenceSymbolic}.
+	 * @return {@code true} iff the origin {@link String}
+	 *         of {@code ref} matches {@link #pattern()}.
+	 */
+	boolean matches(ReferenceSymbolic ref) {
+		final OriginPath path = ref.originPath();
+		if (this.literal != null) {
+			return (this.startsWithAny ? path.endsWith(this.literal) : path.isEqualTo(this.literal));
+		}
+		final Boolean cached = this.matchesCache.get(path);
+		if (cached != null) {
+			return cached.booleanValue();
+		}
+		final boolean retVal = this.pattern.matcher(path.asOriginString()).matches();
+		if (this.matchesCache.size() >= MAX_CACHED) {
+			this.matchesCache.clear();
+		}
+		this.matchesCache.put(path, retVal);
+		return retVal;
+	}
+
+	/**
+	 * Returns the part of the origin of a reference
+	 * that matches the leading {R_ANY} of the origin
+	 * expression.
+	 *
+	 * @param ref a {@link ReferenceSymbolic}.
+	 * @return a {@link String}, or {@code null} if
+	 *         the origin expression does not start
+	 *         with {R_ANY} or {@code ref} does not
+	 *         match it.
+	 */
+	String findAny(ReferenceSymbolic ref) {
+		if (!this.startsWithAny) {
+			return null;
+		}
+		final OriginPath path = ref.originPath();
+		if (this.literal != null) {
+			return (path.endsWith(this.literal) ? path.asOriginString().substring(0, path.length() - this.literal.length()) : null);
+		}
+		final Matcher m = this.pattern.matcher(path.asOriginString());
+		if (m.matches() && m.groupCount() >= 1) {
+			return m.group(1);
+		} else {
+			return null;
+		}
+	}
+}
@@ -1,8 +1,5 @@
 package jbse.rules;
 
-import static jbse.rules.Util.makeOriginPatternAbsolute;
-
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import jbse.val.ReferenceSymbolic;
@@ -18,6 +15,9 @@ import jbse.val.ReferenceSymbolic;
 public abstract class Rule {
 	protected final Pattern originPattern;
 	
+	/** Matches origins against the origin expression of this rule. */
+	final OriginMatcher originMatcher;
+	
 	/**
 	 * Constructor.
 	 * 
@@ -27,7 +27,8 @@ public abstract class Rule {
 	 *        value is equivalent to "match all".
 	 */
 	public Rule(String originExp) { 
-		this.originPattern = makeOriginPatternAbsolute(originExp == null ? Util.ANY : originExp);
+		this.originMatcher = new OriginMatcher(originExp == null ? Util.ANY : originExp);
+		this.originPattern = this.originMatcher.pattern();
 	}
 	
 	/**
@@ -39,9 +40,6 @@ public abstract class Rule {
 	 */
 	public final boolean matches(ReferenceSymbolic ref) {
 		//checks if the origin of ref origin matches the pattern
-		final String originString = ref.asOriginString();
-		final Matcher m = this.originPattern.matcher(originString);
-		final boolean retVal = m.matches();
-		return retVal;
+		return this.originMatcher.matches(ref);
 	}
 }
@@ -1,10 +1,5 @@
 package jbse.rules;
 
-import static jbse.rules.Util.makeOriginPatternRelative;
-
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 import jbse.bc.Signature;
 import jbse.mem.Objekt;
 import jbse.val.ReferenceSymbolic;
@@ -21,11 +16,15 @@ public abstract class TriggerRule extends Rule {
 	
 	/** When {@code null} means no parameter. */
 	private final String triggerMethodParameter;
+	
+	/** The compiled {@code triggerMethodParameter}, or {@code null}. */
+	private final Util.OriginPatternRelative triggerMethodParameterPattern;
 
 	public TriggerRule(String originExp, Signature triggerMethodSignature, String triggerMethodParameter) { 
 		super(originExp);
 		this.triggerMethodSignature = triggerMethodSignature;
 		this.triggerMethodParameter = triggerMethodParameter;
+		this.triggerMethodParameterPattern = (triggerMethodParameter == null ? null : new Util.OriginPatternRelative(triggerMethodParameter, this.originMatcher));
 	}
 	
 	public Signature getTriggerMethodSignature() {
@@ -52,13 +51,7 @@ public abstract class TriggerRule extends Rule {
 			return false;
 		}
 		
-		//makes the pattern
-		final Pattern p = makeOriginPatternRelative(this.triggerMethodParameter, ref, this.originPattern);
-
 		//checks if the origin of o matches the pattern
-		final String originString = o.getOrigin().asOriginString();
-		final Matcher m = p.matcher(originString);
-		final boolean retVal = m.matches();
-		return retVal;
+		return this.triggerMethodParameterPattern.matches(ref, o.getOrigin());
 	}
 }
@@ -1,10 +1,5 @@
 package jbse.rules;
 
-import static jbse.rules.Util.makeOriginPatternRelative;
-
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 import jbse.bc.Signature;
 import jbse.mem.Objekt;
 import jbse.val.ReferenceSymbolic;
@@ -20,6 +15,9 @@ public final class TriggerRuleAliasesTarget extends TriggerRuleAliases {
 	/** Should not be {@code null}. */
 	private final String targetExp;
 	
+	/** The compiled {@code targetExp}. */
+	private final Util.OriginPatternRelative targetPattern;
+	
 	/** When {@code true} only the maximal path matches. */
 	private final boolean hasMax;
 	
@@ -36,20 +34,15 @@ public final class TriggerRuleAliasesTarget extends TriggerRuleAliases {
 			this.targetExp = targetExp;
 			this.hasMax = false;
 		}
+		this.targetPattern = new Util.OriginPatternRelative(this.targetExp, this.originMatcher);
 		this.toString = originExp + " aliases target " + (this.hasMax ? Util.MAX : "") + this.targetExp + " triggers " + 
 		                triggerMethodSignature.toString() + (triggerMethodParameter == null ? "" : (":" + triggerMethodParameter));
 	}
 
 	@Override
 	public boolean satisfies(ReferenceSymbolic ref, Objekt o) {
-		//makes the pattern
-		final Pattern p = makeOriginPatternRelative(this.targetExp, ref, this.originPattern);
-		
 		//checks if the origin of o matches the pattern
-		final String originString = o.getOrigin().asOriginString();
-		final Matcher m = p.matcher(originString);
-		final boolean retVal = m.matches();
-		return retVal;
+		return this.targetPattern.matches(ref, o.getOrigin());
 	}
 	
 	@Override
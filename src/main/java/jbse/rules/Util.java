@@ -1,6 +1,6 @@
 package jbse.rules;
 
-import java.util.regex.Matcher;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 import jbse.mem.Clause;
@@ -8,6 +8,7 @@ import jbse.mem.ClauseAssumeExpands;
 import jbse.mem.Objekt;
 import jbse.mem.State;
 import jbse.mem.exc.FrozenStateException;
+import jbse.val.OriginPath;
 import jbse.val.ReferenceSymbolic;
 
 public final class Util {
@@ -32,24 +33,75 @@ public final class Util {
 	}
 	
 	/**
-	 * Makes a {@link Pattern} for a relative origin expression in 
-	 * a rule.
+	 * A relative origin expression in a rule, that caches 
+	 * the {@link OriginMatcher}s it yields for the origins 
+	 * it is made relative to. Since a rule is usually checked 
+	 * against many candidate objects for the same 
+	 * {@link ReferenceSymbolic}, this avoids translating the 
+	 * same expression over and over.
 	 * 
-	 * @param originExpRelative a {@link String}, the relative origin 
-	 *        expression.
-	 * @param origin a {@link ReferenceSymbolic}, the origin that 
-	 *        all the occurrences of {$R_ANY} and {$REF} in 
-	 *        {@code originExpRelative} refer to.
-	 * @param originPattern a {@link Pattern} that is used to detect 
-	 *        the {$R_ANY} in {@code originExpRelative}; {@code originExpRelative}
-	 *        must match it, and the first capture group will be used as
-	 *        {$R_ANY}.
-	 * @return a {@link Pattern} for {@code originExpRelative}.
+	 * @author Pietro Braione
 	 */
-	static Pattern makeOriginPatternRelative(String originExpRelative, ReferenceSymbolic origin, Pattern originPattern) {
-		final String valueForAny = findAny(originPattern, origin);
-		final String specializedOriginExpRelative = specializeAny(originExpRelative, valueForAny);
-		return makeOriginPatternAbsolute(translateOriginExpressionRelativeToAbsolute(specializedOriginExpRelative, origin));
+	static final class OriginPatternRelative {
+		/** The maximum number of cached {@link OriginMatcher}s. */
+		private static final int MAX_CACHED = 1024;
+		
+		private final String originExpRelative;
+		private final OriginMatcher originMatcher;
+		private final ConcurrentHashMap<OriginPath, OriginMatcher> cache = new ConcurrentHashMap<>();
+		
+		/**
+		 * Constructor.
+		 * 
+		 * @param originExpRelative a {@link String}, the relative origin 
+		 *        expression.
+		 * @param originMatcher the {@link OriginMatcher} of the rule, 
+		 *        that is used to detect the {$R_ANY} in {@code originExpRelative}.
+		 */
+		OriginPatternRelative(String originExpRelative, OriginMatcher originMatcher) {
+			this.originExpRelative = originExpRelative;
+			this.originMatcher = originMatcher;
+		}
+		
+		/**
+		 * Returns the {@link OriginMatcher} for this relative origin 
+		 * expression, once specialized to an origin.
+		 * 
+		 * @param origin a {@link ReferenceSymbolic}, the origin that 
+		 *        all the occurrences of {$R_ANY} and {$REF} in 
+		 *        this expression refer to.
+		 * @return an {@link OriginMatcher}.
+		 */
+		OriginMatcher relativeTo(ReferenceSymbolic origin) {
+			final OriginPath originPath = origin.originPath();
+			OriginMatcher retVal = this.cache.get(originPath);
+			if (retVal == null) {
+				final String valueForAny = this.originMatcher.findAny(origin);
+				final String specializedOriginExpRelative = specializeAny(this.originExpRelative, valueForAny);
+				retVal = new OriginMatcher(translateOriginExpressionRelativeToAbsolute(specializedOriginExpRelative, originPath.asOriginString()));
+				if (this.cache.size() >= MAX_CACHED) {
+					this.cache.clear();
+				}
+				this.cache.put(originPath, retVal);
+			}
+			return retVal;
+		}
+		
+		/**
+		 * Checks whether an origin matches this relative
+		 * origin expression.
+		 * 
+		 * @param origin a {@link ReferenceSymbolic}, the origin that 
+		 *        all the occurrences of {$R_ANY} and {$REF} in 
+		 *        this expression refer to.
+		 * @param target a {@link ReferenceSymbolic}, the origin 
+		 *        to be matched.
+		 * @return {@code true} iff {@code target} matches the
+		 *         {@link OriginMatcher} {@link #relativeTo(ReferenceSymbolic) relativeTo}{@code (origin)}.
+		 */
+		boolean matches(ReferenceSymbolic origin, ReferenceSymbolic target) {
+			return relativeTo(origin).matches(target);
+		}
 	}
 	
 	/* TODO this is really ugly, but it works with the current 
@@ -72,9 +124,7 @@ public final class Util {
 	/* TODO this also is really ugly, and it does not work with 
 	 * multiple candidate origins for the same object.
 	 */
-	private static String translateOriginExpressionRelativeToAbsolute(String originExpRelative, ReferenceSymbolic origin) {
-		final String originString = origin.asOriginString();
-		
+	private static String translateOriginExpressionRelativeToAbsolute(String originExpRelative, String originString) {
 		//replaces {$REF} with ref.origin
 		String retVal = originExpRelative.replace(REF, originString);
 		
@@ -87,16 +137,6 @@ public final class Util {
 		return retVal;
 	}
 	
-	static String findAny(Pattern originPattern, ReferenceSymbolic origin) {
-		final Matcher m = originPattern.matcher(origin.asOriginString());
-		if (m.matches() && m.pattern().pattern().startsWith("(.*)") && m.groupCount() >= 1) {
-			final String valueForAny = m.group(1);
-			return valueForAny;
-		} else {
-			return null;
-		}
-	}
-	
 	static String specializeAny(String expression, String valueForAny) {
 		return (valueForAny == null ? expression : expression.replace(REFANY, valueForAny));	
 	}
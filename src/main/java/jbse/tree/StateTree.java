@@ -275,6 +275,15 @@ public class StateTree {
     public boolean hasStates() {
         return !this.stateBuffer.isEmpty();
     }
+
+    /**
+     * Returns the number of {@link State}s that can be emitted.
+     * 
+     * @return a nonnegative {@code int}.
+     */
+    public int getNumOfStates() {
+        return this.stateBuffer.size();
+    }
     
     /**
      * Returns the number of states that remain to be explored
@@ -1,7 +1,5 @@
 package jbse.val;
 
-import java.util.ArrayList;
-
 /**
  * Class for history points in symbolic execution. A history point identifies a
  * state in the symbolic execution by specifying the identifier of the branch 
@@ -19,7 +17,7 @@ public final class HistoryPoint {
     
     private final boolean compact;
     
-    private final ArrayList<String> branchIdentifier;
+    private final Branch branchIdentifier;
     
     private final int sequenceNumber;
     
@@ -36,10 +34,10 @@ public final class HistoryPoint {
      * Constructor for any (known) history point.
      * 
      * @param compact a {@code boolean}.
-     * @param branchIdentifier an {@link ArrayList}{@code <}{@link String}{@code >}.
+     * @param branchIdentifier a {@link Branch}.
      * @param sequenceNumber an {@code int}.
      */
-    private HistoryPoint(boolean compact, ArrayList<String> branchIdentifier, int sequenceNumber) {
+    private HistoryPoint(boolean compact, Branch branchIdentifier, int sequenceNumber) {
         this.compact = compact;
         this.branchIdentifier = branchIdentifier;
         this.sequenceNumber = sequenceNumber;
@@ -61,8 +59,7 @@ public final class HistoryPoint {
      * @return a {@link HistoryPoint}.
      */
     public static HistoryPoint startingPreInitial(boolean compact) {
-        final ArrayList<String> preInitialBranchIdentifier = new ArrayList<>();
-        return new HistoryPoint(compact, preInitialBranchIdentifier, 0);
+        return new HistoryPoint(compact, Branch.EMPTY, 0);
     }
     
     /**
@@ -71,8 +68,7 @@ public final class HistoryPoint {
      * @return a {@link HistoryPoint}.
      */
     public HistoryPoint startingInitial() {
-        final ArrayList<String> initialBranchIdentifier = new ArrayList<>();
-        initialBranchIdentifier.add(this.compact ? BRANCH_IDENTIFIER_DEFAULT_COMPACT : BRANCH_IDENTIFIER_DEFAULT_LONG);
+        final Branch initialBranchIdentifier = new Branch(Branch.EMPTY, this.compact ? BRANCH_IDENTIFIER_DEFAULT_COMPACT : BRANCH_IDENTIFIER_DEFAULT_LONG, separator());
         return new HistoryPoint(this.compact, initialBranchIdentifier, 0);
     }
     
@@ -97,8 +93,7 @@ public final class HistoryPoint {
      *         the unknown {@link HistoryPoint}.
      */
     public HistoryPoint nextBranch(String additionalBranch) {
-        final ArrayList<String> nextBranchIdentifier = new ArrayList<>(this.branchIdentifier);
-        nextBranchIdentifier.add(additionalBranch);
+        final Branch nextBranchIdentifier = new Branch(this.branchIdentifier, additionalBranch, separator());
         return new HistoryPoint(this.compact, nextBranchIdentifier, 0);
     }
     
@@ -108,12 +103,11 @@ public final class HistoryPoint {
      * @return a {@link String}.
      */
     public String getBranchIdentifier() {
-        final StringBuilder retVal = new StringBuilder();
-        for (String b : this.branchIdentifier) {
-            retVal.append(this.compact ? BRANCH_IDENTIFIER_SEPARATOR_COMPACT : BRANCH_IDENTIFIER_SEPARATOR_LONG);
-            retVal.append(b);
-        }
-        return retVal.toString();
+        return this.branchIdentifier.asString();
+    }
+    
+    private String separator() {
+        return (this.compact ? BRANCH_IDENTIFIER_SEPARATOR_COMPACT : BRANCH_IDENTIFIER_SEPARATOR_LONG);
     }
     
     /**
@@ -137,17 +131,17 @@ public final class HistoryPoint {
      * @throws NullPointerException if {@code other == null}.
      */
     public boolean weaklyBefore(HistoryPoint other) {
-        if (this.branchIdentifier.size() > other.branchIdentifier.size()) {
+        final Branch thisBranch = this.branchIdentifier;
+        final Branch otherBranch = other.branchIdentifier;
+        if (thisBranch.depth > otherBranch.depth) {
             return false;
         }
         
-        for (int i = 0; i < this.branchIdentifier.size(); ++i) {
-            if (!this.branchIdentifier.get(i).equals(other.branchIdentifier.get(i))) {
-                return false;
-            }
+        if (!thisBranch.equals(otherBranch.ancestor(thisBranch.depth))) {
+            return false;
         }
         
-        if (this.branchIdentifier.size() == other.branchIdentifier.size() && this.sequenceNumber > other.sequenceNumber) {
+        if (thisBranch.depth == otherBranch.depth && this.sequenceNumber > other.sequenceNumber) {
             return false;
         }
         
@@ -179,8 +173,7 @@ public final class HistoryPoint {
         	if (other.branchIdentifier != null) {
         		return false;
         	}
-        }
-        if (!this.branchIdentifier.equals(other.branchIdentifier)) {
+        } else if (!this.branchIdentifier.equals(other.branchIdentifier)) {
             return false;
         }
         if (this.sequenceNumber != other.sequenceNumber) {
@@ -197,4 +190,120 @@ public final class HistoryPoint {
     		return getBranchIdentifier() + "[" + getSequenceNumber() + "]";
     	}
     }
+    
+    /**
+     * A branch identifier, i.e., a sequence of subbranch 
+     * identifiers. It is a persistent list linked to its 
+     * parent branch identifier, so all the branch identifiers 
+     * in a symbolic execution tree share their common prefixes.
+     * It is immutable.
+     * 
+     * @author Pietro Braione
+     */
+    private static final class Branch {
+        /** The empty branch identifier (pre-initial). */
+        static final Branch EMPTY = new Branch();
+        
+        /** The parent branch identifier, {@code null} iff this is {@link #EMPTY}. */
+        final Branch parent;
+        
+        /** The last subbranch identifier, {@code null} iff this is {@link #EMPTY}. */
+        final String last;
+        
+        /** The number of subbranch identifiers. */
+        final int depth;
+        
+        /** The hash code. */
+        final int hashCode;
+        
+        /** The separator of subbranch identifiers in the {@link String} representation. */
+        final String separator;
+        
+        /** Caches the {@link String} representation. */
+        private String asString; //not volatile, like String.hash
+        
+        private Branch() {
+            this.parent = null;
+            this.last = null;
+            this.depth = 0;
+            this.hashCode = 1;
+            this.separator = null;
+            this.asString = "";
+        }
+        
+        Branch(Branch parent, String last, String separator) {
+            this.parent = parent;
+            this.last = last;
+            this.depth = parent.depth + 1;
+            this.hashCode = 31 * parent.hashCode + last.hashCode();
+            this.separator = separator;
+        }
+        
+        /**
+         * Returns the prefix of this branch identifier
+         * with a given depth.
+         * 
+         * @param depth an {@code int}, it must be 
+         *        {@code <= this.depth}.
+         * @return a {@link Branch}.
+         */
+        Branch ancestor(int depth) {
+            Branch retVal = this;
+            while (retVal.depth > depth) {
+                retVal = retVal.parent;
+            }
+            return retVal;
+        }
+        
+        /**
+         * Returns the {@link String} representation of 
+         * this branch identifier.
+         * 
+         * @return a {@link String}.
+         */
+        String asString() {
+            String retVal = this.asString;
+            if (retVal == null) {
+                //finds the nearest ancestor with a cached representation
+                final StringBuilder buf = new StringBuilder();
+                final String[] missing = new String[this.depth];
+                int nMissing = 0;
+                Branch b = this;
+                while (b.asString == null) {
+                    missing[nMissing++] = b.last;
+                    b = b.parent;
+                }
+                buf.append(b.asString);
+                for (int i = nMissing - 1; i >= 0; --i) {
+                    buf.append(this.separator).append(missing[i]);
+                }
+                retVal = buf.toString();
+                this.asString = retVal;
+            }
+            return retVal;
+        }
+        
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Branch)) {
+                return false;
+            }
+            Branch thisBranch = this;
+            Branch otherBranch = (Branch) obj;
+            while (thisBranch != otherBranch) {
+                if (thisBranch.depth != otherBranch.depth || thisBranch.hashCode != otherBranch.hashCode || 
+                !thisBranch.last.equals(otherBranch.last)) {
+                    return false;
+                }
+                thisBranch = thisBranch.parent;
+                otherBranch = otherBranch.parent;
+            }
+            return true;
+        }
+    }
 }
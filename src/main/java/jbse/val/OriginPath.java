@@ -0,0 +1,255 @@
+package jbse.val;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The origin of a {@link ReferenceSymbolic}, represented as a
+ * chain of access steps from a root (e.g., a local variable),
+ * through fields, array slots and map values. Paths are immutable,
+ * and the paths of the members of an object share the path of
+ * the object as their common prefix, so the origins of sibling
+ * symbols do not duplicate it. The origin {@link String} of a
+ * path is the concatenation of the labels of its steps; it is
+ * built on demand, and can be checked against a literal
+ * without building it with {@link #endsWith(String)} and
+ * {@link #isEqualTo(String)}.
+ *
+ * @author Pietro Braione
+ */
+public final class OriginPath {
+	/**
+	 * The kinds of access steps.
+	 *
+	 * @author Pietro Braione
+	 */
+	public enum Kind {
+		/** A root (local variable, or an opaque origin, e.g., of a symbolic apply). */
+		ROOT,
+
+		/** A field in an object. */
+		FIELD,
+
+		/** A slot in an array. */
+		ARRAY,
+
+		/** A value in a map. */
+		MAP_VALUE
+	};
+
+	/**
+	 * The interned labels of the {@link Kind#FIELD} steps;
+	 * they are as many as the fields in the program, so
+	 * interning them is safe.
+	 */
+	private static final ConcurrentHashMap<String, String> FIELD_LABELS = new ConcurrentHashMap<>();
+
+	/** The path this step extends, or {@code null} for roots. */
+	private final OriginPath parent;
+
+	/** The kind of this step. */
+	private final Kind kind;
+
+	/** The label of this step in the origin {@link String}. */
+	private final String label;
+
+	/** The length of the origin {@link String}. */
+	private final int length;
+
+	/** The hash code of this path. */
+	private final int hashCode;
+
+	/** Caches the origin {@link String}; it is lazily built. */
+	private String asOriginString; //not volatile, like String.hash
+
+	private OriginPath(OriginPath parent, Kind kind, String label) {
+		this.parent = parent;
+		this.kind = kind;
+		this.label = label;
+		this.length = (parent == null ? 0 : parent.length) + label.length();
+		this.hashCode = 31 * (parent == null ? 0 : parent.hashCode) + label.hashCode();
+	}
+
+	/**
+	 * Makes a root path.
+	 *
+	 * @param originString a {@link String}, the origin of the root.
+	 * @return an {@link OriginPath} with one {@link Kind#ROOT} step.
+	 */
+	public static OriginPath root(String originString) {
+		return new OriginPath(null, Kind.ROOT, originString);
+	}
+
+	/**
+	 * Makes the path of a field.
+	 *
+	 * @param container the {@link OriginPath} of the container object.
+	 * @param fieldClass a {@link String}, the name of the class where
+	 *        the field is declared.
+	 * @param fieldName a {@link String}, the name of the field.
+	 * @return an {@link OriginPath} extending {@code container} with
+	 *         a {@link Kind#FIELD} step.
+	 */
+	public static OriginPath field(OriginPath container, String fieldClass, String fieldName) {
+		final String label = FIELD_LABELS.computeIfAbsent("." + fieldClass + ":" + fieldName, s -> s);
+		return new OriginPath(container, Kind.FIELD, label);
+	}
+
+	/**
+	 * Makes the path of an array slot.
+	 *
+	 * @param container the {@link OriginPath} of the container array.
+	 * @param index a {@link Primitive}, the index of the slot.
+	 * @return an {@link OriginPath} extending {@code container} with
+	 *         a {@link Kind#ARRAY} step.
+	 */
+	public static OriginPath arraySlot(OriginPath container, Primitive index) {
+		return new OriginPath(container, Kind.ARRAY, "[" + (index.isSymbolic() ? ((Symbolic) index).asOriginString() : index.toString()) + "]");
+	}
+
+	/**
+	 * Makes the path of a map value.
+	 *
+	 * @param container the {@link OriginPath} of the container map.
+	 * @param key a {@link Reference}, the key associated to the value.
+	 * @param historyPoint the {@link HistoryPoint} where the value
+	 *        was read.
+	 * @return an {@link OriginPath} extending {@code container} with
+	 *         a {@link Kind#MAP_VALUE} step.
+	 */
+	public static OriginPath mapValue(OriginPath container, Reference key, HistoryPoint historyPoint) {
+		return new OriginPath(container, Kind.MAP_VALUE, "::GET(" + (key.isSymbolic() ? ((Symbolic) key).asOriginString() : key.toString()) + "@" + historyPoint.toString() + ")");
+	}
+
+	/**
+	 * Returns the path this path extends.
+	 *
+	 * @return an {@link OriginPath}, or {@code null} if
+	 *         this path is a root.
+	 */
+	public OriginPath getParent() {
+		return this.parent;
+	}
+
+	/**
+	 * Returns the kind of the last step of this path.
+	 *
+	 * @return a {@link Kind}.
+	 */
+	public Kind getKind() {
+		return this.kind;
+	}
+
+	/**
+	 * Returns the label of the last step of this path.
+	 *
+	 * @return a {@link String}.
+	 */
+	public String getLabel() {
+		return this.label;
+	}
+
+	/**
+	 * Returns the length of the origin {@link String}
+	 * of this path.
+	 *
+	 * @return an {@code int}.
+	 */
+	public int length() {
+		return this.length;
+	}
+
+	/**
+	 * Checks whether the origin {@link String} of this
+	 * path ends with a given {@link String}, without
+	 * building it.
+	 *
+	 * @param suffix a {@link String}.
+	 * @return {@code true} iff {@link #asOriginString()}{@code .endsWith(suffix)}.
+	 */
+	public boolean endsWith(String suffix) {
+		if (suffix.length() > this.length) {
+			return false;
+		}
+		int end = suffix.length();
+		for (OriginPath step = this; end > 0; step = step.parent) {
+			final String stepLabel = step.label;
+			final int n = Math.min(stepLabel.length(), end);
+			if (!suffix.regionMatches(end - n, stepLabel, stepLabel.length() - n, n)) {
+				return false;
+			}
+			end -= n;
+		}
+		return true;
+	}
+
+	/**
+	 * Checks whether the origin {@link String} of this
+	 * path is equal to a given {@link String}, without
+	 * building it.
+	 *
+	 * @param s a {@link String}.
+	 * @return {@code true} iff {@link #asOriginString()}{@code .equals(s)}.
+	 */
+	public boolean isEqualTo(String s) {
+		return s.length() == this.length && endsWith(s);
+	}
+
+	/**
+	 * Returns the origin {@link String} of this path.
+	 *
+	 * @return a {@link String}.
+	 */
+	public String asOriginString() {
+		String retVal = this.asOriginString;
+		if (retVal == null) {
+			if (this.parent == null) {
+				retVal = this.label;
+			} else {
+				final char[] buf = new char[this.length];
+				int end = this.length;
+				for (OriginPath step = this; step != null; step = step.parent) {
+					end -= step.label.length();
+					step.label.getChars(0, step.label.length(), buf, end);
+				}
+				retVal = new String(buf);
+			}
+			this.asOriginString = retVal;
+		}
+		return retVal;
+	}
+
+	@Override
+	public int hashCode() {
+		return this.hashCode;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (getClass() != obj.getClass()) {
+			return false;
+		}
+		OriginPath thisStep = this;
+		OriginPath otherStep = (OriginPath) obj;
+		while (thisStep != otherStep) {
+			if (thisStep == null || otherStep == null ||
+			thisStep.hashCode != otherStep.hashCode || thisStep.length != otherStep.length ||
+			thisStep.kind != otherStep.kind || !thisStep.label.equals(otherStep.label)) {
+				return false;
+			}
+			thisStep = thisStep.parent;
+			otherStep = otherStep.parent;
+		}
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return asOriginString();
+	}
+}
@@ -17,6 +17,12 @@ public abstract class ReferenceSymbolic extends Reference implements Symbolic {
     /** The static type of the reference (or null). */
     private final String staticType;
     
+    /** 
+     * Caches the {@link OriginPath} of this reference, 
+     * for the references whose origin is opaque. 
+     */
+    private OriginPath originPath; //lazily initialized
+    
     /**
      * Constructor.
      * 
@@ -46,6 +52,26 @@ public abstract class ReferenceSymbolic extends Reference implements Symbolic {
     
     @Override
     public abstract ReferenceSymbolic root();
+    
+    /**
+     * Returns the origin of this reference as a 
+     * structured path.
+     * 
+     * @return an {@link OriginPath} whose origin 
+     *         {@link String} is {@link #asOriginString()}.
+     *         By default the path is made by a single 
+     *         step, subclasses whose origin is a member
+     *         of another symbol return a path extending
+     *         that of its container.
+     */
+    public OriginPath originPath() {
+    	OriginPath retVal = this.originPath;
+    	if (retVal == null) {
+    		retVal = OriginPath.root(asOriginString());
+    		this.originPath = retVal;
+    	}
+    	return retVal;
+    }
 
     @Override
     public final String getValue() {
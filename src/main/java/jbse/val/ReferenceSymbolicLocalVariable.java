@@ -14,8 +14,8 @@ public final class ReferenceSymbolicLocalVariable extends ReferenceSymbolicAtomi
 	 */
     private final String variableName;
     
-    /** The origin String representation of this object. */
-    private final String asOriginString;
+    /** The origin of this object. */
+    private final OriginPath originPath;
     
     /** The hash code of this object. */
     private final int hashCode;
@@ -43,7 +43,7 @@ public final class ReferenceSymbolicLocalVariable extends ReferenceSymbolicAtomi
     		throw new InvalidInputException("Attempted the creation of a ReferenceSymbolicLocalVariable with null variableName.");
     	}
     	this.variableName = variableName;
-    	this.asOriginString = "{ROOT}:" + this.variableName;
+    	this.originPath = OriginPath.root("{ROOT}:" + this.variableName);
     	
     	//calculates hashCode
 		final int prime = 5227;
@@ -59,7 +59,12 @@ public final class ReferenceSymbolicLocalVariable extends ReferenceSymbolicAtomi
     
     @Override
     public String asOriginString() {
-        return this.asOriginString;
+        return this.originPath.asOriginString();
+    }
+    
+    @Override
+    public OriginPath originPath() {
+    	return this.originPath;
     }
     
     @Override
@@ -21,8 +21,8 @@ public final class ReferenceSymbolicMemberField extends ReferenceSymbolicMember
      */
     private final String fieldClass;
     
-    /** The origin String representation of this object. */
-    private final String asOriginString;
+    /** The origin of this object. */
+    private final OriginPath originPath;
     
     /** The hash code of this object. */
     private final int hashCode;
@@ -56,7 +56,7 @@ public final class ReferenceSymbolicMemberField extends ReferenceSymbolicMember
         }
         this.fieldName = fieldName;
         this.fieldClass = fieldClass;
-        this.asOriginString = getContainer().asOriginString() + "." + this.fieldClass + ":" + this.fieldName;
+        this.originPath = OriginPath.field(getContainer().originPath(), this.fieldClass, this.fieldName);
 
         //calculates hashCode
         final int prime = 3671;
@@ -79,7 +79,12 @@ public final class ReferenceSymbolicMemberField extends ReferenceSymbolicMember
 
     @Override
     public String asOriginString() {
-        return this.asOriginString;
+        return this.originPath.asOriginString();
+    }
+    
+    @Override
+    public OriginPath originPath() {
+    	return this.originPath;
     }
     
     @Override
@@ -19,8 +19,8 @@ public final class ReferenceSymbolicMemberMapValue extends ReferenceSymbolicMemb
     /** The current {@link HistoryPoint} (to disambiguate the state of {@link #key}). */
     private final HistoryPoint historyPoint;
     
-    /** The origin String representation of this object. */
-    private final String asOriginString;
+    /** The origin of this object. */
+    private final OriginPath originPath;
     
 	/** The hash code of this object. */
     private final int hashCode;
@@ -47,7 +47,7 @@ public final class ReferenceSymbolicMemberMapValue extends ReferenceSymbolicMemb
     	
     	this.key = key;
     	this.historyPoint = historyPoint;
-    	this.asOriginString = getContainer().asOriginString() + "::GET(" + (this.key.isSymbolic() ? ((Symbolic) this.key).asOriginString() : this.key.toString()) + "@" + historyPoint.toString() + ")";
+    	this.originPath = OriginPath.mapValue(getContainer().originPath(), this.key, historyPoint);
 
     	//calculates hashCode
 		final int prime = 131071;
@@ -78,7 +78,12 @@ public final class ReferenceSymbolicMemberMapValue extends ReferenceSymbolicMemb
     
     @Override
     public String asOriginString() {
-        return this.asOriginString;
+        return this.originPath.asOriginString();
+    }
+    
+    @Override
+    public OriginPath originPath() {
+    	return this.originPath;
     }
     
     @Override
@@ -227,6 +227,18 @@ public final class SymbolFactory implements Cloneable {
         }
     }
 
+    /**
+     * Checks whether this factory will create symbols with
+     * the same identifiers of another factory.
+     *
+     * @param other a {@link SymbolFactory}.
+     * @return {@code true} iff {@code this} and {@code other}
+     *         have the same next available identifiers.
+     */
+    public boolean hasSameNextIdentifiers(SymbolFactory other) {
+        return (this.nextIdRefSym == other.nextIdRefSym && this.nextIdPrimSym == other.nextIdPrimSym);
+    }
+
     private int getNextIdPrimitiveSymbolic() {
         final int retVal = this.nextIdPrimSym++;
         return retVal;
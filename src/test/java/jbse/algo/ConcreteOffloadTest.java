@@ -0,0 +1,114 @@
+package jbse.algo;
+
+import static jbse.algo.Algo_INVOKEMETA_Metacircular.allConstant;
+import static jbse.algo.Algo_INVOKEMETA_Metacircular.invokeMetacircularly;
+import static jbse.algo.Algo_INVOKEMETA_Metacircular.isReflectable;
+import static jbse.algo.Util.valueString;
+import static jbse.bc.ClassLoaders.CLASSLOADER_BOOT;
+import static jbse.bc.Signatures.JAVA_CLONEABLE;
+import static jbse.bc.Signatures.JAVA_OBJECT;
+import static jbse.bc.Signatures.JAVA_SERIALIZABLE;
+import static jbse.bc.Signatures.JAVA_STRING;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import jbse.algo.exc.CannotInvokeNativeException;
+import jbse.bc.ClassFileFactoryJavassist;
+import jbse.bc.Classpath;
+import jbse.bc.Signature;
+import jbse.common.Type;
+import jbse.mem.State;
+import jbse.rewr.CalculatorRewriting;
+import jbse.rewr.RewriterOperationOnSimplex;
+import jbse.val.HistoryPoint;
+import jbse.val.Reference;
+import jbse.val.SymbolFactory;
+import jbse.val.Value;
+
+/**
+ * Tests the helpers of {@link Algo_INVOKEMETA_Metacircular} that
+ * {@link Algo_INVOKEMETA_ConcreteOffload} uses to decide whether an
+ * invocation can be offloaded to the meta-level, and to offload it.
+ */
+public class ConcreteOffloadTest {
+    private static final Signature MATH_MAX = new Signature("java/lang/Math", "(II)I", "max");
+    private static final Signature STRING_LENGTH = new Signature("java/lang/String", "()I", "length");
+    private static final Signature STRING_CONCAT = new Signature("java/lang/String", "(Ljava/lang/String;)Ljava/lang/String;", "concat");
+    private static final Signature INTEGER_PARSEINT = new Signature("java/lang/Integer", "(Ljava/lang/String;)I", "parseInt");
+
+    private CalculatorRewriting calc;
+    private SymbolFactory symbolFactory;
+    private State state;
+
+    @Before
+    public void setUp() throws Exception {
+        final Classpath env = new Classpath(Paths.get("."), Paths.get(System.getProperty("java.home", "")), Collections.<Path>emptyList(), Collections.<Path>emptyList());
+        this.calc = new CalculatorRewriting();
+        this.calc.addRewriter(new RewriterOperationOnSimplex());
+        this.symbolFactory = new SymbolFactory();
+        this.state = new State(true, HistoryPoint.startingPreInitial(true), 1000, 1000, env, ClassFileFactoryJavassist.class, Collections.emptyMap(), Collections.emptyMap(), this.symbolFactory);
+        for (String className : new String[] { JAVA_OBJECT, JAVA_CLONEABLE, JAVA_SERIALIZABLE, JAVA_STRING }) {
+            this.state.getClassHierarchy().loadCreateClass(CLASSLOADER_BOOT, className, true);
+        }
+    }
+
+    private Reference string(String s) throws Exception {
+        this.state.ensureStringLiteral(this.calc, s);
+        return this.state.referenceToStringLiteral(s);
+    }
+
+    @Test
+    public void testOffloadStatic() throws Exception {
+        final Value[] args = { this.calc.valInt(3), this.calc.valInt(5) };
+        assertTrue(allConstant(this.state, args));
+        assertTrue(isReflectable("" + Type.INT));
+        assertEquals(this.calc.valInt(5), invokeMetacircularly(this.state, this.calc, MATH_MAX, true, args));
+    }
+
+    @Test
+    public void testOffloadInstance() throws Exception {
+        final Value[] args = { string("abc") };
+        assertTrue(allConstant(this.state, args));
+        assertEquals(this.calc.valInt(3), invokeMetacircularly(this.state, this.calc, STRING_LENGTH, false, args));
+    }
+
+    @Test
+    public void testOffloadReturnsString() throws Exception {
+        final Value[] args = { string("ab"), string("c") };
+        assertTrue(allConstant(this.state, args));
+        assertTrue(isReflectable("Ljava/lang/String;"));
+        final Value retVal = invokeMetacircularly(this.state, this.calc, STRING_CONCAT, false, args);
+        assertEquals("abc", valueString(this.state, (Reference) retVal));
+    }
+
+    @Test
+    public void testFallbackSymbolicPrimitive() throws Exception {
+        final Value[] args = { this.calc.valInt(3), this.symbolFactory.createSymbolLocalVariablePrimitive(HistoryPoint.unknown(), "I", "x") };
+        assertFalse(allConstant(this.state, args));
+    }
+
+    @Test
+    public void testFallbackSymbolicReference() throws Exception {
+        final Value[] args = { this.symbolFactory.createSymbolLocalVariableReference(HistoryPoint.unknown(), "Ljava/lang/String;", "Ljava/lang/String;", "s") };
+        assertFalse(allConstant(this.state, args));
+    }
+
+    @Test
+    public void testFallbackReturnNotReflectable() {
+        assertFalse(isReflectable("[C"));
+        assertFalse(isReflectable("Ljava/lang/Object;"));
+    }
+
+    @Test(expected=CannotInvokeNativeException.class)
+    public void testFallbackException() throws Exception {
+        invokeMetacircularly(this.state, this.calc, INTEGER_PARSEINT, true, new Value[] { string("x") });
+    }
+}
@@ -0,0 +1,107 @@
+package jbse.algo;
+
+import static jbse.bc.ClassLoaders.CLASSLOADER_APP;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import jbse.bc.ClassFile;
+import jbse.bc.ClassFileFactoryJavassist;
+import jbse.bc.Classpath;
+import jbse.bc.Signature;
+import jbse.mem.State;
+import jbse.rewr.CalculatorRewriting;
+import jbse.rewr.RewriterOperationOnSimplex;
+import jbse.val.HistoryPoint;
+import jbse.val.Null;
+import jbse.val.SymbolFactory;
+import jbse.val.Value;
+
+/**
+ * Tests {@link FastStepper} on the methods of class
+ * {@code fast.Straight}:
+ *
+ * <pre>
+ * public class Straight {
+ *     static int m(int x, Object o) {
+ *         int y = 5;          //0: iconst_5, 1: istore_2
+ *         y += 2;             //2: iinc 2, 2
+ *         Object p = null;    //5: aconst_null, 6: astore_3
+ *         return x + y;       //7: iload_0, 8: iload_2, 9: iadd, 10: ireturn
+ *     }
+ *
+ *     static Object n(Object o) {
+ *         return o;           //0: aload_0, 1: areturn
+ *     }
+ *
+ *     static void loop() {
+ *         while (true) { }    //0: goto 0
+ *     }
+ * }
+ * </pre>
+ */
+public class FastStepperTest {
+    private static final String STRAIGHT = "fast/Straight";
+    private static final Signature STRAIGHT_M = new Signature(STRAIGHT, "(ILjava/lang/Object;)I", "m");
+    private static final Signature STRAIGHT_N = new Signature(STRAIGHT, "(Ljava/lang/Object;)Ljava/lang/Object;", "n");
+    private static final Signature STRAIGHT_LOOP = new Signature(STRAIGHT, "()V", "loop");
+
+    private CalculatorRewriting calc;
+    private State state;
+    private ClassFile cf;
+    private FastStepper stepper;
+
+    @Before
+    public void setUp() throws Exception {
+        final ArrayList<Path> userPath = new ArrayList<>();
+        userPath.add(Paths.get("src/test/resources/jbse/algo/testdata"));
+        final Classpath env = new Classpath(Paths.get("."), Paths.get(System.getProperty("java.home", "")), Collections.emptyList(), userPath);
+        this.calc = new CalculatorRewriting();
+        this.calc.addRewriter(new RewriterOperationOnSimplex());
+        this.state = new State(true, HistoryPoint.startingPreInitial(true), 1000, 1000, env, ClassFileFactoryJavassist.class, Collections.emptyMap(), Collections.emptyMap(), new SymbolFactory());
+        this.cf = this.state.getClassHierarchy().loadCreateClass(CLASSLOADER_APP, STRAIGHT, true);
+        this.state.setPhasePostInitial();
+        this.stepper = new FastStepper(this.calc);
+    }
+
+    @Test
+    public void testStraightLine() throws Exception {
+        this.state.pushFrameSymbolic(this.cf, STRAIGHT_M);
+        final Value x = this.state.getLocalVariableValue(0);
+        int steps = 0;
+        while (this.stepper.step(this.state)) {
+            ++steps;
+        }
+
+        //stops at iadd
+        assertEquals(7, steps);
+        assertEquals(9, this.state.getCurrentProgramCounter());
+        assertEquals(this.calc.valInt(7), this.state.getLocalVariableValue(2));
+        assertEquals(Null.getInstance(), this.state.getLocalVariableValue(3));
+        assertArrayEquals(new Value[] { x, this.calc.valInt(7) }, this.state.getCurrentFrame().operands(2));
+    }
+
+    @Test
+    public void testSymbolicReferenceFallsBack() throws Exception {
+        this.state.pushFrameSymbolic(this.cf, STRAIGHT_N);
+        assertFalse(this.stepper.step(this.state));
+        assertEquals(0, this.state.getCurrentProgramCounter());
+        assertTrue(this.state.getCurrentFrame().operands().isEmpty());
+    }
+
+    @Test
+    public void testBackwardGotoFallsBack() throws Exception {
+        this.state.pushFrameSymbolic(this.cf, STRAIGHT_LOOP);
+        assertFalse(this.stepper.step(this.state));
+        assertEquals(0, this.state.getCurrentProgramCounter());
+    }
+}
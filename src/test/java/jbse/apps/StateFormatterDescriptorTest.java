@@ -0,0 +1,166 @@
+package jbse.apps;
+
+import static jbse.bc.ClassLoaders.CLASSLOADER_APP;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import jbse.apps.StateFormatterDescriptor.Reanimator;
+import jbse.bc.ClassFile;
+import jbse.bc.ClassFileFactoryJavassist;
+import jbse.bc.Classpath;
+import jbse.bc.Signature;
+import jbse.mem.State;
+import jbse.rewr.CalculatorRewriting;
+import jbse.rewr.RewriterOperationOnSimplex;
+import jbse.val.HistoryPoint;
+import jbse.val.PrimitiveSymbolic;
+import jbse.val.Simplex;
+import jbse.val.SymbolFactory;
+
+/**
+ * Tests the parallel reanimation of {@link StateFormatterDescriptor}
+ * on the final states of method {@code m} of class {@code fast.Straight}
+ * (see {@code jbse.algo.FastStepperTest}).
+ */
+public class StateFormatterDescriptorTest {
+    private static final String STRAIGHT = "fast/Straight";
+    private static final Signature STRAIGHT_M = new Signature(STRAIGHT, "(ILjava/lang/Object;)I", "m");
+    private static final long WAIT_MILLIS = 10_000L;
+
+    private CalculatorRewriting calc;
+    private State initialState;
+    private PrimitiveSymbolic x;
+
+    @Before
+    public void setUp() throws Exception {
+        final ArrayList<Path> userPath = new ArrayList<>();
+        userPath.add(Paths.get("src/test/resources/jbse/algo/testdata"));
+        final Classpath env = new Classpath(Paths.get("."), Paths.get(System.getProperty("java.home", "")), Collections.emptyList(), userPath);
+        this.calc = new CalculatorRewriting();
+        this.calc.addRewriter(new RewriterOperationOnSimplex());
+        this.initialState = new State(true, HistoryPoint.startingPreInitial(true), 1000, 1000, env, ClassFileFactoryJavassist.class, Collections.emptyMap(), Collections.emptyMap(), new SymbolFactory());
+        final ClassFile cf = this.initialState.getClassHierarchy().loadCreateClass(CLASSLOADER_APP, STRAIGHT, true);
+        this.initialState.setPhasePostInitial();
+        this.initialState.pushFrameSymbolic(cf, STRAIGHT_M);
+        this.x = (PrimitiveSymbolic) this.initialState.getLocalVariableValue(0);
+    }
+
+    /**
+     * Returns a final state of {@code m} where {@code x > 0}.
+     */
+    private State finalState() throws Exception {
+        final State retVal = this.initialState.clone();
+        retVal.assume(this.calc.push(this.x).gt(this.calc.valInt(0)).pop());
+        retVal.setStuckReturn(this.calc.valInt(7));
+        return retVal;
+    }
+
+    private StateFormatterDescriptor formatter(Reanimator reanimator, int reanimatorThreads) {
+        return new StateFormatterDescriptor(() -> this.initialState,
+                                            symbols -> Collections.singletonMap(this.x, (Simplex) this.calc.valInt(3)),
+                                            () -> reanimator, reanimatorThreads);
+    }
+
+    @Test
+    public void testReanimationInput() throws Exception {
+        final StateFormatterDescriptor f = formatter((topLevelDescs, variables, root) ->
+            topLevelDescs.size() + " " + root.methodSignature + " " +
+            root.hasThis + " " + root.parameterNames + " " + root.parameterTypes + "\n\n", 1);
+        f.formatState(finalState());
+        f.formatEpilogue();
+        assertEquals("1 " + STRAIGHT_M + " false [x, o] [I, Ljava/lang/Object;]\n\n", f.emit());
+    }
+
+    @Test
+    public void testFormattingOrder() throws Exception {
+        //the first state is reanimated last
+        final CountDownLatch secondDone = new CountDownLatch(1);
+        final int[] counter = { 0 };
+        final StateFormatterDescriptor f = formatter((topLevelDescs, variables, root) -> {
+            final int n;
+            synchronized (counter) {
+                n = counter[0]++;
+            }
+            if (n == 0) {
+                try {
+                    secondDone.await(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            } else {
+                secondDone.countDown();
+            }
+            return "stack" + n + "\n\n";
+        }, 2);
+        f.formatState(finalState());
+        f.formatState(finalState());
+        f.formatEpilogue();
+        assertEquals("stack0\n\nstack1\n\n", f.emit());
+    }
+
+    @Test
+    public void testEmitReturnsCompletedPrefix() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final StateFormatterDescriptor f = formatter((topLevelDescs, variables, root) -> {
+            try {
+                release.await(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "stack\n\n";
+        }, 1);
+        f.formatState(finalState());
+        assertEquals("", f.emit());
+        release.countDown();
+        f.formatEpilogue();
+        assertEquals("stack\n\n", f.emit());
+    }
+
+    @Test
+    public void testBackPressure() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final StateFormatterDescriptor f = formatter((topLevelDescs, variables, root) -> {
+            try {
+                release.await(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "stack\n\n";
+        }, 1);
+        final State[] states = new State[6];
+        for (int i = 0; i < states.length; ++i) {
+            states[i] = finalState();
+        }
+
+        //one running, four queued, the sixth must wait
+        final CountDownLatch formatted = new CountDownLatch(states.length);
+        final Thread engine = new Thread(() -> {
+            for (State state : states) {
+                f.formatState(state);
+                formatted.countDown();
+            }
+        });
+        engine.start();
+        assertFalse(formatted.await(500, TimeUnit.MILLISECONDS));
+        assertEquals(1, formatted.getCount());
+        release.countDown();
+        assertTrue(formatted.await(WAIT_MILLIS, TimeUnit.MILLISECONDS));
+        engine.join();
+        f.formatEpilogue();
+        final String[] stacks = new String[states.length];
+        Arrays.fill(stacks, "stack\n\n");
+        assertEquals(String.join("", stacks), f.emit());
+    }
+}
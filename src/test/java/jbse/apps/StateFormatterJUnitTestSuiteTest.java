@@ -0,0 +1,154 @@
+package jbse.apps;
+
+import static jbse.bc.ClassLoaders.CLASSLOADER_APP;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import jbse.bc.ClassFile;
+import jbse.bc.ClassFileFactoryJavassist;
+import jbse.bc.Classpath;
+import jbse.bc.Signature;
+import jbse.mem.State;
+import jbse.rewr.CalculatorRewriting;
+import jbse.rewr.RewriterOperationOnSimplex;
+import jbse.val.HistoryPoint;
+import jbse.val.PrimitiveSymbolic;
+import jbse.val.Simplex;
+import jbse.val.SymbolFactory;
+
+/**
+ * Tests {@link StateFormatterJUnitTestSuite} on the final states
+ * of method {@code m} of class {@code fast.Straight} (see
+ * {@code jbse.algo.FastStepperTest}).
+ */
+public class StateFormatterJUnitTestSuiteTest {
+    private static final String STRAIGHT = "fast/Straight";
+    private static final Signature STRAIGHT_M = new Signature(STRAIGHT, "(ILjava/lang/Object;)I", "m");
+
+    private CalculatorRewriting calc;
+    private State initialState;
+    private PrimitiveSymbolic x;
+    private Path outputDirectory;
+
+    @Before
+    public void setUp() throws Exception {
+        final ArrayList<Path> userPath = new ArrayList<>();
+        userPath.add(Paths.get("src/test/resources/jbse/algo/testdata"));
+        final Classpath env = new Classpath(Paths.get("."), Paths.get(System.getProperty("java.home", "")), Collections.emptyList(), userPath);
+        this.calc = new CalculatorRewriting();
+        this.calc.addRewriter(new RewriterOperationOnSimplex());
+        this.initialState = new State(true, HistoryPoint.startingPreInitial(true), 1000, 1000, env, ClassFileFactoryJavassist.class, Collections.emptyMap(), Collections.emptyMap(), new SymbolFactory());
+        final ClassFile cf = this.initialState.getClassHierarchy().loadCreateClass(CLASSLOADER_APP, STRAIGHT, true);
+        this.initialState.setPhasePostInitial();
+        this.initialState.pushFrameSymbolic(cf, STRAIGHT_M);
+        this.x = (PrimitiveSymbolic) this.initialState.getLocalVariableValue(0);
+        this.outputDirectory = Files.createTempDirectory("jbse");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.walk(this.outputDirectory).sorted(Collections.reverseOrder()).forEach(p -> p.toFile().delete());
+    }
+
+    /**
+     * Returns a final state of {@code m} where {@code x > 0}
+     * and {@code m} returns {@code 7}.
+     */
+    private State finalState() throws Exception {
+        final State retVal = this.initialState.clone();
+        retVal.assume(this.calc.push(this.x).gt(this.calc.valInt(0)).pop());
+        retVal.setStuckReturn(this.calc.valInt(7));
+        return retVal;
+    }
+
+    private Function<Collection<PrimitiveSymbolic>, Map<PrimitiveSymbolic, Simplex>> model(int xValue) {
+        return symbols -> Collections.singletonMap(this.x, (Simplex) this.calc.valInt(xValue));
+    }
+
+    private static String expectedTestMethod(int testCounter, int xValue) {
+        return
+            "    @Test\n" +
+            "    public void test" + testCounter + "() {\n" +
+            "        //test case for state [0]\n" +
+            "        this.nullObjectFields = new HashSet<>();\n" +
+            "        long __ROOT_x = " + xValue + "; // ({V0}) > (0)\n" +
+            "        long __returnedValue = m(__ROOT_x, null);\n" +
+            "        assertTrue(__returnedValue == 7);\n" +
+            "    }\n";
+    }
+
+    private String read(String fileName) throws IOException {
+        return new String(Files.readAllBytes(this.outputDirectory.resolve(fileName)), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testInMemory() throws Exception {
+        final StateFormatterJUnitTestSuite f = new StateFormatterJUnitTestSuite(() -> this.initialState, model(3));
+        f.formatPrologue();
+        f.formatState(finalState());
+        f.formatEpilogue();
+        final String output = f.emit();
+        assertTrue(output.startsWith("import static java.lang.System.identityHashCode;\n"));
+        assertTrue(output.contains("public class TestSuite {\n"));
+        assertTrue(output.endsWith("\n" + expectedTestMethod(0, 3) + "}\n"));
+    }
+
+    @Test
+    public void testUnsolvedStateKeepsOtherTests() throws Exception {
+        final boolean[] solved = { true, false, true };
+        final int[] call = { 0 };
+        final StateFormatterJUnitTestSuite f = new StateFormatterJUnitTestSuite(() -> this.initialState, 
+            symbols -> (solved[call[0]++] ? Collections.singletonMap(this.x, (Simplex) this.calc.valInt(3)) : null));
+        f.formatPrologue();
+        f.formatState(finalState());
+        f.formatState(finalState());
+        f.formatState(finalState());
+        f.formatEpilogue();
+        assertTrue(f.emit().endsWith("\n" + 
+            expectedTestMethod(0, 3) + 
+            "    //Unable to generate test case 1 for state [0] (no numeric solution from the solver)\n" +
+            expectedTestMethod(2, 3) + 
+            "}\n"));
+    }
+
+    @Test
+    public void testStreaming() throws Exception {
+        final StateFormatterJUnitTestSuite f = new StateFormatterJUnitTestSuite(() -> this.initialState, model(3), this.outputDirectory, 2);
+        f.formatPrologue();
+        f.formatState(finalState());
+        f.formatState(finalState());
+
+        //the first class is full, thus closed
+        final String testSuite0 = read("TestSuite0.java");
+        assertTrue(testSuite0.startsWith("import static java.lang.System.identityHashCode;\n"));
+        assertTrue(testSuite0.contains("public class TestSuite0 {\n"));
+        assertTrue(testSuite0.endsWith("\n" + expectedTestMethod(0, 3) + expectedTestMethod(1, 3) + "}\n"));
+        assertFalse(Files.exists(this.outputDirectory.resolve("TestSuite1.java")));
+
+        //the test methods are flushed as soon as they are formatted
+        f.formatState(finalState());
+        final String testSuite1 = read("TestSuite1.java");
+        assertTrue(testSuite1.contains("public class TestSuite1 {\n"));
+        assertTrue(testSuite1.endsWith("\n" + expectedTestMethod(2, 3)));
+
+        f.formatEpilogue();
+        assertEquals(testSuite1 + "}\n", read("TestSuite1.java"));
+        assertEquals("", f.emit());
+    }
+}
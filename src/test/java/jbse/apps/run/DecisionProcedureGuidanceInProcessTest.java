@@ -0,0 +1,113 @@
+package jbse.apps.run;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import jbse.apps.run.DecisionProcedureGuidanceInProcess.JVMInProcess;
+import jbse.bc.Signature;
+import jbse.jvm.RunnerParameters;
+import jbse.rewr.CalculatorRewriting;
+import jbse.rewr.RewriterOperationOnSimplex;
+import jbse.val.HistoryPoint;
+import jbse.val.PrimitiveSymbolic;
+import jbse.val.SymbolFactory;
+
+/**
+ * Tests the guiding concrete execution of {@link DecisionProcedureGuidanceInProcess}
+ * on class {@code guidance.Recursive}:
+ *
+ * <pre>
+ * public class Recursive {
+ *     int fact(int n) {
+ *         return (n &lt;= 1 ? 1 : n * fact(n - 1));
+ *     }
+ *
+ *     int fail(int n) {
+ *         if (n == 0) {
+ *             throw new IllegalStateException();
+ *         }
+ *         return fail(n - 1);
+ *     }
+ *
+ *     public void driverFact() {
+ *         fact(3);
+ *         fact(5);
+ *     }
+ *
+ *     public void driverFail() {
+ *         try {
+ *             fail(2);
+ *         } catch (IllegalStateException e) {
+ *             //expected
+ *         }
+ *         fail(7);
+ *     }
+ * }
+ * </pre>
+ */
+public class DecisionProcedureGuidanceInProcessTest {
+    private static final String RECURSIVE = "guidance/Recursive";
+    private static final String THREAD_NAME = "In-process guidance";
+
+    private CalculatorRewriting calc;
+    private PrimitiveSymbolic n;
+
+    @Before
+    public void setUp() throws Exception {
+        this.calc = new CalculatorRewriting();
+        this.calc.addRewriter(new RewriterOperationOnSimplex());
+        this.n = new SymbolFactory().createSymbolLocalVariablePrimitive(HistoryPoint.unknown(), "I", "n");
+    }
+
+    private JVMInProcess jvm(String driver, String stop, int numberOfHits) throws GuidanceException {
+        final RunnerParameters p = new RunnerParameters();
+        p.addUserClasspath("src/test/resources/jbse/apps/run/testdata");
+        p.setMethodSignature(RECURSIVE, "()V", driver);
+        return new JVMInProcess(this.calc, p, new Signature(RECURSIVE, "(I)I", stop), numberOfHits);
+    }
+
+    private static boolean isGuidanceThreadAlive() {
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (THREAD_NAME.equals(t.getName()) && t.isAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void testFirstHit() throws Exception {
+        final JVMInProcess jvm = jvm("driverFact", "fact", 1);
+        assertEquals(this.calc.valInt(3), jvm.getValue(this.n));
+        jvm.close();
+    }
+
+    @Test
+    public void testRecursiveInvocationsNotCounted() throws Exception {
+        final JVMInProcess jvm = jvm("driverFact", "fact", 2);
+        assertEquals(this.calc.valInt(5), jvm.getValue(this.n));
+        jvm.close();
+    }
+
+    @Test
+    public void testExceptionalExitsTracked() throws Exception {
+        final JVMInProcess jvm = jvm("driverFail", "fail", 2);
+        assertEquals(this.calc.valInt(7), jvm.getValue(this.n));
+        jvm.close();
+    }
+
+    @Test(expected=GuidanceException.class)
+    public void testNotReached() throws Exception {
+        jvm("driverFact", "fact", 3);
+    }
+
+    @Test
+    public void testCloseJoinsThread() throws Exception {
+        final JVMInProcess jvm = jvm("driverFact", "fact", 1);
+        jvm.close();
+        assertFalse(isGuidanceThreadAlive());
+    }
+}
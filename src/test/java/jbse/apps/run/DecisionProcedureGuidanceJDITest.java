@@ -0,0 +1,146 @@
+package jbse.apps.run;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.jdi.ObjectReference;
+
+import jbse.apps.run.DecisionProcedureGuidanceJDI.JVMJDI;
+import jbse.bc.Signature;
+import jbse.jvm.RunnerParameters;
+import jbse.rewr.CalculatorRewriting;
+import jbse.rewr.RewriterOperationOnSimplex;
+import jbse.val.HistoryPoint;
+import jbse.val.PrimitiveSymbolic;
+import jbse.val.ReferenceSymbolic;
+import jbse.val.SymbolFactory;
+
+/**
+ * Tests the snapshot of the concrete state taken by the guiding
+ * concrete execution of {@link DecisionProcedureGuidanceJDI} on
+ * class {@code guidance.Linked} (compiled with {@code -g}):
+ *
+ * <pre>
+ * public class Linked {
+ *     int value;
+ *     Linked next;
+ *     int[] values;
+ *
+ *     public Linked() { }
+ *
+ *     Linked(int value, Linked next) {
+ *         this.value = value;
+ *         this.next = next;
+ *         this.values = new int[] { value, value + 1 };
+ *     }
+ *
+ *     int get(Linked l) {
+ *         return l.value;
+ *     }
+ *
+ *     public void driver() {
+ *         Linked l = new Linked(1, new Linked(2, null));
+ *         get(l);
+ *         l.next.value = 5;
+ *         l.values[1] = 7;
+ *         get(l);
+ *     }
+ * }
+ * </pre>
+ */
+public class DecisionProcedureGuidanceJDITest {
+    private static final String LINKED = "guidance/Linked";
+    private static final Signature LINKED_GET = new Signature(LINKED, "(Lguidance/Linked;)I", "get");
+
+    private CalculatorRewriting calc;
+    private ReferenceSymbolic l;
+    private PrimitiveSymbolic lValue;
+    private ReferenceSymbolic lNext;
+    private PrimitiveSymbolic lNextValue;
+    private PrimitiveSymbolic lValues1;
+    private PrimitiveSymbolic lValuesLength;
+    private JVMJDI jvm;
+
+    @Before
+    public void setUp() throws Exception {
+        this.calc = new CalculatorRewriting();
+        this.calc.addRewriter(new RewriterOperationOnSimplex());
+        final SymbolFactory symbolFactory = new SymbolFactory();
+        this.l = symbolFactory.createSymbolLocalVariableReference(HistoryPoint.unknown(), "L" + LINKED + ";", "L" + LINKED + ";", "l");
+        this.lValue = symbolFactory.createSymbolMemberFieldPrimitive("I", this.l, "value", LINKED);
+        this.lNext = symbolFactory.createSymbolMemberFieldReference("L" + LINKED + ";", "L" + LINKED + ";", this.l, "next", LINKED);
+        this.lNextValue = symbolFactory.createSymbolMemberFieldPrimitive("I", this.lNext, "value", LINKED);
+        final ReferenceSymbolic lValues = symbolFactory.createSymbolMemberFieldReference("[I", "[I", this.l, "values", LINKED);
+        this.lValues1 = symbolFactory.createSymbolMemberArrayPrimitive("I", lValues, this.calc.valInt(1));
+        this.lValuesLength = symbolFactory.createSymbolMemberArrayLength(lValues);
+    }
+
+    @After
+    public void tearDown() {
+        if (this.jvm != null) {
+            this.jvm.close();
+        }
+    }
+
+    private void launch(int snapshotDepth) throws GuidanceException {
+        tearDown();
+        final RunnerParameters p = new RunnerParameters();
+        p.addUserClasspath("src/test/resources/jbse/apps/run/testdata");
+        p.addUserClasspath(System.getProperty("java.class.path").split(File.pathSeparator));
+        p.setMethodSignature(LINKED, "()V", "driver");
+        this.jvm = new JVMJDI(this.calc, p, LINKED_GET, 1, null, snapshotDepth);
+    }
+
+    private void assertFirstHit() throws GuidanceException {
+        assertEquals(this.calc.valInt(1), this.jvm.getValue(this.lValue));
+        assertEquals(this.calc.valInt(2), this.jvm.getValue(this.lNextValue));
+        assertEquals(this.calc.valInt(2), this.jvm.getValue(this.lValues1));
+        assertEquals(this.calc.valInt(2), this.jvm.getValue(this.lValuesLength));
+    }
+
+    private void assertSecondHit() throws GuidanceException {
+        assertEquals(this.calc.valInt(1), this.jvm.getValue(this.lValue));
+        assertEquals(this.calc.valInt(5), this.jvm.getValue(this.lNextValue));
+        assertEquals(this.calc.valInt(7), this.jvm.getValue(this.lValues1));
+    }
+
+    @Test
+    public void testOnDemand() throws Exception {
+        launch(0);
+        assertFirstHit();
+    }
+
+    @Test
+    public void testPrefetched() throws Exception {
+        launch(1);
+        assertFirstHit();
+        launch(3);
+        assertFirstHit();
+    }
+
+    @Test
+    public void testRepeatedQueriesServedBySnapshot() throws Exception {
+        launch(0);
+        assertFirstHit();
+
+        //changes the debuggee behind the back of the snapshot...
+        final ObjectReference next = (ObjectReference) this.jvm.getValue(this.lNext);
+        next.setValue(next.referenceType().fieldByName("value"), this.jvm.vm.mirrorOf(42));
+
+        //...that is not refetched while the execution stays put
+        assertEquals(this.calc.valInt(2), this.jvm.getValue(this.lNextValue));
+    }
+
+    @Test
+    public void testSnapshotClearedOnMove() throws Exception {
+        launch(2);
+        assertFirstHit();
+        this.jvm.goToBreakpoint(LINKED_GET, 0, 1);
+        assertSecondHit();
+    }
+}
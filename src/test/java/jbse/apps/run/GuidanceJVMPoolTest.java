@@ -0,0 +1,124 @@
+package jbse.apps.run;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.jdi.ClassType;
+import com.sun.jdi.ReferenceType;
+
+import jbse.apps.run.DecisionProcedureGuidanceJDILauncher.RunClassLoader;
+import jbse.apps.run.GuidanceJVMPool.ResidentJVM;
+
+public class GuidanceJVMPoolTest {
+    /** The target of the runs of the resident JVMs. */
+    public static class Target {
+        public void run() { }
+    }
+
+    private static final String CLASSPATH = System.getProperty("java.class.path");
+
+    private static final long WAIT_MILLIS = 30_000L;
+
+    private GuidanceJVMPool pool;
+    private List<ResidentJVM> acquired;
+
+    @Before
+    public void setUp() {
+        this.pool = new GuidanceJVMPool();
+        this.acquired = new ArrayList<>();
+    }
+
+    @After
+    public void tearDown() {
+        this.pool.dispose();
+        for (ResidentJVM jvm : this.acquired) {
+            jvm.exit();
+        }
+    }
+
+    private ResidentJVM acquire() throws GuidanceException {
+        final ResidentJVM retVal = this.pool.acquire(CLASSPATH);
+        this.acquired.add(retVal);
+        return retVal;
+    }
+
+    private void runAndRelease(ResidentJVM jvm) throws GuidanceException {
+        jvm.setTarget(Target.class.getName(), "run");
+        this.pool.release(jvm);
+    }
+
+    private void awaitIdle(int count) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (this.pool.idleCount(CLASSPATH) != count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(count, this.pool.idleCount(CLASSPATH));
+    }
+
+    private static boolean exited(ResidentJVM jvm) throws InterruptedException {
+        return jvm.vm.process().waitFor(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testReuse() throws GuidanceException, InterruptedException {
+        final ResidentJVM jvm = acquire();
+        assertEquals(0, this.pool.idleCount(CLASSPATH));
+        runAndRelease(jvm);
+        awaitIdle(1);
+        assertSame(jvm, acquire());
+        assertEquals(0, this.pool.idleCount(CLASSPATH));
+        assertNotSame(jvm, acquire()); //none parked, launches a new one
+    }
+
+    @Test
+    public void testReset() throws GuidanceException, InterruptedException {
+        final ResidentJVM jvm = acquire();
+        runAndRelease(jvm);
+        awaitIdle(1);
+
+        //the target was run by a fresh loader...
+        final List<ReferenceType> targets = jvm.vm.classesByName(Target.class.getName());
+        assertEquals(1, targets.size());
+        assertEquals(RunClassLoader.class.getName(), targets.get(0).classLoader().referenceType().name());
+
+        //...and the launcher waits for the next one
+        final ClassType launcher = jvm.launcher;
+        assertNull(launcher.getValue(launcher.fieldByName("targetClass")));
+        assertNull(launcher.getValue(launcher.fieldByName("targetMethod")));
+        assertNull(launcher.getValue(launcher.fieldByName("currentLoader")));
+        assertTrue(jvm.vm.process().isAlive());
+    }
+
+    @Test
+    public void testMaxIdle() throws GuidanceException, InterruptedException {
+        this.pool.setMaxIdle(1);
+        final ResidentJVM jvm1 = acquire();
+        final ResidentJVM jvm2 = acquire();
+        runAndRelease(jvm1);
+        runAndRelease(jvm2);
+        assertTrue(exited(jvm2));
+        awaitIdle(1);
+        assertTrue(jvm1.vm.process().isAlive());
+    }
+
+    @Test
+    public void testDispose() throws GuidanceException, InterruptedException {
+        final ResidentJVM jvm = acquire();
+        runAndRelease(jvm);
+        awaitIdle(1);
+        this.pool.dispose();
+        assertEquals(0, this.pool.idleCount(CLASSPATH));
+        assertTrue(exited(jvm));
+    }
+}
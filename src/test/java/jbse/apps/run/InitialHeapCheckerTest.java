@@ -0,0 +1,186 @@
+package jbse.apps.run;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import jbse.apps.run.InitialHeapChecker.Check;
+import jbse.apps.run.InitialHeapChecker.CheckRunner;
+import jbse.apps.run.InitialHeapChecker.Shape;
+import jbse.apps.run.InitialHeapChecker.VerdictKey;
+import jbse.bc.Signature;
+import jbse.mem.ClauseAssume;
+import jbse.rewr.CalculatorRewriting;
+import jbse.rewr.RewriterOperationOnSimplex;
+import jbse.val.Expression;
+import jbse.val.HistoryPoint;
+import jbse.val.PrimitiveSymbolic;
+import jbse.val.ReferenceConcrete;
+import jbse.val.SymbolFactory;
+
+public class InitialHeapCheckerTest {
+    @Target(ElementType.METHOD)
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface CheckMethod { }
+
+    private static final Signature REP_OK = new Signature("List", "()Z", "repOk");
+
+    private CalculatorRewriting calc;
+    private SymbolFactory symbolFactory;
+    private InitialHeapChecker checker;
+
+    @Before
+    public void setUp() {
+        this.calc = new CalculatorRewriting();
+        this.calc.addRewriter(new RewriterOperationOnSimplex());
+        this.symbolFactory = new SymbolFactory();
+        this.checker = new InitialHeapChecker(null, CheckMethod.class, Collections.emptyMap());
+    }
+
+    private PrimitiveSymbolic symbol(String name) throws Exception {
+        return this.symbolFactory.createSymbolLocalVariablePrimitive(HistoryPoint.unknown(), "I", name);
+    }
+
+    private static VerdictKey key(Object... objectItems) {
+        return new VerdictKey(REP_OK, false, new Shape(new ArrayList<>()), new Shape(new ArrayList<>(Arrays.asList(objectItems))));
+    }
+
+    @Test
+    public void testCacheHit() {
+        this.checker.cacheVerdict(key("List", 0, "List.head", 1), true);
+        assertEquals(Boolean.TRUE, this.checker.cachedVerdict(key("List", 0, "List.head", 1)));
+        assertNull(this.checker.cachedVerdict(key("List", 0, "List.head", 2)));
+    }
+
+    @Test
+    public void testNoStaleFalse() {
+        this.checker.cacheVerdict(key("List", 0, "List.head", 1), false);
+        assertNull(this.checker.cachedVerdict(key("List", 0, "List.head", 1)));
+    }
+
+    @Test
+    public void testRelevantAssumptions() throws Exception {
+        //A > 0, B > A, C > 0 concern A and B, but not C
+        final PrimitiveSymbolic A = symbol("A");
+        final PrimitiveSymbolic B = symbol("B");
+        final PrimitiveSymbolic C = symbol("C");
+        final ClauseAssume a1 = new ClauseAssume((Expression) this.calc.push(A).gt(this.calc.valInt(0)).pop());
+        final ClauseAssume a2 = new ClauseAssume((Expression) this.calc.push(B).gt(A).pop());
+        final ClauseAssume a3 = new ClauseAssume((Expression) this.calc.push(C).gt(this.calc.valInt(0)).pop());
+        final List<ClauseAssume> assumptions = Arrays.asList(a1, a2, a3);
+        final List<Set<PrimitiveSymbolic>> assumptionsSymbols = new ArrayList<>();
+        for (ClauseAssume a : assumptions) {
+            assumptionsSymbols.add(InitialHeapChecker.primitiveSymbolsIn(a.getCondition()));
+        }
+        assertEquals(Arrays.asList(a1, a2), InitialHeapChecker.relevantAssumptions(assumptions, assumptionsSymbols, new HashSet<>(Collections.singleton(B))));
+        assertEquals(Arrays.asList(a3), InitialHeapChecker.relevantAssumptions(assumptions, assumptionsSymbols, new HashSet<>(Collections.singleton(C))));
+    }
+
+    /** The checks of the objects at heap positions 0, 1 and 2. */
+    private static List<Check> checks() {
+        final ArrayList<Check> retVal = new ArrayList<>();
+        for (int i = 0; i < 3; ++i) {
+            retVal.add(new Check(new ReferenceConcrete(i), null, REP_OK, key("List", i)));
+        }
+        return retVal;
+    }
+
+    private static int position(Check check) {
+        return (int) ((ReferenceConcrete) check.objectRef).getHeapPosition();
+    }
+
+    /** Runs the checks with the verdicts of the objects at heap positions 0, 1 and 2. */
+    private static CheckRunner runner(boolean... verdicts) {
+        return (check, parameters, stop) -> {
+            final boolean verdict = verdicts[position(check)];
+            return () -> verdict;
+        };
+    }
+
+    private static InitialHeapChecker parallelChecker() {
+        final InitialHeapChecker retVal = new InitialHeapChecker(null, CheckMethod.class, Collections.emptyMap());
+        retVal.setParallel(3, null);
+        return retVal;
+    }
+
+    @Test
+    public void testParallelSameVerdicts() throws Exception {
+        final boolean[][] cases = { { true, true, true }, { true, false, true }, { false, false, true }, { true, true, false } };
+        for (boolean[] verdicts : cases) {
+            final InitialHeapChecker sequential = new InitialHeapChecker(null, CheckMethod.class, Collections.emptyMap());
+            final InitialHeapChecker parallel = parallelChecker();
+            try {
+                final boolean expected = verdicts[0] && verdicts[1] && verdicts[2];
+                assertEquals(expected, sequential.runChecks(checks(), runner(verdicts)));
+                assertEquals(expected, parallel.runChecks(checks(), runner(verdicts)));
+                for (int i = 0; i < 3; ++i) {
+                    //only successes are cached, and on success all the checks are run 
+                    if (expected) {
+                        assertEquals(Boolean.TRUE, sequential.cachedVerdict(key("List", i)));
+                        assertEquals(Boolean.TRUE, parallel.cachedVerdict(key("List", i)));
+                    } else if (!verdicts[i]) {
+                        assertNull(parallel.cachedVerdict(key("List", i)));
+                    }
+                }
+            } finally {
+                parallel.close();
+            }
+        }
+    }
+
+    @Test
+    public void testParallelEarlyCancellation() throws Exception {
+        final long slowMillis = 20_000L;
+        final AtomicInteger running = new AtomicInteger(0);
+        final CheckRunner runner = (check, parameters, stop) -> {
+            if (position(check) == 0) {
+                return () -> false;
+            }
+            final Callable<Boolean> slow = () -> {
+                running.incrementAndGet();
+                try {
+                    final long deadline = System.currentTimeMillis() + slowMillis;
+                    while (System.currentTimeMillis() < deadline) {
+                        if (stop.get()) {
+                            return true;
+                        }
+                        Thread.sleep(5);
+                    }
+                    return true;
+                } finally {
+                    running.decrementAndGet();
+                }
+            };
+            return slow;
+        };
+        final InitialHeapChecker parallel = parallelChecker();
+        try {
+            final long start = System.currentTimeMillis();
+            assertFalse(parallel.runChecks(checks(), runner));
+            while (running.get() > 0 && System.currentTimeMillis() - start < slowMillis) {
+                Thread.sleep(5);
+            }
+            assertEquals(0, running.get());
+            assertTrue(System.currentTimeMillis() - start < slowMillis);
+        } finally {
+            parallel.close();
+        }
+    }
+}
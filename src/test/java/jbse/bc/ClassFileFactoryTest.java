@@ -922,6 +922,24 @@ public class ClassFileFactoryTest {
         c.getLocalVariableTableLength(sig);
     }
 
+    @Test
+    public void testGetOperandStackMaxDepth1() throws IOException, ClassFileIllFormedException, InvalidInputException, MethodNotFoundException, MethodCodeNotFoundException {
+        String className = "java/util/LinkedList";
+        byte[] b = getFromJar(className);
+        ClassFile c = f.newClassFileClass(0, className, b, null, null);         
+        Signature sig = new Signature(className, "(Ljava/lang/Object;)V", "addFirst");
+        assertEquals(2, c.getOperandStackMaxDepth(sig));
+    }
+
+    @Test(expected=MethodCodeNotFoundException.class)
+    public void testGetOperandStackMaxDepth2() throws IOException, ClassFileIllFormedException, InvalidInputException, MethodNotFoundException, MethodCodeNotFoundException {
+        String className = "java/util/Collection";
+        byte[] b = getFromJar(className);
+        ClassFile c = f.newClassFileClass(0, className, b, null, null);         
+        Signature sig = new Signature(className, "(Ljava/lang/Object;)Z", "remove");
+        c.getOperandStackMaxDepth(sig);
+    }
+
     @Test
     public void testGetCodeLength1() throws IOException, ClassFileIllFormedException, InvalidInputException, MethodNotFoundException, MethodCodeNotFoundException {
         String className = "java/util/LinkedList";
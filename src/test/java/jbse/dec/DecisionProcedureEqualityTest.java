@@ -1,8 +1,10 @@
 package jbse.dec;
 
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collection;
 
 import org.junit.Before;
@@ -30,6 +32,7 @@ public class DecisionProcedureEqualityTest {
     HistoryPoint hist;
     CalculatorRewriting calc;
     DecisionProcedureEquality dec;
+    DecisionProcedureEquality decAlwSat;
 
     static class NoDecisionException extends DecisionException {
         private static final long serialVersionUID = 1L;		
@@ -83,6 +86,7 @@ public class DecisionProcedureEqualityTest {
         this.calc = new CalculatorRewriting();
         this.calc.addRewriter(new RewriterOperationOnSimplex());
         this.dec = new DecisionProcedureEquality(new DecisionProcedureNoDecision(this.calc));
+        this.decAlwSat = new DecisionProcedureEquality(new DecisionProcedureAlwSat(this.calc));
     }
 
     @Test(expected=NoDecisionException.class)
@@ -193,4 +197,83 @@ public class DecisionProcedureEqualityTest {
         this.dec.pushAssumption(new ClauseAssume((Expression) this.calc.push(A).add(this.calc.pushInt(-1).mul(B).pop()).eq(this.calc.valInt(0)).pop()));
         assertFalse(this.dec.isSat((Expression) this.calc.push(A).add(this.calc.pushInt(-1).mul(B).pop()).ne(this.calc.valInt(0)).pop()));
     }	
+
+    @Test
+    public void congruenceTest1() 
+    throws InvalidInputException, DecisionException, InvalidOperandException, InvalidTypeException {
+        //A == B, f(B) == C |-/- f(A) != C
+        final Term A = this.calc.valTerm(Type.INT, "A");
+        final Term B = this.calc.valTerm(Type.INT, "B");
+        final Term C = this.calc.valTerm(Type.INT, "C");
+        this.decAlwSat.pushAssumption(new ClauseAssume((Expression) this.calc.push(A).eq(B).pop()));
+        this.decAlwSat.pushAssumption(new ClauseAssume((Expression) this.calc.applyFunctionPrimitive(Type.INT, this.hist, "f", B).eq(C).pop()));
+        assertFalse(this.decAlwSat.isSat((Expression) this.calc.applyFunctionPrimitive(Type.INT, this.hist, "f", A).ne(C).pop()));
+    }
+
+    @Test
+    public void congruenceTest2() 
+    throws InvalidInputException, DecisionException, InvalidOperandException, InvalidTypeException {
+        //f(A) == C, A == B |-/- g(f(B)) != g(C)
+        final Term A = this.calc.valTerm(Type.INT, "A");
+        final Term B = this.calc.valTerm(Type.INT, "B");
+        final Term C = this.calc.valTerm(Type.INT, "C");
+        this.decAlwSat.pushAssumption(new ClauseAssume((Expression) this.calc.applyFunctionPrimitive(Type.INT, this.hist, "f", A).eq(C).pop()));
+        this.decAlwSat.pushAssumption(new ClauseAssume((Expression) this.calc.push(A).eq(B).pop()));
+        assertFalse(this.decAlwSat.isSat((Expression) this.calc.applyFunctionPrimitive(Type.INT, this.hist, "g", this.calc.applyFunctionPrimitiveAndPop(Type.INT, this.hist, "f", B)).ne(this.calc.applyFunctionPrimitiveAndPop(Type.INT, this.hist, "g", C)).pop()));
+    }
+
+    @Test
+    public void popTest1() 
+    throws InvalidInputException, DecisionException, InvalidOperandException, InvalidTypeException {
+        //X > 0, A == B, B == C |-/- A != C, then X > 0, A == B |- A != C and |-/- A != B
+        final Term X = this.calc.valTerm(Type.INT, "X");
+        final Term A = this.calc.valTerm(Type.INT, "A");
+        final Term B = this.calc.valTerm(Type.INT, "B");
+        final Term C = this.calc.valTerm(Type.INT, "C");
+        final ClauseAssume c1 = new ClauseAssume((Expression) this.calc.push(X).gt(this.calc.valInt(0)).pop());
+        final ClauseAssume c2 = new ClauseAssume((Expression) this.calc.push(A).eq(B).pop());
+        final ClauseAssume c3 = new ClauseAssume((Expression) this.calc.push(B).eq(C).pop());
+        this.decAlwSat.setAssumptions(Arrays.asList(c1, c2, c3));
+        assertFalse(this.decAlwSat.isSat((Expression) this.calc.push(A).ne(C).pop()));
+        this.decAlwSat.setAssumptions(Arrays.asList(c1, c2));
+        assertTrue(this.decAlwSat.isSat((Expression) this.calc.push(A).ne(C).pop()));
+        assertFalse(this.decAlwSat.isSat((Expression) this.calc.push(A).ne(B).pop()));
+    }
+
+    @Test
+    public void popTest2() 
+    throws InvalidInputException, DecisionException, InvalidOperandException, InvalidTypeException {
+        //X > 0, Y > 0, A == B |-/- f(A) != f(B), then X > 0, Y > 0 |- f(A) != f(B)
+        final Term X = this.calc.valTerm(Type.INT, "X");
+        final Term Y = this.calc.valTerm(Type.INT, "Y");
+        final Term A = this.calc.valTerm(Type.INT, "A");
+        final Term B = this.calc.valTerm(Type.INT, "B");
+        final ClauseAssume c1 = new ClauseAssume((Expression) this.calc.push(X).gt(this.calc.valInt(0)).pop());
+        final ClauseAssume c2 = new ClauseAssume((Expression) this.calc.push(Y).gt(this.calc.valInt(0)).pop());
+        final ClauseAssume c3 = new ClauseAssume((Expression) this.calc.push(A).eq(B).pop());
+        final Expression e = (Expression) this.calc.applyFunctionPrimitive(Type.INT, this.hist, "f", A).ne(this.calc.applyFunctionPrimitiveAndPop(Type.INT, this.hist, "f", B)).pop();
+        this.decAlwSat.setAssumptions(Arrays.asList(c1, c2, c3));
+        assertFalse(this.decAlwSat.isSat(e));
+        this.decAlwSat.setAssumptions(Arrays.asList(c1, c2));
+        assertTrue(this.decAlwSat.isSat(e));
+    }
+
+    @Test
+    public void popTest3() 
+    throws InvalidInputException, DecisionException, InvalidOperandException, InvalidTypeException {
+        //X > 0, Y > 0, A == B, then X > 0, Y > 0, B == C |- A != C and |-/- f(B) != f(C)
+        final Term X = this.calc.valTerm(Type.INT, "X");
+        final Term Y = this.calc.valTerm(Type.INT, "Y");
+        final Term A = this.calc.valTerm(Type.INT, "A");
+        final Term B = this.calc.valTerm(Type.INT, "B");
+        final Term C = this.calc.valTerm(Type.INT, "C");
+        final ClauseAssume c1 = new ClauseAssume((Expression) this.calc.push(X).gt(this.calc.valInt(0)).pop());
+        final ClauseAssume c2 = new ClauseAssume((Expression) this.calc.push(Y).gt(this.calc.valInt(0)).pop());
+        final ClauseAssume c3 = new ClauseAssume((Expression) this.calc.push(A).eq(B).pop());
+        final ClauseAssume c4 = new ClauseAssume((Expression) this.calc.push(B).eq(C).pop());
+        this.decAlwSat.setAssumptions(Arrays.asList(c1, c2, c3));
+        this.decAlwSat.setAssumptions(Arrays.asList(c1, c2, c4));
+        assertTrue(this.decAlwSat.isSat((Expression) this.calc.push(A).ne(C).pop()));
+        assertFalse(this.decAlwSat.isSat((Expression) this.calc.applyFunctionPrimitive(Type.INT, this.hist, "f", B).ne(this.calc.applyFunctionPrimitiveAndPop(Type.INT, this.hist, "f", C)).pop()));
+    }
 }
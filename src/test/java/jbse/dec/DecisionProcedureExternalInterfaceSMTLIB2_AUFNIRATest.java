@@ -0,0 +1,97 @@
+package jbse.dec;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import jbse.rewr.CalculatorRewriting;
+import jbse.rewr.RewriterOperationOnSimplex;
+import jbse.val.Expression;
+import jbse.val.HistoryPoint;
+import jbse.val.PrimitiveSymbolic;
+import jbse.val.SymbolFactory;
+
+/**
+ * Tests the queries that {@link DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA}
+ * sends to the solver, with a {@link ScriptedSMTLIB2Solver}.
+ */
+public class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRATest {
+    private CalculatorRewriting calc;
+    private Expression aPos;
+    private Expression aPosBPos;
+    private Path dir;
+    private DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA intf;
+
+    @Before
+    public void setUp() throws Exception {
+        this.calc = new CalculatorRewriting();
+        this.calc.addRewriter(new RewriterOperationOnSimplex());
+        final SymbolFactory symbolFactory = new SymbolFactory();
+        final PrimitiveSymbolic a = symbolFactory.createSymbolLocalVariablePrimitive(HistoryPoint.unknown(), "I", "a");
+        final PrimitiveSymbolic b = symbolFactory.createSymbolLocalVariablePrimitive(HistoryPoint.unknown(), "I", "b");
+        this.aPos = (Expression) this.calc.push(a).gt(this.calc.valInt(0)).pop();
+        this.aPosBPos = (Expression) this.calc.push(this.aPos).and(this.calc.push(b).gt(this.calc.valInt(0)).pop()).pop();
+        this.dir = Files.createTempDirectory("jbse");
+        this.intf = new DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA(this.calc, ScriptedSMTLIB2Solver.commandLine(this.dir, "sat"));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.intf.quit();
+        Files.walk(this.dir).sorted(Collections.reverseOrder()).forEach(p -> p.toFile().delete());
+    }
+
+    /**
+     * Returns the commands received by the solver
+     * after the prologue.
+     */
+    private List<String> commands() throws Exception {
+        final List<String> log = ScriptedSMTLIB2Solver.log(this.dir, 0);
+        return log.subList(log.indexOf("(push 1)") + 1, log.size());
+    }
+
+    @Test
+    public void testNegativeQueryWrapsTerm() throws Exception {
+        this.intf.sendClauseAssume(this.aPos);
+        this.intf.checkSat(false);
+        this.intf.checkSat(true);
+        assertEquals(Arrays.asList(
+            "(push 1)", "(declare-fun V0 () Int)", "(assert (not (> V0 0)))", "(check-sat)", "(pop 1)",
+            "(push 1)", "(declare-fun V0 () Int)", "(assert (> V0 0))", "(check-sat)", "(pop 1)"), commands());
+    }
+
+    @Test
+    public void testSymbolsDeclaredOncePerScope() throws Exception {
+        this.intf.sendClauseAssume(this.aPos);
+        this.intf.pushAssumption(true);
+        this.intf.sendClauseAssume(this.aPosBPos);
+        this.intf.checkSat(true);
+        assertEquals(Arrays.asList(
+            "(push 1)", "(declare-fun V0 () Int)", "(assert (> V0 0))",
+            "(push 1)", "(declare-fun V1 () Int)", "(assert (and (> V0 0) (> V1 0)))", "(check-sat)", "(pop 1)"), commands());
+    }
+
+    @Test
+    public void testCachedTranslationRedeclaredAfterPop() throws Exception {
+        this.intf.sendClauseAssume(this.aPos);
+        this.intf.pushAssumption(true);
+        this.intf.sendClauseAssume(this.aPosBPos);
+        this.intf.pushAssumption(true);
+        this.intf.clear();
+        this.intf.sendClauseAssume(this.aPosBPos);
+        this.intf.checkSat(true);
+        final List<String> commands = commands();
+        assertEquals(Arrays.asList(
+            "(pop 2)",
+            "(push 1)", "(declare-fun V0 () Int)", "(declare-fun V1 () Int)", "(assert (and (> V0 0) (> V1 0)))", "(check-sat)", "(pop 1)"), 
+            commands.subList(commands.indexOf("(pop 2)"), commands.size()));
+    }
+}
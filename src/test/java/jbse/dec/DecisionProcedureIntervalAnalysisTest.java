@@ -0,0 +1,223 @@
+package jbse.dec;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import jbse.common.Type;
+import jbse.common.exc.InvalidInputException;
+import jbse.dec.DecisionProcedureSignAnalysisTest.DecisionProcedureNoDecision;
+import jbse.dec.DecisionProcedureSignAnalysisTest.NoDecisionException;
+import jbse.dec.exc.DecisionException;
+import jbse.mem.ClauseAssume;
+import jbse.rewr.CalculatorRewriting;
+import jbse.rewr.RewriterOperationOnSimplex;
+import jbse.val.Expression;
+import jbse.val.HistoryPoint;
+import jbse.val.PrimitiveSymbolicApply;
+import jbse.val.Term;
+import jbse.val.exc.InvalidOperandException;
+import jbse.val.exc.InvalidTypeException;
+
+public class DecisionProcedureIntervalAnalysisTest {
+	CalculatorRewriting calc;
+	DecisionProcedureIntervalAnalysis dec;
+	DecisionProcedureIntervalAnalysis decBounded;
+	HistoryPoint hist;
+
+	@Before
+	public void setUp() throws InvalidInputException {
+		this.calc = new CalculatorRewriting();
+		this.calc.addRewriter(new RewriterOperationOnSimplex());
+		this.dec = new DecisionProcedureIntervalAnalysis(new DecisionProcedureNoDecision(this.calc), false);
+		this.decBounded = new DecisionProcedureIntervalAnalysis(new DecisionProcedureNoDecision(this.calc), true);
+		this.hist = HistoryPoint.unknown();
+	}
+
+	@Test
+	public void boundTest1()
+	throws InvalidInputException, DecisionException, InvalidOperandException, InvalidTypeException {
+		//A > 0 |-/- A <= 0
+		final Term A = this.calc.valTerm(Type.INT, "A");
+		this.dec.pushAssumption(new ClauseAssume((Expression) this.calc.push(A).gt(this.calc.valInt(0)).pop()));
+		assertFalse(this.dec.isSat((Expression) this.calc.push(A).le(this.calc.valInt(0)).pop()));
+	}
+
+	@Test
+	public void boundTest2()
+	throws InvalidInputException, DecisionException, InvalidOperandException, InvalidTypeException {
+		//A >= 3, A <= 5 |- A == 4 (conclusive, the next in chain is not queried)
+		final Term A = this.calc.valTerm(Type.INT, "A");
+		this.dec.pushAssumption(new ClauseAssume((Expression) this.calc.push(A).ge(this.calc.valInt(3)).pop()));
+		this.dec.pushAssumption(new ClauseAssume((Expression) this.calc.push(A).le(this.calc.valInt(5)).pop()));
+		assertTrue(this.dec.isSat((Expression) this.calc.push(A).eq(this.calc.valInt(4)).pop()));
+	}
+
+	@Test
+	public void boundTest3()
+	throws InvalidInputException, DecisionException, InvalidOperandException, InvalidTypeException {
+		//A >= 3, A <= 3 |-/- A != 3
+		final Term A = this.calc.valTerm(Type.INT, "A");
+		this.dec.pushAssumption(new ClauseAssume((Expression) this.calc.push(A).ge(this.calc.valInt(3)).pop()));
+		this.dec.pushAssumption(new ClauseAssume((Expression) this.calc.push(A).le(this.calc.valInt(3)).pop()));
+		assertFalse(this.dec.isSat((Expression) this.calc.push(A).ne(this.calc.valInt(3)).pop()));
+	}
+
+	@Test
+	public void differenceTest1()
+	throws InvalidInputException, DecisionException, InvalidOperandException, InvalidTypeException {
+		//A - B <= 3, B - C <= 2 |-/- A - C > 5
+		final Term A = this.calc.valTerm(Type.INT, "A");
+		final Term B = this.calc.valTerm(Type.INT, "B");
+		final Term C = this.calc.valTerm(Type.INT, "C");
+		this.dec.pushAssumption(new ClauseAssume((Expression) this.calc.push(A).sub(B).le(this.calc.valInt(3)).pop()));
+		this.dec.pushAssumption(new ClauseAssume((Expression) this.calc.push(B).sub(C).le(this.calc.valInt(2)).pop()));
+		assertFalse(this.dec.isSat((Expression) this.calc.push(A).sub(C).gt(this.calc.valInt(5)).pop()));
+	}
+
+	@Test
+	public void differenceTest2()
+	throws InvalidInputException, DecisionException, InvalidOperandException, InvalidTypeException {
+		//A - B <= 3, B - C <= 2 |- A - C == 5 (conclusive)
+		final Term A = this.calc.valTerm(Type.INT, "A");
+		final Term B = this.calc.valTerm(Type.INT, "B");
+		final Term C = this.calc.valTerm(Type.INT, "C");
+		this.dec.pushAssumption(new ClauseAssume((Expression) this.calc.push(A).sub(B).le(this.calc.valInt(3)).pop()));
+		this.dec.pushAssumption(new ClauseAssume((Expression) this.calc.push(B).sub(C).le(this.calc.valInt(2)).pop()));
+		assertTrue(this.dec.isSat((Expression) this.calc.push(A).sub(C).eq(this.calc.valInt(5)).pop()));
+	}
+
+	@Test(expected=NoDecisionException.class)
+	public void passThroughTest1()
+	throws InvalidInputException, DecisionException, InvalidOperandException, InvalidTypeException {
+		//A > 0 |-?- A * B > 0 (query out of the theory)
+		final Term A = this.calc.valTerm(Type.INT, "A");
+		final Term B = this.calc.valTerm(Type.INT, "B");
+		this.dec.pushAssumption(new ClauseAssume((Expression) this.calc.push(A).gt(this.calc.valInt(0)).pop()));
+		this.dec.isSat((Expression) this.calc.push(A).mul(B).gt(this.calc.valInt(0)).pop());
+	}
+
+	@Test(expected=NoDecisionException.class)
+	public void passThroughTest2()
+	throws InvalidInputException, DecisionException, InvalidOperandException, InvalidTypeException {
+		//A * B > 0 |-?- A > 0 (assumption out of the theory, sat is not conclusive)
+		final Term A = this.calc.valTerm(Type.INT, "A");
+		final Term B = this.calc.valTerm(Type.INT, "B");
+		this.dec.pushAssumption(new ClauseAssume((Expression) this.calc.push(A).mul(B).gt(this.calc.valInt(0)).pop()));
+		this.dec.isSat((Expression) this.calc.push(A).gt(this.calc.valInt(0)).pop());
+	}
+
+	@Test
+	public void passThroughTest3()
+	throws InvalidInputException, DecisionException, InvalidOperandException, InvalidTypeException {
+		//A * B > 0, A > 0 |-/- A <= 0 (unsat is conclusive even with assumptions out of the theory)
+		final Term A = this.calc.valTerm(Type.INT, "A");
+		final Term B = this.calc.valTerm(Type.INT, "B");
+		this.dec.pushAssumption(new ClauseAssume((Expression) this.calc.push(A).mul(B).gt(this.calc.valInt(0)).pop()));
+		this.dec.pushAssumption(new ClauseAssume((Expression) this.calc.push(A).gt(this.calc.valInt(0)).pop()));
+		assertFalse(this.dec.isSat((Expression) this.calc.push(A).le(this.calc.valInt(0)).pop()));
+	}
+
+	@Test(expected=NoDecisionException.class)
+	public void passThroughTest4()
+	throws InvalidInputException, DecisionException, InvalidOperandException, InvalidTypeException {
+		//A : DOUBLE, A > 0 |-?- A <= 0 (floating point values are out of the theory)
+		final Term A = this.calc.valTerm(Type.DOUBLE, "A");
+		this.dec.pushAssumption(new ClauseAssume((Expression) this.calc.push(A).gt(this.calc.valDouble(0.0d)).pop()));
+		this.dec.isSat((Expression) this.calc.push(A).le(this.calc.valDouble(0.0d)).pop());
+	}
+
+	@Test
+	public void overflowTest1()
+	throws InvalidInputException, DecisionException, InvalidOperandException, InvalidTypeException {
+		//A : INT, unbounded integers |- A > MAX_VALUE (conclusive)
+		final Term A = this.calc.valTerm(Type.INT, "A");
+		assertTrue(this.dec.isSat((Expression) this.calc.push(A).gt(this.calc.valInt(Integer.MAX_VALUE)).pop()));
+	}
+
+	@Test
+	public void overflowTest2()
+	throws InvalidInputException, DecisionException, InvalidOperandException, InvalidTypeException {
+		//A : INT, bounded integers |-/- A > MAX_VALUE
+		final Term A = this.calc.valTerm(Type.INT, "A");
+		assertFalse(this.decBounded.isSat((Expression) this.calc.push(A).gt(this.calc.valInt(Integer.MAX_VALUE)).pop()));
+	}
+
+	@Test
+	public void overflowTest3()
+	throws InvalidInputException, DecisionException, InvalidOperandException, InvalidTypeException {
+		//A : BYTE, bounded integers |-/- (int) A < -128
+		final Term A = this.calc.valTerm(Type.BYTE, "A");
+		assertFalse(this.decBounded.isSat((Expression) this.calc.push(A).widen(Type.INT).lt(this.calc.valInt(Byte.MIN_VALUE)).pop()));
+	}
+
+	@Test(expected=NoDecisionException.class)
+	public void overflowTest4()
+	throws InvalidInputException, DecisionException, InvalidOperandException, InvalidTypeException {
+		//A : INT, bounded integers, A > 0 |-?- A + 1 <= 0 (might overflow, out of the theory)
+		final Term A = this.calc.valTerm(Type.INT, "A");
+		this.decBounded.pushAssumption(new ClauseAssume((Expression) this.calc.push(A).gt(this.calc.valInt(0)).pop()));
+		this.decBounded.isSat((Expression) this.calc.push(A).add(this.calc.valInt(1)).le(this.calc.valInt(0)).pop());
+	}
+
+	@Test(expected=NoDecisionException.class)
+	public void overflowTest5()
+	throws InvalidInputException, DecisionException, InvalidOperandException, InvalidTypeException {
+		//A : LONG |-?- A >= MIN_VALUE (the bound -MIN_VALUE cannot be represented)
+		final Term A = this.calc.valTerm(Type.LONG, "A");
+		this.dec.isSat((Expression) this.calc.push(A).ge(this.calc.valLong(Long.MIN_VALUE)).pop());
+	}
+
+	@Test
+	public void clearTest1()
+	throws InvalidInputException, DecisionException, InvalidOperandException, InvalidTypeException {
+		//A > 0 |-/- A <= 0, then true |- A <= 0
+		final Term A = this.calc.valTerm(Type.INT, "A");
+		this.dec.pushAssumption(new ClauseAssume((Expression) this.calc.push(A).gt(this.calc.valInt(0)).pop()));
+		final Expression e = (Expression) this.calc.push(A).le(this.calc.valInt(0)).pop();
+		assertFalse(this.dec.isSat(e));
+		this.dec.clearAssumptions();
+		assertTrue(this.dec.isSat(e));
+	}
+
+	@Test(expected=NoDecisionException.class)
+	public void applyTest1()
+	throws InvalidInputException, DecisionException, InvalidOperandException, InvalidTypeException {
+		//true |-?- abs(A) < 0 (the semantics of abs is unknown to the theory)
+		final Term A = this.calc.valTerm(Type.INT, "A");
+		this.dec.isSat((Expression) this.calc.applyFunctionPrimitive(Type.INT, this.hist, PrimitiveSymbolicApply.ABS_INT, A).lt(this.calc.valInt(0)).pop());
+	}
+
+	@Test(expected=NoDecisionException.class)
+	public void applyTest2()
+	throws InvalidInputException, DecisionException, InvalidOperandException, InvalidTypeException {
+		//A == B |-?- f(A) != f(B) (congruence is unknown to the theory)
+		final Term A = this.calc.valTerm(Type.INT, "A");
+		final Term B = this.calc.valTerm(Type.INT, "B");
+		this.dec.pushAssumption(new ClauseAssume((Expression) this.calc.push(A).eq(B).pop()));
+		this.dec.isSat((Expression) this.calc.applyFunctionPrimitive(Type.INT, this.hist, "f", A).ne(this.calc.applyFunctionPrimitiveAndPop(Type.INT, this.hist, "f", B)).pop());
+	}
+
+	@Test(expected=NoDecisionException.class)
+	public void applyTest3()
+	throws InvalidInputException, DecisionException, InvalidOperandException, InvalidTypeException {
+		//abs(A) <= B |-?- B < 0 (the assumption is approximated, sat is not conclusive)
+		final Term A = this.calc.valTerm(Type.INT, "A");
+		final Term B = this.calc.valTerm(Type.INT, "B");
+		this.dec.pushAssumption(new ClauseAssume((Expression) this.calc.applyFunctionPrimitive(Type.INT, this.hist, PrimitiveSymbolicApply.ABS_INT, A).le(B).pop()));
+		this.dec.isSat((Expression) this.calc.push(B).lt(this.calc.valInt(0)).pop());
+	}
+
+	@Test
+	public void applyTest4()
+	throws InvalidInputException, DecisionException, InvalidOperandException, InvalidTypeException {
+		//abs(A) <= B, B < 0 |-/- abs(A) >= 0 (unsat is conclusive even with approximated assumptions)
+		final Term A = this.calc.valTerm(Type.INT, "A");
+		final Term B = this.calc.valTerm(Type.INT, "B");
+		this.dec.pushAssumption(new ClauseAssume((Expression) this.calc.applyFunctionPrimitive(Type.INT, this.hist, PrimitiveSymbolicApply.ABS_INT, A).le(B).pop()));
+		this.dec.pushAssumption(new ClauseAssume((Expression) this.calc.push(B).lt(this.calc.valInt(0)).pop()));
+		assertFalse(this.dec.isSat((Expression) this.calc.applyFunctionPrimitive(Type.INT, this.hist, PrimitiveSymbolicApply.ABS_INT, A).ge(this.calc.valInt(0)).pop()));
+	}
+}
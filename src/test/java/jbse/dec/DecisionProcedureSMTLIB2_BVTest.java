@@ -0,0 +1,152 @@
+package jbse.dec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import jbse.common.Type;
+import jbse.common.exc.InvalidInputException;
+import jbse.dec.exc.DecisionException;
+import jbse.mem.ClauseAssume;
+import jbse.rewr.CalculatorRewriting;
+import jbse.rewr.RewriterOperationOnSimplex;
+import jbse.val.Expression;
+import jbse.val.HistoryPoint;
+import jbse.val.PrimitiveSymbolic;
+import jbse.val.Simplex;
+import jbse.val.SymbolFactory;
+
+/**
+ * Tests the bit-vector encoding of {@link DecisionProcedureSMTLIB2_BV}
+ * on the cases where it differs from the encoding on unbounded integers,
+ * i.e., overflows and shifts. The tests are skipped when Z3 is not
+ * installed.
+ */
+public class DecisionProcedureSMTLIB2_BVTest {
+    private static final String SWITCH_CHAR = System.getProperty("os.name").toLowerCase().contains("windows") ? "/" : "-";
+    private static final String Z3_PATH = "/usr/bin/z3";
+    private static final ArrayList<String> Z3_COMMAND_LINE = new ArrayList<>();
+
+    static {
+        Z3_COMMAND_LINE.add(Z3_PATH);
+        Z3_COMMAND_LINE.add(SWITCH_CHAR + "smt2");
+        Z3_COMMAND_LINE.add(SWITCH_CHAR + "in");
+        Z3_COMMAND_LINE.add(SWITCH_CHAR + "t:10");
+    }
+
+    CalculatorRewriting calc;
+    SymbolFactory symbolFactory;
+    DecisionProcedureSMTLIB2_BV dec;
+
+    @Before
+    public void setUp() throws DecisionException, InvalidInputException {
+        assumeTrue(Files.isExecutable(Paths.get(Z3_PATH)));
+        this.calc = new CalculatorRewriting();
+        this.calc.addRewriter(new RewriterOperationOnSimplex());
+        this.symbolFactory = new SymbolFactory();
+        this.dec = new DecisionProcedureSMTLIB2_BV(new DecisionProcedureAlwSat(this.calc), Z3_COMMAND_LINE);
+    }
+
+    @After
+    public void tearDown() throws DecisionException {
+        if (this.dec != null) {
+            this.dec.close();
+        }
+    }
+
+    private PrimitiveSymbolic symbol(char type, String name) throws Exception {
+        return this.symbolFactory.createSymbolLocalVariablePrimitive(HistoryPoint.unknown(), "" + type, name);
+    }
+
+    @Test
+    public void testIntAddOverflow() throws Exception {
+        //true |- (A > 0) && (A + 1 < 0), with A == MAX_VALUE
+        final PrimitiveSymbolic A = symbol(Type.INT, "A");
+        final Expression e = (Expression) this.calc.push(A).gt(this.calc.valInt(0))
+                                          .and(this.calc.push(A).add(this.calc.valInt(1)).lt(this.calc.valInt(0)).pop()).pop();
+        assertTrue(this.dec.isSat(e));
+    }
+
+    @Test
+    public void testIntAddOverflowWraps() throws Exception {
+        //A == MAX_VALUE |-/- A + 1 != MIN_VALUE
+        final PrimitiveSymbolic A = symbol(Type.INT, "A");
+        this.dec.pushAssumption(new ClauseAssume(this.calc.push(A).eq(this.calc.valInt(Integer.MAX_VALUE)).pop()));
+        final Expression e = (Expression) this.calc.push(A).add(this.calc.valInt(1)).ne(this.calc.valInt(Integer.MIN_VALUE)).pop();
+        assertFalse(this.dec.isSat(e));
+    }
+
+    @Test
+    public void testLongMulOverflow() throws Exception {
+        //A == 2^32 |-/- A * A != 0
+        final PrimitiveSymbolic A = symbol(Type.LONG, "A");
+        this.dec.pushAssumption(new ClauseAssume(this.calc.push(A).eq(this.calc.valLong(1L << 32)).pop()));
+        final Expression e = (Expression) this.calc.push(A).mul(A).ne(this.calc.valLong(0L)).pop();
+        assertFalse(this.dec.isSat(e));
+    }
+
+    @Test
+    public void testModelOverflow() throws Exception {
+        //A + 1 < A |- model with A == MAX_VALUE
+        final PrimitiveSymbolic A = symbol(Type.INT, "A");
+        this.dec.pushAssumption(new ClauseAssume(this.calc.push(A).add(this.calc.valInt(1)).lt(A).pop()));
+        final Map<PrimitiveSymbolic, Simplex> model = this.dec.getModel();
+        assertEquals(this.calc.valInt(Integer.MAX_VALUE), model.get(A));
+    }
+
+    @Test
+    public void testIntShiftDistanceMasked() throws Exception {
+        //A == 33 |-/- (1 << A) != 2, since only the 5 lowest bits of A count
+        final PrimitiveSymbolic A = symbol(Type.INT, "A");
+        this.dec.pushAssumption(new ClauseAssume(this.calc.push(A).eq(this.calc.valInt(33)).pop()));
+        final Expression e = (Expression) this.calc.push(this.calc.valInt(1)).shl(A).ne(this.calc.valInt(2)).pop();
+        assertFalse(this.dec.isSat(e));
+    }
+
+    @Test
+    public void testLongShiftDistanceMasked() throws Exception {
+        //A == 64 |-/- (B << A) != B, since only the 6 lowest bits of A count
+        final PrimitiveSymbolic A = symbol(Type.INT, "A");
+        final PrimitiveSymbolic B = symbol(Type.LONG, "B");
+        this.dec.pushAssumption(new ClauseAssume(this.calc.push(A).eq(this.calc.valInt(64)).pop()));
+        final Expression e = (Expression) this.calc.push(B).shl(A).ne(B).pop();
+        assertFalse(this.dec.isSat(e));
+    }
+
+    @Test
+    public void testShiftRightSigned() throws Exception {
+        //A == -16 |-/- (A >> 2) != -4
+        final PrimitiveSymbolic A = symbol(Type.INT, "A");
+        this.dec.pushAssumption(new ClauseAssume(this.calc.push(A).eq(this.calc.valInt(-16)).pop()));
+        final Expression e = (Expression) this.calc.push(A).shr(this.calc.valInt(2)).ne(this.calc.valInt(-4)).pop();
+        assertFalse(this.dec.isSat(e));
+    }
+
+    @Test
+    public void testShiftRightUnsigned() throws Exception {
+        //A == -1 |-/- (A >>> 28) != 15
+        final PrimitiveSymbolic A = symbol(Type.INT, "A");
+        this.dec.pushAssumption(new ClauseAssume(this.calc.push(A).eq(this.calc.valInt(-1)).pop()));
+        final Expression e = (Expression) this.calc.push(A).ushr(this.calc.valInt(28)).ne(this.calc.valInt(15)).pop();
+        assertFalse(this.dec.isSat(e));
+    }
+
+    @Test
+    public void testShiftLeftOverflow() throws Exception {
+        //true |- (A > 0) && (A << 1 < 0)
+        final PrimitiveSymbolic A = symbol(Type.INT, "A");
+        final Expression e = (Expression) this.calc.push(A).gt(this.calc.valInt(0))
+                                          .and(this.calc.push(A).shl(this.calc.valInt(1)).lt(this.calc.valInt(0)).pop()).pop();
+        assertTrue(this.dec.isSat(e));
+    }
+}
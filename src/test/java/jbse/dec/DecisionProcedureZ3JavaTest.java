@@ -0,0 +1,96 @@
+package jbse.dec;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.Map;
+
+import jbse.common.Type;
+import jbse.common.exc.InvalidInputException;
+import jbse.dec.exc.DecisionException;
+import jbse.mem.ClauseAssume;
+import jbse.rewr.CalculatorRewriting;
+import jbse.rewr.RewriterOperationOnSimplex;
+import jbse.val.Expression;
+import jbse.val.HistoryPoint;
+import jbse.val.PrimitiveSymbolic;
+import jbse.val.Simplex;
+import jbse.val.SymbolFactory;
+import jbse.val.Term;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link DecisionProcedureZ3Java}. The tests are skipped
+ * when the Z3 Java bindings or the Z3 native library are not
+ * available.
+ */
+public class DecisionProcedureZ3JavaTest {
+    CalculatorRewriting calc;
+    DecisionProcedureZ3Java dec;
+
+    @Before
+    public void setUp() throws DecisionException, InvalidInputException {
+        assumeTrue(DecisionProcedureZ3Java.isAvailable());
+        this.calc = new CalculatorRewriting();
+        this.calc.addRewriter(new RewriterOperationOnSimplex());
+        this.dec = new DecisionProcedureZ3Java(new DecisionProcedureAlwSat(this.calc), 0, 0, new SMTLIB2SolverPolicy());
+    }
+
+    @After
+    public void tearDown() throws DecisionException {
+        if (this.dec != null) {
+            this.dec.close();
+        }
+    }
+
+    @Test
+    public void testSat() throws Exception {
+        // true |- (A > 0) && (A <= 1)
+        final Term A = this.calc.valTerm(Type.INT, "A");
+        final Expression e = (Expression) this.calc.push(A).gt(this.calc.valInt(0)).and(this.calc.push(A).le(this.calc.valInt(1)).pop()).pop();
+        assertTrue(this.dec.isSat(e));
+    }
+
+    @Test
+    public void testUnsatIntegers() throws Exception {
+        // true |-/- (A > 0) && (A < 1), since A is an integer
+        final Term A = this.calc.valTerm(Type.INT, "A");
+        final Expression e = (Expression) this.calc.push(A).gt(this.calc.valInt(0)).and(this.calc.push(A).lt(this.calc.valInt(1)).pop()).pop();
+        assertFalse(this.dec.isSat(e));
+    }
+
+    @Test
+    public void testSatReals() throws Exception {
+        // true |- (A > 0) && (A < 1), since A is a double
+        final Term A = this.calc.valTerm(Type.DOUBLE, "A");
+        final Expression e = (Expression) this.calc.push(A).gt(this.calc.valDouble(0.0)).and(this.calc.push(A).lt(this.calc.valDouble(1.0)).pop()).pop();
+        assertTrue(this.dec.isSat(e));
+    }
+
+    @Test
+    public void testAssumptions() throws Exception {
+        // A > 0 |-/- A <= 0, then true |- A <= 0
+        final Term A = this.calc.valTerm(Type.INT, "A");
+        this.dec.pushAssumption(new ClauseAssume(this.calc.push(A).gt(this.calc.valInt(0)).pop()));
+        final Expression e = (Expression) this.calc.push(A).le(this.calc.valInt(0)).pop();
+        assertFalse(this.dec.isSat(e));
+        this.dec.clearAssumptions();
+        assertTrue(this.dec.isSat(e));
+    }
+
+    @Test
+    public void testModel() throws Exception {
+        // A > 5 |- model with A > 5
+        final PrimitiveSymbolic A = new SymbolFactory().createSymbolLocalVariablePrimitive(HistoryPoint.unknown(), "" + Type.INT, "A");
+        this.dec.pushAssumption(new ClauseAssume(this.calc.push(A).gt(this.calc.valInt(5)).pop()));
+        final Map<PrimitiveSymbolic, Simplex> model = this.dec.getModel();
+        final Simplex valueA = ModelEvaluator.toSymbolType(this.calc, A, model.get(A));
+        assertNotNull(valueA);
+        assertTrue(((Integer) valueA.getActualValue()).intValue() > 5);
+    }
+}
@@ -0,0 +1,170 @@
+package jbse.dec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import jbse.common.Type;
+import jbse.rewr.CalculatorRewriting;
+import jbse.rewr.RewriterOperationOnSimplex;
+import jbse.val.HistoryPoint;
+import jbse.val.Primitive;
+import jbse.val.PrimitiveSymbolic;
+import jbse.val.Simplex;
+import jbse.val.SymbolFactory;
+
+public class ModelEvaluatorTest {
+    HistoryPoint hist;
+    CalculatorRewriting calc;
+    SymbolFactory symbolFactory;
+    HashMap<PrimitiveSymbolic, Simplex> model;
+    ModelEvaluator eval;
+
+    @Before
+    public void setUp() {
+        this.hist = HistoryPoint.unknown();
+        this.calc = new CalculatorRewriting();
+        this.calc.addRewriter(new RewriterOperationOnSimplex());
+        this.symbolFactory = new SymbolFactory();
+        this.model = new HashMap<>();
+        this.eval = new ModelEvaluator(this.calc, this.model);
+    }
+
+    private PrimitiveSymbolic symbol(char type, String name, Simplex value) throws Exception {
+        final PrimitiveSymbolic retVal = this.symbolFactory.createSymbolLocalVariablePrimitive(this.hist, "" + type, name);
+        this.model.put(retVal, value);
+        return retVal;
+    }
+
+    @Test
+    public void testSatisfied() throws Exception {
+        //A == 1 |= A + 1 > 1
+        final PrimitiveSymbolic A = symbol(Type.INT, "A", this.calc.valInt(1));
+        final Primitive p = this.calc.push(A).add(this.calc.valInt(1)).gt(this.calc.valInt(1)).pop();
+        assertEquals(Boolean.TRUE, this.eval.evalBoolean(p));
+    }
+
+    @Test
+    public void testFalsified() throws Exception {
+        //A == 1 |= !(A * 2 > 2)
+        final PrimitiveSymbolic A = symbol(Type.INT, "A", this.calc.valInt(1));
+        final Primitive p = this.calc.push(A).mul(this.calc.valInt(2)).gt(this.calc.valInt(2)).pop();
+        assertEquals(Boolean.FALSE, this.eval.evalBoolean(p));
+    }
+
+    @Test
+    public void testSymbolNotInModel() throws Exception {
+        //A == 1 |?| B > 0
+        symbol(Type.INT, "A", this.calc.valInt(1));
+        final PrimitiveSymbolic B = this.symbolFactory.createSymbolLocalVariablePrimitive(this.hist, "" + Type.INT, "B");
+        final Primitive p = this.calc.push(B).gt(this.calc.valInt(0)).pop();
+        assertNull(this.eval.evalBoolean(p));
+    }
+
+    @Test
+    public void testIntAddOverflow() throws Exception {
+        //A == MAX_VALUE |?| A + 1 < 0 (true in Java, false on unbounded integers)
+        final PrimitiveSymbolic A = symbol(Type.INT, "A", this.calc.valInt(Integer.MAX_VALUE));
+        final Primitive p = this.calc.push(A).add(this.calc.valInt(1)).lt(this.calc.valInt(0)).pop();
+        assertNull(this.eval.evalBoolean(p));
+    }
+
+    @Test
+    public void testIntMulOverflow() throws Exception {
+        //A == 65536 |?| A * A == 0
+        final PrimitiveSymbolic A = symbol(Type.INT, "A", this.calc.valInt(65536));
+        final Primitive p = this.calc.push(A).mul(A).eq(this.calc.valInt(0)).pop();
+        assertNull(this.eval.evalBoolean(p));
+    }
+
+    @Test
+    public void testIntNegOverflow() throws Exception {
+        //A == MIN_VALUE |?| -A < 0
+        final PrimitiveSymbolic A = symbol(Type.INT, "A", this.calc.valInt(Integer.MIN_VALUE));
+        final Primitive p = this.calc.push(A).neg().lt(this.calc.valInt(0)).pop();
+        assertNull(this.eval.evalBoolean(p));
+    }
+
+    @Test
+    public void testLongSubOverflow() throws Exception {
+        //A == MIN_VALUE |?| A - 1 > 0
+        final PrimitiveSymbolic A = symbol(Type.LONG, "A", this.calc.valLong(Long.MIN_VALUE));
+        final Primitive p = this.calc.push(A).sub(this.calc.valLong(1L)).gt(this.calc.valLong(0L)).pop();
+        assertNull(this.eval.evalBoolean(p));
+    }
+
+    @Test
+    public void testDivNonnegativeDividend() throws Exception {
+        //A == 7 |= A / -2 == -3 && A % -2 == 1
+        final PrimitiveSymbolic A = symbol(Type.INT, "A", this.calc.valInt(7));
+        final Primitive p = this.calc.push(A).div(this.calc.valInt(-2)).eq(this.calc.valInt(-3))
+                            .and(this.calc.push(A).rem(this.calc.valInt(-2)).eq(this.calc.valInt(1)).pop()).pop();
+        assertEquals(Boolean.TRUE, this.eval.evalBoolean(p));
+    }
+
+    @Test
+    public void testDivNegativeDividend() throws Exception {
+        //A == -7 |?| A / 2 == -3 (Java truncates, integer div does not)
+        final PrimitiveSymbolic A = symbol(Type.INT, "A", this.calc.valInt(-7));
+        final Primitive p = this.calc.push(A).div(this.calc.valInt(2)).eq(this.calc.valInt(-3)).pop();
+        assertNull(this.eval.evalBoolean(p));
+    }
+
+    @Test
+    public void testNarrowingOverflow() throws Exception {
+        //A == 300 |?| (byte) A == 44
+        final PrimitiveSymbolic A = symbol(Type.INT, "A", this.calc.valInt(300));
+        final Primitive p = this.calc.push(A).narrow(Type.BYTE).widen(Type.INT).eq(this.calc.valInt(44)).pop();
+        assertNull(this.eval.evalBoolean(p));
+    }
+
+    @Test
+    public void testNarrowingInRange() throws Exception {
+        //A == 44 |= (byte) A == 44
+        final PrimitiveSymbolic A = symbol(Type.INT, "A", this.calc.valInt(44));
+        final Primitive p = this.calc.push(A).narrow(Type.BYTE).widen(Type.INT).eq(this.calc.valInt(44)).pop();
+        assertEquals(Boolean.TRUE, this.eval.evalBoolean(p));
+    }
+
+    @Test
+    public void testWideningRounds() throws Exception {
+        //A == 2^24 + 1 |?| (float) A == 2^24
+        final PrimitiveSymbolic A = symbol(Type.INT, "A", this.calc.valInt(16777217));
+        final Primitive p = this.calc.push(A).widen(Type.FLOAT).eq(this.calc.valFloat(16777216.0f)).pop();
+        assertNull(this.eval.evalBoolean(p));
+    }
+
+    @Test
+    public void testFloatAddRounds() throws Exception {
+        //A == 2^24 |?| A + 1 == A
+        final PrimitiveSymbolic A = symbol(Type.FLOAT, "A", this.calc.valFloat(16777216.0f));
+        final Primitive p = this.calc.push(A).add(this.calc.valFloat(1.0f)).eq(A).pop();
+        assertNull(this.eval.evalBoolean(p));
+    }
+
+    @Test
+    public void testRestrict() throws Exception {
+        final PrimitiveSymbolic A = symbol(Type.INT, "A", this.calc.valInt(1));
+        final PrimitiveSymbolic B = symbol(Type.INT, "B", this.calc.valInt(2));
+        final PrimitiveSymbolic C = this.symbolFactory.createSymbolLocalVariablePrimitive(this.hist, "" + Type.INT, "C");
+        final Map<PrimitiveSymbolic, Simplex> restricted = ModelEvaluator.restrict(this.model, Arrays.asList(B, C));
+        assertEquals(Collections.singletonMap(B, this.calc.valInt(2)), restricted);
+        assertSame(this.model, ModelEvaluator.restrict(this.model, null));
+        assertEquals(this.calc.valInt(1), this.model.get(A));
+    }
+
+    @Test
+    public void testToSymbolTypeOutOfRange() throws Exception {
+        final PrimitiveSymbolic A = this.symbolFactory.createSymbolLocalVariablePrimitive(this.hist, "" + Type.INT, "A");
+        assertNull(ModelEvaluator.toSymbolType(this.calc, A, this.calc.valLong(1L + Integer.MAX_VALUE)));
+        assertEquals(this.calc.valInt(-1), ModelEvaluator.toSymbolType(this.calc, A, this.calc.valLong(-1L)));
+    }
+}
@@ -0,0 +1,106 @@
+package jbse.dec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import jbse.dec.SMTLIB2SolverPolicy.UnknownPolicy;
+
+public class SMTLIB2ConflictCacheTest {
+    SMTLIB2SolverPolicy policy;
+    SMTLIB2SymbolTable symbolTable;
+    SMTLIB2ConflictCache cache;
+
+    @Before
+    public void setUp() {
+        this.policy = new SMTLIB2SolverPolicy(0, UnknownPolicy.ASSUME_UNSAT, null, true);
+        this.symbolTable = new SMTLIB2SymbolTable();
+        this.cache = new SMTLIB2ConflictCache(this.policy, this.symbolTable);
+    }
+
+    private void declare(String name, String sort) {
+        this.symbolTable.declare(name, null, name + " () " + sort);
+    }
+
+    private void push(String assertion) {
+        assertEquals("jbse_a0", this.cache.scopeName());
+        this.cache.push(assertion);
+    }
+
+    private void learnIntConflict() {
+        //V0 > 0, V0 < 1 is unsat only on the integers
+        declare("V0", "Int");
+        push("(> V0 0)");
+        assertFalse(this.cache.isConflicting("(< V0 1)"));
+        this.cache.learn("(< V0 1)", Arrays.asList("jbse_a0", SMTLIB2ConflictCache.QUERY_NAME));
+        assertEquals(1, this.policy.getConflictsLearned());
+    }
+
+    @Test
+    public void testHit() {
+        learnIntConflict();
+        assertTrue(this.cache.isConflicting("(< V0 1)"));
+        assertEquals(1, this.policy.getConflictHits());
+    }
+
+    @Test
+    public void testNoHitAfterPop() {
+        learnIntConflict();
+        this.cache.pop(1);
+        this.symbolTable.truncate(0);
+        declare("V0", "Int");
+        assertFalse(this.cache.isConflicting("(< V0 1)"));
+        push("(> V0 0)");
+        assertTrue(this.cache.isConflicting("(< V0 1)"));
+    }
+
+    @Test
+    public void testHitAfterClear() {
+        learnIntConflict();
+        this.cache.clear();
+        this.symbolTable.clear();
+        declare("V0", "Int");
+        push("(> V0 0)");
+        assertTrue(this.cache.isConflicting("(< V0 1)"));
+    }
+
+    @Test
+    public void testNoHitWithOtherSort() {
+        learnIntConflict();
+        this.cache.clear();
+        this.symbolTable.clear();
+        declare("V0", "Real");
+        push("(> V0 0)");
+        assertFalse(this.cache.isConflicting("(< V0 1)"));
+    }
+
+    @Test
+    public void testUnknownCoreIgnored() {
+        declare("V0", "Int");
+        push("(> V0 0)");
+        this.cache.learn("(< V0 1)", null);
+        this.cache.learn("(< V0 1)", Arrays.asList("jbse_a0"));
+        this.cache.learn("(< V0 1)", Arrays.asList("jbse_a1", SMTLIB2ConflictCache.QUERY_NAME));
+        this.cache.learn("(< V0 1)", Arrays.asList("foo", SMTLIB2ConflictCache.QUERY_NAME));
+        assertEquals(0, this.policy.getConflictsLearned());
+        assertFalse(this.cache.isConflicting("(< V0 1)"));
+    }
+
+    @Test
+    public void testEviction() {
+        declare("V0", "Int");
+        for (int i = 0; i < SMTLIB2ConflictCache.CAPACITY; ++i) {
+            this.cache.learn("(distinct V0 V0 " + i + ")", Arrays.asList(SMTLIB2ConflictCache.QUERY_NAME));
+        }
+        assertTrue(this.cache.isConflicting("(distinct V0 V0 0)"));
+        this.cache.learn("(distinct V0 V0 -1)", Arrays.asList(SMTLIB2ConflictCache.QUERY_NAME));
+        assertFalse(this.cache.isConflicting("(distinct V0 V0 0)"));
+        assertTrue(this.cache.isConflicting("(distinct V0 V0 -1)"));
+        assertEquals(SMTLIB2ConflictCache.CAPACITY + 1, this.policy.getConflictsLearned());
+    }
+}
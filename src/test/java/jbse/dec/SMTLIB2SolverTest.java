@@ -0,0 +1,114 @@
+package jbse.dec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import jbse.dec.SMTLIB2SolverPolicy.UnknownPolicy;
+
+/**
+ * Tests how {@link SMTLIB2Solver} deals with the queries
+ * the solver does not decide, with a {@link ScriptedSMTLIB2Solver}.
+ */
+public class SMTLIB2SolverTest {
+    private static final String PROLOGUE = "(set-logic QF_LIA)\n";
+    private static final String SCOPE = "(push 1)\n(declare-fun V0 () Int)\n(assert (> V0 0))\n";
+    private static final String QUERY = "(push 1)\n(assert (< V0 1))\n";
+
+    private Path dir;
+    private Path fallbackDir;
+    private SMTLIB2Solver solver;
+
+    @Before
+    public void setUp() throws Exception {
+        this.dir = Files.createTempDirectory("jbse");
+        this.fallbackDir = Files.createTempDirectory("jbse");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (this.solver != null) {
+            this.solver.fail();
+        }
+        for (Path d : new Path[] { this.dir, this.fallbackDir }) {
+            Files.walk(d).sorted(Collections.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private void start(SMTLIB2SolverPolicy policy, String... answers) throws Exception {
+        this.solver = new SMTLIB2Solver(ScriptedSMTLIB2Solver.commandLine(this.dir, answers), PROLOGUE, policy);
+        this.solver.pushScope(SCOPE);
+    }
+
+    @Test
+    public void testUnknownAssumedUnsat() throws Exception {
+        final SMTLIB2SolverPolicy policy = new SMTLIB2SolverPolicy(0, UnknownPolicy.ASSUME_UNSAT, null);
+        start(policy, "unknown");
+        assertFalse(this.solver.checkSat(QUERY));
+        assertEquals(1, policy.getUnknowns());
+        assertEquals(0, policy.getTimeouts());
+    }
+
+    @Test
+    public void testUnknownAssumedSat() throws Exception {
+        final SMTLIB2SolverPolicy policy = new SMTLIB2SolverPolicy(0, UnknownPolicy.ASSUME_SAT, null);
+        start(policy, "timeout");
+        assertTrue(this.solver.checkSat(QUERY));
+        assertEquals(1, policy.getUnknowns());
+        assertEquals(1, policy.getTimeouts());
+    }
+
+    @Test
+    public void testUnknownRetriedOnFallback() throws Exception {
+        final SMTLIB2SolverPolicy policy = new SMTLIB2SolverPolicy(0, UnknownPolicy.RETRY, ScriptedSMTLIB2Solver.commandLine(this.fallbackDir, "unsat"));
+        start(policy, "unknown", "sat");
+        assertFalse(this.solver.checkSat(QUERY));
+        assertEquals(1, policy.getRetries());
+
+        //the fallback solver got the same assertion stack
+        final List<String> fallbackLog = ScriptedSMTLIB2Solver.log(this.fallbackDir, 0);
+        assertEquals(Arrays.asList("(set-logic QF_LIA)",
+                                   "(push 1)", "(declare-fun V0 () Int)", "(assert (> V0 0))",
+                                   "(push 1)", "(assert (< V0 1))", "(check-sat)", "(pop 1)"), fallbackLog);
+
+        //the main solver goes on
+        assertTrue(this.solver.checkSat(QUERY));
+        assertEquals(1, policy.getRetries());
+    }
+
+    @Test
+    public void testUnknownWithoutFallbackAssumedUnsat() throws Exception {
+        final SMTLIB2SolverPolicy policy = new SMTLIB2SolverPolicy(0, UnknownPolicy.RETRY, null);
+        start(policy, "unknown");
+        assertFalse(this.solver.checkSat(QUERY));
+        assertEquals(0, policy.getRetries());
+    }
+
+    @Test
+    public void testWatchdogRestartsHungSolver() throws Exception {
+        final SMTLIB2SolverPolicy policy = new SMTLIB2SolverPolicy(2000, UnknownPolicy.ASSUME_SAT, null);
+        start(policy, "hang", "unsat");
+        assertTrue(this.solver.checkSat(QUERY));
+        assertEquals(1, policy.getRestarts());
+        assertEquals(1, policy.getTimeouts());
+
+        //the restarted solver got the assertion stack back...
+        assertEquals(Arrays.asList("(set-logic QF_LIA)", "(push 1)", "(declare-fun V0 () Int)", "(assert (> V0 0))"),
+                     ScriptedSMTLIB2Solver.log(this.dir, 1));
+
+        //...and answers the next query
+        assertFalse(this.solver.checkSat(QUERY));
+        assertEquals(1, policy.getRestarts());
+        assertTrue(this.solver.isWorking());
+    }
+}
@@ -0,0 +1,103 @@
+package jbse.dec;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A fake SMTLIB2 solver in interactive mode, with print-success
+ * enabled, for testing the SMTLIB2 interfaces without a real
+ * solver. It answers {@code success} to every command, except
+ * {@code (check-sat)} that it answers as scripted on its command
+ * line, and appends the commands it receives to a log. Its
+ * command line is {@code dir answer...}, where {@code dir} is
+ * a directory shared by all the runs of the solver, and each
+ * {@code answer} is one of {@code sat}, {@code unsat}, {@code unknown}
+ * (for an unknown answer with reason {@code incomplete}),
+ * {@code timeout} (for an unknown answer with reason {@code timeout}),
+ * or {@code hang} (for no answer at all). The n-th
+ * {@code (check-sat)} received by all the runs of the solver
+ * gets the n-th answer, the last answer is repeated. The
+ * commands received by the n-th run of the solver are logged
+ * in file {@code dir/log}n.
+ */
+public final class ScriptedSMTLIB2Solver {
+    private static final String CHECKS = "checks";
+    private static final String RUNS = "runs";
+    private static final String LOG = "log";
+
+    /**
+     * Returns the command line to launch the solver.
+     *
+     * @param dir the {@link Path} of the directory shared by
+     *        the runs of the solver.
+     * @param answers the scripted answers.
+     * @return a {@link List}{@code <}{@link String}{@code >}.
+     */
+    static List<String> commandLine(Path dir, String... answers) {
+        final ArrayList<String> retVal = new ArrayList<>();
+        retVal.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        retVal.add("-cp");
+        retVal.add(System.getProperty("java.class.path"));
+        retVal.add(ScriptedSMTLIB2Solver.class.getName());
+        retVal.add(dir.toString());
+        retVal.addAll(Arrays.asList(answers));
+        return retVal;
+    }
+
+    /**
+     * Returns the commands received by a run of the solver.
+     *
+     * @param dir the {@link Path} of the directory shared by
+     *        the runs of the solver.
+     * @param run an {@code int}, the number of the run,
+     *        starting from 0.
+     * @return a {@link List}{@code <}{@link String}{@code >}.
+     * @throws IOException if reading the log fails.
+     */
+    static List<String> log(Path dir, int run) throws IOException {
+        return Files.readAllLines(dir.resolve(LOG + run), StandardCharsets.UTF_8);
+    }
+
+    private static int next(Path counter) throws IOException {
+        final int retVal = (Files.exists(counter) ? Integer.parseInt(new String(Files.readAllBytes(counter), StandardCharsets.UTF_8)) : 0);
+        Files.write(counter, Integer.toString(retVal + 1).getBytes(StandardCharsets.UTF_8));
+        return retVal;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        final Path dir = Paths.get(args[0]);
+        final File log = dir.resolve(LOG + next(dir.resolve(RUNS))).toFile();
+        final BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        final PrintWriter out = new PrintWriter(System.out, true);
+        String answer = null;
+        for (String command = in.readLine(); command != null; command = in.readLine()) {
+            Files.write(log.toPath(), (command + "\n").getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            if (command.equals("(check-sat)")) {
+                answer = args[Math.min(next(dir.resolve(CHECKS)) + 1, args.length - 1)];
+                if (answer.equals("hang")) {
+                    Thread.sleep(Long.MAX_VALUE);
+                }
+                out.println(answer.equals("timeout") ? "unknown" : answer);
+            } else if (command.equals("(get-info :reason-unknown)")) {
+                out.println("(:reason-unknown \"" + (answer.equals("timeout") ? "timeout" : "incomplete") + "\")");
+            } else if (command.equals("(get-unsat-core)")) {
+                out.println("()");
+            } else if (command.equals("(exit)")) {
+                return;
+            } else {
+                out.println("success");
+            }
+        }
+    }
+}
@@ -108,4 +108,36 @@ public class InstanceTest {
         final Value valMinLatClone = iClone.getFieldValue("minLat", className);
         assertEquals(valMinLatClone, this.calc.valDouble(0));
     }
+
+    @Test
+    public void testInstanceLayoutShared() throws ClassFileNotFoundException, ClassFileIllFormedException, InvalidInputException, 
+    BadClassFileVersionException, WrongClassNameException, IncompatibleClassFileException, ClassFileNotAccessibleException, 
+    PleaseLoadClassException, InvalidTypeException, RenameUnsupportedException {
+        final String className = "tsafe/main/SimpleCalculator";
+        final ClassFile classFile = this.hier.loadCreateClass(CLASSLOADER_APP, className, true);
+        final Signature sigF = new Signature("testInstanceLayoutShared", "I", "f");
+        final Instance i1 = new InstanceImpl_DEFAULT(this.calc, false, classFile, null, null, 0, sigF);
+        assertTrue(ObjektImpl.hasCachedLayout(sigF));
+        final Instance i2 = new InstanceImpl_DEFAULT(this.calc, false, classFile, null, null, 0, new Signature("testInstanceLayoutShared", "I", "f"));
+        i2.setFieldValue(sigF, this.calc.valInt(1));
+        assertEquals(this.calc.valInt(0), i1.getFieldValue(sigF));
+        assertEquals(this.calc.valInt(1), i2.getFieldValue(sigF));
+    }
+
+    @Test
+    public void testInstanceLayoutReleased() throws ClassFileNotFoundException, ClassFileIllFormedException, InvalidInputException, 
+    BadClassFileVersionException, WrongClassNameException, IncompatibleClassFileException, ClassFileNotAccessibleException, 
+    PleaseLoadClassException, InvalidTypeException, RenameUnsupportedException, InterruptedException {
+        final String className = "tsafe/main/SimpleCalculator";
+        final ClassFile classFile = this.hier.loadCreateClass(CLASSLOADER_APP, className, true);
+        final Signature sigF = new Signature("testInstanceLayoutReleased", "I", "f");
+        Instance i = new InstanceImpl_DEFAULT(this.calc, false, classFile, null, null, 0, sigF);
+        assertTrue(ObjektImpl.hasCachedLayout(sigF));
+        i = null; //drops the only user of the layout
+        for (int k = 0; k < 100 && ObjektImpl.hasCachedLayout(sigF); ++k) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertFalse(ObjektImpl.hasCachedLayout(sigF));
+    }
 }
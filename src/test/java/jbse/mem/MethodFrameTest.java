@@ -29,6 +29,7 @@ import jbse.bc.exc.PleaseLoadClassException;
 import jbse.bc.exc.RenameUnsupportedException;
 import jbse.bc.exc.WrongClassNameException;
 import jbse.common.exc.InvalidInputException;
+import jbse.mem.exc.InvalidNumberOfOperandsException;
 import jbse.mem.exc.InvalidSlotException;
 import jbse.val.Null;
 import jbse.val.ReferenceConcrete;
@@ -103,4 +104,29 @@ public class MethodFrameTest {
         final Value valThisClone = fClone.getLocalVariableValue(0);
         assertEquals(valThisClone, Null.getInstance());
     }
+
+    @Test
+    public void testFrameOperandStackSizing() throws ClassFileNotFoundException, ClassFileIllFormedException, 
+    InvalidInputException, BadClassFileVersionException, WrongClassNameException, IncompatibleClassFileException, 
+    ClassFileNotAccessibleException, PleaseLoadClassException, MethodNotFoundException, MethodCodeNotFoundException, 
+    InvalidNumberOfOperandsException, RenameUnsupportedException {
+        final String className = "tsafe/engine/TsafeEngine";
+        final ClassFile cf = this.hier.loadCreateClass(CLASSLOADER_APP, className, true);
+        final Signature sigMethod = new Signature(className, "()V", "start");
+        final MethodFrame f = new MethodFrame(sigMethod, cf);
+        final int maxStack = cf.getOperandStackMaxDepth(sigMethod);
+        assertEquals(maxStack, f.getOperandStack().capacity());
+        for (int i = 0; i < maxStack; ++i) {
+            f.push(new ReferenceConcrete(i));
+        }
+        assertEquals(maxStack, f.getOperandStack().capacity());
+        
+        //a wrap snippet may push past max_stack
+        f.push(Null.getInstance());
+        assertEquals(maxStack + 1, f.operands().size());
+        assertEquals(Null.getInstance(), f.pop());
+        for (int i = maxStack - 1; i >= 0; --i) {
+            assertEquals(new ReferenceConcrete(i), f.pop());
+        }
+    }
 }
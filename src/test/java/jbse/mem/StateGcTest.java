@@ -0,0 +1,109 @@
+package jbse.mem;
+
+import static jbse.bc.ClassLoaders.CLASSLOADER_APP;
+import static jbse.bc.ClassLoaders.CLASSLOADER_BOOT;
+import static jbse.bc.Signatures.JAVA_THREAD;
+import static jbse.bc.Signatures.JAVA_THREADGROUP;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import jbse.bc.ClassFile;
+import jbse.bc.ClassFileFactoryJavassist;
+import jbse.bc.ClassHierarchy;
+import jbse.bc.Classpath;
+import jbse.bc.Signature;
+import jbse.rewr.CalculatorRewriting;
+import jbse.rewr.RewriterOperationOnSimplex;
+import jbse.val.HistoryPoint;
+import jbse.val.Null;
+import jbse.val.ReferenceConcrete;
+import jbse.val.ReferenceSymbolic;
+import jbse.val.SymbolFactory;
+
+/**
+ * Tests {@link State#gcYoung()} on a frame of method {@code m}
+ * of class {@code join.Diamond} (see {@link StateJoinTest}),
+ * whose local variable 3 is an {@link Object} and 4 is a
+ * {@code Diamond}.
+ */
+public class StateGcTest {
+    private static final String DIAMOND = "join/Diamond";
+    private static final Signature DIAMOND_M = new Signature(DIAMOND, "(IIFLjava/lang/Object;Ljoin/Diamond;)I", "m");
+    private static final Signature DIAMOND_O = new Signature(DIAMOND, "Ljava/lang/Object;", "o");
+
+    private CalculatorRewriting calc;
+    private State state;
+    private ClassFile cf;
+
+    /** An object in the old generation, referred by local variable 3. */
+    private ReferenceConcrete old;
+
+    @Before
+    public void setUp() throws Exception {
+        final ArrayList<Path> userPath = new ArrayList<>();
+        userPath.add(Paths.get("src/test/resources/jbse/mem/testdata"));
+        final Classpath env = new Classpath(Paths.get("."), Paths.get(System.getProperty("java.home", "")), Collections.emptyList(), userPath);
+        this.calc = new CalculatorRewriting();
+        this.calc.addRewriter(new RewriterOperationOnSimplex());
+        this.state = new State(true, HistoryPoint.startingPreInitial(true), 1000, 1000, env, ClassFileFactoryJavassist.class, Collections.emptyMap(), Collections.emptyMap(), new SymbolFactory());
+        this.cf = this.state.getClassHierarchy().loadCreateClass(CLASSLOADER_APP, DIAMOND, true);
+        this.state.setPhasePostInitial();
+        this.state.ensureKlass(this.calc, this.cf);
+        final ClassHierarchy hier = this.state.getClassHierarchy();
+        this.state.setMainThreadGroup(this.state.createInstance(this.calc, hier.loadCreateClass(CLASSLOADER_BOOT, JAVA_THREADGROUP, true)));
+        this.state.setMainThread(this.state.createInstance(this.calc, hier.loadCreateClass(CLASSLOADER_BOOT, JAVA_THREAD, true)));
+        this.state.setGenerationalGc();
+        this.state.pushFrameSymbolic(this.cf, DIAMOND_M);
+        this.old = this.state.createInstance(this.calc, this.cf);
+        this.state.getCurrentFrame().setLocalVariableValue(3, 0, this.old);
+        this.state.gc(); //promotes
+    }
+
+    private boolean exists(ReferenceConcrete ref) throws Exception {
+        return this.state.getObject(ref) != null;
+    }
+
+    @Test
+    public void testUnreachableYoungCollected() throws Exception {
+        final ReferenceConcrete young = this.state.createInstance(this.calc, this.cf);
+        this.state.gcYoung();
+        assertFalse(exists(young));
+        assertTrue(exists(this.old));
+    }
+
+    @Test
+    public void testReachableYoungKept() throws Exception {
+        final ReferenceConcrete young = this.state.createInstance(this.calc, this.cf);
+        this.state.getCurrentFrame().setLocalVariableValue(4, 0, young);
+        this.state.gcYoung();
+        assertTrue(exists(young));
+    }
+
+    @Test
+    public void testYoungReferredByOldKept() throws Exception {
+        final ReferenceConcrete young = this.state.createInstance(this.calc, this.cf);
+        this.state.getObject(this.old).setFieldValue(DIAMOND_O, young);
+        this.state.gcYoung();
+        assertTrue(exists(young));
+    }
+
+    @Test
+    public void testPathConditionRootKept() throws Exception {
+        final ReferenceSymbolic d = (ReferenceSymbolic) this.state.getLocalVariableValue(4);
+        this.state.assumeExpands(this.calc, d, this.cf);
+        final ReferenceConcrete expansion = new ReferenceConcrete(this.state.getResolution(d));
+        this.state.getCurrentFrame().setLocalVariableValue(4, 0, Null.getInstance());
+        final ReferenceConcrete young = this.state.createInstance(this.calc, this.cf);
+        this.state.gcYoung();
+        assertTrue(exists(expansion));
+        assertFalse(exists(young));
+    }
+}
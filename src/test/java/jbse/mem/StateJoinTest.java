@@ -0,0 +1,176 @@
+package jbse.mem;
+
+import static jbse.bc.ClassLoaders.CLASSLOADER_APP;
+import static org.junit.Assert.*;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import jbse.bc.ClassFile;
+import jbse.bc.ClassFileFactoryJavassist;
+import jbse.bc.Classpath;
+import jbse.bc.Signature;
+import jbse.rewr.CalculatorRewriting;
+import jbse.rewr.RewriterOperationOnSimplex;
+import jbse.val.HistoryPoint;
+import jbse.val.Null;
+import jbse.val.Primitive;
+import jbse.val.PrimitiveSymbolic;
+import jbse.val.ReferenceConcrete;
+import jbse.val.SymbolFactory;
+
+/**
+ * Tests {@link State#join(State, jbse.val.Calculator, int, int)}
+ * on the two branches of the diamond in method {@code m} of class
+ * {@code join.Diamond}:
+ *
+ * <pre>
+ * public class Diamond {
+ *     int i;
+ *     float f;
+ *     Object o;
+ *
+ *     static int m(int x, int y, float z, Object w, Diamond d) {
+ *         if (x > 0) {
+ *             y = 1;
+ *         } else {
+ *             y = 2;
+ *         }
+ *         return y;
+ *     }
+ * }
+ * </pre>
+ */
+public class StateJoinTest {
+    private static final String DIAMOND = "join/Diamond";
+    private static final Signature DIAMOND_M = new Signature(DIAMOND, "(IIFLjava/lang/Object;Ljoin/Diamond;)I", "m");
+    private static final Signature DIAMOND_I = new Signature(DIAMOND, "I", "i");
+    private static final Signature DIAMOND_F = new Signature(DIAMOND, "F", "f");
+    private static final Signature DIAMOND_O = new Signature(DIAMOND, "Ljava/lang/Object;", "o");
+    private static final int MAX_JOINED_VALUES = 8;
+    private static final int MAX_SUFFIX_LENGTH = 8;
+
+    private CalculatorRewriting calc;
+
+    /** The state before the diamond. */
+    private State state;
+
+    /** A concrete {@link Diamond} object in {@link #state}. */
+    private ReferenceConcrete object;
+
+    /** The first branch of the diamond. */
+    private State thenBranch;
+
+    /** The second branch of the diamond. */
+    private State elseBranch;
+
+    @Before
+    public void setUp() throws Exception {
+        //environment
+        final ArrayList<Path> userPath = new ArrayList<>();
+        userPath.add(Paths.get("src/test/resources/jbse/mem/testdata"));
+        final Classpath env = new Classpath(Paths.get("."), Paths.get(System.getProperty("java.home", "")), Collections.emptyList(), userPath);
+
+        //calculator
+        this.calc = new CalculatorRewriting();
+        this.calc.addRewriter(new RewriterOperationOnSimplex());
+
+        //the state before the diamond
+        this.state = new State(true, HistoryPoint.startingPreInitial(true), 1000, 1000, env, ClassFileFactoryJavassist.class, Collections.emptyMap(), Collections.emptyMap(), new SymbolFactory());
+        final ClassFile cf = this.state.getClassHierarchy().loadCreateClass(CLASSLOADER_APP, DIAMOND, true);
+        this.state.setPhasePostInitial();
+        this.object = this.state.createInstance(this.calc, cf);
+        this.state.pushFrameSymbolic(cf, DIAMOND_M);
+
+        //the branches
+        final Primitive x = (Primitive) this.state.getLocalVariableValue(0);
+        this.thenBranch = this.state.lazyClone();
+        this.thenBranch.assume(this.calc.push(x).gt(this.calc.valInt(0)).pop());
+        this.elseBranch = this.state.lazyClone();
+        this.elseBranch.assume(this.calc.push(x).le(this.calc.valInt(0)).pop());
+    }
+
+    private boolean join() throws Exception {
+        return this.thenBranch.join(this.elseBranch, this.calc, MAX_JOINED_VALUES, MAX_SUFFIX_LENGTH);
+    }
+
+    @Test
+    public void testJoinSameValues() throws Exception {
+        assertTrue(join());
+        assertEquals(this.state.getPathCondition().size() + 1, this.thenBranch.getPathCondition().size());
+    }
+
+    @Test
+    public void testJoinIntLocalVariable() throws Exception {
+        this.thenBranch.getCurrentFrame().setLocalVariableValue(1, 0, this.calc.valInt(1));
+        this.elseBranch.getCurrentFrame().setLocalVariableValue(1, 0, this.calc.valInt(2));
+        assertTrue(join());
+        assertTrue(this.thenBranch.getLocalVariableValue(1) instanceof PrimitiveSymbolic);
+        assertEquals(this.calc.valInt(2), this.elseBranch.getLocalVariableValue(1));
+        assertEquals(this.state.getPathCondition().size() + 2, this.thenBranch.getPathCondition().size());
+        assertFalse(this.thenBranch.areThereNewPathConditionClauses());
+    }
+
+    @Test
+    public void testJoinIntField() throws Exception {
+        this.thenBranch.getObject(this.object).setFieldValue(DIAMOND_I, this.calc.valInt(1));
+        this.elseBranch.getObject(this.object).setFieldValue(DIAMOND_I, this.calc.valInt(2));
+        assertTrue(join());
+        assertTrue(this.thenBranch.getObject(this.object).getFieldValue(DIAMOND_I) instanceof PrimitiveSymbolic);
+        assertEquals(this.calc.valInt(0), this.state.getObject(this.object).getFieldValue(DIAMOND_I));
+        assertEquals(this.state.getPathCondition().size() + 2, this.thenBranch.getPathCondition().size());
+    }
+
+    @Test
+    public void testJoinTooManyValues() throws Exception {
+        this.thenBranch.getCurrentFrame().setLocalVariableValue(1, 0, this.calc.valInt(1));
+        this.elseBranch.getCurrentFrame().setLocalVariableValue(1, 0, this.calc.valInt(2));
+        this.thenBranch.getObject(this.object).setFieldValue(DIAMOND_I, this.calc.valInt(1));
+        this.elseBranch.getObject(this.object).setFieldValue(DIAMOND_I, this.calc.valInt(2));
+        assertFalse(this.thenBranch.join(this.elseBranch, this.calc, 1, MAX_SUFFIX_LENGTH));
+    }
+
+    @Test
+    public void testNoJoinReferenceLocalVariable() throws Exception {
+        this.thenBranch.getCurrentFrame().setLocalVariableValue(3, 0, Null.getInstance());
+        this.elseBranch.getCurrentFrame().setLocalVariableValue(3, 0, this.object);
+        final List<Clause> pathConditionBefore = new ArrayList<>(this.thenBranch.getPathCondition());
+        assertFalse(join());
+        assertEquals(Null.getInstance(), this.thenBranch.getLocalVariableValue(3));
+        assertEquals(pathConditionBefore, this.thenBranch.getPathCondition());
+    }
+
+    @Test
+    public void testNoJoinReferenceField() throws Exception {
+        this.elseBranch.getObject(this.object).setFieldValue(DIAMOND_O, this.object);
+        assertFalse(join());
+        assertEquals(Null.getInstance(), this.thenBranch.getObject(this.object).getFieldValue(DIAMOND_O));
+    }
+
+    @Test
+    public void testNoJoinFloatLocalVariable() throws Exception {
+        this.thenBranch.getCurrentFrame().setLocalVariableValue(2, 0, this.calc.valFloat(1.0f));
+        this.elseBranch.getCurrentFrame().setLocalVariableValue(2, 0, this.calc.valFloat(2.0f));
+        assertFalse(join());
+        assertEquals(this.calc.valFloat(1.0f), this.thenBranch.getLocalVariableValue(2));
+    }
+
+    @Test
+    public void testNoJoinFloatField() throws Exception {
+        this.thenBranch.getObject(this.object).setFieldValue(DIAMOND_F, this.calc.valFloat(1.0f));
+        this.elseBranch.getObject(this.object).setFieldValue(DIAMOND_F, this.calc.valFloat(2.0f));
+        assertFalse(join());
+    }
+
+    @Test
+    public void testNoJoinDifferentProgramCounters() throws Exception {
+        this.elseBranch.getCurrentFrame().setProgramCounter(1);
+        assertFalse(join());
+    }
+}
@@ -0,0 +1,101 @@
+package jbse.rules;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import jbse.val.HistoryPoint;
+import jbse.val.ReferenceSymbolic;
+import jbse.val.SymbolFactory;
+
+/**
+ * Tests the cached matching of origins against the 
+ * origin expressions of rules, on the origins
+ * {@code {ROOT}:list}, {@code {ROOT}:list.node/Node:next},
+ * {@code {ROOT}:list.node/Node:next.node/Node:next} and
+ * {@code {ROOT}:list.node/Node:next.node/Node:value}.
+ */
+public class OriginMatcherTest {
+    private static final String NEXT = ".node/Node:next";
+    private static final String VALUE = ".node/Node:value";
+
+    private SymbolFactory symbolFactory;
+    private ReferenceSymbolic list;
+    private ReferenceSymbolic listNext;
+    private ReferenceSymbolic listNextNext;
+    private ReferenceSymbolic listNextValue;
+
+    @Before
+    public void setUp() throws Exception {
+        this.symbolFactory = new SymbolFactory();
+        this.list = local("list");
+        this.listNext = field(this.list, "next", "Lnode/Node;");
+        this.listNextNext = field(this.listNext, "next", "Lnode/Node;");
+        this.listNextValue = field(this.listNext, "value", "Ljava/lang/Object;");
+    }
+
+    private ReferenceSymbolic local(String name) throws Exception {
+        return this.symbolFactory.createSymbolLocalVariableReference(HistoryPoint.unknown(), "Lnode/Node;", "Lnode/Node;", name);
+    }
+
+    private ReferenceSymbolic field(ReferenceSymbolic container, String name, String type) throws Exception {
+        return this.symbolFactory.createSymbolMemberFieldReference(type, type, container, name, "node/Node");
+    }
+
+    @Test
+    public void testLiteral() {
+        final Rule r = new LICSRuleNotNull(Util.ANY + NEXT);
+        assertFalse(r.matches(this.list));
+        assertTrue(r.matches(this.listNext));
+        assertTrue(r.matches(this.listNextNext));
+        assertFalse(r.matches(this.listNextValue));
+    }
+
+    @Test
+    public void testRegexCached() throws Exception {
+        final Rule r = new LICSRuleNotNull("{ROOT}:list(" + NEXT + ")*");
+        for (int i = 0; i < 2; ++i) { //the second time the results are cached
+            assertTrue(r.matches(this.list));
+            assertTrue(r.matches(this.listNext));
+            assertTrue(r.matches(this.listNextNext));
+            assertFalse(r.matches(this.listNextValue));
+        }
+    }
+
+    @Test
+    public void testRegexEviction() throws Exception {
+        final Rule r = new LICSRuleNotNull("{ROOT}:list(" + NEXT + ")*");
+        assertTrue(r.matches(this.listNext));
+        for (int i = 0; i <= OriginMatcher.MAX_CACHED; ++i) {
+            assertFalse(r.matches(local("other" + i)));
+        }
+        assertTrue(r.matches(this.listNext));
+        assertFalse(r.matches(this.listNextValue));
+    }
+
+    @Test
+    public void testRelativePerOrigin() {
+        final Util.OriginPatternRelative p = new Util.OriginPatternRelative(Util.REF + NEXT, new OriginMatcher(Util.ANY));
+        assertTrue(p.matches(this.list, this.listNext));
+        assertFalse(p.matches(this.list, this.listNextNext));
+        
+        //must not reuse the pattern made relative to list
+        assertFalse(p.matches(this.listNext, this.listNext));
+        assertTrue(p.matches(this.listNext, this.listNextNext));
+        assertTrue(p.matches(this.list, this.listNext));
+    }
+
+    @Test
+    public void testRelativeAnyAndUp() {
+        final OriginMatcher originMatcher = new OriginMatcher(Util.ANY + NEXT);
+        final Util.OriginPatternRelative any = new Util.OriginPatternRelative(Util.REFANY + NEXT + VALUE, originMatcher);
+        assertTrue(any.matches(this.listNext, this.listNextValue));
+        assertFalse(any.matches(this.listNext, this.listNextNext));
+        final Util.OriginPatternRelative up = new Util.OriginPatternRelative(Util.REF + "." + Util.UP + NEXT, originMatcher);
+        assertTrue(up.matches(this.listNext, this.listNext));
+        assertTrue(up.matches(this.listNextNext, this.listNextNext));
+        assertFalse(up.matches(this.listNextNext, this.listNext));
+    }
+}
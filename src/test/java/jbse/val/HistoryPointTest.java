@@ -0,0 +1,83 @@
+package jbse.val;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class HistoryPointTest {
+    private static HistoryPoint path(boolean compact, String... branches) {
+        HistoryPoint retVal = HistoryPoint.startingPreInitial(compact).startingInitial();
+        for (String b : branches) {
+            retVal = retVal.nextBranch(b);
+        }
+        return retVal;
+    }
+
+    @Test
+    public void testBranchIdentifier() {
+        assertEquals("", HistoryPoint.startingPreInitial(true).getBranchIdentifier());
+        assertEquals(".1.2.1", path(true, "2", "1").getBranchIdentifier());
+        assertEquals("|ROOT|a|b", path(false, "a", "b").getBranchIdentifier());
+        assertEquals(".1.2[1]", path(true, "2").next().toString());
+    }
+
+    @Test
+    public void testBranchIdentifierParentAfterChild() {
+        //the string of a child is built before the string of its parent
+        final HistoryPoint parent = path(true, "2", "3");
+        final HistoryPoint child = parent.nextBranch("4").nextBranch("5");
+        assertEquals(".1.2.3.4.5", child.getBranchIdentifier());
+        assertEquals(".1.2.3", parent.getBranchIdentifier());
+        assertEquals(".1.2.3.6", parent.nextBranch("6").getBranchIdentifier());
+    }
+
+    @Test
+    public void testEquals() {
+        final HistoryPoint h1 = path(true, "2", "1", "3");
+        final HistoryPoint h2 = path(true, "2", "1", "3");
+        assertEquals(h1, h2);
+        assertEquals(h1.hashCode(), h2.hashCode());
+        assertNotEquals(h1, h2.next());
+        assertNotEquals(h1, path(true, "2", "1", "4"));
+        assertNotEquals(h1, path(true, "2", "1"));
+        assertEquals(HistoryPoint.unknown(), HistoryPoint.unknown());
+        assertNotEquals(HistoryPoint.unknown(), h1);
+        assertNotEquals(h1, HistoryPoint.unknown());
+    }
+
+    @Test
+    public void testWeaklyBefore() {
+        final HistoryPoint prefix = path(true, "2", "1");
+        final HistoryPoint deeper = prefix.nextBranch("3").nextBranch("1");
+        assertTrue(prefix.weaklyBefore(prefix));
+        assertTrue(prefix.weaklyBefore(deeper));
+        assertFalse(deeper.weaklyBefore(prefix));
+        assertTrue(prefix.next().weaklyBefore(deeper));
+
+        //same branch, sequence numbers decide
+        assertTrue(prefix.weaklyBefore(prefix.next()));
+        assertFalse(prefix.next().weaklyBefore(prefix));
+
+        //same depth or deeper, but on another branch, also when built independently
+        assertFalse(path(true, "2", "2").weaklyBefore(deeper));
+        assertFalse(prefix.weaklyBefore(path(true, "2", "2", "3")));
+        assertTrue(prefix.weaklyBefore(path(true, "2", "1", "3", "1")));
+    }
+
+    @Test
+    public void testDeepPath() {
+        final StringBuilder expected = new StringBuilder(".1");
+        HistoryPoint h = path(true);
+        final HistoryPoint start = h;
+        for (int i = 0; i < 10_000; ++i) {
+            h = h.nextBranch("" + (i % 3 + 1));
+            expected.append('.').append(i % 3 + 1);
+        }
+        assertEquals(expected.toString(), h.getBranchIdentifier());
+        assertTrue(start.weaklyBefore(h));
+        assertFalse(h.weaklyBefore(start));
+    }
+}